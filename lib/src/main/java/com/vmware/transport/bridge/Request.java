@@ -5,15 +5,23 @@
  */
 package com.vmware.transport.bridge;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonSetter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Map;
 import java.util.UUID;
 
 @SuppressWarnings("unchecked")
 public class Request<ReqP> extends AbstractFrame {
 
+    private static final ObjectMapper payloadMapper = new ObjectMapper();
+
     @Getter @Setter
     private String targetUser;
 
@@ -39,6 +47,10 @@ public class Request<ReqP> extends AbstractFrame {
     @Getter @Setter
     private Boolean isRejected = false;
 
+    // Payload of a request received as JSON (i.e. over the bridge), kept as tokens until
+    // it is either bound to the request type of a service or read with getPayload().
+    private volatile TokenBuffer rawPayload;
+
     public Request() {}
 
     public Request(Integer version, UUID id, String request, ReqP payload) {
@@ -68,6 +80,51 @@ public class Request<ReqP> extends AbstractFrame {
         this(1, id, request, null);
     }
 
+    /**
+     * Keep a JSON payload as tokens, see {@link #getRawPayload()}.
+     */
+    @JsonSetter("payload")
+    public void setRawPayload(TokenBuffer rawPayload) {
+        this.rawPayload = rawPayload;
+        this.payload = null;
+    }
+
+    /**
+     * Returns the tokens of the JSON payload this request was deserialized with, or null if the
+     * payload was set as an object. Binding the tokens to the expected payload type avoids
+     * building an intermediate map for the payload.
+     */
+    @JsonIgnore
+    public TokenBuffer getRawPayload() {
+        return rawPayload;
+    }
+
+    @Override
+    public void setPayload(Object payload) {
+        this.rawPayload = null;
+        this.payload = payload;
+    }
+
+    /**
+     * Returns the payload, a JSON payload is read into maps and lists the first time.
+     */
+    @Override
+    public Object getPayload() {
+        TokenBuffer raw = this.rawPayload;
+        if (raw != null && this.payload == null) {
+            synchronized (this) {
+                if (this.payload == null) {
+                    try {
+                        this.payload = payloadMapper.readValue(raw.asParser(), Object.class);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            }
+        }
+        return this.payload;
+    }
+
     public String toString() {
         return "Request ID: " + this.getId();
     }
@@ -10,7 +10,7 @@ import lombok.Setter;
 
 import java.util.UUID;
 
-public class Response<RespP> extends AbstractFrame<RespP> {
+public class Response<RespP> extends AbstractFrame<RespP> implements Cloneable {
 
     @Getter @Setter
     protected boolean error = false;
@@ -47,6 +47,24 @@ public class Response<RespP> extends AbstractFrame<RespP> {
         this.message = errorMessage; // make this compatible with GeneralError in TS Transport.
     }
 
+    /**
+     * Create a shallow copy of this response addressed to a different request id.
+     * The payload is shared between the two instances.
+     *
+     * @param uuid the id of the request the copy responds to.
+     * @return the copied response, of the same type as this response.
+     */
+    @SuppressWarnings("unchecked")
+    public Response<RespP> copyWithId(UUID uuid) {
+        try {
+            Response<RespP> copy = (Response<RespP>) super.clone();
+            copy.setId(uuid);
+            return copy;
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     public String toString() {
         return "Response ID: " + this.getId();
     }
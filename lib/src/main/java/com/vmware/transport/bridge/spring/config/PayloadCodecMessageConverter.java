@@ -0,0 +1,73 @@
+/*
+ * Copyright 2020 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ *
+ */
+package com.vmware.transport.bridge.spring.config;
+
+import com.vmware.transport.bus.codec.PayloadCodec;
+import com.vmware.transport.bus.codec.PayloadCodecs;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.AbstractMessageConverter;
+import org.springframework.messaging.converter.MessageConversionException;
+import org.springframework.util.MimeType;
+
+import java.io.IOException;
+
+/**
+ * Message converter decoding the body of inbound STOMP frames with the {@link PayloadCodec}
+ * registered for their content-type header, so clients can send binary (i.e. CBOR) requests
+ * to the bridge.
+ *
+ * JSON frames, and frames without content type, are left to the default converters. The
+ * converter is not used for outbound messages unless a binary content type is set explicitly.
+ */
+public class PayloadCodecMessageConverter extends AbstractMessageConverter {
+
+    public PayloadCodecMessageConverter() {
+        super(MimeType.valueOf(PayloadCodecs.CBOR_CONTENT_TYPE),
+              MimeType.valueOf(PayloadCodecs.SMILE_CONTENT_TYPE));
+        setStrictContentTypeMatch(true);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return true;
+    }
+
+    @Override
+    protected boolean supportsMimeType(MessageHeaders headers) {
+        MimeType contentType = getMimeType(headers);
+        if (contentType == null) {
+            return false;
+        }
+        PayloadCodec codec = PayloadCodecs.forContentType(contentType.toString());
+        return codec != null && codec != PayloadCodecs.JSON;
+    }
+
+    @Override
+    protected Object convertFromInternal(Message<?> message, Class<?> targetClass, Object conversionHint) {
+        if (!(message.getPayload() instanceof byte[])) {
+            return null;
+        }
+        PayloadCodec codec = PayloadCodecs.forContentType(getMimeType(message.getHeaders()).toString());
+        try {
+            return codec.decode((byte[]) message.getPayload(), targetClass);
+        } catch (IOException ex) {
+            throw new MessageConversionException(message, "Could not decode " + codec.getContentType() +
+                  " payload: " + ex.getMessage(), ex);
+        }
+    }
+
+    @Override
+    protected Object convertToInternal(Object payload, MessageHeaders headers, Object conversionHint) {
+        PayloadCodec codec = PayloadCodecs.forContentType(getMimeType(headers).toString());
+        try {
+            return codec.encode(payload);
+        } catch (IOException ex) {
+            throw new MessageConversionException("Could not encode " + codec.getContentType() +
+                  " payload: " + ex.getMessage(), ex);
+        }
+    }
+}
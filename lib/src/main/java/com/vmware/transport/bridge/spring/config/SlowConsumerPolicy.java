@@ -0,0 +1,28 @@
+/*
+ * Copyright 2020 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ *
+ */
+package com.vmware.transport.bridge.spring.config;
+
+/**
+ * What the bridge does with messages for a STOMP session which does not keep up
+ * with its outbound messages.
+ */
+public enum SlowConsumerPolicy {
+
+    /**
+     * Keep only the latest pending message per destination.
+     */
+    CONFLATE,
+
+    /**
+     * Keep the newest pending messages, drop the oldest ones.
+     */
+    DROP_OLDEST,
+
+    /**
+     * Close the session.
+     */
+    DISCONNECT
+}
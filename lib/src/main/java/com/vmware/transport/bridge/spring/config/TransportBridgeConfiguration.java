@@ -6,6 +6,7 @@
 package com.vmware.transport.bridge.spring.config;
 
 import com.vmware.transport.bridge.spring.config.interceptors.TransportDestinationMatcher;
+import com.vmware.transport.bus.codec.PayloadCodec;
 import com.vmware.transport.bridge.spring.config.interceptors.TransportStompInterceptor;
 import org.springframework.messaging.simp.stomp.StompCommand;
 
@@ -45,6 +46,7 @@ public class TransportBridgeConfiguration {
          }
          transportDestinationPrefixes.add(prefix);
       }
+      destinationRouter = null;
    }
 
    private final List<StompInterceptorRegistration> interceptors = new ArrayList<>();
@@ -77,5 +79,329 @@ public class TransportBridgeConfiguration {
 
       // Keep interceptors sorted by priority.
       interceptors.sort((o1, o2) -> o1.priority - o2.priority);
+      destinationRouter = null;
+   }
+
+   private volatile TransportDestinationRouter destinationRouter;
+
+   /**
+    * Returns the {@link TransportDestinationRouter} compiled from the registered destination
+    * prefixes and interceptors. The router is compiled on first use and again after new
+    * prefixes or interceptors were registered.
+    */
+   public TransportDestinationRouter getDestinationRouter() {
+      TransportDestinationRouter router = destinationRouter;
+      if (router == null) {
+         router = new TransportDestinationRouter(transportDestinationPrefixes, new ArrayList<>(interceptors));
+         destinationRouter = router;
+      }
+      return router;
+   }
+
+   private PayloadCodec payloadCodec;
+
+   /**
+    * Returns the codec used to encode outbound bridge messages, or null if payloads
+    * are converted by the Spring message converters.
+    */
+   public PayloadCodec getPayloadCodec() {
+      return payloadCodec;
+   }
+
+   /**
+    * Encode outbound bridge messages with the given codec (i.e. PayloadCodecs.JSON).
+    * The encoded form is cached on the bus message, so a message sent to many
+    * destinations is encoded only once. Set to null to fall back to the Spring message converters.
+    */
+   public void setPayloadCodec(PayloadCodec payloadCodec) {
+      this.payloadCodec = payloadCodec;
+   }
+
+   private boolean sessionContentTypesEnabled;
+
+   /**
+    * Returns true if STOMP sessions may choose the content type of the messages they receive.
+    */
+   public boolean isSessionContentTypesEnabled() {
+      return sessionContentTypesEnabled;
+   }
+
+   /**
+    * Let each STOMP session choose the content type of the bridge messages it receives with
+    * the content-type header of its CONNECT frame (i.e. "application/cbor"). Any content type
+    * with a codec registered in PayloadCodecs is accepted. Sessions which do not send the header
+    * keep receiving JSON (or the payload codec). Each message is encoded once per content type.
+    *
+    * Inbound SEND frames are decoded according to their own content-type header, whether or not
+    * this option is enabled.
+    */
+   public void setSessionContentTypesEnabled(boolean sessionContentTypesEnabled) {
+      this.sessionContentTypesEnabled = sessionContentTypesEnabled;
+   }
+
+   private int channelHistorySize;
+
+   /**
+    * Returns the number of recent messages kept per bridge channel, 0 if the channel
+    * history is disabled.
+    */
+   public int getChannelHistorySize() {
+      return channelHistorySize;
+   }
+
+   /**
+    * Keep the last channelHistorySize messages broadcast to each bridge channel. Broadcast
+    * messages are stamped with a per-channel sequence number and clients can resume
+    * a subscription after the last sequence number they received
+    * (see {@link com.vmware.transport.bridge.spring.services.ChannelHistory}).
+    * Set to 0 (the default) to disable the channel history.
+    */
+   public void setChannelHistorySize(int channelHistorySize) {
+      this.channelHistorySize = channelHistorySize;
+   }
+
+   private long channelHistoryLingerMillis;
+
+   /**
+    * Returns how long (in milliseconds) a bridge channel and its history are kept open
+    * after the last subscription to the channel was closed.
+    */
+   public long getChannelHistoryLingerMillis() {
+      return channelHistoryLingerMillis;
+   }
+
+   /**
+    * Keep bridge channels with history open for the given time after their last subscription
+    * was closed, so a client reconnecting after a network failure can still resume its
+    * subscription. Set to 0 (the default) to close channels immediately.
+    */
+   public void setChannelHistoryLingerMillis(long channelHistoryLingerMillis) {
+      this.channelHistoryLingerMillis = channelHistoryLingerMillis;
+   }
+
+   private TransportDestinationMatcher coalescingDestinationMatcher;
+   private long coalescingLingerMillis;
+   private int coalescingMaxBatchSize;
+
+   /**
+    * Coalesce messages broadcast to matching destinations into a single STOMP frame.
+    *
+    * While messages are sent to a destination at a low rate they are delivered immediately.
+    * Once messages arrive faster than one per linger window, the messages received within
+    * the window (or up to maxBatchSize messages) are sent as one frame with an array payload
+    * and a "transport-batch-size" header, so each subscribed session receives one frame
+    * per window instead of one frame per message.
+    *
+    * @param destinationMatcher a {@link TransportDestinationMatcher} selecting the destinations
+    *                           to coalesce. Subscribers of these destinations must accept batches.
+    * @param lingerMillis the length of the coalescing window.
+    * @param maxBatchSize the maximum number of messages sent in one frame.
+    */
+   public void enableOutboundCoalescing(
+         TransportDestinationMatcher destinationMatcher, long lingerMillis, int maxBatchSize) {
+
+      if (lingerMillis <= 0 || maxBatchSize <= 1) {
+         throw new IllegalArgumentException("Invalid outbound coalescing configuration");
+      }
+      this.coalescingDestinationMatcher = destinationMatcher;
+      this.coalescingLingerMillis = lingerMillis;
+      this.coalescingMaxBatchSize = maxBatchSize;
+   }
+
+   /**
+    * Returns the matcher selecting the destinations with outbound coalescing, or null if
+    * outbound coalescing is disabled.
+    */
+   public TransportDestinationMatcher getCoalescingDestinationMatcher() {
+      return coalescingDestinationMatcher;
+   }
+
+   public long getCoalescingLingerMillis() {
+      return coalescingLingerMillis;
+   }
+
+   public int getCoalescingMaxBatchSize() {
+      return coalescingMaxBatchSize;
+   }
+
+   private int sessionOutboundQueueLimit;
+   private long sessionSendTimeLimitMillis;
+   private SlowConsumerPolicy slowConsumerPolicy = SlowConsumerPolicy.DROP_OLDEST;
+
+   /**
+    * Returns the maximum number of messages per STOMP session which were handed over to
+    * the client outbound channel but not yet written to the socket, 0 if unlimited.
+    */
+   public int getSessionOutboundQueueLimit() {
+      return sessionOutboundQueueLimit;
+   }
+
+   /**
+    * Limit the number of outbound messages queued for a single STOMP session. Once the limit
+    * is reached, the session is considered slow and further messages are handled according to
+    * the {@link SlowConsumerPolicy}: held back and conflated, held back with the oldest ones
+    * dropped, or the session is closed. Held back messages are sent once the session catches up.
+    * Set to 0 (the default) to disable the limit.
+    */
+   public void setSessionOutboundQueueLimit(int sessionOutboundQueueLimit) {
+      this.sessionOutboundQueueLimit = sessionOutboundQueueLimit;
+   }
+
+   /**
+    * Returns how long (in milliseconds) a write to a session might take before the
+    * session is considered slow, 0 if unlimited.
+    */
+   public long getSessionSendTimeLimitMillis() {
+      return sessionSendTimeLimitMillis;
+   }
+
+   /**
+    * Consider a session slow while a write to its socket takes longer than the given time,
+    * regardless of the number of queued messages. Only applies if the session outbound
+    * queue limit is set.
+    */
+   public void setSessionSendTimeLimitMillis(long sessionSendTimeLimitMillis) {
+      this.sessionSendTimeLimitMillis = sessionSendTimeLimitMillis;
+   }
+
+   public SlowConsumerPolicy getSlowConsumerPolicy() {
+      return slowConsumerPolicy;
+   }
+
+   /**
+    * Set the policy applied to slow sessions, defaults to {@link SlowConsumerPolicy#DROP_OLDEST}.
+    */
+   public void setSlowConsumerPolicy(SlowConsumerPolicy slowConsumerPolicy) {
+      this.slowConsumerPolicy = slowConsumerPolicy;
+   }
+
+   private long sessionScopedResponseTtlMillis;
+   private int sessionScopedResponseMaxRequests;
+
+   /**
+    * Deliver the responses to requests received over the bridge only to the STOMP session which
+    * sent the request, instead of broadcasting them to all subscribers of the channel.
+    * Responses to requests which are not tracked (i.e. messages the services send on their own)
+    * are still broadcast.
+    *
+    * @param ttlMillis how long responses to a request are routed to its session.
+    * @param maxRequests the maximum number of tracked requests.
+    */
+   public void enableSessionScopedResponses(long ttlMillis, int maxRequests) {
+      if (ttlMillis <= 0 || maxRequests <= 0) {
+         throw new IllegalArgumentException("Invalid session scoped responses configuration");
+      }
+      this.sessionScopedResponseTtlMillis = ttlMillis;
+      this.sessionScopedResponseMaxRequests = maxRequests;
+   }
+
+   /**
+    * Returns true if responses are routed to the session which sent the request.
+    */
+   public boolean isSessionScopedResponsesEnabled() {
+      return sessionScopedResponseMaxRequests > 0;
+   }
+
+   public long getSessionScopedResponseTtlMillis() {
+      return sessionScopedResponseTtlMillis;
+   }
+
+   public int getSessionScopedResponseMaxRequests() {
+      return sessionScopedResponseMaxRequests;
+   }
+
+   private double sessionRequestRate;
+   private int sessionRequestBurst;
+   private double destinationRequestRate;
+   private int destinationRequestBurst;
+   private int maxInFlightRequests;
+   private long inFlightRequestTimeoutMillis;
+
+   /**
+    * Limit the rate of requests a single STOMP session may send over the bridge. Requests
+    * exceeding the limit are rejected with a 429 error response carrying a retry-after hint.
+    *
+    * @param requestsPerSecond the sustained request rate.
+    * @param burst the number of requests which may be sent at once.
+    */
+   public void setSessionRateLimit(double requestsPerSecond, int burst) {
+      if (requestsPerSecond <= 0 || burst <= 0) {
+         throw new IllegalArgumentException("Invalid session rate limit");
+      }
+      this.sessionRequestRate = requestsPerSecond;
+      this.sessionRequestBurst = burst;
+   }
+
+   /**
+    * Returns the sustained request rate allowed per STOMP session, 0 if unlimited.
+    */
+   public double getSessionRequestRate() {
+      return sessionRequestRate;
+   }
+
+   public int getSessionRequestBurst() {
+      return sessionRequestBurst;
+   }
+
+   /**
+    * Limit the rate of requests all STOMP sessions together may send to a single channel.
+    * Requests exceeding the limit are rejected with a 429 error response carrying
+    * a retry-after hint.
+    *
+    * @param requestsPerSecond the sustained request rate.
+    * @param burst the number of requests which may be sent at once.
+    */
+   public void setDestinationRateLimit(double requestsPerSecond, int burst) {
+      if (requestsPerSecond <= 0 || burst <= 0) {
+         throw new IllegalArgumentException("Invalid destination rate limit");
+      }
+      this.destinationRequestRate = requestsPerSecond;
+      this.destinationRequestBurst = burst;
+   }
+
+   /**
+    * Returns the sustained request rate allowed per channel, 0 if unlimited.
+    */
+   public double getDestinationRequestRate() {
+      return destinationRequestRate;
+   }
+
+   public int getDestinationRequestBurst() {
+      return destinationRequestBurst;
+   }
+
+   /**
+    * Limit the number of requests received over the bridge which a service channel has not
+    * responded to yet. Requests exceeding the limit are rejected with a 429 error response.
+    * A request stops counting against the limit with the first response (or error) the service
+    * sends for its id, or once the timeout expired.
+    *
+    * @param maxInFlightRequests the maximum number of pending requests per channel.
+    * @param timeoutMillis how long a request without response counts against the limit.
+    */
+   public void setMaxInFlightRequests(int maxInFlightRequests, long timeoutMillis) {
+      if (maxInFlightRequests <= 0 || timeoutMillis <= 0) {
+         throw new IllegalArgumentException("Invalid in-flight request limit");
+      }
+      this.maxInFlightRequests = maxInFlightRequests;
+      this.inFlightRequestTimeoutMillis = timeoutMillis;
+   }
+
+   /**
+    * Returns the maximum number of pending requests per channel, 0 if unlimited.
+    */
+   public int getMaxInFlightRequests() {
+      return maxInFlightRequests;
+   }
+
+   public long getInFlightRequestTimeoutMillis() {
+      return inFlightRequestTimeoutMillis;
+   }
+
+   /**
+    * Returns true if any inbound request limit is configured.
+    */
+   public boolean isAdmissionControlEnabled() {
+      return sessionRequestRate > 0 || destinationRequestRate > 0 || maxInFlightRequests > 0;
    }
 }
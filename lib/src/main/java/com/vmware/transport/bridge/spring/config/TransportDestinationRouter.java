@@ -0,0 +1,239 @@
+/*
+ * Copyright 2020 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ *
+ */
+package com.vmware.transport.bridge.spring.config;
+
+import com.vmware.transport.bridge.spring.config.interceptors.AnyDestinationMatcher;
+import com.vmware.transport.bridge.spring.config.interceptors.StartsWithDestinationMatcher;
+import com.vmware.transport.bridge.spring.config.interceptors.TransportDestinationMatcher;
+import org.springframework.messaging.simp.stomp.StompCommand;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Routing table compiled from a {@link TransportBridgeConfiguration}.
+ *
+ * Transport destination prefixes are stored in a (case insensitive) prefix trie and the
+ * interceptors registered with a {@link StartsWithDestinationMatcher} or an
+ * {@link AnyDestinationMatcher} in a prefix trie per {@link StompCommand}, so resolving a
+ * destination walks the destination once instead of testing every prefix and every interceptor.
+ * Interceptors with other matchers are tested on a cache miss only: the resolved prefixes and
+ * interceptor chains are kept in bounded caches, which assumes the destination matchers are
+ * pure functions of the destination.
+ *
+ * Instances are immutable, the configuration compiles a new router whenever prefixes or
+ * interceptors are registered.
+ */
+public class TransportDestinationRouter {
+
+    /**
+     * Maximum number of destinations cached per cache, the cache is cleared once it is full.
+     */
+    static final int MAX_CACHED_DESTINATIONS = 10000;
+
+    private static final Route NO_ROUTE = new Route(null, null);
+
+    private final TrieNode<String> prefixTrie = new TrieNode<>();
+    private final Map<StompCommand, CommandRoutes> commandRoutes = new EnumMap<>(StompCommand.class);
+    private final Map<String, Route> routeCache = new ConcurrentHashMap<>();
+
+    TransportDestinationRouter(Collection<String> destinationPrefixes,
+                               List<StompInterceptorRegistration> interceptors) {
+
+        for (String prefix : destinationPrefixes) {
+            prefixTrie.insert(prefix.toLowerCase(), prefix);
+        }
+
+        // interceptors are sorted by priority, their index defines the order of the chains.
+        for (int i = 0; i < interceptors.size(); i++) {
+            StompInterceptorRegistration registration = interceptors.get(i);
+            IndexedRegistration indexed = new IndexedRegistration(i, registration);
+            for (StompCommand command : registration.commandSet) {
+                CommandRoutes routes = commandRoutes.computeIfAbsent(command, c -> new CommandRoutes());
+                routes.add(indexed);
+            }
+        }
+    }
+
+    /**
+     * Returns the Transport destination prefix of a destination, or null if it is not
+     * a Transport destination.
+     */
+    public String getDestinationPrefix(String destination) {
+        return resolve(destination).prefix;
+    }
+
+    /**
+     * Returns the Transport channel name of a destination, or null if it is not
+     * a Transport destination.
+     */
+    public String getChannelName(String destination) {
+        return resolve(destination).channelName;
+    }
+
+    /**
+     * Returns the interceptors to apply to a STOMP frame with the given command
+     * and destination, in priority order.
+     */
+    public List<StompInterceptorRegistration> getInterceptors(StompCommand command, String destination) {
+        CommandRoutes routes = command != null ? commandRoutes.get(command) : null;
+        if (routes == null || destination == null) {
+            return Collections.emptyList();
+        }
+        return routes.getChain(destination);
+    }
+
+    private Route resolve(String destination) {
+        if (destination == null) {
+            return NO_ROUTE;
+        }
+        Route route = routeCache.get(destination);
+        if (route == null) {
+            String prefix = prefixTrie.findLongest(destination.toLowerCase().trim());
+            route = prefix == null ? NO_ROUTE :
+                  new Route(prefix, destination.substring(prefix.length()).trim());
+            cache(routeCache, destination, route);
+        }
+        return route;
+    }
+
+    private static <V> void cache(Map<String, V> cache, String destination, V value) {
+        if (cache.size() >= MAX_CACHED_DESTINATIONS) {
+            cache.clear();
+        }
+        cache.put(destination, value);
+    }
+
+    private static class Route {
+        final String prefix;
+        final String channelName;
+
+        Route(String prefix, String channelName) {
+            this.prefix = prefix;
+            this.channelName = channelName;
+        }
+    }
+
+    private static class IndexedRegistration {
+        final int index;
+        final StompInterceptorRegistration registration;
+
+        IndexedRegistration(int index, StompInterceptorRegistration registration) {
+            this.index = index;
+            this.registration = registration;
+        }
+    }
+
+    /**
+     * The interceptors registered for a single STOMP command.
+     */
+    private static class CommandRoutes {
+
+        private final TrieNode<IndexedRegistration> prefixTrie = new TrieNode<>();
+        private final List<IndexedRegistration> otherMatchers = new ArrayList<>();
+        private final Map<String, List<StompInterceptorRegistration>> chainCache = new ConcurrentHashMap<>();
+
+        void add(IndexedRegistration indexed) {
+            TransportDestinationMatcher matcher = indexed.registration.destinationMatcher;
+            // Subclasses might override match(), only the plain matchers are indexed.
+            if (matcher.getClass() == AnyDestinationMatcher.class) {
+                prefixTrie.insert("", indexed);
+            } else if (matcher.getClass() == StartsWithDestinationMatcher.class) {
+                for (String prefix : ((StartsWithDestinationMatcher) matcher).getDestinationPrefixes()) {
+                    prefixTrie.insert(prefix, indexed);
+                }
+            } else {
+                otherMatchers.add(indexed);
+            }
+        }
+
+        List<StompInterceptorRegistration> getChain(String destination) {
+            List<StompInterceptorRegistration> chain = chainCache.get(destination);
+            if (chain == null) {
+                chain = compileChain(destination);
+                cache(chainCache, destination, chain);
+            }
+            return chain;
+        }
+
+        private List<StompInterceptorRegistration> compileChain(String destination) {
+            // A registration is found once per matching prefix, keep it only once.
+            Map<Integer, IndexedRegistration> matches = new HashMap<>();
+            for (IndexedRegistration indexed : prefixTrie.findAll(destination)) {
+                matches.put(indexed.index, indexed);
+            }
+            for (IndexedRegistration indexed : otherMatchers) {
+                if (indexed.registration.destinationMatcher.match(destination)) {
+                    matches.put(indexed.index, indexed);
+                }
+            }
+            if (matches.isEmpty()) {
+                return Collections.emptyList();
+            }
+            List<IndexedRegistration> sorted = new ArrayList<>(matches.values());
+            sorted.sort((o1, o2) -> o1.index - o2.index);
+            List<StompInterceptorRegistration> chain = new ArrayList<>(sorted.size());
+            for (IndexedRegistration indexed : sorted) {
+                chain.add(indexed.registration);
+            }
+            return Collections.unmodifiableList(chain);
+        }
+    }
+
+    private static class TrieNode<V> {
+
+        private final Map<Character, TrieNode<V>> children = new HashMap<>();
+        private final List<V> values = new ArrayList<>();
+
+        void insert(String key, V value) {
+            TrieNode<V> node = this;
+            for (int i = 0; i < key.length(); i++) {
+                node = node.children.computeIfAbsent(key.charAt(i), c -> new TrieNode<>());
+            }
+            node.values.add(value);
+        }
+
+        /**
+         * Returns the first value of the longest key which is a prefix of the given string.
+         */
+        V findLongest(String str) {
+            TrieNode<V> node = this;
+            V result = node.values.isEmpty() ? null : node.values.get(0);
+            for (int i = 0; i < str.length(); i++) {
+                node = node.children.get(str.charAt(i));
+                if (node == null) {
+                    break;
+                }
+                if (!node.values.isEmpty()) {
+                    result = node.values.get(0);
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Returns the values of all keys which are a prefix of the given string.
+         */
+        List<V> findAll(String str) {
+            List<V> result = new ArrayList<>(values);
+            TrieNode<V> node = this;
+            for (int i = 0; i < str.length(); i++) {
+                node = node.children.get(str.charAt(i));
+                if (node == null) {
+                    break;
+                }
+                result.addAll(node.values);
+            }
+            return result;
+        }
+    }
+}
@@ -6,6 +6,15 @@
 package com.vmware.transport.bridge.spring.config;
 
 import com.vmware.transport.bridge.spring.config.interceptors.TransportChannelInterceptor;
+import com.vmware.transport.bridge.spring.config.interceptors.TransportContentTypeInterceptor;
+import com.vmware.transport.bridge.spring.config.interceptors.TransportOutboundLimiter;
+import com.vmware.transport.bus.EventBus;
+import com.vmware.transport.bus.model.MessageObject;
+import com.vmware.transport.bus.model.MessageType;
+import com.vmware.transport.bus.model.MonitorObject;
+import com.vmware.transport.bus.model.MonitorType;
+import com.vmware.transport.bus.store.StoreManager;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
@@ -13,9 +22,13 @@ import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.DefaultParameterNameDiscoverer;
 import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.messaging.converter.MessageConverter;
 import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.web.socket.config.annotation.AbstractWebSocketMessageBrokerConfigurer;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+
+import java.util.List;
 
 /**
  * Loads Transport message bus and bridge components.
@@ -38,13 +51,32 @@ public class TransportSpringConfig extends AbstractWebSocketMessageBrokerConfigu
     @Autowired(required = false)
     private TransportBridgeConfigurer[] transportBridgeConfigurers;
 
+    @Autowired(required = false)
+    private ObjectProvider<EventBus> busProvider;
+
     private final TransportBridgeConfiguration bridgeConfiguration = new TransportBridgeConfiguration();
 
+    private final TransportOutboundLimiter outboundLimiter =
+          new TransportOutboundLimiter(bridgeConfiguration, this::reportSlowConsumer);
+
+    private final TransportContentTypeInterceptor contentTypeInterceptor =
+          new TransportContentTypeInterceptor(bridgeConfiguration);
+
     @Bean
     public TransportBridgeConfiguration transportBridgeConfiguration() {
         return bridgeConfiguration;
     }
 
+    @Bean
+    public TransportOutboundLimiter transportOutboundLimiter() {
+        return outboundLimiter;
+    }
+
+    @Bean
+    public StoreManager storeManager(EventBus bus) {
+        return new StoreManager(bus);
+    }
+
     @Bean
     public ParameterNameDiscoverer parameterNameDiscoverer() {
         return new DefaultParameterNameDiscoverer();
@@ -59,6 +91,8 @@ public class TransportSpringConfig extends AbstractWebSocketMessageBrokerConfigu
                 configurer.configureGalacticChannels();
             }
         }
+        // Compile the routing table once all prefixes and interceptors are registered.
+        bridgeConfiguration.getDestinationRouter();
     }
 
     @Override
@@ -73,5 +107,36 @@ public class TransportSpringConfig extends AbstractWebSocketMessageBrokerConfigu
               new TransportChannelInterceptor(this.bridgeConfiguration);
 
         registration.interceptors(transportChannelInterceptor);
+        registration.interceptors(contentTypeInterceptor);
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        // Re-encode the messages before the limiter holds them back.
+        registration.interceptors(contentTypeInterceptor);
+        registration.interceptors(outboundLimiter);
+    }
+
+    @Override
+    public boolean configureMessageConverters(List<MessageConverter> messageConverters) {
+        // Decode binary SEND frames, JSON frames are handled by the default converters.
+        messageConverters.add(new PayloadCodecMessageConverter());
+        return true;
+    }
+
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.addDecoratorFactory(outboundLimiter);
+        // Write the frames encoded with a binary codec as binary messages.
+        registration.addDecoratorFactory(contentTypeInterceptor);
+    }
+
+    private void reportSlowConsumer(TransportOutboundLimiter.SlowConsumerEvent event) {
+        EventBus bus = busProvider != null ? busProvider.getIfAvailable() : null;
+        if (bus != null) {
+            MonitorObject mo = new MonitorObject(
+                  MonitorType.MonitorSlowConsumer, null, this.getClass().getName(), event);
+            bus.getApi().getMonitorStream().send(new MessageObject<>(MessageType.MessageTypeRequest, mo));
+        }
     }
 }
@@ -17,6 +17,10 @@ public class StartsWithDestinationMatcher implements TransportDestinationMatcher
         this.destinationPrefixes = destinationPrefixes;
     }
 
+    public String[] getDestinationPrefixes() {
+        return destinationPrefixes.clone();
+    }
+
     @Override
     public boolean match(String destination) {
         for (String prefix : destinationPrefixes) {
@@ -9,8 +9,8 @@ import com.vmware.transport.bridge.spring.config.TransportBridgeConfiguration;
 import com.vmware.transport.bridge.spring.config.StompInterceptorRegistration;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.stomp.StompCommand;
-import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
 import org.springframework.messaging.support.ChannelInterceptorAdapter;
 
 import java.util.List;
@@ -21,6 +21,10 @@ import java.util.List;
  */
 public class TransportChannelInterceptor extends ChannelInterceptorAdapter {
 
+    // Same as the (private) StompHeaderAccessor.COMMAND_HEADER, read directly to avoid
+    // wrapping the message headers for every frame.
+    private static final String STOMP_COMMAND_HEADER = "stompCommand";
+
     private TransportBridgeConfiguration configuration;
 
     public TransportChannelInterceptor(TransportBridgeConfiguration configuration) {
@@ -30,34 +34,27 @@ public class TransportChannelInterceptor extends ChannelInterceptorAdapter {
     @Override
     public Message<?> preSend(Message<?> message, MessageChannel channel) {
 
-        List<StompInterceptorRegistration> interceptors =
-              this.configuration.getRegisteredTransportStompInterceptors();
-
-        if (interceptors.isEmpty()) {
+        if (this.configuration.getRegisteredTransportStompInterceptors().isEmpty()) {
             // Do nothing if there are no registered custom interceptors.
             return message;
         }
 
-        StompHeaderAccessor header = StompHeaderAccessor.wrap(message);
-        String destination = header.getDestination();
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
 
         if (destination == null || destination.isEmpty()) {
             // Ignore messages without valid destination.
             return message;
         }
 
-        StompCommand stompCommand = header.getCommand();
+        StompCommand stompCommand = (StompCommand) message.getHeaders().get(STOMP_COMMAND_HEADER);
 
-        // this.configuration.interceptors list should be sorted by priority.
+        // The router returns the interceptors applicable for the command and the destination,
+        // sorted by priority.
+        List<StompInterceptorRegistration> interceptors =
+              this.configuration.getDestinationRouter().getInterceptors(stompCommand, destination);
         for (StompInterceptorRegistration interceptorRegistration : interceptors) {
-
-            // Determine whether the current interceptor is applicable for the incoming
-            // message.
-            if (interceptorRegistration.commandSet.contains(stompCommand) &&
-                  interceptorRegistration.destinationMatcher.match(destination)) {
-                // apply the interceptor and update the message
-                message = interceptorRegistration.interceptor.preSend(message);
-            }
+            // apply the interceptor and update the message
+            message = interceptorRegistration.interceptor.preSend(message);
             if (message == null) {
                 break;
             }
@@ -0,0 +1,259 @@
+/*
+ * Copyright 2020 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ *
+ */
+package com.vmware.transport.bridge.spring.config.interceptors;
+
+import com.vmware.transport.bridge.spring.config.TransportBridgeConfiguration;
+import com.vmware.transport.bus.codec.PayloadCodec;
+import com.vmware.transport.bus.codec.PayloadCodecs;
+import com.vmware.transport.core.util.Loggable;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.NativeMessageHeaderAccessor;
+import org.springframework.util.MimeType;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+import org.springframework.web.socket.sockjs.transport.SockJsSession;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Encodes the bridge messages sent to each STOMP session with the content type the session
+ * asked for in its CONNECT frame, see {@link TransportBridgeConfiguration#setSessionContentTypesEnabled(boolean)}.
+ *
+ * The interceptor is registered on both the client inbound channel, where it records the content
+ * type of each session, and the client outbound channel, where it re-encodes the MESSAGE frames of
+ * Transport destinations. Messages sent by the bridge carry the bus message they were created from,
+ * whose encoded payloads are cached per codec, so a message broadcast to many sessions is encoded
+ * once per content type. Other messages are decoded with the codec of their content type first.
+ *
+ * The interceptor also decorates the websocket handler: the STOMP handler writes every frame
+ * whose content type is not application/octet-stream as a text message, the frames encoded
+ * with a binary codec (i.e. CBOR or Smile) are written as binary messages instead. SockJS
+ * sessions do not support binary messages, their frames are written unchanged.
+ */
+public class TransportContentTypeInterceptor extends Loggable
+      implements ChannelInterceptor, WebSocketHandlerDecoratorFactory {
+
+    /**
+     * Header of the outbound messages holding the bus message they were created from,
+     * it is not sent to the clients.
+     */
+    public static final String BUS_MESSAGE_HEADER = "transportBusMessage";
+
+    private static final String CONTENT_TYPE_NATIVE_HEADER = "content-type";
+
+    private static final byte[] CONTENT_TYPE_FRAME_HEADER =
+          (CONTENT_TYPE_NATIVE_HEADER + ":").getBytes(StandardCharsets.UTF_8);
+
+    private final TransportBridgeConfiguration configuration;
+    private final Map<String, PayloadCodec> sessionCodecs = new ConcurrentHashMap<>();
+
+    public TransportContentTypeInterceptor(TransportBridgeConfiguration configuration) {
+        this.configuration = configuration;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        if (!configuration.isSessionContentTypesEnabled()) {
+            return message;
+        }
+        MessageHeaders headers = message.getHeaders();
+        SimpMessageType messageType = SimpMessageHeaderAccessor.getMessageType(headers);
+        if (messageType == SimpMessageType.MESSAGE) {
+            return encode(message);
+        }
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(headers);
+        if (sessionId == null) {
+            return message;
+        }
+        if (messageType == SimpMessageType.CONNECT) {
+            PayloadCodec codec = getRequestedCodec(headers);
+            if (codec != null) {
+                sessionCodecs.put(sessionId, codec);
+            }
+        } else if (messageType == SimpMessageType.DISCONNECT) {
+            sessionCodecs.remove(sessionId);
+        }
+        return message;
+    }
+
+    @Override
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                if (WebSocketSessionDecorator.unwrap(session) instanceof SockJsSession) {
+                    super.afterConnectionEstablished(session);
+                } else {
+                    super.afterConnectionEstablished(new BinaryFrameSession(session));
+                }
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                sessionCodecs.remove(session.getId());
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    /**
+     * Returns the codec used for the messages sent to a session, or null if it did not choose one.
+     */
+    public PayloadCodec getSessionCodec(String sessionId) {
+        return sessionCodecs.get(sessionId);
+    }
+
+    @SuppressWarnings("unchecked")
+    private PayloadCodec getRequestedCodec(MessageHeaders headers) {
+        Map<String, List<String>> nativeHeaders =
+              (Map<String, List<String>>) headers.get(NativeMessageHeaderAccessor.NATIVE_HEADERS);
+        List<String> values = nativeHeaders != null ? nativeHeaders.get(CONTENT_TYPE_NATIVE_HEADER) : null;
+        if (values == null || values.isEmpty()) {
+            return null;
+        }
+        PayloadCodec codec = PayloadCodecs.forContentType(values.get(0));
+        if (codec == null) {
+            logWarnMessage("Transport does not support the content type requested by STOMP session " +
+                  SimpMessageHeaderAccessor.getSessionId(headers) + ": " + values.get(0));
+        }
+        return codec;
+    }
+
+    private Message<?> encode(Message<?> message) {
+        MessageHeaders headers = message.getHeaders();
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(headers);
+        PayloadCodec codec = sessionId != null ? sessionCodecs.get(sessionId) : null;
+        if (codec == null) {
+            return message;
+        }
+        String destination = SimpMessageHeaderAccessor.getDestination(headers);
+        if (destination == null || configuration.getDestinationRouter().getDestinationPrefix(destination) == null) {
+            return message;
+        }
+        MimeType contentType = getContentType(headers);
+        if (contentType != null && PayloadCodecs.forContentType(contentType.toString()) == codec) {
+            return message;
+        }
+
+        byte[] payload;
+        try {
+            Object busMessage = headers.get(BUS_MESSAGE_HEADER);
+            if (busMessage instanceof com.vmware.transport.bus.model.Message) {
+                payload = ((com.vmware.transport.bus.model.Message) busMessage).getEncodedPayload(codec);
+            } else {
+                PayloadCodec sourceCodec = contentType != null ?
+                      PayloadCodecs.forContentType(contentType.toString()) : PayloadCodecs.JSON;
+                if (sourceCodec == null || !(message.getPayload() instanceof byte[])) {
+                    return message;
+                }
+                payload = codec.encode(sourceCodec.decode((byte[]) message.getPayload(), Object.class));
+            }
+        } catch (IOException ex) {
+            logErrorMessage("Transport failed to encode payload for " + destination, ex.getMessage());
+            return message;
+        }
+
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        accessor.setContentType(MimeType.valueOf(codec.getContentType()));
+        return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+    }
+
+    /**
+     * Returns the value of the content-type header of an encoded STOMP frame, or null if
+     * the frame has no content type.
+     */
+    static String getFrameContentType(byte[] frame) {
+        // skip the command line.
+        int lineStart = indexOf(frame, (byte) '\n', 0) + 1;
+        while (lineStart > 0 && lineStart < frame.length) {
+            int lineEnd = indexOf(frame, (byte) '\n', lineStart);
+            if (lineEnd < 0) {
+                return null;
+            }
+            int end = lineEnd > lineStart && frame[lineEnd - 1] == '\r' ? lineEnd - 1 : lineEnd;
+            if (end == lineStart) {
+                // end of the headers.
+                return null;
+            }
+            if (startsWith(frame, lineStart, CONTENT_TYPE_FRAME_HEADER)) {
+                int valueStart = lineStart + CONTENT_TYPE_FRAME_HEADER.length;
+                return new String(frame, valueStart, end - valueStart, StandardCharsets.UTF_8);
+            }
+            lineStart = lineEnd + 1;
+        }
+        return null;
+    }
+
+    private static int indexOf(byte[] bytes, byte value, int from) {
+        for (int i = from; i < bytes.length; i++) {
+            if (bytes[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean startsWith(byte[] bytes, int offset, byte[] prefix) {
+        if (bytes.length - offset < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (bytes[offset + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static MimeType getContentType(MessageHeaders headers) {
+        Object value = headers.get(MessageHeaders.CONTENT_TYPE);
+        if (value instanceof MimeType) {
+            return (MimeType) value;
+        }
+        return value != null ? MimeType.valueOf(value.toString()) : null;
+    }
+
+    /**
+     * Session writing the text frames encoded with a binary codec as binary messages.
+     */
+    private static class BinaryFrameSession extends WebSocketSessionDecorator {
+
+        BinaryFrameSession(WebSocketSession session) {
+            super(session);
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) throws IOException {
+            if (message instanceof TextMessage) {
+                // the STOMP handler creates the text message from the encoded frame,
+                // asBytes() returns these bytes unchanged.
+                byte[] frame = ((TextMessage) message).asBytes();
+                PayloadCodec codec = PayloadCodecs.forContentType(getFrameContentType(frame));
+                if (codec != null && codec.isBinary()) {
+                    message = new BinaryMessage(frame, message.isLast());
+                }
+            }
+            super.sendMessage(message);
+        }
+    }
+}
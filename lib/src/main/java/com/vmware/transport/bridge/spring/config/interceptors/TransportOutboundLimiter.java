@@ -0,0 +1,323 @@
+/*
+ * Copyright 2020 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ *
+ */
+package com.vmware.transport.bridge.spring.config.interceptors;
+
+import com.vmware.transport.bridge.spring.config.SlowConsumerPolicy;
+import com.vmware.transport.bridge.spring.config.TransportBridgeConfiguration;
+import com.vmware.transport.core.util.Loggable;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Tracks the outbound messages of each STOMP session and applies the configured
+ * {@link SlowConsumerPolicy} to sessions which do not keep up.
+ *
+ * The limiter is registered both as an interceptor of the client outbound channel, where it
+ * counts the MESSAGE frames handed over to a session, and as a decorator of the websocket handler,
+ * where it counts the frames actually written to the socket and measures how long writes take.
+ * Once a session has {@link TransportBridgeConfiguration#getSessionOutboundQueueLimit()} frames
+ * in flight (or a write takes longer than the send time limit), new messages for that session are
+ * held back in a bounded per-session queue, which is drained as the session catches up, or the
+ * session is closed. Other sessions are not affected.
+ *
+ * Sessions are reported to the slow consumer listener when they become slow.
+ */
+public class TransportOutboundLimiter extends Loggable
+      implements ChannelInterceptor, WebSocketHandlerDecoratorFactory {
+
+    private static final byte[] MESSAGE_FRAME_PREFIX = "MESSAGE\n".getBytes(StandardCharsets.UTF_8);
+
+    private final TransportBridgeConfiguration configuration;
+    private final Consumer<SlowConsumerEvent> slowConsumerListener;
+    private final Map<String, SessionState> sessions = new ConcurrentHashMap<>();
+
+    // Set while held back messages are released, they were already counted.
+    private final ThreadLocal<Boolean> releasing = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    public TransportOutboundLimiter(TransportBridgeConfiguration configuration,
+                                    Consumer<SlowConsumerEvent> slowConsumerListener) {
+        this.configuration = configuration;
+        this.slowConsumerListener = slowConsumerListener;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        int limit = configuration.getSessionOutboundQueueLimit();
+        if (limit <= 0 || releasing.get() ||
+              SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.MESSAGE) {
+            return message;
+        }
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        SessionState state = sessionId != null ? sessions.get(sessionId) : null;
+        if (state == null) {
+            return message;
+        }
+        return state.enqueue(message, channel, limit);
+    }
+
+    @Override
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                SessionState state = new SessionState(session);
+                sessions.put(session.getId(), state);
+                super.afterConnectionEstablished(new TrackedSession(session, state));
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                sessions.remove(session.getId());
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    /**
+     * Returns the number of messages of a session which were not written to the socket yet
+     * (including the held back messages).
+     */
+    public int getQueuedMessages(String sessionId) {
+        SessionState state = sessions.get(sessionId);
+        return state != null ? state.getQueuedMessages() : 0;
+    }
+
+    /**
+     * Returns the number of messages dropped for a session.
+     */
+    public long getDroppedMessages(String sessionId) {
+        SessionState state = sessions.get(sessionId);
+        return state != null ? state.getDroppedMessages() : 0;
+    }
+
+    /**
+     * Returns true if the session is currently considered slow.
+     */
+    public boolean isSlow(String sessionId) {
+        SessionState state = sessions.get(sessionId);
+        return state != null && state.isSlow();
+    }
+
+    private static boolean isMessageFrame(WebSocketMessage<?> message) {
+        if (message instanceof TextMessage) {
+            return ((TextMessage) message).getPayload().startsWith("MESSAGE\n");
+        }
+        if (message instanceof BinaryMessage) {
+            ByteBuffer payload = ((BinaryMessage) message).getPayload();
+            if (payload.remaining() < MESSAGE_FRAME_PREFIX.length) {
+                return false;
+            }
+            for (int i = 0; i < MESSAGE_FRAME_PREFIX.length; i++) {
+                if (payload.get(payload.position() + i) != MESSAGE_FRAME_PREFIX[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private class SessionState {
+
+        private final WebSocketSession session;
+
+        // Held back messages, keyed by destination when conflating.
+        private final LinkedHashMap<Object, Message<?>> held = new LinkedHashMap<>();
+        private MessageChannel channel;
+        private long heldCount;
+
+        private int inFlight;
+        private long sendStartedNanos;
+        private long lastSendNanos;
+        private long droppedMessages;
+        private boolean slow;
+        private boolean closing;
+
+        SessionState(WebSocketSession session) {
+            this.session = session;
+        }
+
+        Message<?> enqueue(Message<?> message, MessageChannel channel, int limit) {
+            SlowConsumerEvent event = null;
+            boolean close = false;
+            synchronized (this) {
+                long sendTimeLimit = configuration.getSessionSendTimeLimitMillis();
+                boolean stalled = sendTimeLimit > 0 && sendStartedNanos != 0 &&
+                      System.nanoTime() - sendStartedNanos > TimeUnit.MILLISECONDS.toNanos(sendTimeLimit);
+                if (!stalled && held.isEmpty() && inFlight < limit) {
+                    inFlight++;
+                    return message;
+                }
+
+                SlowConsumerPolicy policy = configuration.getSlowConsumerPolicy();
+                if (policy == SlowConsumerPolicy.DISCONNECT) {
+                    droppedMessages++;
+                    close = !closing;
+                    closing = true;
+                } else {
+                    this.channel = channel;
+                    String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+                    Object key = policy == SlowConsumerPolicy.CONFLATE && destination != null ?
+                          destination : Long.valueOf(heldCount++);
+                    if (held.put(key, message) != null) {
+                        droppedMessages++;
+                    }
+                    Iterator<Message<?>> oldest = held.values().iterator();
+                    while (held.size() > limit) {
+                        oldest.next();
+                        oldest.remove();
+                        droppedMessages++;
+                    }
+                }
+                if (!slow) {
+                    slow = true;
+                    event = createEvent(policy);
+                }
+            }
+
+            if (event != null) {
+                logWarnMessage("Transport detected slow STOMP session " + session.getId() +
+                      ", applying slow consumer policy " + event.policy);
+                slowConsumerListener.accept(event);
+            }
+            if (close) {
+                try {
+                    session.close(CloseStatus.SESSION_NOT_RELIABLE);
+                } catch (IOException ex) {
+                    logErrorMessage("Transport failed to close slow STOMP session " + session.getId(),
+                          ex.getMessage());
+                }
+            }
+            return null;
+        }
+
+        synchronized void onSendStarted() {
+            sendStartedNanos = System.nanoTime();
+        }
+
+        void onSent() {
+            List<Message<?>> released = new ArrayList<>();
+            MessageChannel channel;
+            synchronized (this) {
+                lastSendNanos = System.nanoTime() - sendStartedNanos;
+                sendStartedNanos = 0;
+                inFlight = Math.max(0, inFlight - 1);
+
+                int limit = configuration.getSessionOutboundQueueLimit();
+                Iterator<Message<?>> oldest = held.values().iterator();
+                while (oldest.hasNext() && inFlight < limit) {
+                    released.add(oldest.next());
+                    oldest.remove();
+                    inFlight++;
+                }
+                if (slow && held.isEmpty() && inFlight <= limit / 2) {
+                    slow = false;
+                }
+                channel = this.channel;
+            }
+
+            if (!released.isEmpty()) {
+                releasing.set(Boolean.TRUE);
+                try {
+                    for (Message<?> message : released) {
+                        channel.send(message);
+                    }
+                } finally {
+                    releasing.set(Boolean.FALSE);
+                }
+            }
+        }
+
+        synchronized int getQueuedMessages() {
+            return inFlight + held.size();
+        }
+
+        synchronized long getDroppedMessages() {
+            return droppedMessages;
+        }
+
+        synchronized boolean isSlow() {
+            return slow;
+        }
+
+        // Must be called while holding the lock.
+        private SlowConsumerEvent createEvent(SlowConsumerPolicy policy) {
+            return new SlowConsumerEvent(session.getId(), policy, inFlight + held.size(),
+                  droppedMessages, TimeUnit.NANOSECONDS.toMillis(lastSendNanos));
+        }
+    }
+
+    /**
+     * Counts the MESSAGE frames written to the socket of a session.
+     */
+    private static class TrackedSession extends WebSocketSessionDecorator {
+
+        private final SessionState state;
+
+        TrackedSession(WebSocketSession session, SessionState state) {
+            super(session);
+            this.state = state;
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) throws IOException {
+            if (!isMessageFrame(message)) {
+                super.sendMessage(message);
+                return;
+            }
+            state.onSendStarted();
+            try {
+                super.sendMessage(message);
+            } finally {
+                state.onSent();
+            }
+        }
+    }
+
+    /**
+     * Reported when a STOMP session becomes slow.
+     */
+    public static class SlowConsumerEvent {
+        public final String sessionId;
+        public final SlowConsumerPolicy policy;
+        public final int queuedMessages;
+        public final long droppedMessages;
+        public final long lastSendMillis;
+
+        public SlowConsumerEvent(String sessionId, SlowConsumerPolicy policy, int queuedMessages,
+                                 long droppedMessages, long lastSendMillis) {
+            this.sessionId = sessionId;
+            this.policy = policy;
+            this.queuedMessages = queuedMessages;
+            this.droppedMessages = droppedMessages;
+            this.lastSendMillis = lastSendMillis;
+        }
+    }
+}
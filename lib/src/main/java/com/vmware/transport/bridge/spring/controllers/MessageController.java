@@ -8,7 +8,11 @@ package com.vmware.transport.bridge.spring.controllers;
 
 import com.vmware.transport.bridge.RequestException;
 import com.vmware.transport.bridge.Response;
+import com.vmware.transport.bridge.spring.services.TransportAdmissionControl;
+import com.vmware.transport.bridge.spring.services.TransportSubscriptionService;
 import com.vmware.transport.bus.model.MessageHeaders;
+import com.vmware.transport.bus.model.MessageObject;
+import com.vmware.transport.bus.model.MessageType;
 import com.vmware.transport.core.util.ClassMapper;
 import com.vmware.transport.core.util.Loggable;
 import com.vmware.transport.bus.EventBus;
@@ -32,6 +36,12 @@ public class MessageController extends Loggable {
 
     private EventBus bus;
 
+    @Autowired(required = false)
+    private TransportSubscriptionService subscriptionService;
+
+    @Autowired(required = false)
+    private TransportAdmissionControl admissionControl;
+
     @Autowired
     MessageController(EventBus eventBus) {
         this.bus = eventBus;
@@ -44,15 +54,33 @@ public class MessageController extends Loggable {
 
         validateRequest(request);
         this.logTraceMessage("New inbound message received for channel: ", topicDestination);
+        boolean galactic = bus.isGalacticChannel(topicDestination);
+        String sessionId = headers != null ? (String) headers.get(SimpMessageHeaderAccessor.SESSION_ID_HEADER) : null;
+        Response rejection = admitRequest(request, topicDestination, sessionId, !galactic);
+        if (rejection != null) {
+            MessageObject<Response> msg = new MessageObject<>(MessageType.MessageTypeError, rejection);
+            msg.setId(request.getId());
+            if (subscriptionService == null ||
+                  !subscriptionService.sendToSession(sessionId, topicDestination, msg)) {
+                if (!galactic) {
+                    bus.sendErrorMessageWithId(topicDestination, rejection, request.getId());
+                }
+            }
+            return;
+        }
         if (headers != null) {
             request.setSessionAttributes(
                   (Map<String, Object>) headers.get(SimpMessageHeaderAccessor.SESSION_ATTRIBUTES));
         }
         MessageHeaders messageHeaders = ClassMapper.CastMessageHeaders(request.getHeaders());
-        if (bus.isGalacticChannel(topicDestination)) {
+        if (galactic) {
             // unwrap the payload and forward it to the external message broker
             bus.sendRequestMessage(topicDestination, request.getPayload(), messageHeaders);
         } else {
+            if (subscriptionService != null && headers != null) {
+                // remember the session sending the request, so the response can be routed back to it.
+                subscriptionService.registerRequestOrigin(topicDestination, request.getId(), sessionId);
+            }
             bus.sendRequestMessage(topicDestination, request, messageHeaders);
         }
     }
@@ -64,6 +92,12 @@ public class MessageController extends Loggable {
                                    @Headers Map<String, Object> headers) throws RequestException {
 
         validateRequest(request);
+        String sessionId = headers != null ? (String) headers.get(SimpMessageHeaderAccessor.SESSION_ID_HEADER) : null;
+        Response rejection = admitRequest(request, queueDestination, sessionId, true);
+        if (rejection != null) {
+            bus.sendErrorMessageToTarget(queueDestination, rejection, request.getId(), principal.getName());
+            return;
+        }
         request.setTargetUser(principal.getName());
         if (headers != null) {
             request.setSessionAttributes(
@@ -89,6 +123,28 @@ public class MessageController extends Loggable {
         return this.handleException(exception);
     }
 
+    /**
+     * Apply the admission control to a request.
+     *
+     * @return null if the request may be forwarded, otherwise the error response to send back.
+     */
+    private Response admitRequest(Request request, String channelName, String sessionId, boolean trackInFlight) {
+        if (admissionControl == null) {
+            return null;
+        }
+        TransportAdmissionControl.Rejection rejection =
+              admissionControl.admit(sessionId, channelName, request.getId(), trackInFlight);
+        if (rejection == null) {
+            return null;
+        }
+        Response<TransportAdmissionControl.Rejection> resp = new Response<>(request.getId(), rejection);
+        resp.setError(true);
+        resp.setErrorCode(429);
+        resp.setErrorMessage("Request rejected (" + rejection.getReason() + "), retry after " +
+              rejection.getRetryAfterMillis() + "ms");
+        return resp;
+    }
+
     private void validateRequest(Request request) throws RequestException {
         if(request.getId() == null) {
             throw new RequestException("Request 'id' is missing");
@@ -5,6 +5,7 @@
  */
 package com.vmware.transport.bridge.spring.handlers;
 
+import com.vmware.transport.bridge.spring.services.TransportAdmissionControl;
 import com.vmware.transport.bridge.spring.services.TransportSubscriptionService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -20,12 +21,18 @@ public class TransportDisconnectHandler implements ApplicationListener<SessionDi
     @Autowired
     private TransportSubscriptionService subService;
 
+    @Autowired(required = false)
+    private TransportAdmissionControl admissionControl;
+
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
     public void onApplicationEvent(SessionDisconnectEvent event) {
         StompHeaderAccessor sha = StompHeaderAccessor.wrap(event.getMessage());
         logger.info("[x] Transport Bridge: disconnect:" + sha.getSessionId());
         subService.unsubscribeSessionsAfterDisconnect(sha.getSessionId());
+        if (admissionControl != null) {
+            admissionControl.onSessionDisconnect(sha.getSessionId());
+        }
     }
 
 }
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2020 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ *
+ */
+package com.vmware.transport.bridge.spring.services;
+
+import com.vmware.transport.bus.model.Message;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Bounded history of the messages broadcast to a bridge channel.
+ *
+ * Every recorded message gets the next sequence number of the channel (starting from 1).
+ * The last {@code capacity} messages are kept in a ring buffer, so clients which lost their
+ * connection can resume their subscription after the last sequence number they received.
+ *
+ * Sequence numbers are only meaningful within an epoch: a new epoch starts whenever the
+ * history of a channel is recreated (e.g. after the bridge was restarted).
+ */
+public class ChannelHistory {
+
+    /**
+     * STOMP header with the sequence number of a broadcast message.
+     */
+    public static final String SEQUENCE_HEADER = "transport-seq";
+
+    /**
+     * STOMP header with the epoch of the sequence number.
+     */
+    public static final String EPOCH_HEADER = "transport-seq-epoch";
+
+    /**
+     * SUBSCRIBE header with the last sequence number received by the client.
+     */
+    public static final String RESUME_AFTER_HEADER = "transport-resume-after";
+
+    /**
+     * Optional SUBSCRIBE header with the epoch of the last sequence number received by the client.
+     */
+    public static final String RESUME_EPOCH_HEADER = "transport-resume-epoch";
+
+    /**
+     * Header set (to "true") on the message telling a client that the missed messages are no
+     * longer available and that it has to fully resync its state.
+     */
+    public static final String RESYNC_HEADER = "transport-resync";
+
+    private final String epoch = UUID.randomUUID().toString();
+    private final Message[] messages;
+    private long lastSeq;
+
+    public ChannelHistory(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Invalid channel history capacity: " + capacity);
+        }
+        this.messages = new Message[capacity];
+    }
+
+    public String getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * Returns the sequence number of the last recorded message, 0 if no message was recorded yet.
+     */
+    public synchronized long getLastSeq() {
+        return lastSeq;
+    }
+
+    /**
+     * Record a message and return its sequence number.
+     */
+    public synchronized long record(Message message) {
+        lastSeq++;
+        messages[(int) (lastSeq % messages.length)] = message;
+        return lastSeq;
+    }
+
+    /**
+     * Returns the messages recorded after the given sequence number, in order, or null if some
+     * of them are no longer in the history (or the sequence number is not known at all).
+     */
+    public synchronized List<Message> getAfter(long seq) {
+        long oldestSeq = Math.max(1, lastSeq - messages.length + 1);
+        if (seq < 0 || seq > lastSeq || seq + 1 < oldestSeq) {
+            return null;
+        }
+        List<Message> result = new ArrayList<>((int) (lastSeq - seq));
+        for (long i = seq + 1; i <= lastSeq; i++) {
+            result.add(messages[(int) (i % messages.length)]);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2020 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ *
+ */
+package com.vmware.transport.bridge.spring.services;
+
+import com.vmware.transport.bus.model.Message;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * Coalesces the messages sent to a STOMP destination.
+ *
+ * A message is passed to the sender immediately if nothing was sent to its destination during
+ * the last linger window. Otherwise it is queued, and the queued messages are passed to the sender
+ * together once the window expires or once maxBatchSize messages are queued. Under low load every
+ * message is therefore sent on its own, while a busy destination is sent at most one batch per window.
+ *
+ * Messages of a destination are always passed to the sender in order.
+ */
+public class OutboundCoalescer {
+
+    /**
+     * STOMP header with the number of messages in a coalesced frame.
+     */
+    public static final String BATCH_SIZE_HEADER = "transport-batch-size";
+
+    private final ScheduledExecutorService executor;
+    private final long lingerNanos;
+    private final int maxBatchSize;
+    private final BiConsumer<String, List<PendingMessage>> sender;
+
+    private final Map<String, DestinationQueue> destinations = new ConcurrentHashMap<>();
+
+    OutboundCoalescer(ScheduledExecutorService executor, long lingerMillis, int maxBatchSize,
+                      BiConsumer<String, List<PendingMessage>> sender) {
+        this.executor = executor;
+        this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+        this.maxBatchSize = maxBatchSize;
+        this.sender = sender;
+    }
+
+    /**
+     * Send or queue a message.
+     */
+    void offer(String destination, Message message, Map<String, Object> nativeHeaders) {
+        destinations.computeIfAbsent(destination, DestinationQueue::new)
+              .offer(new PendingMessage(message, nativeHeaders));
+    }
+
+    /**
+     * Send the queued messages of a destination and forget about it.
+     */
+    void remove(String destination) {
+        DestinationQueue queue = destinations.remove(destination);
+        if (queue != null) {
+            queue.flush();
+        }
+    }
+
+    static class PendingMessage {
+        final Message message;
+        final Map<String, Object> nativeHeaders;
+
+        PendingMessage(Message message, Map<String, Object> nativeHeaders) {
+            this.message = message;
+            this.nativeHeaders = nativeHeaders;
+        }
+    }
+
+    private class DestinationQueue {
+
+        private final String destination;
+        private List<PendingMessage> pending = new ArrayList<>();
+        private long lastSendNanos = System.nanoTime() - lingerNanos;
+        private ScheduledFuture<?> flushFuture;
+
+        DestinationQueue(String destination) {
+            this.destination = destination;
+        }
+
+        synchronized void offer(PendingMessage message) {
+            long now = System.nanoTime();
+            if (pending.isEmpty() && now - lastSendNanos >= lingerNanos) {
+                lastSendNanos = now;
+                sender.accept(destination, List.of(message));
+                return;
+            }
+            pending.add(message);
+            if (pending.size() >= maxBatchSize) {
+                flush();
+            } else if (flushFuture == null) {
+                flushFuture = executor.schedule(
+                      this::flush, Math.max(0, lastSendNanos + lingerNanos - now), TimeUnit.NANOSECONDS);
+            }
+        }
+
+        synchronized void flush() {
+            if (flushFuture != null) {
+                flushFuture.cancel(false);
+                flushFuture = null;
+            }
+            if (pending.isEmpty()) {
+                return;
+            }
+            List<PendingMessage> batch = pending;
+            pending = new ArrayList<>();
+            lastSendNanos = System.nanoTime();
+            sender.accept(destination, batch);
+        }
+    }
+}
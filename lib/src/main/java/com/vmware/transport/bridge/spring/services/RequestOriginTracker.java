@@ -0,0 +1,117 @@
+/*
+ * Copyright 2020 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ *
+ */
+package com.vmware.transport.bridge.spring.services;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers which STOMP session sent a request to a bridge channel, so the responses
+ * to the request can be delivered to that session only.
+ *
+ * Services may send several responses to the same request, so origins are not removed
+ * when a response is delivered; they expire after a fixed time instead. At most
+ * maxRequests origins are tracked, requests received beyond that are not tracked
+ * (and their responses are broadcast).
+ *
+ * A request id is chosen by the client, a session reusing the id of a request sent by
+ * another session must not receive its responses: the id is then marked as conflicting
+ * and the responses to it are broadcast until it expires.
+ */
+class RequestOriginTracker {
+
+    private final long ttlNanos;
+    private final int maxRequests;
+    private final Map<UUID, RequestOrigin> origins = new ConcurrentHashMap<>();
+
+    RequestOriginTracker(long ttlMillis, int maxRequests) {
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.maxRequests = maxRequests;
+    }
+
+    /**
+     * Record the origin of a request.
+     *
+     * @return false if too many requests are tracked already, or if the request id
+     *         is tracked for another session or channel.
+     */
+    boolean register(UUID requestId, String channelName, String sessionId) {
+        if (origins.size() >= maxRequests) {
+            return false;
+        }
+        long now = System.nanoTime();
+        RequestOrigin origin = new RequestOrigin(channelName, sessionId, now);
+        while (true) {
+            RequestOrigin existing = origins.putIfAbsent(requestId, origin);
+            if (existing == null) {
+                return true;
+            }
+            if (now - existing.createdNanos > ttlNanos) {
+                if (origins.replace(requestId, existing, origin)) {
+                    return true;
+                }
+                continue;
+            }
+            if (existing.matches(channelName, sessionId)) {
+                return true;
+            }
+            // keep the creation time of the first origin, the id is not reused forever.
+            origins.replace(requestId, existing, new RequestOrigin(null, null, existing.createdNanos));
+            return false;
+        }
+    }
+
+    /**
+     * Returns the origin of a request sent to the given channel, or null if it is not known.
+     */
+    RequestOrigin get(UUID requestId, String channelName) {
+        RequestOrigin origin = origins.get(requestId);
+        if (origin == null) {
+            return null;
+        }
+        if (System.nanoTime() - origin.createdNanos > ttlNanos) {
+            origins.remove(requestId, origin);
+            return null;
+        }
+        return origin.sessionId != null && origin.channelName.equals(channelName) ? origin : null;
+    }
+
+    /**
+     * Returns the number of tracked requests.
+     */
+    int size() {
+        return origins.size();
+    }
+
+    /**
+     * Forget the origins which expired.
+     */
+    void evictExpired() {
+        long now = System.nanoTime();
+        origins.values().removeIf(origin -> now - origin.createdNanos > ttlNanos);
+    }
+
+    /**
+     * Origin of a request, without a session and a channel if the request id is conflicting.
+     */
+    static class RequestOrigin {
+        final String channelName;
+        final String sessionId;
+        final long createdNanos;
+
+        RequestOrigin(String channelName, String sessionId, long createdNanos) {
+            this.channelName = channelName;
+            this.sessionId = sessionId;
+            this.createdNanos = createdNanos;
+        }
+
+        boolean matches(String channelName, String sessionId) {
+            return sessionId.equals(this.sessionId) && channelName.equals(this.channelName);
+        }
+    }
+}
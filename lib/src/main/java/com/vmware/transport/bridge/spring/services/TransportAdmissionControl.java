@@ -0,0 +1,383 @@
+/*
+ * Copyright 2020 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ *
+ */
+package com.vmware.transport.bridge.spring.services;
+
+import com.vmware.transport.bridge.spring.config.TransportBridgeConfiguration;
+import com.vmware.transport.bus.BusTransaction;
+import com.vmware.transport.bus.EventBus;
+import com.vmware.transport.bus.model.Message;
+import com.vmware.transport.core.util.Loggable;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Admission control for the requests received over the bridge.
+ *
+ * Requests are checked against a token bucket per STOMP session, a token bucket per channel and
+ * a limit of requests per channel which the service did not respond to yet, as configured in the
+ * {@link TransportBridgeConfiguration}. The checks only use atomic operations, admitting a request
+ * never blocks. Rejected requests are counted per {@link RejectionReason}.
+ *
+ * Pending requests are released when the first response or error with the id of the request is
+ * sent on the channel, requests without response are released once the in-flight timeout expired.
+ *
+ * Only the channels which are open on the bus (i.e. a service or another listener holds a reference
+ * to them) are rate limited and tracked, requests sent to other destinations are dropped by the bus
+ * anyway. The channel buckets which refilled and the in-flight trackers without pending requests are
+ * evicted after {@link #EVICTION_INTERVAL_MILLIS}, their bus listener is unsubscribed.
+ */
+@Service
+public class TransportAdmissionControl extends Loggable {
+
+    static final long EVICTION_INTERVAL_MILLIS = 10000;
+
+    private final EventBus bus;
+    private final TransportBridgeConfiguration bridgeConfiguration;
+
+    private final Map<String, TokenBucket> sessionBuckets = new ConcurrentHashMap<>();
+    private final Map<String, TokenBucket> destinationBuckets = new ConcurrentHashMap<>();
+    private final Map<String, InFlightRequests> inFlightRequests = new ConcurrentHashMap<>();
+
+    private final AtomicLong nextEvictionNanos = new AtomicLong(System.nanoTime());
+
+    private final LongAdder admittedRequests = new LongAdder();
+    private final Map<RejectionReason, LongAdder> rejectedRequests = new EnumMap<>(RejectionReason.class);
+
+    @Autowired
+    public TransportAdmissionControl(EventBus bus, TransportBridgeConfiguration bridgeConfiguration) {
+        this.bus = bus;
+        this.bridgeConfiguration = bridgeConfiguration;
+        for (RejectionReason reason : RejectionReason.values()) {
+            rejectedRequests.put(reason, new LongAdder());
+        }
+    }
+
+    /**
+     * Check whether a request may be forwarded to a channel.
+     *
+     * @param sessionId the STOMP session which sent the request, may be null.
+     * @param channelName the channel the request is sent to.
+     * @param requestId the id of the request.
+     * @param trackInFlight false if the responses to the request cannot be observed
+     *                      on the bus (i.e. for galactic channels), the in-flight limit is not applied.
+     * @return null if the request is admitted, or the reason of the rejection.
+     */
+    public Rejection admit(String sessionId, String channelName, UUID requestId, boolean trackInFlight) {
+        TransportBridgeConfiguration config = this.bridgeConfiguration;
+        if (config == null || !config.isAdmissionControlEnabled()) {
+            return null;
+        }
+        long now = System.nanoTime();
+        evictIdle(now);
+
+        if (sessionId != null && config.getSessionRequestRate() > 0) {
+            TokenBucket bucket = getBucket(sessionBuckets, sessionId,
+                  config.getSessionRequestRate(), config.getSessionRequestBurst(), now);
+            long waitNanos = bucket.tryAcquire(now);
+            if (waitNanos > 0) {
+                return reject(RejectionReason.SESSION_RATE_LIMIT, waitNanos, channelName);
+            }
+        }
+
+        if (config.getDestinationRequestRate() > 0) {
+            TokenBucket bucket = destinationBuckets.get(channelName);
+            if (bucket == null && isTrackedChannel(channelName, trackInFlight)) {
+                bucket = getBucket(destinationBuckets, channelName,
+                      config.getDestinationRequestRate(), config.getDestinationRequestBurst(), now);
+            }
+            long waitNanos = bucket != null ? bucket.tryAcquire(now) : 0;
+            if (waitNanos > 0) {
+                return reject(RejectionReason.DESTINATION_RATE_LIMIT, waitNanos, channelName);
+            }
+        }
+
+        if (trackInFlight && requestId != null && config.getMaxInFlightRequests() > 0) {
+            while (true) {
+                InFlightRequests requests = trackInFlightRequests(channelName);
+                if (requests == null || requests.tryAcquire(requestId, now, config.getMaxInFlightRequests())) {
+                    break;
+                }
+                if (!requests.isClosed()) {
+                    return reject(RejectionReason.IN_FLIGHT_LIMIT,
+                          TimeUnit.MILLISECONDS.toNanos(config.getInFlightRequestTimeoutMillis()), channelName);
+                }
+                // evicted concurrently, track the request with a new listener.
+                inFlightRequests.remove(channelName, requests);
+            }
+        }
+
+        admittedRequests.increment();
+        return null;
+    }
+
+    /**
+     * Forget the rate limit of a disconnected session.
+     */
+    public void onSessionDisconnect(String sessionId) {
+        sessionBuckets.remove(sessionId);
+    }
+
+    /**
+     * Returns the number of admitted requests.
+     */
+    public long getAdmittedRequests() {
+        return admittedRequests.sum();
+    }
+
+    /**
+     * Returns the number of requests rejected for the given reason.
+     */
+    public long getRejectedRequests(RejectionReason reason) {
+        return rejectedRequests.get(reason).sum();
+    }
+
+    /**
+     * Returns the number of requests sent to a channel which were not responded to yet.
+     */
+    public int getInFlightRequests(String channelName) {
+        InFlightRequests requests = inFlightRequests.get(channelName);
+        return requests != null ? Math.max(0, requests.count.get()) : 0;
+    }
+
+    /**
+     * Returns the number of channels with a rate limit bucket.
+     */
+    int getDestinationBucketCount() {
+        return destinationBuckets.size();
+    }
+
+    /**
+     * Returns the number of channels which requests are tracked.
+     */
+    int getTrackedChannelCount() {
+        return inFlightRequests.size();
+    }
+
+    /**
+     * Evict the channel buckets and the in-flight trackers which are idle, at most once
+     * per eviction interval.
+     *
+     * A bucket is idle once it refilled, a new bucket starts in the same state. An in-flight
+     * tracker is idle once it has no pending request and did not track one for an interval.
+     */
+    void evictIdle(long now) {
+        long nextEviction = nextEvictionNanos.get();
+        if (now - nextEviction < 0 || !nextEvictionNanos.compareAndSet(nextEviction,
+              now + TimeUnit.MILLISECONDS.toNanos(EVICTION_INTERVAL_MILLIS))) {
+            return;
+        }
+        destinationBuckets.entrySet().removeIf(entry -> entry.getValue().isFull(now));
+        long idleNanos = TimeUnit.MILLISECONDS.toNanos(EVICTION_INTERVAL_MILLIS);
+        for (Map.Entry<String, InFlightRequests> entry : inFlightRequests.entrySet()) {
+            InFlightRequests requests = entry.getValue();
+            if (requests.tryClose(now, idleNanos)) {
+                inFlightRequests.remove(entry.getKey(), requests);
+                unsubscribe(entry.getKey(), requests);
+            }
+        }
+    }
+
+    private Rejection reject(RejectionReason reason, long waitNanos, String channelName) {
+        rejectedRequests.get(reason).increment();
+        Rejection rejection = new Rejection(reason, Math.max(1, TimeUnit.NANOSECONDS.toMillis(waitNanos)));
+        this.logDebugMessage("Transport rejected request (" + reason + ") for channel", channelName);
+        return rejection;
+    }
+
+    private static TokenBucket getBucket(Map<String, TokenBucket> buckets, String key,
+                                         double requestsPerSecond, int burst, long now) {
+        TokenBucket bucket = buckets.get(key);
+        if (bucket == null) {
+            bucket = buckets.computeIfAbsent(key, k -> new TokenBucket(requestsPerSecond, burst, now));
+        }
+        return bucket;
+    }
+
+    // galactic channels are configured on the server, the other destinations are only
+    // tracked if the channel is open on the bus.
+    private boolean isTrackedChannel(String channelName, boolean trackInFlight) {
+        return !trackInFlight || bus.getApi().getChannelRefCount(channelName) > 0;
+    }
+
+    private InFlightRequests trackInFlightRequests(String channelName) {
+        InFlightRequests requests = inFlightRequests.get(channelName);
+        if (requests != null || !isTrackedChannel(channelName, true)) {
+            return requests;
+        }
+        // the bus listener is not created inside the map update, the listener of the thread
+        // losing the race is unsubscribed.
+        requests = new InFlightRequests(
+              TimeUnit.MILLISECONDS.toNanos(bridgeConfiguration.getInFlightRequestTimeoutMillis()));
+        requests.transaction = bus.listenStream(channelName, requests::onResponse, requests::onResponse);
+        InFlightRequests current = inFlightRequests.putIfAbsent(channelName, requests);
+        if (current != null) {
+            unsubscribe(channelName, requests);
+            return current;
+        }
+        return requests;
+    }
+
+    private void unsubscribe(String channelName, InFlightRequests requests) {
+        requests.transaction.unsubscribe();
+        // release the channel reference taken by the listener.
+        bus.closeChannel(channelName, this.getName());
+    }
+
+    /**
+     * Token bucket implemented as a generic cell rate algorithm: instead of a token count it
+     * stores the theoretical arrival time of the next request, which is updated with a single
+     * compare-and-set.
+     */
+    static class TokenBucket {
+
+        private final long emissionIntervalNanos;
+        private final long burstToleranceNanos;
+        private final AtomicLong theoreticalArrivalNanos;
+
+        TokenBucket(double requestsPerSecond, int burst, long now) {
+            this.emissionIntervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / requestsPerSecond));
+            this.burstToleranceNanos = emissionIntervalNanos * (burst - 1);
+            this.theoreticalArrivalNanos = new AtomicLong(now);
+        }
+
+        /**
+         * Take a token.
+         *
+         * @return 0 if a token was available, otherwise the time (in nanoseconds) until one is.
+         */
+        long tryAcquire(long now) {
+            while (true) {
+                long arrival = theoreticalArrivalNanos.get();
+                long start = arrival - now < 0 ? now : arrival;
+                long waitNanos = start - now - burstToleranceNanos;
+                if (waitNanos > 0) {
+                    return waitNanos;
+                }
+                if (theoreticalArrivalNanos.compareAndSet(arrival, start + emissionIntervalNanos)) {
+                    return 0;
+                }
+            }
+        }
+
+        /**
+         * Returns true if all the tokens are available.
+         */
+        boolean isFull(long now) {
+            return theoreticalArrivalNanos.get() - now <= 0;
+        }
+    }
+
+    /**
+     * The pending requests of a channel.
+     */
+    private static class InFlightRequests {
+
+        // count of a tracker which was evicted.
+        private static final int CLOSED = -1;
+
+        private final long timeoutNanos;
+        private final AtomicInteger count = new AtomicInteger();
+        private final Map<UUID, Long> pending = new ConcurrentHashMap<>();
+        private final AtomicLong nextExpiryCheckNanos = new AtomicLong(System.nanoTime());
+        private final AtomicLong lastAcquireNanos = new AtomicLong(System.nanoTime());
+        private BusTransaction transaction;
+
+        InFlightRequests(long timeoutNanos) {
+            this.timeoutNanos = timeoutNanos;
+        }
+
+        boolean tryAcquire(UUID requestId, long now, int limit) {
+            if (count.get() >= limit) {
+                releaseExpired(now);
+            }
+            while (true) {
+                int current = count.get();
+                if (current == CLOSED || current >= limit) {
+                    return false;
+                }
+                if (count.compareAndSet(current, current + 1)) {
+                    break;
+                }
+            }
+            lastAcquireNanos.set(now);
+            if (pending.putIfAbsent(requestId, now) != null) {
+                // the request id is pending already, it is counted once.
+                count.decrementAndGet();
+            }
+            return true;
+        }
+
+        boolean isClosed() {
+            return count.get() == CLOSED;
+        }
+
+        /**
+         * Close the tracker if no request is pending and none was tracked for the idle time.
+         */
+        boolean tryClose(long now, long idleNanos) {
+            if (now - lastAcquireNanos.get() < idleNanos) {
+                return false;
+            }
+            releaseExpired(now);
+            return count.compareAndSet(0, CLOSED);
+        }
+
+        void onResponse(Message msg) {
+            if (msg.getId() != null && pending.remove(msg.getId()) != null) {
+                count.decrementAndGet();
+            }
+        }
+
+        private void releaseExpired(long now) {
+            long nextCheck = nextExpiryCheckNanos.get();
+            // scan the pending requests at most once per tenth of the timeout.
+            if (now - nextCheck < 0 || !nextExpiryCheckNanos.compareAndSet(nextCheck, now + timeoutNanos / 10)) {
+                return;
+            }
+            for (Map.Entry<UUID, Long> entry : pending.entrySet()) {
+                if (now - entry.getValue() > timeoutNanos && pending.remove(entry.getKey(), entry.getValue())) {
+                    count.decrementAndGet();
+                }
+            }
+        }
+    }
+
+    /**
+     * The limit which rejected a request.
+     */
+    public enum RejectionReason {
+        SESSION_RATE_LIMIT,
+        DESTINATION_RATE_LIMIT,
+        IN_FLIGHT_LIMIT
+    }
+
+    /**
+     * Payload of the error response sent for a rejected request.
+     */
+    public static class Rejection {
+
+        @Getter
+        private final RejectionReason reason;
+
+        @Getter
+        private final long retryAfterMillis;
+
+        public Rejection(RejectionReason reason, long retryAfterMillis) {
+            this.reason = reason;
+            this.retryAfterMillis = retryAfterMillis;
+        }
+    }
+}
@@ -17,6 +17,11 @@ public interface TransportBridgeSubscriptionRegistry {
      */
     Collection<TransportSubscriptionService.TransportSubscription> getSubscriptions();
 
+    /**
+     * Returns the active subscriptions of a STOMP session.
+     */
+    Collection<TransportSubscriptionService.TransportSubscription> getSessionSubscriptions(String sessionId);
+
     /**
      * Returns all Transport channels with active bridge subscriptions.
      */
@@ -8,6 +8,10 @@ package com.vmware.transport.bridge.spring.services;
 import com.vmware.transport.bridge.BridgeChannelMode;
 import com.vmware.transport.bridge.spring.TransportEnabled;
 import com.vmware.transport.bridge.spring.TransportService;
+import com.vmware.transport.bridge.spring.config.TransportBridgeConfiguration;
+import com.vmware.transport.bridge.spring.config.interceptors.TransportContentTypeInterceptor;
+import com.vmware.transport.bridge.spring.config.interceptors.TransportDestinationMatcher;
+import com.vmware.transport.bus.codec.PayloadCodec;
 import com.vmware.transport.bridge.util.BridgeUtil;
 import com.vmware.transport.bus.model.MessageHeaders;
 import com.vmware.transport.bus.model.MessageObject;
@@ -23,12 +27,24 @@ import io.reactivex.functions.Consumer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.stereotype.Service;
+import org.springframework.util.MimeType;
 import org.springframework.web.socket.messaging.SessionSubscribeEvent;
 
+import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 @Service("transportSubscriptionService")
 @TransportService
@@ -41,15 +57,42 @@ public class TransportSubscriptionService extends Loggable
     @Autowired(required = false)
     private SimpMessagingTemplate msgTmpl;
 
+    @Autowired(required = false)
+    private TransportBridgeConfiguration bridgeConfiguration;
+
+    @Autowired(required = false)
+    @Qualifier("clientOutboundChannel")
+    private MessageChannel clientOutboundChannel;
+
+    private ScheduledExecutorService bridgeExecutor;
+    private volatile OutboundCoalescer outboundCoalescer;
+    private volatile RequestOriginTracker requestOriginTracker;
+
+    /**
+     * Number of locks guarding the open channels, must be a power of two. Subscriptions to
+     * different channels are added and removed concurrently unless their channels share a lock.
+     */
+    private static final int CHANNEL_LOCK_STRIPES = 64;
+
+    /**
+     * Time a disconnected session is remembered, the subscriptions of the session processed
+     * after its disconnect are ignored.
+     */
+    private static final long CLOSED_SESSION_RETENTION_MILLIS = 60000;
+
     private Map<String, TransportSubscription> openSubscriptions;
-    private Map<String, List<String>> sessionChannels;
+    private Map<String, SessionSubscriptions> sessionSubscriptions;
     private Map<String, OpenChannel> openChannels;
+    private final Object[] channelLocks = new Object[CHANNEL_LOCK_STRIPES];
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
     public TransportSubscriptionService() {
         openSubscriptions = new ConcurrentHashMap<>();
         openChannels = new ConcurrentHashMap<>();
-        sessionChannels = new HashMap<>();
+        sessionSubscriptions = new ConcurrentHashMap<>();
+        for (int i = 0; i < CHANNEL_LOCK_STRIPES; i++) {
+            channelLocks[i] = new Object();
+        }
     }
 
     public Collection<TransportSubscription> getSubscriptions() {
@@ -94,24 +137,268 @@ public class TransportSubscriptionService extends Loggable
             if (destination == null) {
                 destination = destinationPrefix.replace("/user", "") + channelName;
             }
-            msgTmpl.convertAndSendToUser(msg.getTargetUser(), destination, msg.getPayload());
+            sendToUser(msg.getTargetUser(), destination, msg);
         } else {
             if (destination == null) {
                 destination = destinationPrefix + channelName;
+                if (sendToRequestOrigin(msg, destination, channelName)) {
+                    return;
+                }
+                // Only messages broadcast to the channel destination are recorded in the history
+                // and coalesced.
+                OpenChannel openChannel = openChannels.get(channelName);
+                if (openChannel != null && openChannel.history != null) {
+                    // Send the messages in the order of their sequence numbers, clients drop the
+                    // messages older than the last one they received.
+                    synchronized (openChannel.sendLock) {
+                        long seq = openChannel.history.record(msg);
+                        sendBroadcast(destination, msg, createSequenceHeaders(openChannel.history, seq));
+                    }
+                } else {
+                    sendBroadcast(destination, msg, null);
+                }
+                return;
+            }
+            send(destination, msg);
+        }
+    }
+
+    private void sendBroadcast(String destination, Message msg, Map<String, Object> nativeHeaders) {
+        OutboundCoalescer coalescer = getOutboundCoalescer(destination);
+        if (coalescer != null) {
+            coalescer.offer(destination, msg, nativeHeaders);
+        } else {
+            send(destination, msg, nativeHeaders);
+        }
+    }
+
+    /**
+     * Record the STOMP session which sent a request to a bridge channel. If session scoped
+     * responses are enabled, the responses to the request are delivered only to the
+     * subscriptions of that session to the channel.
+     */
+    public void registerRequestOrigin(String channelName, UUID requestId, String sessionId) {
+        if (requestId == null || sessionId == null || bridgeConfiguration == null ||
+              !bridgeConfiguration.isSessionScopedResponsesEnabled()) {
+            return;
+        }
+        getRequestOriginTracker().register(requestId, channelName, sessionId);
+    }
+
+    private RequestOriginTracker getRequestOriginTracker() {
+        if (requestOriginTracker == null) {
+            synchronized (this) {
+                if (requestOriginTracker == null) {
+                    long ttlMillis = bridgeConfiguration.getSessionScopedResponseTtlMillis();
+                    RequestOriginTracker tracker = new RequestOriginTracker(
+                          ttlMillis, bridgeConfiguration.getSessionScopedResponseMaxRequests());
+                    getBridgeExecutor().scheduleWithFixedDelay(
+                          tracker::evictExpired, ttlMillis, ttlMillis, TimeUnit.MILLISECONDS);
+                    requestOriginTracker = tracker;
+                }
+            }
+        }
+        return requestOriginTracker;
+    }
+
+    /**
+     * Deliver a response to the subscriptions of the session which sent the request.
+     *
+     * @return false if the origin of the request is not known and the message has to be broadcast.
+     */
+    private boolean sendToRequestOrigin(Message msg, String destination, String channelName) {
+        RequestOriginTracker tracker = this.requestOriginTracker;
+        if (tracker == null || msg.getId() == null || clientOutboundChannel == null) {
+            return false;
+        }
+        RequestOriginTracker.RequestOrigin origin = tracker.get(msg.getId(), channelName);
+        if (origin == null) {
+            return false;
+        }
+        for (TransportSubscription subscription : getSessionSubscriptions(origin.sessionId)) {
+            if (subscription.channelName.equals(channelName)) {
+                sendToSession(subscription, destination, msg, null);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Send a message to the subscriptions of a STOMP session to a bridge channel only,
+     * bypassing the bus and the message broker.
+     *
+     * @return false if the session has no subscription to the channel.
+     */
+    public boolean sendToSession(String sessionId, String channelName, Message msg) {
+        if (sessionId == null || clientOutboundChannel == null) {
+            return false;
+        }
+        boolean sent = false;
+        for (TransportSubscription subscription : getSessionSubscriptions(sessionId)) {
+            if (subscription.channelName.equals(channelName)) {
+                sendToSession(subscription, subscription.destinationPrefix + channelName, msg, null);
+                sent = true;
+            }
+        }
+        return sent;
+    }
+
+    private OutboundCoalescer getOutboundCoalescer(String destination) {
+        TransportDestinationMatcher matcher = bridgeConfiguration != null ?
+              bridgeConfiguration.getCoalescingDestinationMatcher() : null;
+        if (matcher == null || !matcher.match(destination)) {
+            return null;
+        }
+        if (outboundCoalescer == null) {
+            synchronized (this) {
+                if (outboundCoalescer == null) {
+                    outboundCoalescer = new OutboundCoalescer(getBridgeExecutor(),
+                          bridgeConfiguration.getCoalescingLingerMillis(),
+                          bridgeConfiguration.getCoalescingMaxBatchSize(),
+                          this::sendCoalesced);
+                }
+            }
+        }
+        return outboundCoalescer;
+    }
+
+    private void sendCoalesced(String destination, List<OutboundCoalescer.PendingMessage> batch) {
+        try {
+            if (batch.size() == 1) {
+                send(destination, batch.get(0).message, batch.get(0).nativeHeaders);
+            } else {
+                sendBatch(destination, batch);
+            }
+        } catch (RuntimeException ex) {
+            this.logErrorMessage("Transport failed to send messages to " + destination, ex.getMessage());
+        }
+    }
+
+    private void sendBatch(String destination, List<OutboundCoalescer.PendingMessage> batch) {
+        List<Object> payloads = new ArrayList<>(batch.size());
+        for (OutboundCoalescer.PendingMessage pendingMessage : batch) {
+            payloads.add(pendingMessage.message.getPayload());
+        }
+        // The frame carries the headers (i.e. the sequence number) of the last message in the batch.
+        Map<String, Object> nativeHeaders = new HashMap<>();
+        Map<String, Object> lastHeaders = batch.get(batch.size() - 1).nativeHeaders;
+        if (lastHeaders != null) {
+            nativeHeaders.putAll(lastHeaders);
+        }
+        nativeHeaders.put(OutboundCoalescer.BATCH_SIZE_HEADER, String.valueOf(batch.size()));
+
+        PayloadCodec codec = bridgeConfiguration.getPayloadCodec();
+        if (codec == null) {
+            msgTmpl.convertAndSend(destination, payloads, nativeHeaders);
+            return;
+        }
+        try {
+            SimpMessageHeaderAccessor accessor = createHeaderAccessor(codec, nativeHeaders);
+            msgTmpl.send(destination, MessageBuilder.createMessage(
+                  codec.encode(payloads), accessor.getMessageHeaders()));
+        } catch (IOException ex) {
+            this.logErrorMessage("Transport failed to encode payload for " + destination, ex.getMessage());
+        }
+    }
+
+    private void send(String destination, Message msg) {
+        send(destination, msg, null);
+    }
+
+    private void send(String destination, Message msg, Map<String, Object> nativeHeaders) {
+        PayloadCodec codec = bridgeConfiguration != null ? bridgeConfiguration.getPayloadCodec() : null;
+        if (codec == null && !isSessionContentTypesEnabled()) {
+            if (nativeHeaders == null) {
+                msgTmpl.convertAndSend(destination, msg.getPayload());
+            } else {
+                msgTmpl.convertAndSend(destination, msg.getPayload(), nativeHeaders);
+            }
+            return;
+        }
+        SimpMessageHeaderAccessor accessor = createHeaderAccessor(codec, nativeHeaders);
+        sendWithTemplate(destination, createMessage(msg, codec, accessor, destination));
+    }
+
+    private void sendToUser(String user, String destination, Message msg) {
+        PayloadCodec codec = bridgeConfiguration != null ? bridgeConfiguration.getPayloadCodec() : null;
+        if (codec == null && !isSessionContentTypesEnabled()) {
+            msgTmpl.convertAndSendToUser(user, destination, msg.getPayload());
+            return;
+        }
+        // Resolve the user destination the same way SimpMessagingTemplate.convertAndSendToUser() does.
+        String userDestination = msgTmpl.getUserDestinationPrefix() + user.replace("/", "%2F") +
+              (destination.startsWith("/") ? destination : "/" + destination);
+        SimpMessageHeaderAccessor accessor = createHeaderAccessor(codec, null);
+        sendWithTemplate(userDestination, createMessage(msg, codec, accessor, userDestination));
+    }
+
+    private void sendWithTemplate(String destination, org.springframework.messaging.Message<?> message) {
+        if (message != null) {
+            msgTmpl.send(destination, message);
+        }
+    }
+
+    private boolean isSessionContentTypesEnabled() {
+        return bridgeConfiguration != null && bridgeConfiguration.isSessionContentTypesEnabled();
+    }
+
+    /**
+     * Create the Spring message for a bus message, encoded with the codec or converted by the
+     * message converter. If sessions may choose their content type the bus message is attached,
+     * so {@link TransportContentTypeInterceptor} can encode it once per content type.
+     *
+     * @return null if the payload cannot be encoded.
+     */
+    private org.springframework.messaging.Message<?> createMessage(
+          Message msg, PayloadCodec codec, SimpMessageHeaderAccessor accessor, String destination) {
+
+        if (isSessionContentTypesEnabled()) {
+            accessor.setHeader(TransportContentTypeInterceptor.BUS_MESSAGE_HEADER, msg);
+        }
+        try {
+            org.springframework.messaging.Message<?> message;
+            if (codec != null) {
+                message = MessageBuilder.createMessage(msg.getEncodedPayload(codec), accessor.getMessageHeaders());
+            } else {
+                message = msgTmpl.getMessageConverter().toMessage(msg.getPayload(), accessor.getMessageHeaders());
+            }
+            if (message == null) {
+                this.logErrorMessage("Transport failed to convert payload for", destination);
             }
-            msgTmpl.convertAndSend(destination, msg.getPayload());
+            return message;
+        } catch (IOException ex) {
+            this.logErrorMessage("Transport failed to encode payload for " + destination, ex.getMessage());
+            return null;
+        }
+    }
+
+    private SimpMessageHeaderAccessor createHeaderAccessor(PayloadCodec codec, Map<String, Object> nativeHeaders) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        if (codec != null) {
+            accessor.setContentType(MimeType.valueOf(codec.getContentType()));
         }
+        if (nativeHeaders != null) {
+            nativeHeaders.forEach((name, value) -> accessor.setNativeHeader(name, String.valueOf(value)));
+        }
+        accessor.setLeaveMutable(true);
+        return accessor;
+    }
+
+    private Map<String, Object> createSequenceHeaders(ChannelHistory history, long seq) {
+        Map<String, Object> headers = new HashMap<>();
+        headers.put(ChannelHistory.SEQUENCE_HEADER, String.valueOf(seq));
+        headers.put(ChannelHistory.EPOCH_HEADER, history.getEpoch());
+        return headers;
     }
 
-    public synchronized void addSubscription(
+    public void addSubscription(
           String subId, String sessionId, String channelName,
           String destinationPrefix,
           SessionSubscribeEvent subscribeEvent) {
 
         TransportSubscription subscription = new TransportSubscription(channelName, subId, sessionId, destinationPrefix);
         if (openSubscriptions.containsKey(subscription.uniqueId)) {
-            logger.info(String.format("[!] Transport Bus: subscription %s for channel %s already exists, ignoring",
-                  subscription.uniqueId, channelName));
+            logSubscriptionExists(subscription);
             return;
         }
 
@@ -120,28 +407,49 @@ public class TransportSubscriptionService extends Loggable
             return;
         }
 
-        logger.info(String.format("[+] Transport Bus: creating channel subscription to '%s' subId: (%s)",
-              channelName, subscription.uniqueId));
-
+        synchronized (getChannelLock(channelName)) {
+            if (openSubscriptions.putIfAbsent(subscription.uniqueId, subscription) != null) {
+                logSubscriptionExists(subscription);
+                return;
+            }
 
-        if (!openChannels.containsKey(channelName)) {
-            BusTransaction transaction = bus.listenStream(channelName,
-                  (Message msg) -> handleResponseMessage(msg, destinationPrefix, channelName),
-                  (Message msg) -> handleResponseMessage(msg, destinationPrefix, channelName)
-            );
-            openChannels.put(channelName, new OpenChannel(channelName, transaction));
-        }
+            // index the subscription by session, so it can be closed when the session disconnects.
+            SessionSubscriptions session = sessionSubscriptions.computeIfAbsent(
+                  sessionId, id -> new SessionSubscriptions());
+            synchronized (session) {
+                if (session.closed) {
+                    openSubscriptions.remove(subscription.uniqueId, subscription);
+                    logger.info(String.format("[!] Transport Bus: session %s is closed, ignoring subscription %s",
+                          sessionId, subscription.uniqueId));
+                    return;
+                }
+                session.subscriptions.put(subscription.uniqueId, subscription);
+            }
 
-        openSubscriptions.put(subscription.uniqueId, subscription);
-        openChannels.get(channelName).activeSubscriptionsCount++;
+            logger.info(String.format("[+] Transport Bus: creating channel subscription to '%s' subId: (%s)",
+                  channelName, subscription.uniqueId));
+
+            OpenChannel openChannel = openChannels.get(channelName);
+            if (openChannel == null) {
+                int historySize = bridgeConfiguration != null ? bridgeConfiguration.getChannelHistorySize() : 0;
+                openChannel = new OpenChannel(channelName, destinationPrefix + channelName,
+                      historySize > 0 ? new ChannelHistory(historySize) : null);
+                // Register the channel before listening to it, so the first message is already recorded.
+                openChannels.put(channelName, openChannel);
+                openChannel.transaction = bus.listenStream(channelName,
+                      (Message msg) -> handleResponseMessage(msg, destinationPrefix, channelName),
+                      (Message msg) -> handleResponseMessage(msg, destinationPrefix, channelName)
+                );
+            } else if (openChannel.closeFuture != null) {
+                // A client subscribed again before the channel was closed.
+                openChannel.closeFuture.cancel(false);
+                openChannel.closeFuture = null;
+            }
+            openChannel.activeSubscriptionsCount++;
 
-        // check if this user has other channel subscriptions
-        if (sessionChannels.containsKey(sessionId)) {
-            sessionChannels.get(sessionId).add(channelName);
-        } else {
-            List<String> chanList = new ArrayList<>();
-            chanList.add(channelName);
-            sessionChannels.put(sessionId, chanList);
+            if (openChannel.history != null) {
+                resumeSubscription(subscription, openChannel.history, subscribeEvent);
+            }
         }
 
         // Notify listeners that there is a new subscription to the channel.
@@ -152,46 +460,92 @@ public class TransportSubscriptionService extends Loggable
               new MessageObject<>(MessageType.MessageTypeRequest, mo));
     }
 
-    public synchronized void removeSubscription(String subId, String sessionId) {
+    public void removeSubscription(String subId, String sessionId) {
 
         String uniqueSubId = TransportSubscription.generateUniqueSubId(subId, sessionId);
+        TransportSubscription sub = openSubscriptions.get(uniqueSubId);
+        if (sub == null) {
+            return;
+        }
 
-        if (openSubscriptions.containsKey(uniqueSubId)) {
-            TransportSubscription sub = openSubscriptions.get(uniqueSubId);
+        synchronized (getChannelLock(sub.channelName)) {
+            if (!openSubscriptions.remove(uniqueSubId, sub)) {
+                return;
+            }
             logger.info(String.format("[-] Transport Bus: unsubscribing from channel '%s' (%s)",
                   sub.channelName, sub.uniqueId));
-            openSubscriptions.remove(uniqueSubId);
-            onUnsubscribeFromChannel(sub.channelName);
+            onUnsubscribeFromChannel(sub.channelName, 1);
 
-            // remove from session mappings.
-            if (sessionChannels.containsKey(sessionId)) {
-                List<String> chans = sessionChannels.get(sessionId);
-                chans.remove(sub.channelName);
+            // remove from session mappings, the session itself is removed when it disconnects.
+            SessionSubscriptions session = sessionSubscriptions.get(sessionId);
+            if (session != null) {
+                synchronized (session) {
+                    session.subscriptions.remove(uniqueSubId);
+                }
             }
         }
     }
 
-    public synchronized void unsubscribeSessionsAfterDisconnect(String sessionId) {
-        if (sessionChannels.containsKey(sessionId)) {
-
-            Collection<TransportSubscription> subs = openSubscriptions.values();
-            List<String> subscriptionsToRemove = new ArrayList<>();
-            for (TransportSubscription sub : subs) {
-                if (sub.sessionId.equals(sessionId)) {
-                    logger.info(String.format(
-                          "[-] Transport Bus: closing subscription %s to channel '%s' after disconnect",
-                          sub.uniqueId, sub.channelName));
+    public void unsubscribeSessionsAfterDisconnect(String sessionId) {
+        unsubscribeSessionsAfterDisconnect(Collections.singleton(sessionId));
+    }
 
-                    // close subscription.
-                    onUnsubscribeFromChannel(sub.channelName);
-                    subscriptionsToRemove.add(sub.uniqueId);
+    /**
+     * Close all subscriptions of the given sessions. The subscriptions are looked up in the session
+     * index and grouped by channel, so each affected channel is locked (and closed) only once.
+     *
+     * The sessions are marked as closed first, so a subscription added concurrently is either
+     * closed here or ignored by {@link #addSubscription}.
+     */
+    public void unsubscribeSessionsAfterDisconnect(Collection<String> sessionIds) {
+        Map<String, List<TransportSubscription>> channelSubscriptions = new HashMap<>();
+        List<String> closedSessionIds = new ArrayList<>();
+        for (String sessionId : sessionIds) {
+            SessionSubscriptions session = sessionSubscriptions.computeIfAbsent(
+                  sessionId, id -> new SessionSubscriptions());
+            synchronized (session) {
+                if (session.closed) {
+                    continue;
                 }
+                session.closed = true;
+                for (TransportSubscription sub : session.subscriptions.values()) {
+                    channelSubscriptions.computeIfAbsent(sub.channelName, channel -> new ArrayList<>()).add(sub);
+                }
+                session.subscriptions.clear();
             }
-            for (String subId : subscriptionsToRemove) {
-                openSubscriptions.remove(subId);
+            closedSessionIds.add(sessionId);
+        }
+        if (!closedSessionIds.isEmpty()) {
+            getBridgeExecutor().schedule(() -> closedSessionIds.forEach(sessionSubscriptions::remove),
+                  CLOSED_SESSION_RETENTION_MILLIS, TimeUnit.MILLISECONDS);
+        }
+
+        channelSubscriptions.forEach((channelName, subscriptions) -> {
+            synchronized (getChannelLock(channelName)) {
+                int removed = 0;
+                for (TransportSubscription sub : subscriptions) {
+                    if (openSubscriptions.remove(sub.uniqueId, sub)) {
+                        logger.info(String.format(
+                              "[-] Transport Bus: closing subscription %s to channel '%s' after disconnect",
+                              sub.uniqueId, sub.channelName));
+                        removed++;
+                    }
+                }
+                if (removed > 0) {
+                    onUnsubscribeFromChannel(channelName, removed);
+                }
             }
+        });
+    }
 
-            sessionChannels.remove(sessionId);
+    @Override
+    public Collection<TransportSubscription> getSessionSubscriptions(String sessionId) {
+        SessionSubscriptions session = sessionSubscriptions.get(sessionId);
+        if (session == null) {
+            return new ArrayList<>();
+        }
+        synchronized (session) {
+            return new ArrayList<>(session.subscriptions.values());
         }
     }
 
@@ -203,7 +557,7 @@ public class TransportSubscriptionService extends Loggable
             if (destination == null || destination.isEmpty()) {
                 logger.warn("Transport failed to send external broker message: invalid destination header");
             } else {
-                msgTmpl.convertAndSend(destination, message.getPayload());
+                send(destination, message);
             }
         };
 
@@ -212,34 +566,188 @@ public class TransportSubscriptionService extends Loggable
               extMsgBrokerResponseHandler);
     }
 
-    private void onUnsubscribeFromChannel(String channel) {
+    // Must be called while holding the lock of the channel.
+    private void onUnsubscribeFromChannel(String channel, int closedSubscriptions) {
         OpenChannel openChannel = openChannels.get(channel);
         if (openChannel != null) {
-            openChannel.activeSubscriptionsCount--;
+            openChannel.activeSubscriptionsCount -= closedSubscriptions;
             if (openChannel.activeSubscriptionsCount <= 0) {
-                if (openChannel.transaction != null) {
-                    openChannel.transaction.unsubscribe();
+                long lingerMillis = bridgeConfiguration != null ?
+                      bridgeConfiguration.getChannelHistoryLingerMillis() : 0;
+                if (openChannel.history != null && lingerMillis > 0) {
+                    // Keep recording the channel for a while, clients might reconnect and resume.
+                    if (openChannel.closeFuture == null) {
+                        openChannel.closeFuture = getBridgeExecutor().schedule(
+                              () -> closeLingeringChannel(openChannel), lingerMillis, TimeUnit.MILLISECONDS);
+                    }
+                } else {
+                    closeChannel(openChannel);
                 }
-                bus.closeChannel(channel, this.getClass().getName());
-                openChannels.remove(channel);
             }
         }
     }
 
+    private void closeLingeringChannel(OpenChannel openChannel) {
+        synchronized (getChannelLock(openChannel.channelName)) {
+            if (openChannels.get(openChannel.channelName) == openChannel &&
+                  openChannel.activeSubscriptionsCount <= 0) {
+                closeChannel(openChannel);
+            }
+        }
+    }
+
+    private void logSubscriptionExists(TransportSubscription subscription) {
+        logger.info(String.format("[!] Transport Bus: subscription %s for channel %s already exists, ignoring",
+              subscription.uniqueId, subscription.channelName));
+    }
+
+    private Object getChannelLock(String channelName) {
+        int hash = channelName.hashCode();
+        return channelLocks[(hash ^ (hash >>> 16)) & (CHANNEL_LOCK_STRIPES - 1)];
+    }
+
+    private void closeChannel(OpenChannel openChannel) {
+        if (openChannel.transaction != null) {
+            openChannel.transaction.unsubscribe();
+        }
+        bus.closeChannel(openChannel.channelName, this.getClass().getName());
+        openChannels.remove(openChannel.channelName);
+        if (outboundCoalescer != null) {
+            outboundCoalescer.remove(openChannel.destination);
+        }
+    }
+
+    /**
+     * Replays the messages a client missed, if it asked to resume its subscription after
+     * a given sequence number, or tells it to resync if they are no longer in the history.
+     *
+     * The replay runs after the subscription is registered with the message broker, so
+     * a message might be delivered both live and replayed: clients have to ignore messages
+     * with a sequence number they already received.
+     */
+    private void resumeSubscription(TransportSubscription subscription, ChannelHistory history,
+                                    SessionSubscribeEvent subscribeEvent) {
+
+        if (subscribeEvent == null) {
+            return;
+        }
+        StompHeaderAccessor subscribeHeaders = StompHeaderAccessor.wrap(subscribeEvent.getMessage());
+        String resumeAfter = subscribeHeaders.getFirstNativeHeader(ChannelHistory.RESUME_AFTER_HEADER);
+        if (resumeAfter == null) {
+            return;
+        }
+        if (clientOutboundChannel == null) {
+            this.logWarnMessage("Transport cannot resume subscription " + subscription.uniqueId +
+                  ", client outbound channel not available");
+            return;
+        }
+        String resumeEpoch = subscribeHeaders.getFirstNativeHeader(ChannelHistory.RESUME_EPOCH_HEADER);
+        String destination = subscribeHeaders.getDestination();
+
+        getBridgeExecutor().execute(() -> {
+            List<Message> missedMessages = null;
+            if (resumeEpoch == null || resumeEpoch.equals(history.getEpoch())) {
+                try {
+                    missedMessages = history.getAfter(Long.parseLong(resumeAfter.trim()));
+                } catch (NumberFormatException ex) {
+                    this.logWarnMessage("Transport received invalid resume sequence number: " + resumeAfter);
+                }
+            }
+            if (missedMessages == null) {
+                sendResync(subscription, history, destination);
+            } else {
+                replayMessages(subscription, history, destination, resumeAfter.trim(), missedMessages);
+            }
+        });
+    }
+
+    private void replayMessages(TransportSubscription subscription, ChannelHistory history, String destination,
+                                String resumeAfter, List<Message> missedMessages) {
+
+        this.logDebugMessage(String.format("Transport replaying %d messages to subscription", missedMessages.size()),
+              subscription.uniqueId);
+
+        long seq = Long.parseLong(resumeAfter);
+        for (Message msg : missedMessages) {
+            seq++;
+            sendToSession(subscription, destination, msg, createSequenceHeaders(history, seq));
+        }
+    }
+
+    /**
+     * Send a message to a single subscription, bypassing the message broker.
+     */
+    private void sendToSession(TransportSubscription subscription, String destination, Message msg,
+                               Map<String, Object> nativeHeaders) {
+
+        PayloadCodec codec = bridgeConfiguration != null ? bridgeConfiguration.getPayloadCodec() : null;
+        SimpMessageHeaderAccessor accessor = createSessionHeaderAccessor(subscription, destination, codec, nativeHeaders);
+        org.springframework.messaging.Message<?> message = createMessage(msg, codec, accessor, destination);
+        if (message != null) {
+            clientOutboundChannel.send(message);
+        }
+    }
+
+    private void sendResync(TransportSubscription subscription, ChannelHistory history, String destination) {
+        this.logDebugMessage("Transport cannot resume subscription, requesting resync", subscription.uniqueId);
+
+        Map<String, Object> headers = new HashMap<>();
+        headers.put(ChannelHistory.RESYNC_HEADER, "true");
+        headers.put(ChannelHistory.SEQUENCE_HEADER, String.valueOf(history.getLastSeq()));
+        headers.put(ChannelHistory.EPOCH_HEADER, history.getEpoch());
+        SimpMessageHeaderAccessor accessor = createSessionHeaderAccessor(subscription, destination, null, headers);
+        clientOutboundChannel.send(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()));
+    }
+
+    private SimpMessageHeaderAccessor createSessionHeaderAccessor(
+          TransportSubscription subscription, String destination,
+          PayloadCodec codec, Map<String, Object> nativeHeaders) {
+
+        SimpMessageHeaderAccessor accessor = createHeaderAccessor(codec, nativeHeaders);
+        accessor.setSessionId(subscription.sessionId);
+        accessor.setSubscriptionId(subscription.subId);
+        accessor.setDestination(destination != null ?
+              destination : subscription.destinationPrefix + subscription.channelName);
+        return accessor;
+    }
+
+    private synchronized ScheduledExecutorService getBridgeExecutor() {
+        if (bridgeExecutor == null) {
+            bridgeExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "transport-bridge");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return bridgeExecutor;
+    }
+
     private static class OpenChannel {
 
         public final String channelName;
-        public final BusTransaction transaction;
+        public final String destination;
+        public final ChannelHistory history;
+        // Orders the recording and the sending of the broadcast messages.
+        public final Object sendLock = new Object();
+        public BusTransaction transaction;
+        public ScheduledFuture<?> closeFuture;
 
         public int activeSubscriptionsCount;
 
-        public OpenChannel(String channelName, BusTransaction transaction) {
+        public OpenChannel(String channelName, String destination, ChannelHistory history) {
             this.channelName = channelName;
-            this.transaction = transaction;
+            this.destination = destination;
+            this.history = history;
             this.activeSubscriptionsCount = 0;
         }
     }
 
+    private static class SessionSubscriptions {
+
+        public final Map<String, TransportSubscription> subscriptions = new HashMap<>();
+        public boolean closed;
+    }
+
     public static class NewBridgeSubscriptionEvent {
         public final TransportSubscription transportSubscription;
         public final SessionSubscribeEvent subscribeEvent;
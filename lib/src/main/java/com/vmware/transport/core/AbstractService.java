@@ -6,7 +6,10 @@
 package com.vmware.transport.core;
 
 import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 import com.vmware.transport.bus.BusTransaction;
+import com.vmware.transport.bus.store.model.BusStore;
 import com.vmware.transport.core.error.GeneralError;
 import com.vmware.transport.bus.model.Message;
 import com.vmware.transport.bridge.Request;
@@ -14,7 +17,9 @@ import com.vmware.transport.bridge.Response;
 import com.vmware.transport.core.interfaces.BusServiceEnabled;
 
 import java.io.IOException;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 @SuppressWarnings("unchecked")
 public abstract class AbstractService<RequestType extends Request, ResponseType extends Response>
@@ -22,6 +27,8 @@ public abstract class AbstractService<RequestType extends Request, ResponseType
 
     protected String serviceChannel;
     protected BusTransaction serviceChannelStream;
+    private volatile ServiceResponseCache responseCache;
+    private final Map<Class, ObjectReader> payloadReaders = new ConcurrentHashMap<>();
 
     public AbstractService(String serviceChannel) {
         super();
@@ -73,7 +80,80 @@ public abstract class AbstractService<RequestType extends Request, ResponseType
 
     protected abstract void handleServiceRequest(RequestType request, Message busMessage) throws Exception;
 
+    /**
+     * Cache responses for a read-mostly command. Requests for the command with an identical payload
+     * will be answered from the cache, bypassing handleServiceRequest(), until the TTL expires or the
+     * cache is invalidated. Only responses sent via sendResponse(response, id) for public (non user
+     * targeted) requests are cached, errors never are.
+     *
+     * @param command the request command to cache (i.e. "getMessage")
+     * @param ttlMillis how long a cached response stays valid, in milliseconds.
+     */
+    protected void enableResponseCache(String command, long ttlMillis) {
+        getResponseCache().enableCommand(command, ttlMillis);
+    }
+
+    /**
+     * Set the maximum number of responses cached by this service (defaults to 1000).
+     * The least recently used responses are evicted first.
+     */
+    protected void setResponseCacheMaxSize(int maxSize) {
+        getResponseCache().setMaxSize(maxSize);
+    }
+
+    /**
+     * Invalidate all cached responses whenever the given store changes.
+     *
+     * @param store the store the cached responses are derived from.
+     */
+    protected void invalidateResponseCacheOnChange(BusStore<?, ?> store) {
+        final ServiceResponseCache cache = getResponseCache();
+        store.onAllChanges().subscribe(value -> cache.invalidate());
+    }
+
+    /**
+     * Drop all cached responses for this service.
+     */
+    protected void invalidateResponseCache() {
+        if (this.responseCache != null) {
+            this.responseCache.invalidate();
+        }
+    }
+
+    private synchronized ServiceResponseCache getResponseCache() {
+        if (this.responseCache == null) {
+            this.responseCache = new ServiceResponseCache(this.mapper);
+        }
+        return this.responseCache;
+    }
+
+    /**
+     * Answer a request from the response cache.
+     *
+     * @return true if a cached response was sent.
+     */
+    private boolean sendCachedResponse(RequestType request) {
+        ServiceResponseCache cache = this.responseCache;
+        if (cache == null || request.getTargetUser() != null || !cache.isCacheable(request.getRequest())) {
+            return false;
+        }
+        String key = cache.buildKey(request.getRequest(), request.getPayload());
+        if (key == null) {
+            return false;
+        }
+        Response cached = cache.get(key);
+        if (cached == null) {
+            cache.markPending(request.getId(), key, request.getRequest());
+            return false;
+        }
+        this.sendResponse((ResponseType) cached.copyWithId(request.getId()), request.getId());
+        return true;
+    }
+
     protected void sendResponse(ResponseType response, UUID id) {
+        if (this.responseCache != null) {
+            this.responseCache.complete(id, response);
+        }
         this.logInfoMessage(
                 "\uD83D\uDCE4",
                 "Sending Service Response",
@@ -108,7 +188,20 @@ public abstract class AbstractService<RequestType extends Request, ResponseType
     }
 
     <T> T castPayload(Class clazz, Request request) throws ClassCastException {
-        return (T) this.mapper.convertValue(request.getPayload(), clazz);
+        TokenBuffer rawPayload = request.getRawPayload();
+        if (rawPayload == null) {
+            return (T) this.mapper.convertValue(request.getPayload(), clazz);
+        }
+        // bind the JSON tokens received over the bridge directly to the requested type.
+        ObjectReader reader = payloadReaders.get(clazz);
+        if (reader == null) {
+            reader = payloadReaders.computeIfAbsent(clazz, this.mapper::readerFor);
+        }
+        try {
+            return reader.readValue(rawPayload.asParser());
+        } catch (IOException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
     }
 
     protected void handleUnknownRequest(Request request) {
@@ -152,6 +245,10 @@ public abstract class AbstractService<RequestType extends Request, ResponseType
                         // mark message with request ID.
                         message.setId(requestType.getId());
 
+                        if (sendCachedResponse(requestType)) {
+                            return;
+                        }
+
                         // handle service request.
                         this.handleServiceRequest(requestType, message);
 
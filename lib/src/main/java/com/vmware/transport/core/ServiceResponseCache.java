@@ -0,0 +1,192 @@
+/*
+ * Copyright 2020 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ *
+ */
+package com.vmware.transport.core;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vmware.transport.bridge.Response;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounded, LRU ordered cache of service responses used by {@link AbstractService}.
+ *
+ * Only commands explicitly enabled via {@link #enableCommand(String, long)} are cached. Entries
+ * are keyed by command name plus the JSON form of the request payload and expire after the
+ * TTL configured for their command. A call to {@link #invalidate()} drops every entry and
+ * discards responses that are still being computed for requests which missed the cache.
+ */
+@SuppressWarnings("unchecked")
+public class ServiceResponseCache {
+
+    public static final int DEFAULT_MAX_SIZE = 1000;
+
+    private final ObjectMapper mapper;
+    private final Map<String, Long> commandTtls;
+    private final LinkedHashMap<String, CachedResponse> entries;
+    private final LinkedHashMap<UUID, PendingRequest> pendingRequests;
+
+    private volatile int maxSize;
+    private long generation;
+
+    public ServiceResponseCache(ObjectMapper mapper) {
+        this(mapper, DEFAULT_MAX_SIZE);
+    }
+
+    public ServiceResponseCache(ObjectMapper mapper, int maxSize) {
+        this.mapper = mapper;
+        this.maxSize = maxSize;
+        this.commandTtls = new ConcurrentHashMap<>();
+        this.entries = new LinkedHashMap<String, CachedResponse>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                return size() > ServiceResponseCache.this.maxSize;
+            }
+        };
+        this.pendingRequests = new LinkedHashMap<UUID, PendingRequest>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, PendingRequest> eldest) {
+                return size() > ServiceResponseCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * Enable caching of responses for a command.
+     *
+     * @param command the request command (i.e. "getMessage")
+     * @param ttlMillis how long a cached response stays valid, in milliseconds.
+     */
+    public void enableCommand(String command, long ttlMillis) {
+        if (command == null || ttlMillis <= 0) {
+            throw new IllegalArgumentException("Invalid response cache settings for command: " + command);
+        }
+        commandTtls.put(command, ttlMillis);
+    }
+
+    /**
+     * Stop caching responses for a command, cached responses for it will expire on their own.
+     */
+    public void disableCommand(String command) {
+        commandTtls.remove(command);
+    }
+
+    /**
+     * Returns true if responses for the command are cached.
+     */
+    public boolean isCacheable(String command) {
+        return command != null && commandTtls.containsKey(command);
+    }
+
+    /**
+     * Change the maximum number of cached responses.
+     */
+    public synchronized void setMaxSize(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Response cache size must be positive: " + maxSize);
+        }
+        this.maxSize = maxSize;
+        while (entries.size() > maxSize) {
+            entries.remove(entries.keySet().iterator().next());
+        }
+    }
+
+    /**
+     * Build the cache key for a request.
+     *
+     * @return the key or null if the payload cannot be serialized (such requests are not cached).
+     */
+    public String buildKey(String command, Object payload) {
+        try {
+            return command + ":" + mapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the cached response for a key, or null if there is no valid entry.
+     */
+    public synchronized <R extends Response> R get(String key) {
+        CachedResponse cached = entries.get(key);
+        if (cached == null) {
+            return null;
+        }
+        if (cached.expiresAt <= System.currentTimeMillis()) {
+            entries.remove(key);
+            return null;
+        }
+        return (R) cached.response;
+    }
+
+    /**
+     * Remember that the response for the request with the given id should be stored
+     * under the given key once the service sends it.
+     */
+    public synchronized void markPending(UUID requestId, String key, String command) {
+        Long ttl = commandTtls.get(command);
+        if (requestId == null || ttl == null) {
+            return;
+        }
+        pendingRequests.put(requestId, new PendingRequest(key, ttl, generation));
+    }
+
+    /**
+     * Store the response sent for a pending request. Responses to requests which were
+     * not marked as pending, or were computed before the last invalidation, are ignored.
+     */
+    public synchronized void complete(UUID requestId, Response response) {
+        if (requestId == null || response == null) {
+            return;
+        }
+        PendingRequest pending = pendingRequests.remove(requestId);
+        if (pending == null || pending.generation != generation || response.isError()) {
+            return;
+        }
+        entries.put(pending.key, new CachedResponse(response, System.currentTimeMillis() + pending.ttl));
+    }
+
+    /**
+     * Drop all cached responses.
+     */
+    public synchronized void invalidate() {
+        generation++;
+        entries.clear();
+        pendingRequests.clear();
+    }
+
+    /**
+     * Returns the number of cached responses, including expired ones that were not evicted yet.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private static class CachedResponse {
+        final Response response;
+        final long expiresAt;
+
+        CachedResponse(Response response, long expiresAt) {
+            this.response = response;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static class PendingRequest {
+        final String key;
+        final long ttl;
+        final long generation;
+
+        PendingRequest(String key, long ttl, long generation) {
+            this.key = key;
+            this.ttl = ttl;
+            this.generation = generation;
+        }
+    }
+}
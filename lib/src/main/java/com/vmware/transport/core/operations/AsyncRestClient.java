@@ -0,0 +1,257 @@
+/*
+ * Copyright 2020 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ *
+ */
+package com.vmware.transport.core.operations;
+
+import com.vmware.transport.core.util.Loggable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Non-blocking HTTP client of the {@link RestService}, used when transport.rest.client.async.enabled is set.
+ *
+ * The requests are sent with the JDK HttpClient, the thread publishing the request is not blocked
+ * while the call is in flight and the responses are completed on a small pool of threads. The requests
+ * in flight are limited per host, the requests over the limit are queued and sent once a request to the
+ * same host completes.
+ */
+@Component
+public class AsyncRestClient extends Loggable {
+
+    @Value("${transport.rest.client.async.enabled:false}")
+    private boolean enabled;
+
+    @Value("${transport.rest.client.async.threads:4}")
+    private int threads = 4;
+
+    @Value("${transport.rest.client.async.maxConcurrentRequestsPerHost:64}")
+    private int maxConcurrentRequestsPerHost = 64;
+
+    @Value("${transport.rest.client.async.maxQueuedRequestsPerHost:10000}")
+    private int maxQueuedRequestsPerHost = 10000;
+
+    @Value("${transport.rest.client.http2:false}")
+    private boolean http2;
+
+    @Value("${transport.rest.client.connectTimeout:5000}")
+    private int connectTimeout = 5000;
+
+    @Value("${transport.rest.client.readTimeout:30000}")
+    private int readTimeout = 30000;
+
+    private final Map<String, HostLimiter> hostLimiters = new ConcurrentHashMap<>();
+
+    private volatile HttpClient httpClient;
+    private volatile ExecutorService executor;
+
+    /**
+     * Returns true if the RestService should send its requests with this client.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns a request builder for a URI, with the read timeout of the client.
+     */
+    public HttpRequest.Builder newRequest(URI uri) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri);
+        if (readTimeout > 0) {
+            builder.timeout(Duration.ofMillis(readTimeout));
+        }
+        return builder;
+    }
+
+    /**
+     * Send a request once the number of requests in flight to its host is under the limit.
+     *
+     * @param request the request to send
+     * @return the response, completed on one of the threads of the client. It is completed exceptionally
+     *         with a {@link RejectedExecutionException} if too many requests are queued for the host.
+     */
+    public CompletableFuture<HttpResponse<byte[]>> send(HttpRequest request) {
+        HttpClient client = getHttpClient();
+        HostLimiter limiter = hostLimiters.computeIfAbsent(getHostKey(request.uri()), key -> new HostLimiter());
+        CompletableFuture<HttpResponse<byte[]>> result = new CompletableFuture<>();
+
+        Runnable task = () -> {
+            try {
+                client.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                        .whenComplete((response, ex) -> {
+                            limiter.release();
+                            if (ex != null) {
+                                result.completeExceptionally(ex);
+                            } else {
+                                result.complete(response);
+                            }
+                        });
+            } catch (RuntimeException ex) {
+                limiter.release();
+                result.completeExceptionally(ex);
+            }
+        };
+
+        if (!limiter.submit(task)) {
+            this.logWarnMessage("Too many queued REST requests for host " + getHostKey(request.uri()));
+            result.completeExceptionally(new RejectedExecutionException(
+                    "Too many queued requests for host " + getHostKey(request.uri())));
+        }
+        return result;
+    }
+
+    private HttpClient getHttpClient() {
+        HttpClient client = httpClient;
+        if (client == null) {
+            synchronized (this) {
+                client = httpClient;
+                if (client == null) {
+                    AtomicInteger threadCount = new AtomicInteger();
+                    executor = Executors.newFixedThreadPool(threads, runnable -> {
+                        Thread thread = new Thread(runnable,
+                                "transport-rest-async-" + threadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    HttpClient.Builder builder = HttpClient.newBuilder()
+                            .executor(executor)
+                            .version(http2 ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                            .followRedirects(HttpClient.Redirect.NORMAL);
+                    if (connectTimeout > 0) {
+                        builder.connectTimeout(Duration.ofMillis(connectTimeout));
+                    }
+                    client = builder.build();
+                    httpClient = client;
+                }
+            }
+        }
+        return client;
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+            httpClient = null;
+        }
+    }
+
+    /**
+     * Returns the number of requests in flight to a host.
+     *
+     * @param host the URI of the host, i.e. https://host:443
+     */
+    public int getInFlightRequests(String host) {
+        HostLimiter limiter = hostLimiters.get(host);
+        return limiter != null ? limiter.getInFlight() : 0;
+    }
+
+    /**
+     * Returns the number of requests to a host waiting to be sent.
+     *
+     * @param host the URI of the host, i.e. https://host:443
+     */
+    public int getQueuedRequests(String host) {
+        HostLimiter limiter = hostLimiters.get(host);
+        return limiter != null ? limiter.getQueued() : 0;
+    }
+
+    static String getHostKey(URI uri) {
+        int port = uri.getPort();
+        if (port == -1) {
+            port = "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+        }
+        return uri.getScheme() + "://" + uri.getHost() + ":" + port;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public void setMaxConcurrentRequestsPerHost(int maxConcurrentRequestsPerHost) {
+        this.maxConcurrentRequestsPerHost = maxConcurrentRequestsPerHost;
+    }
+
+    public void setMaxQueuedRequestsPerHost(int maxQueuedRequestsPerHost) {
+        this.maxQueuedRequestsPerHost = maxQueuedRequestsPerHost;
+    }
+
+    public void setHttp2(boolean http2) {
+        this.http2 = http2;
+    }
+
+    public void setConnectTimeout(int connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    public void setReadTimeout(int readTimeout) {
+        this.readTimeout = readTimeout;
+    }
+
+    /**
+     * Requests in flight and queued requests of a host. The lock is only held to update the counters,
+     * the requests are started outside of it.
+     */
+    private class HostLimiter {
+        private final Queue<Runnable> queued = new ArrayDeque<>();
+        private int inFlight;
+
+        boolean submit(Runnable task) {
+            synchronized (this) {
+                if (inFlight >= maxConcurrentRequestsPerHost) {
+                    if (queued.size() >= maxQueuedRequestsPerHost) {
+                        return false;
+                    }
+                    queued.add(task);
+                    return true;
+                }
+                inFlight++;
+            }
+            task.run();
+            return true;
+        }
+
+        void release() {
+            Runnable next;
+            synchronized (this) {
+                next = queued.poll();
+                if (next == null) {
+                    inFlight--;
+                }
+            }
+            if (next != null) {
+                next.run();
+            }
+        }
+
+        synchronized int getInFlight() {
+            return inFlight;
+        }
+
+        synchronized int getQueued() {
+            return queued.size();
+        }
+    }
+}
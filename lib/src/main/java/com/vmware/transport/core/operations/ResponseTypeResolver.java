@@ -0,0 +1,126 @@
+/*
+ * Copyright 2020 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ *
+ */
+package com.vmware.transport.core.operations;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.util.ClassUtils;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves the api class of the {@link RestService} operations to the class and the Jackson reader
+ * binding the responses, once per class name. The class loader is only used the first time a name is
+ * resolved, names which cannot be resolved are not cached.
+ */
+class ResponseTypeResolver {
+
+    private final ObjectMapper mapper;
+    private final Map<String, ResponseType> responseTypes = new ConcurrentHashMap<>();
+
+    ResponseTypeResolver(ObjectMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    /**
+     * Returns the response type of an api class.
+     *
+     * @param apiClass the name of the class
+     * @throws ClassNotFoundException if the class cannot be loaded
+     */
+    ResponseType resolve(String apiClass) throws ClassNotFoundException {
+        ResponseType responseType = responseTypes.get(apiClass);
+        if (responseType == null) {
+            Class<?> type = ClassUtils.forName(apiClass, ResponseTypeResolver.class.getClassLoader());
+            responseType = new ResponseType(type, mapper.readerFor(type));
+            responseTypes.putIfAbsent(apiClass, responseType);
+        }
+        return responseType;
+    }
+
+    /**
+     * Resolved api class.
+     */
+    static class ResponseType {
+        private final Class<?> type;
+        private final ObjectReader reader;
+        private volatile List<MediaType> acceptTypes;
+
+        ResponseType(Class<?> type, ObjectReader reader) {
+            this.type = type;
+            this.reader = reader;
+        }
+
+        /**
+         * Returns the media types the RestTemplate accepts for the type, as computed by its
+         * request callback when the type is given to the exchange.
+         *
+         * @param converters the message converters of the RestTemplate
+         */
+        List<MediaType> getAcceptTypes(List<HttpMessageConverter<?>> converters) {
+            List<MediaType> accept = acceptTypes;
+            if (accept == null) {
+                Set<MediaType> mediaTypes = new LinkedHashSet<>();
+                for (HttpMessageConverter<?> converter : converters) {
+                    if (converter.canRead(type, null)) {
+                        for (MediaType mediaType : converter.getSupportedMediaTypes()) {
+                            mediaTypes.add(mediaType.getCharset() != null
+                                    ? new MediaType(mediaType.getType(), mediaType.getSubtype()) : mediaType);
+                        }
+                    }
+                }
+                accept = new ArrayList<>(mediaTypes);
+                MediaType.sortBySpecificity(accept);
+                accept = Collections.unmodifiableList(accept);
+                acceptTypes = accept;
+            }
+            return accept;
+        }
+
+        /**
+         * Binds a response body, strings and byte arrays are returned as received.
+         *
+         * @param body the body of the response
+         * @param contentType the content type of the response, may be null
+         * @return the bound body, null if the body is empty
+         * @throws IOException if the body cannot be bound to the type
+         */
+        Object read(byte[] body, MediaType contentType) throws IOException {
+            if (body == null || body.length == 0) {
+                return null;
+            }
+            if (type == String.class) {
+                return new String(body, getCharset(contentType));
+            }
+            if (type == byte[].class) {
+                return body;
+            }
+            return reader.readValue(body);
+        }
+
+        // same defaults as the StringHttpMessageConverter of the RestTemplate.
+        private static Charset getCharset(MediaType contentType) {
+            if (contentType != null && contentType.getCharset() != null) {
+                return contentType.getCharset();
+            }
+            if (contentType != null && contentType.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+                return StandardCharsets.UTF_8;
+            }
+            return StandardCharsets.ISO_8859_1;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2020 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ *
+ */
+package com.vmware.transport.core.operations;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Serves the GET requests of the {@link RestClientPool} RestTemplate from the {@link RestResponseCache}.
+ */
+class RestCacheInterceptor implements ClientHttpRequestInterceptor {
+
+    private final RestResponseCache cache;
+
+    RestCacheInterceptor(RestResponseCache cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        String key = HttpMethod.GET.equals(request.getMethod())
+                ? cache.getKey(request.getURI(), request.getHeaders()) : null;
+        if (key == null) {
+            return execution.execute(request, body);
+        }
+
+        RestResponseCache.Entry entry = cache.lookup(key, request.getHeaders());
+        if (entry != null) {
+            if (cache.isFresh(entry, request.getHeaders())) {
+                cache.recordHit();
+                return new CachedResponse(entry.getHeaders(), entry.getBody());
+            }
+            cache.addConditionalHeaders(entry, request.getHeaders());
+        }
+
+        ClientHttpResponse response = execution.execute(request, body);
+        if (entry != null && response.getRawStatusCode() == HttpStatus.NOT_MODIFIED.value()) {
+            HttpHeaders headers = response.getHeaders();
+            response.close();
+            cache.recordHit();
+            entry = cache.revalidated(key, entry, headers);
+            return new CachedResponse(entry.getHeaders(), entry.getBody());
+        }
+
+        cache.recordMiss();
+        if (response.getRawStatusCode() != HttpStatus.OK.value()) {
+            return response;
+        }
+        try {
+            byte[] responseBody = StreamUtils.copyToByteArray(response.getBody());
+            HttpHeaders headers = response.getHeaders();
+            cache.store(key, cache.isScoped(request.getHeaders()), request.getHeaders(), headers, responseBody);
+            return new CachedResponse(headers, responseBody);
+        } finally {
+            response.close();
+        }
+    }
+
+    /**
+     * 200 response with a body read in memory.
+     */
+    private static class CachedResponse implements ClientHttpResponse {
+        private final HttpHeaders headers;
+        private final byte[] body;
+
+        CachedResponse(HttpHeaders headers, byte[] body) {
+            this.headers = headers;
+            this.body = body;
+        }
+
+        @Override
+        public HttpStatus getStatusCode() {
+            return HttpStatus.OK;
+        }
+
+        @Override
+        public int getRawStatusCode() {
+            return HttpStatus.OK.value();
+        }
+
+        @Override
+        public String getStatusText() {
+            return HttpStatus.OK.getReasonPhrase();
+        }
+
+        @Override
+        public void close() {
+            // nothing to release.
+        }
+
+        @Override
+        public InputStream getBody() {
+            return new ByteArrayInputStream(body);
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2020 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ *
+ */
+package com.vmware.transport.core.operations;
+
+import com.vmware.transport.core.util.Loggable;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shared HTTP client of the {@link RestService}.
+ *
+ * Connections are kept alive and pooled per host, so the calls to an upstream reuse their connections
+ * (and TLS sessions) instead of opening a new one per call. The pool and the timeouts are configured
+ * with the transport.rest.client properties, a timeout of 0 means no timeout.
+ *
+ * The client is created on first use and closed with the application context.
+ */
+@Component
+public class RestClientPool extends Loggable {
+
+    @Value("${transport.rest.client.maxConnections:200}")
+    private int maxConnections = 200;
+
+    @Value("${transport.rest.client.maxConnectionsPerHost:20}")
+    private int maxConnectionsPerHost = 20;
+
+    @Value("${transport.rest.client.connectTimeout:5000}")
+    private int connectTimeout = 5000;
+
+    @Value("${transport.rest.client.readTimeout:30000}")
+    private int readTimeout = 30000;
+
+    @Value("${transport.rest.client.poolAcquireTimeout:5000}")
+    private int poolAcquireTimeout = 5000;
+
+    @Value("${transport.rest.client.idleConnectionTimeout:60000}")
+    private long idleConnectionTimeout = 60000;
+
+    // connections idle for longer are checked before being reused, the upstream may have closed them.
+    @Value("${transport.rest.client.validateAfterInactivity:2000}")
+    private int validateAfterInactivity = 2000;
+
+    private RestResponseCache responseCache;
+
+    private volatile PoolingHttpClientConnectionManager connectionManager;
+    private volatile CloseableHttpClient httpClient;
+    private volatile RestTemplate restTemplate;
+
+    /**
+     * Returns the shared RestTemplate, backed by the pooled client.
+     */
+    public RestTemplate getRestTemplate() {
+        RestTemplate template = restTemplate;
+        if (template == null) {
+            synchronized (this) {
+                template = restTemplate;
+                if (template == null) {
+                    template = createRestTemplate();
+                    restTemplate = template;
+                }
+            }
+        }
+        return template;
+    }
+
+    private RestTemplate createRestTemplate() {
+        PoolingHttpClientConnectionManager manager = new PoolingHttpClientConnectionManager();
+        manager.setMaxTotal(maxConnections);
+        manager.setDefaultMaxPerRoute(maxConnectionsPerHost);
+        manager.setValidateAfterInactivity(validateAfterInactivity);
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(connectTimeout)
+                .setSocketTimeout(readTimeout)
+                .setConnectionRequestTimeout(poolAcquireTimeout)
+                .build();
+
+        CloseableHttpClient client = HttpClients.custom()
+                .setConnectionManager(manager)
+                .setDefaultRequestConfig(requestConfig)
+                .evictExpiredConnections()
+                .evictIdleConnections(idleConnectionTimeout, TimeUnit.MILLISECONDS)
+                // the client is shared by all the callers, cookies set for one must not be sent for another.
+                .disableCookieManagement()
+                .build();
+
+        this.connectionManager = manager;
+        this.httpClient = client;
+        this.logDebugMessage("REST client pool created, max connections: ", String.valueOf(maxConnections));
+
+        // the HttpComponents factory is required because PATCH causes a freakout.
+        RestTemplate template = new RestTemplate(new HttpComponentsClientHttpRequestFactory(client));
+        if (responseCache != null && responseCache.isEnabled()) {
+            template.getInterceptors().add(new RestCacheInterceptor(responseCache));
+        }
+        return template;
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (httpClient != null) {
+            try {
+                httpClient.close();
+            } catch (IOException ex) {
+                this.logErrorMessage("Unable to close REST client pool", ex.getMessage());
+            }
+            httpClient = null;
+            connectionManager = null;
+            restTemplate = null;
+        }
+    }
+
+    /**
+     * Returns the maximum number of connections of the pool.
+     */
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    /**
+     * Returns the number of connections currently used by a request.
+     */
+    public int getLeasedConnections() {
+        return getTotalStats().getLeased();
+    }
+
+    /**
+     * Returns the number of idle connections kept alive in the pool.
+     */
+    public int getAvailableConnections() {
+        return getTotalStats().getAvailable();
+    }
+
+    /**
+     * Returns the number of requests waiting for a connection.
+     */
+    public int getPendingRequests() {
+        return getTotalStats().getPending();
+    }
+
+    /**
+     * Returns the statistics of the pool per host, keyed by the URI of the host (i.e. https://host:443).
+     */
+    public Map<String, PoolStats> getHostStats() {
+        Map<String, PoolStats> stats = new LinkedHashMap<>();
+        PoolingHttpClientConnectionManager manager = connectionManager;
+        if (manager != null) {
+            manager.getRoutes().forEach(
+                    route -> stats.put(route.getTargetHost().toURI(), manager.getStats(route)));
+        }
+        return stats;
+    }
+
+    private PoolStats getTotalStats() {
+        PoolingHttpClientConnectionManager manager = connectionManager;
+        return manager != null ? manager.getTotalStats() : new PoolStats(0, 0, 0, maxConnections);
+    }
+
+    @Autowired(required = false)
+    public void setResponseCache(RestResponseCache responseCache) {
+        this.responseCache = responseCache;
+    }
+
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    public void setMaxConnectionsPerHost(int maxConnectionsPerHost) {
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+    }
+
+    public void setConnectTimeout(int connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    public void setReadTimeout(int readTimeout) {
+        this.readTimeout = readTimeout;
+    }
+
+    public void setPoolAcquireTimeout(int poolAcquireTimeout) {
+        this.poolAcquireTimeout = poolAcquireTimeout;
+    }
+
+    public void setIdleConnectionTimeout(long idleConnectionTimeout) {
+        this.idleConnectionTimeout = idleConnectionTimeout;
+    }
+
+    public void setValidateAfterInactivity(int validateAfterInactivity) {
+        this.validateAfterInactivity = validateAfterInactivity;
+    }
+}
@@ -0,0 +1,454 @@
+/*
+ * Copyright 2020 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ *
+ */
+package com.vmware.transport.core.operations;
+
+import com.vmware.transport.core.util.Loggable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * HTTP cache of the GET responses received by the {@link RestService}, enabled with transport.rest.cache.enabled.
+ *
+ * The cache is shared by every caller of the service. Fresh entries, according to the Cache-Control
+ * (s-maxage, max-age) or Expires headers of the response, are served without calling the upstream. Stale
+ * entries with an ETag or a Last-Modified header are revalidated with a conditional request, a 304 response
+ * serves the cached body.
+ *
+ * Requests sent with credentials, any of the transport.rest.cache.scopeHeaders (Authorization, Proxy-Authorization,
+ * Cookie, X-Api-Key and X-Auth-Token by default), are cached under a key scoped to a digest of the credentials,
+ * responses marked private are only stored under such keys. The entries are evicted in
+ * least recently used order once the total memory bound is reached, responses over the entry bound are not stored.
+ */
+@Component
+public class RestResponseCache extends Loggable {
+
+    private static final String[] DEFAULT_SCOPE_HEADERS = {
+            HttpHeaders.AUTHORIZATION, HttpHeaders.PROXY_AUTHORIZATION, HttpHeaders.COOKIE, "X-Api-Key", "X-Auth-Token"
+    };
+
+    // estimated size of an entry without its body and headers.
+    private static final int ENTRY_OVERHEAD = 128;
+
+    @Value("${transport.rest.cache.enabled:false}")
+    private boolean enabled;
+
+    @Value("${transport.rest.cache.maxEntryBytes:1048576}")
+    private long maxEntryBytes = 1048576;
+
+    @Value("${transport.rest.cache.maxTotalBytes:67108864}")
+    private long maxTotalBytes = 67108864;
+
+    @Value("${transport.rest.cache.scopeHeaders:Authorization,Proxy-Authorization,Cookie,X-Api-Key,X-Auth-Token}")
+    private String[] scopeHeaders = DEFAULT_SCOPE_HEADERS;
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder revalidations = new LongAdder();
+
+    private Clock clock = Clock.systemUTC();
+
+    /**
+     * Returns true if the responses are cached.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the key of a GET request, or null if the request must not use the cache.
+     *
+     * @param uri the URI of the request
+     * @param requestHeaders the headers of the request
+     */
+    public String getKey(URI uri, HttpHeaders requestHeaders) {
+        if (!enabled || hasDirective(requestHeaders, "no-store")) {
+            return null;
+        }
+        // header values cannot contain line breaks, the parts of the key cannot be forged by the request.
+        StringBuilder key = new StringBuilder(uri.toString());
+        String accept = requestHeaders.getFirst(HttpHeaders.ACCEPT);
+        if (accept != null) {
+            key.append("\naccept=").append(accept);
+        }
+        String credentials = getCredentialDigest(requestHeaders);
+        if (credentials != null) {
+            key.append("\nscope=").append(credentials);
+        }
+        return key.toString();
+    }
+
+    /**
+     * Returns true if a request is sent with credentials, its key is then scoped to them.
+     *
+     * @param requestHeaders the headers of the request
+     */
+    public boolean isScoped(HttpHeaders requestHeaders) {
+        for (String header : scopeHeaders) {
+            if (!requestHeaders.getOrEmpty(header).isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the entry cached for a key, fresh or stale, or null.
+     *
+     * @param key the key of the request
+     * @param requestHeaders the headers of the request, compared to the headers the response varies on.
+     */
+    public Entry lookup(String key, HttpHeaders requestHeaders) {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+        }
+        if (entry != null && !entry.matchesVary(requestHeaders)) {
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Returns true if an entry can be served without revalidation.
+     */
+    public boolean isFresh(Entry entry, HttpHeaders requestHeaders) {
+        return entry.expiresAt > clock.millis() && !hasDirective(requestHeaders, "no-cache");
+    }
+
+    /**
+     * Add the validators of a stale entry to a request.
+     */
+    public void addConditionalHeaders(Entry entry, HttpHeaders requestHeaders) {
+        if (entry.etag != null) {
+            requestHeaders.set(HttpHeaders.IF_NONE_MATCH, entry.etag);
+        }
+        if (entry.lastModified != null) {
+            requestHeaders.set(HttpHeaders.IF_MODIFIED_SINCE, entry.lastModified);
+        }
+    }
+
+    /**
+     * Store a 200 response, if its headers allow it.
+     *
+     * @param key the key of the request
+     * @param scoped true if the key is scoped to the credentials of the request, see {@link #isScoped}.
+     * @return the stored entry, or null if the response is not cacheable.
+     */
+    public Entry store(String key, boolean scoped, HttpHeaders requestHeaders, HttpHeaders responseHeaders,
+                       byte[] body) {
+        List<String> cacheControl = getDirectives(responseHeaders);
+        if (cacheControl.contains("no-store")
+                || (cacheControl.contains("private") && !scoped)
+                || responseHeaders.getVary().contains("*")) {
+            return null;
+        }
+
+        long expiresAt = getExpiresAt(responseHeaders, cacheControl);
+        String etag = responseHeaders.getETag();
+        String lastModified = responseHeaders.getFirst(HttpHeaders.LAST_MODIFIED);
+        if (expiresAt <= clock.millis() && etag == null && lastModified == null) {
+            // never fresh and cannot be revalidated.
+            return null;
+        }
+
+        Entry entry = new Entry(body, responseHeaders, expiresAt, etag, lastModified,
+                getVaryValues(requestHeaders, responseHeaders));
+        if (entry.size > maxEntryBytes || entry.size > maxTotalBytes) {
+            return null;
+        }
+
+        synchronized (this) {
+            Entry previous = entries.put(key, entry);
+            if (previous != null) {
+                totalBytes -= previous.size;
+            }
+            totalBytes += entry.size;
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (totalBytes > maxTotalBytes && iterator.hasNext()) {
+                totalBytes -= iterator.next().size;
+                iterator.remove();
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * Refresh an entry revalidated by a 304 response.
+     *
+     * @return the refreshed entry, with the body of the cached one.
+     */
+    public Entry revalidated(String key, Entry entry, HttpHeaders responseHeaders) {
+        revalidations.increment();
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(entry.headers);
+        responseHeaders.forEach((name, values) -> {
+            if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                headers.put(name, values);
+            }
+        });
+        long expiresAt = getExpiresAt(headers, getDirectives(headers));
+        Entry refreshed = new Entry(entry.body, headers, expiresAt,
+                headers.getETag() != null ? headers.getETag() : entry.etag,
+                headers.getFirst(HttpHeaders.LAST_MODIFIED) != null
+                        ? headers.getFirst(HttpHeaders.LAST_MODIFIED) : entry.lastModified,
+                entry.varyValues);
+
+        synchronized (this) {
+            if (entries.get(key) == entry) {
+                entries.put(key, refreshed);
+                totalBytes += refreshed.size - entry.size;
+            }
+        }
+        return refreshed;
+    }
+
+    /**
+     * Record a response served from the cache, fresh or revalidated.
+     */
+    public void recordHit() {
+        hits.increment();
+    }
+
+    /**
+     * Record a response which could not be served from the cache.
+     */
+    public void recordMiss() {
+        misses.increment();
+    }
+
+    /**
+     * Drop every entry.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        totalBytes = 0;
+    }
+
+    /**
+     * Returns the number of responses served from the cache, revalidated responses included.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of responses received from the upstream.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the number of stale entries revalidated with a 304 response.
+     */
+    public long getRevalidations() {
+        return revalidations.sum();
+    }
+
+    /**
+     * Returns the ratio of the cacheable requests served from the cache.
+     */
+    public double getHitRatio() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total > 0 ? (double) hitCount / total : 0;
+    }
+
+    /**
+     * Returns the number of entries.
+     */
+    public synchronized int getSize() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the estimated memory used by the entries.
+     */
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public void setMaxEntryBytes(long maxEntryBytes) {
+        this.maxEntryBytes = maxEntryBytes;
+    }
+
+    public void setMaxTotalBytes(long maxTotalBytes) {
+        this.maxTotalBytes = maxTotalBytes;
+    }
+
+    public void setScopeHeaders(String... scopeHeaders) {
+        this.scopeHeaders = scopeHeaders;
+    }
+
+    void setClock(Clock clock) {
+        this.clock = clock;
+    }
+
+    private long getExpiresAt(HttpHeaders responseHeaders, List<String> cacheControl) {
+        long now = clock.millis();
+        if (cacheControl.contains("no-cache")) {
+            return now;
+        }
+
+        // shared caches use s-maxage over max-age.
+        Long maxAge = getSeconds(cacheControl, "s-maxage=");
+        if (maxAge == null) {
+            maxAge = getSeconds(cacheControl, "max-age=");
+        }
+        if (maxAge != null) {
+            Long age = null;
+            try {
+                String ageHeader = responseHeaders.getFirst("Age");
+                age = ageHeader != null ? Long.parseLong(ageHeader.trim()) : null;
+            } catch (NumberFormatException ex) {
+                // ignore invalid age.
+            }
+            return now + (maxAge - (age != null ? age : 0)) * 1000;
+        }
+
+        try {
+            long expires = responseHeaders.getExpires();
+            if (expires != -1) {
+                long date = responseHeaders.getDate();
+                return now + expires - (date != -1 ? date : now);
+            }
+        } catch (IllegalArgumentException ex) {
+            // invalid dates are already expired.
+            return now;
+        }
+        return now;
+    }
+
+    private Long getSeconds(List<String> directives, String prefix) {
+        for (String directive : directives) {
+            if (directive.startsWith(prefix)) {
+                try {
+                    return Long.parseLong(directive.substring(prefix.length()).replace("\"", ""));
+                } catch (NumberFormatException ex) {
+                    return 0L;
+                }
+            }
+        }
+        return null;
+    }
+
+    private boolean hasDirective(HttpHeaders headers, String directive) {
+        return getDirectives(headers).contains(directive);
+    }
+
+    private List<String> getDirectives(HttpHeaders headers) {
+        List<String> directives = new ArrayList<>();
+        for (String value : headers.getOrEmpty(HttpHeaders.CACHE_CONTROL)) {
+            for (String directive : value.split(",")) {
+                directives.add(directive.trim().toLowerCase(Locale.ROOT));
+            }
+        }
+        if (directives.isEmpty() && "no-cache".equalsIgnoreCase(headers.getPragma())) {
+            directives.add("no-cache");
+        }
+        return directives;
+    }
+
+    private Map<String, String> getVaryValues(HttpHeaders requestHeaders, HttpHeaders responseHeaders) {
+        Map<String, String> values = new LinkedHashMap<>();
+        for (String name : responseHeaders.getVary()) {
+            values.put(name, String.join(",", requestHeaders.getOrEmpty(name)));
+        }
+        return values;
+    }
+
+    private String getCredentialDigest(HttpHeaders requestHeaders) {
+        MessageDigest digest = null;
+        for (String header : scopeHeaders) {
+            for (String value : requestHeaders.getOrEmpty(header)) {
+                if (digest == null) {
+                    try {
+                        digest = MessageDigest.getInstance("SHA-256");
+                    } catch (NoSuchAlgorithmException ex) {
+                        throw new IllegalStateException(ex);
+                    }
+                }
+                digest.update(header.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+                digest.update(value.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+        }
+        return digest != null ? Base64.getUrlEncoder().withoutPadding().encodeToString(digest.digest()) : null;
+    }
+
+    /**
+     * Cached response.
+     */
+    public static class Entry {
+        private final byte[] body;
+        private final HttpHeaders headers;
+        private final long expiresAt;
+        private final String etag;
+        private final String lastModified;
+        private final Map<String, String> varyValues;
+        private final long size;
+
+        Entry(byte[] body, HttpHeaders headers, long expiresAt, String etag, String lastModified,
+              Map<String, String> varyValues) {
+            this.body = body;
+            this.headers = HttpHeaders.readOnlyHttpHeaders(headers);
+            this.expiresAt = expiresAt;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.varyValues = varyValues;
+
+            long headersSize = 0;
+            for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+                headersSize += header.getKey().length();
+                for (String value : header.getValue()) {
+                    headersSize += value.length();
+                }
+            }
+            this.size = body.length + headersSize * 2 + ENTRY_OVERHEAD;
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        boolean matchesVary(HttpHeaders requestHeaders) {
+            for (Map.Entry<String, String> vary : varyValues.entrySet()) {
+                if (!vary.getValue().equals(String.join(",", requestHeaders.getOrEmpty(vary.getKey())))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
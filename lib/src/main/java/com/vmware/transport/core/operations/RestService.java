@@ -25,7 +25,7 @@ import com.vmware.transport.core.util.URIMatcher;
 import com.vmware.transport.core.util.URIMethodResult;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.*;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.stereotype.Service;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.client.*;
@@ -34,6 +34,9 @@ import org.springframework.web.util.UriComponentsBuilder;
 import javax.annotation.PostConstruct;
 import java.io.IOException;
 import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
@@ -54,21 +57,43 @@ import java.util.function.Consumer;
 @Service
 @SuppressWarnings("unchecked")
 public class RestService extends AbstractService<Request<RestServiceRequest>, Response> {
+
+    // headers the JDK HttpClient does not allow to set.
+    private static final Set<String> RESTRICTED_HEADERS = Set.of("connection", "content-length", "expect",
+            "host", "upgrade");
+
     private final URIMatcher uriMatcher;
     private final RestControllerInvoker controllerInvoker;
+    private final RestClientPool restClientPool;
+    private final AsyncRestClient asyncRestClient;
     private final ObjectMapper mapper;
+    private final ObjectMapper responseMapper;
+    private final ResponseTypeResolver responseTypes;
+    private RestResponseCache responseCache;
     private BusStore<String, String> baseHostStore;
     private JsonParser parser;
 
     @Autowired
-    public RestService(URIMatcher uriMatcher, RestControllerInvoker controllerInvoker) {
+    public RestService(URIMatcher uriMatcher, RestControllerInvoker controllerInvoker,
+                       RestClientPool restClientPool, AsyncRestClient asyncRestClient) {
         super(CoreChannels.RestService);
         this.uriMatcher = uriMatcher;
         this.controllerInvoker = controllerInvoker;
+        this.restClientPool = restClientPool;
+        this.asyncRestClient = asyncRestClient;
         this.mapper = new ObjectMapper();
+
+        // configured as the mapper of the RestTemplate message converters.
+        this.responseMapper = Jackson2ObjectMapperBuilder.json().build();
+        this.responseTypes = new ResponseTypeResolver(responseMapper);
         parser = new JsonParser();
     }
 
+    @Autowired(required = false)
+    public void setResponseCache(RestResponseCache responseCache) {
+        this.responseCache = responseCache;
+    }
+
     @PostConstruct
     public void setUp() {
         this.storeManager.createStore(CoreStores.ServiceWideHeaders);
@@ -222,98 +247,47 @@ public class RestService extends AbstractService<Request<RestServiceRequest>, Re
         if (headers.getContentType() == null) {
             headers.setContentType(mediaType);
         }
-        entity = new HttpEntity<>(operation.getBody(), headers);
 
-        // required because PATCH causes a freakout.
-        HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory();
-        RestTemplate restTemplate = new RestTemplate(requestFactory);
+        if (asyncRestClient.isEnabled()) {
+            restServiceRequestAsync(operation, headers);
+            return;
+        }
+
+        RestTemplate restTemplate = restClientPool.getRestTemplate();
 
         try {
-            ResponseEntity resp;
+            ResponseTypeResolver.ResponseType responseType = responseTypes.resolve(operation.getApiClass());
+
+            // the response is read as bytes, accept what the RestTemplate would accept for the api class.
+            if (headers.getAccept().isEmpty()) {
+                headers.setAccept(responseType.getAcceptTypes(restTemplate.getMessageConverters()));
+            }
+            entity = new HttpEntity<>(operation.getBody(), headers);
+
+            ResponseEntity<byte[]> resp;
             switch (operation.getMethod()) {
                 case GET:
-                    resp = restTemplate.exchange(
-                            operation.getUri(),
-                            HttpMethod.GET,
-                            entity,
-                            Class.forName(operation.getApiClass())
-                    );
-                    operation.getSuccessHandler().accept(resp.getBody());
-                    break;
-
                 case POST:
-                    resp = restTemplate.exchange(
-                            operation.getUri(),
-                            HttpMethod.POST,
-                            entity,
-                            Class.forName(operation.getApiClass())
-                    );
-                    operation.getSuccessHandler().accept(resp.getBody());
-                    break;
-
                 case PUT:
-                    resp = restTemplate.exchange(
-                            operation.getUri(),
-                            HttpMethod.PUT,
-                            entity,
-                            Class.forName(operation.getApiClass())
-                    );
-                    operation.getSuccessHandler().accept(resp.getBody());
-                    break;
-
                 case PATCH:
-                    resp = restTemplate.exchange(
-                            operation.getUri(),
-                            HttpMethod.PATCH,
-                            entity,
-                            Class.forName(operation.getApiClass())
-                    );
-                    operation.getSuccessHandler().accept(resp.getBody());
-                    break;
-
                 case DELETE:
                     resp = restTemplate.exchange(
                             operation.getUri(),
-                            HttpMethod.DELETE,
+                            operation.getMethod(),
                             entity,
-                            Class.forName(operation.getApiClass())
+                            byte[].class
                     );
-                    operation.getSuccessHandler().accept(resp.getBody());
                     break;
-            }
-
-        } catch (RestClientResponseException exp) {
-
-            String errorMsg;
-            int errorCode;
 
-            try {
-                // try parsing the error response as Transport Response and extract error code and message from it
-                Response errorResponse = mapper.readValue(exp.getResponseBodyAsString(), Response.class);
-                errorMsg = errorResponse.getErrorMessage();
-                errorCode = errorResponse.getErrorCode();
-            } catch (IOException ioe) {
-                // if it's not a Transport response object, or some exception happened during casting, dump the entire
-                // response as a String value.
-                errorMsg = exp.getResponseBodyAsString();
-                errorCode = exp.getRawStatusCode();
+                default:
+                    return;
             }
+            operation.getSuccessHandler().accept(
+                    responseType.read(resp.getBody(), resp.getHeaders().getContentType()));
 
-            this.logErrorMessage("REST Client Error, unable to complete request: ", errorMsg);
-
-            // try parsing the errorMsg as JSON and set it as errorObject
-            Object upstreamErrorObject;
-            ObjectMapper mapper = new ObjectMapper();
-            try {
-                upstreamErrorObject = mapper.readValue(errorMsg, LinkedHashMap.class);
-            } catch (IOException e) {
-                // errorMsg is not a properly formatted JSON string in which case just stick with the string value
-                upstreamErrorObject = errorMsg;
-            }
+        } catch (RestClientResponseException exp) {
 
-            RestError restError = new RestError("REST Client Error, unable to complete request: " + errorMsg,
-                    upstreamErrorObject, errorCode);
-            operation.getErrorHandler().accept(restError);
+            handleResponseError(operation, exp.getResponseBodyAsString(), exp.getRawStatusCode());
 
         } catch (NullPointerException npe) {
 
@@ -335,8 +309,193 @@ public class RestService extends AbstractService<Request<RestServiceRequest>, Re
                     new RestError("Class Not Found Exception thrown for: "
                             + operation.getUri().toString(), 500)
             );
+        } catch (IOException ioe) {
+            this.logErrorMessage("REST Client Error, unable to read response: ", ioe.toString());
+            operation.getErrorHandler().accept(
+                    new RestError("REST Client Error, unable to complete request: "
+                            + operation.getUri().toString(), 500)
+            );
+        }
+
+    }
+
+    /**
+     * Send the request with the {@link AsyncRestClient}, the handlers of the operation are called
+     * on the threads of the client once the response is received.
+     */
+    private void restServiceRequestAsync(RestOperation operation, HttpHeaders headers) {
+        ResponseTypeResolver.ResponseType responseType;
+        try {
+            responseType = responseTypes.resolve(operation.getApiClass());
+        } catch (ClassNotFoundException cnfexp) {
+            this.logErrorMessage("Class Not Found Exception when making REST Call", cnfexp.toString());
+            operation.getErrorHandler().accept(
+                    new RestError("Class Not Found Exception thrown for: "
+                            + operation.getUri().toString(), 500)
+            );
+            return;
+        }
+
+        // serve fresh responses from the cache, revalidate the stale ones.
+        String cacheKey = null;
+        RestResponseCache.Entry cached = null;
+        if (responseCache != null && HttpMethod.GET.equals(operation.getMethod())) {
+            cacheKey = responseCache.getKey(operation.getUri(), headers);
+            if (cacheKey != null) {
+                cached = responseCache.lookup(cacheKey, headers);
+                if (cached != null) {
+                    if (responseCache.isFresh(cached, headers)) {
+                        responseCache.recordHit();
+                        completeAsyncRequest(operation, cached.getBody(), responseType,
+                                cached.getHeaders().getContentType());
+                        return;
+                    }
+                    responseCache.addConditionalHeaders(cached, headers);
+                }
+            }
+        }
+
+        HttpRequest request;
+        try {
+            request = buildHttpRequest(operation, headers);
+        } catch (IOException | RuntimeException ex) {
+            this.logErrorMessage("REST Client Error, unable to create request: ", ex.toString());
+            operation.getErrorHandler().accept(
+                    new RestError("REST Client Error, unable to complete request: "
+                            + operation.getUri().toString(), 500)
+            );
+            return;
+        }
+
+        String key = cacheKey;
+        RestResponseCache.Entry entry = cached;
+        asyncRestClient.send(request).whenComplete((response, ex) -> {
+            try {
+                handleAsyncResponse(operation, headers, responseType, key, entry, response, ex);
+            } catch (RuntimeException rex) {
+                // as in the blocking path, the exceptions thrown by the handlers are reported as errors.
+                this.logErrorMessage("REST Client Error, unable to complete request: ", rex.toString());
+                operation.getErrorHandler().accept(
+                        new RestError("REST Client Error, unable to complete request: "
+                                + operation.getUri().toString(), 500)
+                );
+            }
+        });
+    }
+
+    private void handleAsyncResponse(RestOperation operation, HttpHeaders headers,
+                                     ResponseTypeResolver.ResponseType responseType, String key,
+                                     RestResponseCache.Entry entry, HttpResponse<byte[]> response, Throwable ex) {
+        if (ex != null) {
+            this.logErrorMessage("REST Client Error, unable to complete request: ", ex.toString());
+            operation.getErrorHandler().accept(
+                    new RestError("REST Client Error, unable to complete request: "
+                            + operation.getUri().toString(), 500)
+            );
+            return;
+        }
+
+        byte[] body = response.body();
+        HttpHeaders responseHeaders = new HttpHeaders();
+        response.headers().map().forEach(responseHeaders::put);
+        if (key != null) {
+            if (entry != null && response.statusCode() == HttpStatus.NOT_MODIFIED.value()) {
+                responseCache.recordHit();
+                RestResponseCache.Entry refreshed = responseCache.revalidated(key, entry, responseHeaders);
+                body = refreshed.getBody();
+                responseHeaders = refreshed.getHeaders();
+            } else {
+                responseCache.recordMiss();
+                if (response.statusCode() == HttpStatus.OK.value()) {
+                    responseCache.store(key, responseCache.isScoped(headers), headers, responseHeaders, body);
+                }
+            }
+        }
+
+        if (response.statusCode() >= 400) {
+            handleResponseError(operation, new String(body, StandardCharsets.UTF_8), response.statusCode());
+            return;
+        }
+
+        MediaType contentType;
+        try {
+            contentType = responseHeaders.getContentType();
+        } catch (InvalidMediaTypeException imtexp) {
+            contentType = null;
+        }
+        completeAsyncRequest(operation, body, responseType, contentType);
+    }
+
+    private void completeAsyncRequest(RestOperation operation, byte[] body,
+                                      ResponseTypeResolver.ResponseType responseType, MediaType contentType) {
+        Object response;
+        try {
+            response = responseType.read(body, contentType);
+        } catch (IOException ioe) {
+            this.logErrorMessage("REST Client Error, unable to read response: ", ioe.toString());
+            operation.getErrorHandler().accept(
+                    new RestError("REST Client Error, unable to complete request: "
+                            + operation.getUri().toString(), 500)
+            );
+            return;
+        }
+        operation.getSuccessHandler().accept(response);
+    }
+
+    private HttpRequest buildHttpRequest(RestOperation operation, HttpHeaders headers) throws IOException {
+        HttpRequest.BodyPublisher bodyPublisher;
+        Object body = operation.getBody();
+        if (body == null) {
+            bodyPublisher = HttpRequest.BodyPublishers.noBody();
+        } else if (body instanceof String) {
+            bodyPublisher = HttpRequest.BodyPublishers.ofString((String) body);
+        } else if (body instanceof byte[]) {
+            bodyPublisher = HttpRequest.BodyPublishers.ofByteArray((byte[]) body);
+        } else {
+            bodyPublisher = HttpRequest.BodyPublishers.ofByteArray(responseMapper.writeValueAsBytes(body));
+        }
+
+        HttpRequest.Builder builder = asyncRestClient.newRequest(operation.getUri())
+                .method(operation.getMethod().name(), bodyPublisher);
+        headers.forEach((name, values) -> {
+            // the connection headers are set by the client.
+            if (!RESTRICTED_HEADERS.contains(name.toLowerCase())) {
+                values.forEach(value -> builder.header(name, value));
+            }
+        });
+        return builder.build();
+    }
+
+    private void handleResponseError(RestOperation operation, String responseBody, int statusCode) {
+        String errorMsg;
+        int errorCode;
+
+        try {
+            // try parsing the error response as Transport Response and extract error code and message from it
+            Response errorResponse = mapper.readValue(responseBody, Response.class);
+            errorMsg = errorResponse.getErrorMessage();
+            errorCode = errorResponse.getErrorCode();
+        } catch (IOException ioe) {
+            // if it's not a Transport response object, or some exception happened during casting, dump the entire
+            // response as a String value.
+            errorMsg = responseBody;
+            errorCode = statusCode;
+        }
+
+        this.logErrorMessage("REST Client Error, unable to complete request: ", errorMsg);
+
+        // try parsing the errorMsg as JSON and set it as errorObject
+        Object upstreamErrorObject;
+        try {
+            upstreamErrorObject = mapper.readValue(errorMsg, LinkedHashMap.class);
+        } catch (IOException e) {
+            // errorMsg is not a properly formatted JSON string in which case just stick with the string value
+            upstreamErrorObject = errorMsg;
         }
 
+        RestError restError = new RestError("REST Client Error, unable to complete request: " + errorMsg,
+                upstreamErrorObject, errorCode);
+        operation.getErrorHandler().accept(restError);
     }
 
     private URIMethodResult locateRestControllerForURIAndMethod(RestOperation operation) throws Exception {
@@ -6,22 +6,40 @@
 package com.vmware.transport.core.util;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 import com.vmware.transport.bridge.Request;
 import com.vmware.transport.bridge.Response;
 import com.vmware.transport.bus.model.MessageHeaders;
 
+import java.io.IOException;
 import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @SuppressWarnings("unchecked")
 public class ClassMapper {
 
+    private static final ObjectMapper mapper = new ObjectMapper();
+    private static final Map<Class, ObjectReader> readers = new ConcurrentHashMap<>();
+
     public static <T> T CastPayload(Class clazz, Request request) throws ClassCastException, IllegalArgumentException {
-        ObjectMapper mapper = new ObjectMapper();
-        return (T) mapper.convertValue(request.getPayload(), clazz);
+        TokenBuffer rawPayload = request.getRawPayload();
+        if (rawPayload == null) {
+            return (T) mapper.convertValue(request.getPayload(), clazz);
+        }
+        ObjectReader reader = readers.get(clazz);
+        if (reader == null) {
+            reader = readers.computeIfAbsent(clazz, mapper::readerFor);
+        }
+        try {
+            return reader.readValue(rawPayload.asParser());
+        } catch (IOException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
     }
 
     public static <T> T CastPayload(Class clazz, Response response) throws ClassCastException, IllegalArgumentException {
-        ObjectMapper mapper = new ObjectMapper();
         return (T) mapper.convertValue(response.getPayload(), clazz);
     }
 
@@ -9,27 +9,50 @@ import com.vmware.transport.core.error.RestError;
 import com.vmware.transport.core.model.RestOperation;
 
 import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
 import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 
-import java.lang.reflect.InvocationTargetException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Invokes the controller methods located by the {@link URIMatcher}.
+ *
+ * The first call of a controller method compiles an invoker for it: the controller bean is resolved,
+ * the method is bound to it as a {@link MethodHandle}, and each argument gets a binder reading its
+ * value from the path items, the query string, the headers or the body of the operation. The invokers
+ * are dropped when the application context is refreshed.
+ */
 @Component
 @SuppressWarnings("unchecked")
 public class RestControllerInvoker {
 
     private final ApplicationContext context;
 
+    private final Map<Method, MethodInvoker> invokers = new ConcurrentHashMap<>();
+
     RestControllerInvoker(ApplicationContext context) {
         this.context = context;
     }
 
+    @EventListener
+    public void handleContextRefreshed(ContextRefreshedEvent evt) {
+        this.invokers.clear();
+    }
+
     /**
      * Check method can be called and invoke accordingly.
      *
@@ -38,282 +61,239 @@ public class RestControllerInvoker {
      * @throws RuntimeException if the method cannot be executed because of a mismatch.
      */
     public void invokeMethod(URIMethodResult methodResult, RestOperation operation) {
+        MethodInvoker invoker = invokers.get(methodResult.getMethod());
+        if (invoker == null) {
+            invoker = invokers.computeIfAbsent(methodResult.getMethod(), method -> compileInvoker(methodResult));
+        }
+        invoker.invoke(methodResult, operation);
+    }
 
-        Object[] formulatedMethodArgs = new Object[methodResult.getMethogArgList().size()];
-
-        if (methodResult.getMethodArgs().size() >= 1) {
-
-            Map<String, Object> pathItemMap = methodResult.getPathItemMap();
-            Map<String, Class> methodArgs = methodResult.getMethodArgs();
-            Map<String, Class> methodAnnotationTypes = methodResult.getMethodAnnotationTypes();
-
-
-            // check if path items and method args match
-            if (pathItemMap.size() >= 1) {
-
-                if (doPathItemsAndMethodArgsMatch(pathItemMap, methodArgs, methodAnnotationTypes)) {
-                    processAndCallMethod(methodResult, operation, formulatedMethodArgs, pathItemMap);
-
-
-                } else {
-
-                    operation.getErrorHandler().accept(
-                            getRestError(
-                                    "Supplied method can't be used, the params and path items don't align.",
-                                    500)
-                    );
-                }
+    private MethodInvoker compileInvoker(URIMethodResult methodResult) {
+        Method method = methodResult.getMethod();
+        Object bean = context.getBean(methodResult.getController().getClass());
+        int argCount = methodResult.getMethogArgList().size();
 
-            } else {
+        MethodInvoker invoker = new MethodInvoker();
+        invoker.parameterTypes = new Class<?>[method.getParameterCount()];
+        for (int x = 0; x < invoker.parameterTypes.length; x++) {
+            invoker.parameterTypes[x] = ClassUtils.resolvePrimitiveIfNecessary(method.getParameterTypes()[x]);
+        }
+        invoker.primitiveParameters = new boolean[method.getParameterCount()];
+        for (int x = 0; x < invoker.primitiveParameters.length; x++) {
+            invoker.primitiveParameters[x] = method.getParameterTypes()[x].isPrimitive();
+        }
 
-                processAndCallMethod(methodResult, operation, formulatedMethodArgs, pathItemMap);
+        try {
+            MethodHandle handle = MethodHandles.lookup().unreflect(method);
+            if (!Modifier.isStatic(method.getModifiers())) {
+                handle = handle.bindTo(bean);
             }
-
-        } else {
-
-            callControllerMethod(methodResult, operation, null);
+            invoker.handle = handle
+                    .asType(MethodType.genericMethodType(method.getParameterCount()))
+                    .asSpreader(Object[].class, method.getParameterCount());
+        } catch (IllegalAccessException e) {
+            invoker.compileError = getRestError("Method cannot be called, method param mismatch", 500);
+            return invoker;
+        } catch (ClassCastException e) {
+            invoker.compileError = getRestError("Method cannot be called, method param types don't match", 500);
+            return invoker;
         }
-    }
 
-    private void processAndCallMethod(URIMethodResult methodResult, RestOperation operation, Object[] formulatedMethodArgs, Map<String, Object> pathItemMap) {
-        RestError error;// iterate through all our data and construct the correct signature to call.
-        error = processMethod(methodResult, pathItemMap, formulatedMethodArgs, operation);
-
-        // send error instead of invoking method, bypass completely.
-        if (error != null) {
-            operation.getErrorHandler().accept(error);
-            return;
+        if (methodResult.getMethodArgs().size() >= 1) {
+            invoker.binders = new ArgumentBinder[argCount];
+            List<String> argNames = methodResult.getMethogArgList();
+            for (int x = 0; x < argCount; x++) {
+                invoker.binders[x] = createBinder(methodResult, argNames.get(x));
+            }
+            invoker.pathItemsAligned = doPathItemsAndMethodArgsMatch(methodResult);
         }
-
-        callControllerMethod(methodResult, operation, formulatedMethodArgs);
+        return invoker;
     }
 
     /**
-     * Validate path and method arguments align
+     * Validate path and method arguments align, every path variable of the route must be bound
+     * to a method argument annotated with @PathVariable.
      *
-     * @param pathItemMap       map of the path items and the instance (string, number UUID)
-     * @param methodArgs        a map of every argument to the method and the type
-     * @param methodAnnotations a map of every method annotation.
+     * @param methodResult the located method
      * @return true if path items and method arguments match (for path variables only)
      */
-    private boolean doPathItemsAndMethodArgsMatch(
-            Map<String, Object> pathItemMap,
-            Map<String, Class> methodArgs,
-            Map<String, Class> methodAnnotations
-    ) {
-
-        boolean match = false;
-
-        for (String pathItem : pathItemMap.keySet()) {
-
-            String className = methodAnnotations.get(pathItem).getName();
-            if (className.contentEquals("org.springframework.web.bind.annotation.PathVariable")) {
-                match = methodArgs.get(pathItem) != null;
+    private boolean doPathItemsAndMethodArgsMatch(URIMethodResult methodResult) {
+        for (String pathItem : methodResult.getPathItems()) {
+            if (pathItem.startsWith("{") && pathItem.endsWith("}")) {
+                String argName = pathItem.replaceAll("\\{([\\w].+)\\}", "$1");
+                if (!PathVariable.class.equals(methodResult.getMethodAnnotationTypes().get(argName))
+                        || methodResult.getMethodArgs().get(argName) == null) {
+                    return false;
+                }
             }
         }
-        return match;
+        return true;
     }
 
-    private void callControllerMethod(URIMethodResult methodResult, RestOperation operation, Object[] formulatedMethodArgs) {
-        Method method = methodResult.getMethod();
-        Object bean = context.getBean(methodResult.getController().getClass());
-        try {
-            if (formulatedMethodArgs != null) {
-                operation.getSuccessHandler().accept(
-                        method.invoke(bean, formulatedMethodArgs)
-                );
-            } else {
-                operation.getSuccessHandler().accept(
-                        method.invoke(bean)
-                );
-            }
-
-        } catch (InvocationTargetException e) {
-            if (e.getTargetException().getClass().equals(AuthenticationCredentialsNotFoundException.class)) {
-                operation.getErrorHandler().accept(
-                        this.getRestError(e.getTargetException().getMessage(), 500)
-                );
-            } else {
-                operation.getErrorHandler().accept(
-                        this.getRestError(e.getTargetException().getMessage(), 401)
-                );
-            }
+    private ArgumentBinder createBinder(URIMethodResult methodResult, String paramName) {
+        Class annotationType = methodResult.getMethodAnnotationTypes().get(paramName);
 
-        } catch (IllegalAccessException e) {
-            operation.getErrorHandler().accept(
-                    this.getRestError("Method cannot be called, method param mismatch", 500)
-            );
-        } catch (IllegalArgumentException e) {
-            operation.getErrorHandler().accept(
-                    this.getRestError("Method cannot be called, method param types don't match", 500)
-            );
+        // object without annotation is a request body.
+        if (annotationType == null || annotationType.equals(RequestBody.class)) {
+            return (result, operation) -> operation.getBody();
         }
-    }
-
-    private RestError processMethod(URIMethodResult methodResult, Map<String, Object> pathItemMap,
-                                    Object[] formulatedMethodArgs, RestOperation operation) {
-
-        RestError error = null;
-        int index = 0;
-        for (String paramName : methodResult.getMethogArgList()) {
-
-            // check we have an annotation.
-            if (methodResult.getMethodAnnotationTypes().get(paramName) != null) {
 
-                // check PathVariable argument.
-                if (methodResult.getMethodAnnotationTypes().get(paramName).equals(PathVariable.class)) {
-                    formulatedMethodArgs[index] = pathItemMap.get(paramName);
-                }
+        if (annotationType.equals(PathVariable.class)) {
+            return (result, operation) -> result.getPathItemMap().get(paramName);
+        }
 
-                // check RequestBody argument.
-                if (methodResult.getMethodAnnotationTypes().get(paramName).equals(RequestBody.class)) {
-                    formulatedMethodArgs[index] = operation.getBody();
+        if (annotationType.equals(RequestHeader.class)) {
+            RequestHeader requestHeader = (RequestHeader) methodResult.getMethodAnnotationValues().get(paramName);
+            if (requestHeader != null && !requestHeader.value().isEmpty()) {
+                String headerName = requestHeader.value();
+                if (requestHeader.required()) {
+                    return (result, operation) -> getRequiredHeader(operation, headerName);
                 }
+                return (result, operation) -> operation.getHeaders().get(paramName);
+            }
 
-                // check RequestHeader argument.
-                if (methodResult.getMethodAnnotationTypes().get(paramName).equals(RequestHeader.class)) {
-
-                    RequestHeader requestHeader = (RequestHeader) methodResult.getMethodAnnotationValues().get(paramName);
-                    if (requestHeader != null && !requestHeader.value().isEmpty()) {
-                        if (requestHeader.required()) {
-
-                            if (!operation.getHeaders().containsKey(requestHeader.value())) {
-                                error = getRestError(
-                                        "Method requires headers parameters, however no header with key '"
-                                                + requestHeader.value() + "' was found",
-                                        500);
-                            } else {
-
-                                formulatedMethodArgs[index] = operation.getHeaders().get(requestHeader.value());
-
-                            }
-
-                        } else {
-
-                            if (!operation.getHeaders().containsKey(paramName)) {
-
-                                formulatedMethodArgs[index] = null;
-
-                            } else {
-
-                                formulatedMethodArgs[index] = operation.getHeaders().get(paramName);
+            // no value supplied, use param name as key.
+            return (result, operation) -> getRequiredHeader(operation, paramName);
+        }
 
-                            }
+        if (annotationType.equals(RequestParam.class)) {
+            RequestParam requestParam = (RequestParam) methodResult.getMethodAnnotationValues().get(paramName);
+            if (requestParam != null && !requestParam.value().isEmpty()) {
+                String queryName = requestParam.value();
+                if (requestParam.required()) {
+                    return (result, operation) -> {
+                        if (result.getQueryString() == null) {
+                            throw new ArgumentBindingException(getRestError(
+                                    "Method requires request parameters, however none have been supplied.",
+                                    500));
                         }
-                    } else {
-
-                        // no value supplied, use param name as key.
-
-                        if (!operation.getHeaders().containsKey(paramName)) {
-
-                            error = getRestError(
-                                    "Method requires headers parameters, however no header with key '"
-                                            + paramName + "' was found",
-                                    500);
-
-                        } else {
-
-                            formulatedMethodArgs[index] = operation.getHeaders().get(paramName);
-
+                        Object value = result.getQueryString().get(queryName);
+                        if (value == null) {
+                            throw new ArgumentBindingException(getRestError(
+                                    "Method requires request param '" + queryName
+                                            + "', This maps to method argument '" + paramName
+                                            + "', but wasn't supplied with URI properties.",
+                                    500));
                         }
-                    }
+                        return value;
+                    };
                 }
+                return (result, operation) -> getQueryParam(result, queryName);
+            }
+            return (result, operation) -> getQueryParam(result, paramName);
+        }
 
+        // other annotations are not bound.
+        return (result, operation) -> null;
+    }
 
-                if (methodResult.getMethodAnnotationTypes().get(paramName).equals(RequestParam.class)) {
-
-                    RequestParam requestParam = (RequestParam) methodResult.getMethodAnnotationValues().get(paramName);
-
-                    if (requestParam != null && !requestParam.value().isEmpty()) {
-                        if (requestParam.required()) {
-                            if (methodResult.getQueryString() == null) {
-
-                                error = getRestError(
-                                        "Method requires request parameters, however none have been supplied.",
-                                        500
-                                );
-
-                            } else {
-
-                                if (methodResult.getQueryString().get(requestParam.value()) == null) {
-
-                                    error = getRestError(
-                                            "Method requires request param '" + requestParam.value()
-                                                    + "', This maps to method argument '" + paramName
-                                                    + "', but wasn't supplied with URI properties.",
-                                            500);
-
-                                } else {
-
-                                    // cannot be null.
-                                    formulatedMethodArgs[index] =
-                                            methodResult.getQueryString().get(requestParam.value());
-
-                                }
-                            }
-                        } else {
-
-                            if (checkForNullQueryString(methodResult)) {
-
-                                // can be null
-                                formulatedMethodArgs[index] = null;
-                            } else {
-
-                                if (methodResult.getQueryString().get(requestParam.value()) == null) {
-
-                                    // can be null
-                                    formulatedMethodArgs[index] = null;
-
-                                } else {
-
-                                    formulatedMethodArgs[index] =
-                                            methodResult.getQueryString().get(requestParam.value());
-
-                                }
-                            }
-                        }
-                    } else {
+    private Object getRequiredHeader(RestOperation operation, String headerName) throws ArgumentBindingException {
+        Map<String, String> headers = operation.getHeaders();
+        if (!headers.containsKey(headerName)) {
+            throw new ArgumentBindingException(getRestError(
+                    "Method requires headers parameters, however no header with key '"
+                            + headerName + "' was found",
+                    500));
+        }
+        return headers.get(headerName);
+    }
 
-                        if (checkForNullQueryString(methodResult)) {
+    private Object getQueryParam(URIMethodResult result, String name) {
+        // can be null
+        return result.getQueryString() != null ? result.getQueryString().get(name) : null;
+    }
 
-                            // can be null
-                            formulatedMethodArgs[index] = null;
+    private RestError getRestError(String message, Integer status) {
+        RestError error;
+        error = new RestError(
+                message,
+                status);
+        return error;
+    }
 
-                        } else {
+    /**
+     * Reads the value of a method argument from a located method and a rest operation.
+     */
+    @FunctionalInterface
+    private interface ArgumentBinder {
+        Object bind(URIMethodResult result, RestOperation operation) throws ArgumentBindingException;
+    }
 
-                            if (methodResult.getQueryString().get(paramName) == null) {
+    private static class ArgumentBindingException extends Exception {
+        private final RestError error;
 
-                                // can be null
-                                formulatedMethodArgs[index] = null;
+        ArgumentBindingException(RestError error) {
+            super(error.message, null, false, false);
+            this.error = error;
+        }
+    }
 
-                            } else {
+    /**
+     * Compiled invoker of a controller method.
+     */
+    private class MethodInvoker {
+        private MethodHandle handle;
+        private RestError compileError;
+        private ArgumentBinder[] binders;
+        private boolean pathItemsAligned;
+        private Class<?>[] parameterTypes;
+        private boolean[] primitiveParameters;
+
+        void invoke(URIMethodResult methodResult, RestOperation operation) {
+            if (compileError != null) {
+                operation.getErrorHandler().accept(compileError);
+                return;
+            }
 
-                                formulatedMethodArgs[index] = methodResult.getQueryString().get(paramName);
+            Object[] args = new Object[parameterTypes.length];
+            if (binders != null) {
+                if (!methodResult.getPathItemMap().isEmpty() && !pathItemsAligned) {
+                    operation.getErrorHandler().accept(
+                            getRestError(
+                                    "Supplied method can't be used, the params and path items don't align.",
+                                    500)
+                    );
+                    return;
+                }
 
-                            }
-                        }
+                // bind every argument, the last binding error is reported.
+                RestError error = null;
+                for (int x = 0; x < binders.length; x++) {
+                    try {
+                        args[x] = binders[x].bind(methodResult, operation);
+                    } catch (ArgumentBindingException e) {
+                        error = e.error;
                     }
                 }
-                index++;
-            } else {
 
-                // object without annotation is a request body.
-                formulatedMethodArgs[index] = operation.getBody();
-                index++;
+                // send error instead of invoking method, bypass completely.
+                if (error != null) {
+                    operation.getErrorHandler().accept(error);
+                    return;
+                }
             }
-        }
-        return error;
-    }
 
-    private boolean checkForNullQueryString(URIMethodResult methodResult) {
-        return methodResult.getQueryString() == null;
-    }
+            for (int x = 0; x < args.length; x++) {
+                if (args[x] == null ? primitiveParameters[x] : !parameterTypes[x].isInstance(args[x])) {
+                    operation.getErrorHandler().accept(
+                            getRestError("Method cannot be called, method param types don't match", 500)
+                    );
+                    return;
+                }
+            }
 
-    private RestError getRestError(String message, Integer status) {
-        RestError error;
-        error = new RestError(
-                message,
-                status);
-        return error;
+            Object response;
+            try {
+                response = (Object) handle.invokeExact(args);
+            } catch (Throwable e) {
+                if (e.getClass().equals(AuthenticationCredentialsNotFoundException.class)) {
+                    operation.getErrorHandler().accept(getRestError(e.getMessage(), 500));
+                } else {
+                    operation.getErrorHandler().accept(getRestError(e.getMessage(), 401));
+                }
+                return;
+            }
+            operation.getSuccessHandler().accept(response);
+        }
     }
 }
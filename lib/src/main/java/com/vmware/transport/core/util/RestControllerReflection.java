@@ -5,11 +5,15 @@
  */
 package com.vmware.transport.core.util;
 
+import com.vmware.transport.core.index.RouteDefinition;
 import org.springframework.context.ApplicationContext;
 import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.core.annotation.AnnotatedElementUtils;
 import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
 import org.springframework.web.bind.annotation.*;
 
+import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 import java.lang.reflect.Parameter;
 import java.util.*;
@@ -21,6 +25,9 @@ import java.util.*;
 @SuppressWarnings("unchecked")
 public class RestControllerReflection {
 
+    private static final List<Class<?>> BINDING_ANNOTATIONS = Arrays.asList(
+            PathVariable.class, RequestParam.class, RequestBody.class, RequestHeader.class);
+
     private final ParameterNameDiscoverer parameterNameDiscoverer;
 
     private final ApplicationContext context;
@@ -42,6 +49,94 @@ public class RestControllerReflection {
         return context.getBeansWithAnnotation(RestController.class);
     }
 
+    /**
+     * Locate the RestController of a specific type inside the Spring Context
+     *
+     * @param controllerType the class of the controller
+     * @return the controller bean
+     */
+    Object locateRestController(Class<?> controllerType) {
+        return context.getBean(controllerType);
+    }
+
+    /**
+     * Load a class listed in the Transport index, with the class loader of the Spring Context
+     *
+     * @param className the class name, or the name of a primitive type
+     * @return the loaded class
+     * @throws ClassNotFoundException if the class cannot be found
+     */
+    Class<?> loadClass(String className) throws ClassNotFoundException {
+        return ClassUtils.forName(className, context.getClassLoader());
+    }
+
+    /**
+     * Class loader used to read the Transport index.
+     *
+     * @return the class loader of the Spring Context
+     */
+    ClassLoader getClassLoader() {
+        return context.getClassLoader();
+    }
+
+    /**
+     * Extract the routes of a controller, from the @RequestMapping annotations of the controller and its methods.
+     * The shortcut annotations (@GetMapping, @PostMapping...) are merged into @RequestMapping.
+     *
+     * @param controller the Controller to be looked at (not a proxy)
+     * @return a List of the routes handled by the controller methods
+     */
+    List<RouteDefinition> extractControllerRoutes(Object controller) {
+        List<String> prefixes = Collections.singletonList("");
+        RequestMapping controllerMapping =
+                AnnotatedElementUtils.findMergedAnnotation(controller.getClass(), RequestMapping.class);
+        if (controllerMapping != null && controllerMapping.path().length > 0) {
+            prefixes = Arrays.asList(controllerMapping.path());
+        }
+
+        List<RouteDefinition> routes = new ArrayList<>();
+        for (Method method : controller.getClass().getDeclaredMethods()) {
+            RequestMapping mapping = AnnotatedElementUtils.findMergedAnnotation(method, RequestMapping.class);
+            if (mapping == null) {
+                continue;
+            }
+            List<String> requestMethods = new ArrayList<>();
+            for (RequestMethod requestMethod : mapping.method()) {
+                requestMethods.add(requestMethod.name());
+            }
+            List<RouteDefinition.ParameterDefinition> parameters = extractRouteParameters(method);
+            String[] paths = mapping.path().length > 0 ? mapping.path() : new String[]{ "" };
+            for (String prefix : prefixes) {
+                for (String path : paths) {
+                    if (!prefix.isEmpty() || !path.isEmpty()) {
+                        routes.add(new RouteDefinition(controller.getClass().getName(), method.getName(),
+                                requestMethods, prefix + path, parameters));
+                    }
+                }
+            }
+        }
+        return routes;
+    }
+
+    private List<RouteDefinition.ParameterDefinition> extractRouteParameters(Method method) {
+        String[] paramNames = parameterNameDiscoverer.getParameterNames(method);
+        Parameter[] params = method.getParameters();
+        List<RouteDefinition.ParameterDefinition> parameters = new ArrayList<>();
+        for (int x = 0; x < params.length; x++) {
+            String annotationName = null;
+            for (Annotation annotation : params[x].getAnnotations()) {
+                if (BINDING_ANNOTATIONS.contains(annotation.annotationType())) {
+                    annotationName = annotation.annotationType().getName();
+                    break;
+                }
+            }
+            parameters.add(new RouteDefinition.ParameterDefinition(
+                    paramNames != null ? paramNames[x] : params[x].getName(),
+                    params[x].getType().getName(), annotationName));
+        }
+        return parameters;
+    }
+
     /**
      * Extract controller methods for @RequestMapping annotations.
      *
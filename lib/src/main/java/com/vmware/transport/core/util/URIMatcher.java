@@ -5,36 +5,60 @@
  */
 package com.vmware.transport.core.util;
 
+import com.vmware.transport.core.index.RouteDefinition;
+import com.vmware.transport.core.index.TransportIndex;
 import org.springframework.aop.framework.Advised;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.ApplicationContext;
-import org.springframework.context.ConfigurableApplicationContext;
-import org.springframework.core.ParameterNameDiscoverer;
-import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
-import org.springframework.web.bind.annotation.*;
+import org.springframework.web.bind.annotation.RequestMethod;
 
+import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
-import java.util.Arrays;
-import java.util.function.Consumer;
 
 /**
  * Performs controller matching to incoming REST Requests.
+ *
+ * The controller routes are compiled once into a trie of path segments, and compiled again when the
+ * application context is refreshed. Literal segments take precedence over path variables, and each
+ * route keeps the parameter metadata of its controller method, so a lookup only walks the segments
+ * of the requested path.
+ *
+ * When transport.index.enabled is set, the routes are loaded from the {@link TransportIndex}
+ * generated at build time, rather than extracted from the controllers with reflection.
  */
 @Component
-public class URIMatcher {
+public class URIMatcher extends Loggable {
 
     private final RestControllerReflection reflectionUtil;
 
+    @Value("${transport.index.enabled:false}")
+    private boolean indexEnabled;
+
+    private volatile RouteNode routeTree;
+
     URIMatcher(RestControllerReflection reflectionUtil) {
         this.reflectionUtil = reflectionUtil;
     }
 
+    @EventListener
+    public void handleContextRefreshed(ContextRefreshedEvent evt) {
+        // controllers may have changed, compile the routes again on the next request.
+        this.routeTree = null;
+    }
+
     /**
      * Generate a URIMethodResult if a local URI for a specific request method can be located.
      * @param uri
@@ -45,262 +69,271 @@ public class URIMatcher {
             URI uri,
             RequestMethod requestMethod) throws Exception {
 
-        Map<String, Object> controllers = reflectionUtil.locateRestControllers();
-
-        URIMethodResult result = null;
-
-        for (String key : controllers.keySet()) {
-
-            Object controllerBean  = controllers.get(key);
-            Object controller;
-
-            try {
-                Advised advised = (Advised) controllerBean;
-                controller = advised.getTargetSource().getTarget();
-
-
-            } catch (ClassCastException exp) {
-                controller = controllerBean;
-            }
-
-            Map<String, Method> methods;
-
-            // RequestMapping check
-            methods = reflectionUtil.extractControllerRequestMappings(controller);
-            result = checkRequestMappingMethods(uri, requestMethod, controller, methods);
-
-            if (result != null) break;
-
-            // PostMapping Check
-            methods = reflectionUtil.extractControllerPostMappings(controller);
-            result = checkPostMappingMethods(uri, requestMethod, controller, methods);
-
-            if (result != null) break;
-
-            // PatchMapping check
-            methods = reflectionUtil.extractControllerPatchMappings(controller);
-            result = checkPatchMappingMethods(uri, requestMethod, controller, methods);
-
-            if (result != null) break;
-
-            // GetMapping Check
-            methods = reflectionUtil.extractControllerGetMappings(controller);
-            result = checkGetMappingMethods(uri, requestMethod, controller, methods);
-
-            if (result != null) break;
-
-            // PutMapping Check
-            methods = reflectionUtil.extractControllerPutMappings(controller);
-            result = checkPutMappingMethods(uri, requestMethod, controller, methods);
-
-            if (result != null) break;
-
-            // DeleteMapping Check
-            methods = reflectionUtil.extractControllerDeleteMappings(controller);
-            result = checkDeleteMappingMethods(uri, requestMethod, controller, methods);
-
+        String[] requestedPathItems = splitPath(uri.getRawPath());
+        CompiledRoute route = getRouteTree().find(requestedPathItems, 0, requestMethod);
+        if (route == null) {
+            return null;
         }
+
+        URIMethodResult result = new URIMethodResult();
+        result.setPathItems(route.pathItems);
+        result.setMethodArgs(route.methodArgs);
+        result.setMethogArgList(route.methodArgList);
+        result.setMethodAnnotationTypes(route.methodAnnotationTypes);
+        result.setMethodAnnotationValues(route.methodAnnotationValues);
+        result.setQueryString(URISplitter.extractQueryParams(uri, route.methodArgs));
+        result.setPathItemMap(route.bindPathItems(requestedPathItems));
+        result.setMethod(route.method);
+        result.setController(route.controller);
         return result;
     }
 
-    /**
-     * Looks up the RequestMapping annotation on the controller class and populates a new StringBuilder object with
-     * the URI paths segments it finds in the annotation, then returns the StringBuilder object.
-     *
-     * @param controller controller object
-     * @return a new StringBuilder object filled with URI paths
-     */
-    private StringBuilder getControllerAnnotationValues(Object controller) {
-        StringBuilder urlBuilder = new StringBuilder();
-        RequestMapping controllerReqMapping = AnnotationUtils.findAnnotation(controller.getClass(), RequestMapping.class);
-
-        if (controllerReqMapping != null) {
-            for (String segment : controllerReqMapping.value()) {
-                urlBuilder.append(segment);
+    private RouteNode getRouteTree() throws Exception {
+        RouteNode tree = routeTree;
+        if (tree == null) {
+            synchronized (this) {
+                tree = routeTree;
+                if (tree == null) {
+                    tree = compileRoutes();
+                    routeTree = tree;
+                }
             }
         }
-        return urlBuilder;
+        return tree;
     }
 
-    private URIMethodResult checkRequestMappingMethods(URI uri, RequestMethod requestMethod,
-                                                              Object controller, Map<String, Method> methods) {
-        URIMethodResult result = null;
-        for (String methodKey : methods.keySet()) {
-            Method method = methods.get(methodKey);
-            StringBuilder urlBuilder = getControllerAnnotationValues(controller);
-            Consumer<String> appendToUrlBuilder = urlBuilder::append;
-            RequestMapping requestMapping = AnnotationUtils.findAnnotation(method, RequestMapping.class);
-
-            if (requestMapping != null && requestMapping.path().length > 0) {
-                Arrays.stream(requestMapping.path()).forEach(appendToUrlBuilder);
-                RequestMethod annotationMethod = requestMapping.method()[0];
-
-                result = checkForControllerMatch(uri, requestMethod, controller, true,
-                        result, method, annotationMethod, urlBuilder.toString());
-                if (result != null) {
-                    break;
+    private RouteNode compileRoutes() throws Exception {
+        RouteNode tree = new RouteNode();
+        if (indexEnabled) {
+            for (RouteDefinition definition : TransportIndex.load(reflectionUtil.getClassLoader()).getRoutes()) {
+                Object controller;
+                try {
+                    controller = getTargetController(reflectionUtil.locateRestController(
+                            reflectionUtil.loadClass(definition.getControllerClassName())));
+                } catch (ClassNotFoundException | BeansException ex) {
+                    logWarnMessage("Ignoring indexed route " + definition.getPath() + ", controller "
+                            + definition.getControllerClassName() + " is not available: " + ex.getMessage());
+                    continue;
+                }
+                addRoute(tree, compileRoute(controller, definition));
+            }
+        } else {
+            for (Object controllerBean : reflectionUtil.locateRestControllers().values()) {
+                Object controller = getTargetController(controllerBean);
+                for (RouteDefinition definition : reflectionUtil.extractControllerRoutes(controller)) {
+                    addRoute(tree, compileRoute(controller, definition));
                 }
             }
         }
-        return result;
+        return tree;
     }
 
-    private URIMethodResult checkPatchMappingMethods(URI uri, RequestMethod requestMethod,
-                                                            Object controller, Map<String, Method> methods) {
-        URIMethodResult result = null;
-        for (String methodKey : methods.keySet()) {
-            Method method = methods.get(methodKey);
-            StringBuilder urlBuilder = getControllerAnnotationValues(controller);
-            Consumer<String> appendToUrlBuilder = urlBuilder::append;
-            PatchMapping patchMapping = AnnotationUtils.findAnnotation(method, PatchMapping.class);
-
-            if (patchMapping != null && patchMapping.value().length > 0) {
-                Arrays.stream(patchMapping.value()).forEach(appendToUrlBuilder);
-            }
-            if (urlBuilder.length() > 0) {
-                result = checkForControllerMatch(uri, requestMethod, controller, false, result,
-                        method, null, urlBuilder.toString());
-            }
-            if (result != null) {
-                break;
-            }
+    private Object getTargetController(Object controllerBean) throws Exception {
+        if (controllerBean instanceof Advised) {
+            return ((Advised) controllerBean).getTargetSource().getTarget();
         }
-        return result;
+        return controllerBean;
     }
 
-    private URIMethodResult checkGetMappingMethods(URI uri, RequestMethod requestMethod, Object controller,
-                                                          Map<String, Method> methods) {
-        URIMethodResult result = null;
-        for (String methodKey : methods.keySet()) {
-            Method method = methods.get(methodKey);
-            StringBuilder urlBuilder = getControllerAnnotationValues(controller);
-            Consumer<String> appendToUrlBuilder = urlBuilder::append;
-            GetMapping getMapping = AnnotationUtils.findAnnotation(method, GetMapping.class);
-
-            if (getMapping != null && getMapping.value().length > 0) {
-                Arrays.stream(getMapping.value()).forEach(appendToUrlBuilder);
-            }
-            if (urlBuilder.length() > 0) {
-                result = checkForControllerMatch(uri, requestMethod, controller, false, result,
-                        method, null, urlBuilder.toString());
+    private void addRoute(RouteNode tree, CompiledRoute route) {
+        RouteNode node = tree;
+        for (String pathItem : route.pathItems) {
+            node = node.getOrCreateChild(pathItem);
+        }
+        if (!node.addRoute(route)) {
+            logWarnMessage("Ignoring duplicate route " + String.join("/", route.pathItems) + " for "
+                    + route.method.getDeclaringClass().getSimpleName() + "." + route.method.getName());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private CompiledRoute compileRoute(Object controller, RouteDefinition definition) throws Exception {
+        List<RouteDefinition.ParameterDefinition> parameters = definition.getParameters();
+        Class<?>[] parameterTypes = new Class<?>[parameters.size()];
+        for (int x = 0; x < parameterTypes.length; x++) {
+            parameterTypes[x] = reflectionUtil.loadClass(parameters.get(x).getTypeName());
+        }
+
+        CompiledRoute route = new CompiledRoute();
+        route.controller = controller;
+        route.method = controller.getClass().getDeclaredMethod(definition.getMethodName(), parameterTypes);
+        route.pathItems = Collections.unmodifiableList(URISplitter.split(definition.getPath()));
+        route.requestMethods = EnumSet.noneOf(RequestMethod.class);
+        for (String requestMethod : definition.getRequestMethods()) {
+            route.requestMethods.add(RequestMethod.valueOf(requestMethod));
+        }
+
+        Map<String, Class> methodArgs = new HashMap<>();
+        List<String> methodArgList = new ArrayList<>();
+        Map<String, Class> methodAnnotationTypes = new HashMap<>();
+        Map<String, Object> methodAnnotationValues = new HashMap<>();
+        for (int x = 0; x < parameterTypes.length; x++) {
+            RouteDefinition.ParameterDefinition parameter = parameters.get(x);
+            methodArgs.put(parameter.getName(), parameterTypes[x]);
+            methodArgList.add(parameter.getName());
+            if (parameter.getAnnotationTypeName() != null) {
+                Class<? extends Annotation> annotationType =
+                        (Class<? extends Annotation>) reflectionUtil.loadClass(parameter.getAnnotationTypeName());
+                methodAnnotationTypes.put(parameter.getName(), annotationType);
+                methodAnnotationValues.put(parameter.getName(),
+                        route.method.getParameters()[x].getAnnotation(annotationType));
+            } else {
+                methodAnnotationTypes.put(parameter.getName(), null);
+                methodAnnotationValues.put(parameter.getName(), null);
             }
-            if (result != null) {
-                break;
+        }
+        route.methodArgs = Collections.unmodifiableMap(methodArgs);
+        route.methodArgList = Collections.unmodifiableList(methodArgList);
+        route.methodAnnotationTypes = Collections.unmodifiableMap(methodAnnotationTypes);
+        route.methodAnnotationValues = Collections.unmodifiableMap(methodAnnotationValues);
+
+        List<PathBinder> binders = new ArrayList<>();
+        for (int x = 0; x < route.pathItems.size(); x++) {
+            String pathItem = route.pathItems.get(x);
+            if (isPathVariable(pathItem)) {
+                String argName = pathItem.replaceAll("\\{([\\w].+)\\}", "$1");
+                binders.add(new PathBinder(x, argName, UUID.class.equals(methodArgs.get(argName))));
             }
         }
-        return result;
+        route.pathBinders = binders.toArray(new PathBinder[0]);
+        return route;
+    }
+
+    private static boolean isPathVariable(String pathItem) {
+        return pathItem.startsWith("{") && pathItem.endsWith("}");
     }
 
-    private URIMethodResult checkPutMappingMethods(URI uri, RequestMethod requestMethod, Object controller,
-                                                          Map<String, Method> methods) {
-        URIMethodResult result = null;
-        for (String methodKey : methods.keySet()) {
-            Method method = methods.get(methodKey);
-            StringBuilder urlBuilder = getControllerAnnotationValues(controller);
-            Consumer<String> appendToUrlBuilder = urlBuilder::append;
-            PutMapping putMapping  = AnnotationUtils.findAnnotation(method, PutMapping.class);
-
-            if (putMapping != null && putMapping.value().length > 0) {
-                Arrays.stream(putMapping.value()).forEach(appendToUrlBuilder);
+    /**
+     * Split a raw URI path into its non empty segments, like {@link URISplitter#split(URI)}.
+     */
+    private static String[] splitPath(String path) {
+        if (path == null) {
+            return new String[0];
+        }
+        int count = 0;
+        for (int start = 0, end; start < path.length(); start = end + 1) {
+            end = path.indexOf('/', start);
+            if (end < 0) {
+                end = path.length();
             }
-            if (urlBuilder.length() > 0) {
-                result = checkForControllerMatch(uri, requestMethod, controller, false, result,
-                        method, null, urlBuilder.toString());
+            if (end > start) {
+                count++;
             }
-            if (result != null) {
-                break;
+        }
+        String[] pathItems = new String[count];
+        count = 0;
+        for (int start = 0, end; start < path.length(); start = end + 1) {
+            end = path.indexOf('/', start);
+            if (end < 0) {
+                end = path.length();
+            }
+            if (end > start) {
+                pathItems[count++] = path.substring(start, end);
             }
         }
-        return result;
+        return pathItems;
     }
-    private URIMethodResult checkPostMappingMethods(URI uri, RequestMethod requestMethod, Object controller,
-                                                           Map<String, Method> methods) {
-        URIMethodResult result = null;
-        for (String methodKey : methods.keySet()) {
-            Method method = methods.get(methodKey);
-            StringBuilder urlBuilder = getControllerAnnotationValues(controller);
-            Consumer<String> appendToUrlBuilder = urlBuilder::append;
-            PostMapping postMapping = AnnotationUtils.findAnnotation(method, PostMapping.class);
-
-            if (postMapping != null && postMapping.value().length > 0) {
-                Arrays.stream(postMapping.value()).forEach(appendToUrlBuilder);
+
+    /**
+     * Node of the route trie, for one path segment.
+     */
+    private static class RouteNode {
+        private final Map<String, RouteNode> literalChildren = new HashMap<>();
+        private RouteNode variableChild;
+        private final Map<RequestMethod, CompiledRoute> routes = new EnumMap<>(RequestMethod.class);
+        private CompiledRoute anyMethodRoute;
+
+        RouteNode getOrCreateChild(String pathItem) {
+            if (isPathVariable(pathItem)) {
+                if (variableChild == null) {
+                    variableChild = new RouteNode();
+                }
+                return variableChild;
             }
-            if (urlBuilder.length() > 0) {
-                result = checkForControllerMatch(uri, requestMethod, controller, false, result,
-                        method, null, urlBuilder.toString());
+            return literalChildren.computeIfAbsent(pathItem, key -> new RouteNode());
+        }
+
+        boolean addRoute(CompiledRoute route) {
+            if (route.requestMethods.isEmpty()) {
+                if (anyMethodRoute != null) {
+                    return false;
+                }
+                anyMethodRoute = route;
+                return true;
             }
-            if (result != null) {
-                break;
+            boolean added = false;
+            for (RequestMethod requestMethod : route.requestMethods) {
+                added |= routes.putIfAbsent(requestMethod, route) == null;
             }
+            return added;
         }
-        return result;
-    }
 
-    private URIMethodResult checkDeleteMappingMethods(URI uri, RequestMethod requestMethod, Object controller,
-                                                             Map<String, Method> methods) {
-        URIMethodResult result = null;
-        for (String methodKey : methods.keySet()) {
-            Method method = methods.get(methodKey);
-            StringBuilder urlBuilder = getControllerAnnotationValues(controller);
-            Consumer<String> appendToUrlBuilder = urlBuilder::append;
-            DeleteMapping deleteMapping = AnnotationUtils.findAnnotation(method, DeleteMapping.class);
-
-            if (deleteMapping != null && deleteMapping.value().length > 0) {
-                Arrays.stream(deleteMapping.value()).forEach(appendToUrlBuilder);
-            }
-            if (urlBuilder.length() > 0) {
-                result = checkForControllerMatch(uri, requestMethod, controller, false, result,
-                        method, null, urlBuilder.toString());
+        /**
+         * Find the route of the remaining path items, literal segments are tried before path variables.
+         */
+        CompiledRoute find(String[] pathItems, int index, RequestMethod requestMethod) {
+            if (index == pathItems.length) {
+                CompiledRoute route = routes.get(requestMethod);
+                return route != null ? route : anyMethodRoute;
             }
-            if (result != null) {
-                break;
+            RouteNode child = literalChildren.get(pathItems[index]);
+            if (child != null) {
+                CompiledRoute route = child.find(pathItems, index + 1, requestMethod);
+                if (route != null) {
+                    return route;
+                }
             }
+            return variableChild != null ? variableChild.find(pathItems, index + 1, requestMethod) : null;
         }
-        return result;
     }
 
+    /**
+     * Binds a path variable of a route to the requested path segment at the same position.
+     */
+    private static class PathBinder {
+        private final int index;
+        private final String argName;
+        private final boolean uuid;
+
+        PathBinder(int index, String argName, boolean uuid) {
+            this.index = index;
+            this.argName = argName;
+            this.uuid = uuid;
+        }
 
-    private URIMethodResult checkForControllerMatch(URI uri, RequestMethod requestMethod, Object controller,
-                                                           boolean checkMethod, URIMethodResult result, Method method,
-                                                           RequestMethod annotationMethod, String uriSring) {
-        List<String> requestedPathItems = URISplitter.split(uri);
-        List<String> controllerPathItems = URISplitter.split(uriSring);
-
-        if (comparePaths(controllerPathItems, requestedPathItems)) {
-
-            // check method matches!
-            if (checkMethod) {
-                if (annotationMethod.equals(requestMethod))
-                    result = buildURIMethodResult(uri, controller, method, requestedPathItems, controllerPathItems);
-
-            } else {
-                result = buildURIMethodResult(uri, controller, method, requestedPathItems, controllerPathItems);
+        Object bind(String pathItem) {
+            if (uuid) {
+                try {
+                    return UUID.fromString(pathItem);
+                } catch (IllegalArgumentException e) {
+                    // treat as string.
+                }
             }
+            return pathItem;
         }
-        return result;
     }
 
-    private URIMethodResult buildURIMethodResult(
-            URI uri, Object controller, Method method, List<String>
-            requestedPathItems, List<String> controllerPathItems) {
-        URIMethodResult result;
-        result = new URIMethodResult();
-        result.setPathItems(controllerPathItems);
-        result.setMethodArgs(reflectionUtil.extractMethodParameters(method));
-        result.setMethogArgList(reflectionUtil.extractMethodParameterList(method));
-        result.setMethodAnnotationTypes(reflectionUtil.extractMethodAnnotationTypes(method));
-        result.setMethodAnnotationValues(reflectionUtil.extractMethodAnnotationValues(method));
-        result.setQueryString(URISplitter.extractQueryParams(uri, result.getMethodArgs()));
-        result.setPathItemMap(
-                createPathItemMap(
-                        controllerPathItems,
-                        requestedPathItems,
-                        reflectionUtil.extractMethodParameters(method)
-                )
-        );
-        result.setMethod(method);
-        result.setController(controller);
-        return result;
+    /**
+     * Controller method handling a route, with the parameter metadata resolved up front.
+     */
+    private static class CompiledRoute {
+        private Object controller;
+        private Method method;
+        private List<String> pathItems;
+        private Set<RequestMethod> requestMethods;
+        private Map<String, Class> methodArgs;
+        private List<String> methodArgList;
+        private Map<String, Class> methodAnnotationTypes;
+        private Map<String, Object> methodAnnotationValues;
+        private PathBinder[] pathBinders;
+
+        Map<String, Object> bindPathItems(String[] requestedPathItems) {
+            Map<String, Object> map = new HashMap<>();
+            for (PathBinder binder : pathBinders) {
+                map.put(binder.argName, binder.bind(requestedPathItems[binder.index]));
+            }
+            return map;
+        }
     }
 
     /**
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2020 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ *
+ */
+package com.vmware.transport.bridge.spring.config;
+
+import com.vmware.transport.bridge.Request;
+import com.vmware.transport.bus.codec.PayloadCodecs;
+import com.vmware.transport.core.util.ClassMapper;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+
+public class PayloadCodecMessageConverterTest {
+
+    private final PayloadCodecMessageConverter converter = new PayloadCodecMessageConverter();
+
+    @Test
+    public void testDecodeCborRequest() throws Exception {
+        Request<Map<String, Object>> request = new Request<>(UUID.randomUUID(), "test", Map.of("key", "value"));
+        Message<byte[]> message = createMessage(PayloadCodecs.CBOR.encode(request), PayloadCodecs.CBOR_CONTENT_TYPE);
+
+        Request decoded = (Request) converter.fromMessage(message, Request.class);
+        Assert.assertNotNull(decoded);
+        Assert.assertEquals(request.getId(), decoded.getId());
+        Assert.assertEquals("test", decoded.getRequest());
+
+        // the payload is kept as tokens, and bound like a JSON payload.
+        Assert.assertNotNull(decoded.getRawPayload());
+        Map<String, Object> payload = ClassMapper.CastPayload(Map.class, decoded);
+        Assert.assertEquals("value", payload.get("key"));
+    }
+
+    @Test
+    public void testIgnoreJsonMessages() {
+        Message<byte[]> message = createMessage("{\"request\":\"test\"}".getBytes(StandardCharsets.UTF_8),
+              "application/json");
+        Assert.assertNull(converter.fromMessage(message, Request.class));
+
+        message = createMessage("{\"request\":\"test\"}".getBytes(StandardCharsets.UTF_8), null);
+        Assert.assertNull(converter.fromMessage(message, Request.class));
+        Assert.assertNull(converter.toMessage("payload", null));
+    }
+
+    private Message<byte[]> createMessage(byte[] payload, String contentType) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        if (contentType != null) {
+            accessor.setContentType(MimeType.valueOf(contentType));
+        }
+        return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2020 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ *
+ */
+package com.vmware.transport.bridge.spring.config;
+
+import com.vmware.transport.bridge.spring.config.interceptors.AnyDestinationMatcher;
+import com.vmware.transport.bridge.spring.config.interceptors.StartsWithDestinationMatcher;
+import com.vmware.transport.bridge.spring.config.interceptors.TransportStompInterceptor;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.messaging.simp.stomp.StompCommand;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+public class TransportDestinationRouterTest {
+
+    private TransportBridgeConfiguration configuration;
+
+    @Before
+    public void before() {
+        this.configuration = new TransportBridgeConfiguration();
+    }
+
+    @Test
+    public void testDestinationPrefixes() {
+        configuration.addTransportDestinationPrefixes("/topic", "/topic/private", "/pub/");
+        TransportDestinationRouter router = configuration.getDestinationRouter();
+
+        Assert.assertEquals("/topic/", router.getDestinationPrefix("/topic/channel1"));
+        Assert.assertEquals("channel1", router.getChannelName("/topic/channel1"));
+        Assert.assertEquals("/topic/", router.getDestinationPrefix("/TOPIC/channel1"));
+        Assert.assertEquals("Channel1", router.getChannelName("/TOPIC/Channel1"));
+
+        // the longest matching prefix wins.
+        Assert.assertEquals("/topic/private/", router.getDestinationPrefix("/topic/private/channel2"));
+        Assert.assertEquals("channel2", router.getChannelName("/topic/private/channel2"));
+
+        Assert.assertNull(router.getDestinationPrefix("/queue/channel1"));
+        Assert.assertNull(router.getChannelName("/queue/channel1"));
+        Assert.assertNull(router.getDestinationPrefix("/topic"));
+        Assert.assertNull(router.getDestinationPrefix(null));
+
+        // cached results are returned for repeated lookups.
+        Assert.assertEquals("channel1", router.getChannelName("/topic/channel1"));
+    }
+
+    @Test
+    public void testRouterIsRecompiled() {
+        TransportDestinationRouter router = configuration.getDestinationRouter();
+        Assert.assertSame(router, configuration.getDestinationRouter());
+        Assert.assertNull(router.getDestinationPrefix("/topic/channel1"));
+
+        configuration.addTransportDestinationPrefixes("/topic");
+        Assert.assertNotSame(router, configuration.getDestinationRouter());
+        Assert.assertEquals("/topic/", configuration.getDestinationRouter().getDestinationPrefix("/topic/channel1"));
+
+        router = configuration.getDestinationRouter();
+        configuration.addTransportStompInterceptor(message -> message,
+              EnumSet.of(StompCommand.SEND), new AnyDestinationMatcher(), 1);
+        Assert.assertNotSame(router, configuration.getDestinationRouter());
+        Assert.assertEquals(1, configuration.getDestinationRouter()
+              .getInterceptors(StompCommand.SEND, "/topic/channel1").size());
+    }
+
+    @Test
+    public void testInterceptorChains() {
+        TransportStompInterceptor any = message -> message;
+        TransportStompInterceptor topic = message -> message;
+        TransportStompInterceptor topicChannel = message -> message;
+        TransportStompInterceptor custom = message -> message;
+        TransportStompInterceptor subscribeOnly = message -> message;
+
+        configuration.addTransportStompInterceptor(topicChannel,
+              EnumSet.of(StompCommand.SEND, StompCommand.SUBSCRIBE),
+              new StartsWithDestinationMatcher("/topic/channel", "/topic/chan"), 40);
+        configuration.addTransportStompInterceptor(any,
+              EnumSet.of(StompCommand.SEND), new AnyDestinationMatcher(), 30);
+        configuration.addTransportStompInterceptor(custom,
+              EnumSet.of(StompCommand.SEND), destination -> destination.endsWith("1"), 20);
+        configuration.addTransportStompInterceptor(topic,
+              EnumSet.of(StompCommand.SEND), new StartsWithDestinationMatcher("/topic/"), 10);
+        configuration.addTransportStompInterceptor(subscribeOnly,
+              EnumSet.of(StompCommand.SUBSCRIBE), new AnyDestinationMatcher(), 0);
+
+        TransportDestinationRouter router = configuration.getDestinationRouter();
+
+        Assert.assertEquals(List.of(topic, custom, any, topicChannel),
+              interceptors(router.getInterceptors(StompCommand.SEND, "/topic/channel1")));
+        Assert.assertEquals(List.of(topic, any, topicChannel),
+              interceptors(router.getInterceptors(StompCommand.SEND, "/topic/channel2")));
+        Assert.assertEquals(List.of(topic, any),
+              interceptors(router.getInterceptors(StompCommand.SEND, "/topic/other")));
+        Assert.assertEquals(List.of(any),
+              interceptors(router.getInterceptors(StompCommand.SEND, "/queue/other")));
+        Assert.assertEquals(List.of(subscribeOnly, topicChannel),
+              interceptors(router.getInterceptors(StompCommand.SUBSCRIBE, "/topic/channel1")));
+        Assert.assertTrue(router.getInterceptors(StompCommand.UNSUBSCRIBE, "/topic/channel1").isEmpty());
+        Assert.assertTrue(router.getInterceptors(null, "/topic/channel1").isEmpty());
+    }
+
+    @Test
+    public void testBoundedCache() {
+        configuration.addTransportDestinationPrefixes("/topic");
+        TransportDestinationRouter router = configuration.getDestinationRouter();
+        for (int i = 0; i < TransportDestinationRouter.MAX_CACHED_DESTINATIONS * 2; i++) {
+            Assert.assertEquals("channel" + i, router.getChannelName("/topic/channel" + i));
+        }
+    }
+
+    private List<TransportStompInterceptor> interceptors(List<StompInterceptorRegistration> registrations) {
+        List<TransportStompInterceptor> result = new ArrayList<>();
+        for (StompInterceptorRegistration registration : registrations) {
+            result.add(registration.interceptor);
+        }
+        return result;
+    }
+}
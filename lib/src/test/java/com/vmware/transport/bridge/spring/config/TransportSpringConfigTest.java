@@ -6,13 +6,19 @@
 package com.vmware.transport.bridge.spring.config;
 
 import com.vmware.transport.bridge.spring.config.interceptors.TransportChannelInterceptor;
+import com.vmware.transport.bridge.spring.config.interceptors.TransportContentTypeInterceptor;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mockito;
+import org.springframework.messaging.converter.MessageConverter;
 import org.springframework.messaging.simp.config.ChannelRegistration;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 import org.powermock.reflect.Whitebox;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class TransportSpringConfigTest {
 
     private TransportSpringConfig config;
@@ -37,6 +43,27 @@ public class TransportSpringConfigTest {
 
     }
 
+    @Test
+    public void testConfigureMessageConverters() {
+        List<MessageConverter> converters = new ArrayList<>();
+        Assert.assertTrue(this.config.configureMessageConverters(converters));
+        Assert.assertEquals(1, converters.size());
+        Assert.assertTrue(converters.get(0) instanceof PayloadCodecMessageConverter);
+    }
+
+    @Test
+    public void testConfigureClientOutboundChannel() {
+        ChannelRegistration channelRegistration = Mockito.mock(ChannelRegistration.class);
+        this.config.configureClientOutboundChannel(channelRegistration);
+        Mockito.verify(channelRegistration, Mockito.times(1)).interceptors(config.transportOutboundLimiter());
+
+        WebSocketTransportRegistration transportRegistration = Mockito.mock(WebSocketTransportRegistration.class);
+        this.config.configureWebSocketTransport(transportRegistration);
+        Mockito.verify(transportRegistration, Mockito.times(1)).addDecoratorFactory(config.transportOutboundLimiter());
+        Mockito.verify(transportRegistration, Mockito.times(1)).addDecoratorFactory(
+              Mockito.any(TransportContentTypeInterceptor.class));
+    }
+
     @Test
     public void testTransportBridgeConfigurers() {
 
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2020 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ *
+ */
+package com.vmware.transport.bridge.spring.config.interceptors;
+
+import com.vmware.transport.bridge.spring.config.TransportBridgeConfiguration;
+import com.vmware.transport.bus.codec.PayloadCodecs;
+import com.vmware.transport.bus.model.MessageObject;
+import com.vmware.transport.bus.model.MessageType;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+
+public class TransportContentTypeInterceptorTest {
+
+    private TransportBridgeConfiguration configuration;
+    private TransportContentTypeInterceptor interceptor;
+    private MessageChannel channel;
+
+    @Before
+    public void before() {
+        this.configuration = new TransportBridgeConfiguration();
+        this.configuration.addTransportDestinationPrefixes("/topic/");
+        this.configuration.setSessionContentTypesEnabled(true);
+        this.interceptor = new TransportContentTypeInterceptor(configuration);
+        this.channel = Mockito.mock(MessageChannel.class);
+    }
+
+    @Test
+    public void testDisabled() {
+        configuration.setSessionContentTypesEnabled(false);
+        interceptor.preSend(createConnectMessage("session1", PayloadCodecs.CBOR_CONTENT_TYPE), channel);
+        Assert.assertNull(interceptor.getSessionCodec("session1"));
+
+        Message<?> message = createMessage("session1", "/topic/channel", "{}", null);
+        Assert.assertSame(message, interceptor.preSend(message, channel));
+    }
+
+    @Test
+    public void testEncodeBusMessage() throws Exception {
+        interceptor.preSend(createConnectMessage("session1", PayloadCodecs.CBOR_CONTENT_TYPE), channel);
+        Assert.assertSame(PayloadCodecs.CBOR, interceptor.getSessionCodec("session1"));
+
+        MessageObject<Map<String, Object>> busMessage = new MessageObject<>(
+              MessageType.MessageTypeResponse, Collections.singletonMap("key", "value"));
+
+        Message<?> message = interceptor.preSend(
+              createMessage("session1", "/topic/channel", "{\"key\":\"value\"}", busMessage), channel);
+        Assert.assertArrayEquals(busMessage.getEncodedPayload(PayloadCodecs.CBOR), (byte[]) message.getPayload());
+        Assert.assertEquals(PayloadCodecs.CBOR_CONTENT_TYPE,
+              SimpMessageHeaderAccessor.wrap(message).getContentType().toString());
+        Assert.assertEquals("session1", SimpMessageHeaderAccessor.getSessionId(message.getHeaders()));
+
+        // the encoded payload is shared by all sessions.
+        interceptor.preSend(createConnectMessage("session2", PayloadCodecs.CBOR_CONTENT_TYPE), channel);
+        Message<?> message2 = interceptor.preSend(
+              createMessage("session2", "/topic/channel", "{\"key\":\"value\"}", busMessage), channel);
+        Assert.assertSame(message.getPayload(), message2.getPayload());
+    }
+
+    @Test
+    public void testTranscodeJsonMessage() throws Exception {
+        interceptor.preSend(createConnectMessage("session1", PayloadCodecs.CBOR_CONTENT_TYPE), channel);
+
+        Message<?> message = interceptor.preSend(
+              createMessage("session1", "/topic/channel", "[1,2,3]", null), channel);
+        Assert.assertEquals(PayloadCodecs.CBOR_CONTENT_TYPE,
+              SimpMessageHeaderAccessor.wrap(message).getContentType().toString());
+        Assert.assertEquals(PayloadCodecs.JSON.decode("[1,2,3]".getBytes(StandardCharsets.UTF_8), Object.class),
+              PayloadCodecs.CBOR.decode((byte[]) message.getPayload(), Object.class));
+    }
+
+    @Test
+    public void testGetFrameContentType() {
+        Assert.assertEquals("application/cbor", TransportContentTypeInterceptor.getFrameContentType(
+              "MESSAGE\ndestination:/topic/a\ncontent-type:application/cbor\n\n\u0000".getBytes(StandardCharsets.UTF_8)));
+        Assert.assertEquals("application/cbor", TransportContentTypeInterceptor.getFrameContentType(
+              "MESSAGE\r\ncontent-type:application/cbor\r\n\r\n\u0000".getBytes(StandardCharsets.UTF_8)));
+        // the header is only looked up before the body.
+        Assert.assertNull(TransportContentTypeInterceptor.getFrameContentType(
+              "MESSAGE\ndestination:/topic/a\n\ncontent-type:application/cbor\n\u0000".getBytes(StandardCharsets.UTF_8)));
+        Assert.assertNull(TransportContentTypeInterceptor.getFrameContentType("\n".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testIgnoredMessages() {
+        interceptor.preSend(createConnectMessage("session1", PayloadCodecs.CBOR_CONTENT_TYPE), channel);
+        interceptor.preSend(createConnectMessage("session2", null), channel);
+        interceptor.preSend(createConnectMessage("session3", "application/unknown"), channel);
+        Assert.assertNull(interceptor.getSessionCodec("session2"));
+        Assert.assertNull(interceptor.getSessionCodec("session3"));
+
+        // sessions without content type.
+        Message<?> message = createMessage("session2", "/topic/channel", "{}", null);
+        Assert.assertSame(message, interceptor.preSend(message, channel));
+
+        // destinations which are not bridged.
+        message = createMessage("session1", "/app/channel", "{}", null);
+        Assert.assertSame(message, interceptor.preSend(message, channel));
+
+        interceptor.preSend(createSessionMessage(SimpMessageType.DISCONNECT, "session1"), channel);
+        Assert.assertNull(interceptor.getSessionCodec("session1"));
+        message = createMessage("session1", "/topic/channel", "{}", null);
+        Assert.assertSame(message, interceptor.preSend(message, channel));
+    }
+
+    private Message<?> createConnectMessage(String sessionId, String contentType) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.CONNECT);
+        accessor.setSessionId(sessionId);
+        if (contentType != null) {
+            accessor.setNativeHeader("content-type", contentType);
+        }
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private Message<?> createSessionMessage(SimpMessageType type, String sessionId) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(type);
+        accessor.setSessionId(sessionId);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private Message<?> createMessage(String sessionId, String destination, String json,
+                                     com.vmware.transport.bus.model.Message busMessage) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId("sub-" + sessionId);
+        accessor.setDestination(destination);
+        accessor.setContentType(MimeType.valueOf("application/json;charset=UTF-8"));
+        if (busMessage != null) {
+            accessor.setHeader(TransportContentTypeInterceptor.BUS_MESSAGE_HEADER, busMessage);
+        }
+        return MessageBuilder.createMessage(json.getBytes(StandardCharsets.UTF_8), accessor.getMessageHeaders());
+    }
+}
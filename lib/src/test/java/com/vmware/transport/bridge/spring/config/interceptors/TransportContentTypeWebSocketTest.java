@@ -0,0 +1,157 @@
+/*
+ * Copyright 2020 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ *
+ */
+package com.vmware.transport.bridge.spring.config.interceptors;
+
+import com.vmware.transport.bridge.spring.config.TransportBridgeConfiguration;
+import com.vmware.transport.bus.codec.PayloadCodecs;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.DispatcherServletAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.ServletWebServerFactoryAutoConfiguration;
+import org.springframework.boot.autoconfigure.websocket.servlet.WebSocketServletAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.converter.SimpleMessageConverter;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.config.ChannelRegistration;
+import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
+import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
+import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+      classes = TransportContentTypeWebSocketTest.WebSocketConfig.class)
+public class TransportContentTypeWebSocketTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    private WebSocketStompClient stompClient;
+
+    @Before
+    public void before() {
+        stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+        stompClient.setMessageConverter(new SimpleMessageConverter());
+    }
+
+    @After
+    public void after() {
+        stompClient.stop();
+    }
+
+    @Test
+    public void testCborRoundTrip() throws Exception {
+        StompHeaders connectHeaders = new StompHeaders();
+        connectHeaders.set(StompHeaders.CONTENT_TYPE, PayloadCodecs.CBOR_CONTENT_TYPE);
+        StompSession session = stompClient.connect("ws://localhost:" + port + "/transport",
+              new WebSocketHttpHeaders(), connectHeaders, new StompSessionHandlerAdapter() {})
+              .get(5, TimeUnit.SECONDS);
+
+        CompletableFuture<StompHeaders> receivedHeaders = new CompletableFuture<>();
+        CompletableFuture<byte[]> received = new CompletableFuture<>();
+        session.subscribe("/topic/cbor", new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return byte[].class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                receivedHeaders.complete(headers);
+                received.complete((byte[]) payload);
+            }
+        });
+
+        // the message is sent as JSON and encoded with CBOR for the session, the encoded
+        // payload contains bytes which are not valid UTF-8, a text message would alter them.
+        Map<String, Object> payload = Map.of("key", "value", "number", 1000000);
+        // resend until the subscription is registered by the broker.
+        byte[] receivedPayload = null;
+        for (int i = 0; i < 50 && receivedPayload == null; i++) {
+            messagingTemplate.convertAndSend("/topic/cbor", payload);
+            try {
+                receivedPayload = received.get(100, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException ex) {
+                // not subscribed yet.
+            }
+        }
+
+        Assert.assertNotNull(receivedPayload);
+        Assert.assertEquals(PayloadCodecs.CBOR_CONTENT_TYPE,
+              receivedHeaders.get().getContentType().toString());
+        Assert.assertEquals(payload, PayloadCodecs.CBOR.decode(receivedPayload, Map.class));
+        session.disconnect();
+    }
+
+    @Configuration
+    @EnableWebSocketMessageBroker
+    @ImportAutoConfiguration({
+          ServletWebServerFactoryAutoConfiguration.class,
+          DispatcherServletAutoConfiguration.class,
+          WebSocketServletAutoConfiguration.class
+    })
+    static class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
+
+        private final TransportContentTypeInterceptor interceptor;
+
+        WebSocketConfig() {
+            TransportBridgeConfiguration configuration = new TransportBridgeConfiguration();
+            configuration.addTransportDestinationPrefixes("/topic/");
+            configuration.setSessionContentTypesEnabled(true);
+            interceptor = new TransportContentTypeInterceptor(configuration);
+        }
+
+        @Override
+        public void registerStompEndpoints(StompEndpointRegistry registry) {
+            registry.addEndpoint("/transport");
+        }
+
+        @Override
+        public void configureMessageBroker(MessageBrokerRegistry registry) {
+            registry.enableSimpleBroker("/topic");
+        }
+
+        @Override
+        public void configureClientInboundChannel(ChannelRegistration registration) {
+            registration.interceptors(interceptor);
+        }
+
+        @Override
+        public void configureClientOutboundChannel(ChannelRegistration registration) {
+            registration.interceptors(interceptor);
+        }
+
+        @Override
+        public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+            registration.addDecoratorFactory(interceptor);
+        }
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2020 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ *
+ */
+package com.vmware.transport.bridge.spring.config.interceptors;
+
+import com.vmware.transport.bridge.spring.config.SlowConsumerPolicy;
+import com.vmware.transport.bridge.spring.config.TransportBridgeConfiguration;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class TransportOutboundLimiterTest {
+
+    private static final TextMessage MESSAGE_FRAME = new TextMessage("MESSAGE\ndestination:/topic/a\n\n\u0000");
+
+    private TransportBridgeConfiguration configuration;
+    private TransportOutboundLimiter limiter;
+    private List<TransportOutboundLimiter.SlowConsumerEvent> events;
+    private WebSocketSession rawSession;
+    private WebSocketSession trackedSession;
+    private MessageChannel channel;
+
+    @Before
+    public void before() throws Exception {
+        this.configuration = new TransportBridgeConfiguration();
+        this.events = new ArrayList<>();
+        this.limiter = new TransportOutboundLimiter(this.configuration, events::add);
+        this.channel = Mockito.mock(MessageChannel.class);
+
+        this.rawSession = Mockito.mock(WebSocketSession.class);
+        Mockito.when(rawSession.getId()).thenReturn("session1");
+        WebSocketHandler handler = Mockito.mock(WebSocketHandler.class);
+        limiter.decorate(handler).afterConnectionEstablished(rawSession);
+
+        ArgumentCaptor<WebSocketSession> captor = ArgumentCaptor.forClass(WebSocketSession.class);
+        Mockito.verify(handler).afterConnectionEstablished(captor.capture());
+        this.trackedSession = captor.getValue();
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            Assert.assertNotNull(limiter.preSend(createMessage("/topic/a", "m" + i), channel));
+        }
+        Assert.assertEquals(0, limiter.getQueuedMessages("session1"));
+        trackedSession.sendMessage(MESSAGE_FRAME);
+        Assert.assertFalse(limiter.isSlow("session1"));
+    }
+
+    @Test
+    public void testDropOldest() throws Exception {
+        configuration.setSessionOutboundQueueLimit(2);
+
+        Assert.assertNotNull(limiter.preSend(createMessage("/topic/a", "m1"), channel));
+        Assert.assertNotNull(limiter.preSend(createMessage("/topic/a", "m2"), channel));
+        Assert.assertFalse(limiter.isSlow("session1"));
+
+        Message<?> m3 = createMessage("/topic/a", "m3");
+        Message<?> m4 = createMessage("/topic/a", "m4");
+        Message<?> m5 = createMessage("/topic/a", "m5");
+        Assert.assertNull(limiter.preSend(m3, channel));
+        Assert.assertNull(limiter.preSend(m4, channel));
+        Assert.assertNull(limiter.preSend(m5, channel));
+
+        Assert.assertTrue(limiter.isSlow("session1"));
+        Assert.assertEquals(4, limiter.getQueuedMessages("session1"));
+        Assert.assertEquals(1, limiter.getDroppedMessages("session1"));
+        Assert.assertEquals(1, events.size());
+        Assert.assertEquals("session1", events.get(0).sessionId);
+        Assert.assertEquals(SlowConsumerPolicy.DROP_OLDEST, events.get(0).policy);
+
+        // Frames other than MESSAGE (i.e. heartbeats) are not counted.
+        trackedSession.sendMessage(new TextMessage("\n"));
+        Mockito.verify(channel, Mockito.never()).send(Mockito.any());
+
+        trackedSession.sendMessage(MESSAGE_FRAME);
+        Mockito.verify(channel).send(m4);
+        trackedSession.sendMessage(MESSAGE_FRAME);
+        Mockito.verify(channel).send(m5);
+        Mockito.verify(channel, Mockito.never()).send(m3);
+        Assert.assertTrue(limiter.isSlow("session1"));
+
+        trackedSession.sendMessage(MESSAGE_FRAME);
+        trackedSession.sendMessage(MESSAGE_FRAME);
+        Assert.assertFalse(limiter.isSlow("session1"));
+        Assert.assertEquals(0, limiter.getQueuedMessages("session1"));
+        Mockito.verify(rawSession, Mockito.times(5)).sendMessage(Mockito.any());
+    }
+
+    @Test
+    public void testConflate() throws Exception {
+        configuration.setSessionOutboundQueueLimit(2);
+        configuration.setSlowConsumerPolicy(SlowConsumerPolicy.CONFLATE);
+
+        limiter.preSend(createMessage("/topic/x", "x1"), channel);
+        limiter.preSend(createMessage("/topic/x", "x2"), channel);
+
+        Message<?> a2 = createMessage("/topic/a", "a2");
+        Message<?> b1 = createMessage("/topic/b", "b1");
+        Assert.assertNull(limiter.preSend(createMessage("/topic/a", "a1"), channel));
+        Assert.assertNull(limiter.preSend(b1, channel));
+        Assert.assertNull(limiter.preSend(a2, channel));
+        Assert.assertEquals(1, limiter.getDroppedMessages("session1"));
+        Assert.assertEquals(4, limiter.getQueuedMessages("session1"));
+
+        trackedSession.sendMessage(MESSAGE_FRAME);
+        trackedSession.sendMessage(MESSAGE_FRAME);
+        ArgumentCaptor<Message> captor = ArgumentCaptor.forClass(Message.class);
+        Mockito.verify(channel, Mockito.times(2)).send(captor.capture());
+        Assert.assertSame(a2, captor.getAllValues().get(0));
+        Assert.assertSame(b1, captor.getAllValues().get(1));
+    }
+
+    @Test
+    public void testDisconnect() throws Exception {
+        configuration.setSessionOutboundQueueLimit(1);
+        configuration.setSlowConsumerPolicy(SlowConsumerPolicy.DISCONNECT);
+
+        Assert.assertNotNull(limiter.preSend(createMessage("/topic/a", "m1"), channel));
+        Assert.assertNull(limiter.preSend(createMessage("/topic/a", "m2"), channel));
+        Assert.assertNull(limiter.preSend(createMessage("/topic/a", "m3"), channel));
+
+        Mockito.verify(rawSession, Mockito.times(1)).close(CloseStatus.SESSION_NOT_RELIABLE);
+        Assert.assertEquals(2, limiter.getDroppedMessages("session1"));
+        Assert.assertEquals(1, events.size());
+        Assert.assertEquals(SlowConsumerPolicy.DISCONNECT, events.get(0).policy);
+    }
+
+    @Test
+    public void testSendTimeLimit() throws Exception {
+        configuration.setSessionOutboundQueueLimit(10);
+        configuration.setSessionSendTimeLimitMillis(50);
+
+        CountDownLatch sendStarted = new CountDownLatch(1);
+        CountDownLatch sendReleased = new CountDownLatch(1);
+        Mockito.doAnswer(invocation -> {
+            sendStarted.countDown();
+            sendReleased.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(rawSession).sendMessage(Mockito.any());
+
+        Assert.assertNotNull(limiter.preSend(createMessage("/topic/a", "m1"), channel));
+        Thread sender = new Thread(() -> {
+            try {
+                trackedSession.sendMessage(MESSAGE_FRAME);
+            } catch (Exception ex) {
+                throw new RuntimeException(ex);
+            }
+        });
+        sender.start();
+        Assert.assertTrue(sendStarted.await(5, TimeUnit.SECONDS));
+        Thread.sleep(100);
+
+        Message<?> m2 = createMessage("/topic/a", "m2");
+        Assert.assertNull(limiter.preSend(m2, channel));
+        Assert.assertTrue(limiter.isSlow("session1"));
+
+        sendReleased.countDown();
+        sender.join(5000);
+        Mockito.verify(channel).send(m2);
+    }
+
+    @Test
+    public void testNonMessageFramesAndUnknownSessions() {
+        configuration.setSessionOutboundQueueLimit(1);
+
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.HEARTBEAT);
+        accessor.setSessionId("session1");
+        Message<byte[]> heartbeat = MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+        for (int i = 0; i < 5; i++) {
+            Assert.assertNotNull(limiter.preSend(heartbeat, channel));
+            Assert.assertNotNull(limiter.preSend(createMessage("/topic/a", "m" + i, "session2"), channel));
+        }
+        Assert.assertEquals(0, limiter.getQueuedMessages("session1"));
+    }
+
+    private Message<?> createMessage(String destination, String payload) {
+        return createMessage(destination, payload, "session1");
+    }
+
+    private Message<?> createMessage(String destination, String payload, String sessionId) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+    }
+}
@@ -8,6 +8,9 @@ package com.vmware.transport.bridge.spring.controllers;
 import com.vmware.transport.bridge.Request;
 import com.vmware.transport.bridge.RequestException;
 import com.vmware.transport.bridge.Response;
+import com.vmware.transport.bridge.spring.config.TransportBridgeConfiguration;
+import com.vmware.transport.bridge.spring.services.TransportAdmissionControl;
+import com.vmware.transport.bridge.spring.services.TransportSubscriptionService;
 import com.vmware.transport.broker.TestGalacticChannelConfig;
 import com.vmware.transport.broker.TestMessageBrokerConnector;
 import com.vmware.transport.bus.EventBus;
@@ -16,7 +19,9 @@ import com.vmware.transport.bus.model.Message;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.Mockito;
 import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.security.Principal;
 import java.util.HashMap;
@@ -86,6 +91,77 @@ public class MessageControllerTest {
         Assert.assertEquals(this.message.getPayload(), bridgeRequest);
     }
 
+    @Test
+    public void testBridgeMessageRegistersRequestOrigin() throws Exception {
+        TransportSubscriptionService subscriptionService = Mockito.mock(TransportSubscriptionService.class);
+        ReflectionTestUtils.setField(this.controller, "subscriptionService", subscriptionService);
+
+        Request bridgeRequest = new Request(UUID.randomUUID(), "test", "request-payload");
+        Map<String, Object> headers = new HashMap<>();
+        headers.put(SimpMessageHeaderAccessor.SESSION_ID_HEADER, "session1");
+
+        this.controller.bridgeMessage(bridgeRequest, "channel", headers);
+        Mockito.verify(subscriptionService).registerRequestOrigin("channel", bridgeRequest.getId(), "session1");
+    }
+
+    @Test
+    public void testBridgeMessageRejectedByAdmissionControl() throws Exception {
+        TransportBridgeConfiguration config = new TransportBridgeConfiguration();
+        config.setSessionRateLimit(1, 2);
+        ReflectionTestUtils.setField(this.controller, "admissionControl",
+              new TransportAdmissionControl(this.bus, config));
+
+        this.bus.listenRequestStream("channel", message -> this.count++);
+        Response[] rejection = new Response[1];
+        this.bus.listenStream("channel", message -> {}, message -> rejection[0] = (Response) message.getPayload());
+
+        Map<String, Object> headers = new HashMap<>();
+        headers.put(SimpMessageHeaderAccessor.SESSION_ID_HEADER, "session1");
+        for (int i = 0; i < 3; i++) {
+            this.controller.bridgeMessage(new Request(UUID.randomUUID(), "test", "request-payload"),
+                  "channel", headers);
+        }
+        Assert.assertEquals(2, this.count);
+        Assert.assertNotNull(rejection[0]);
+        Assert.assertEquals(429, rejection[0].getErrorCode());
+        TransportAdmissionControl.Rejection payload = (TransportAdmissionControl.Rejection) rejection[0].getPayload();
+        Assert.assertEquals(TransportAdmissionControl.RejectionReason.SESSION_RATE_LIMIT, payload.getReason());
+        Assert.assertTrue(payload.getRetryAfterMillis() > 0);
+
+        // other sessions are not affected.
+        headers.put(SimpMessageHeaderAccessor.SESSION_ID_HEADER, "session2");
+        this.controller.bridgeMessage(new Request(UUID.randomUUID(), "test", "request-payload"),
+              "channel", headers);
+        Assert.assertEquals(3, this.count);
+    }
+
+    @Test
+    public void testRejectionSentToSession() throws Exception {
+        TransportBridgeConfiguration config = new TransportBridgeConfiguration();
+        config.setSessionRateLimit(1, 1);
+        ReflectionTestUtils.setField(this.controller, "admissionControl",
+              new TransportAdmissionControl(this.bus, config));
+        TransportSubscriptionService subscriptionService = Mockito.mock(TransportSubscriptionService.class);
+        Mockito.when(subscriptionService.sendToSession(Mockito.eq("session1"), Mockito.eq("channel"), Mockito.any()))
+              .thenReturn(true);
+        ReflectionTestUtils.setField(this.controller, "subscriptionService", subscriptionService);
+
+        this.bus.listenRequestStream("channel", message -> this.count++);
+        this.bus.listenStream("channel", message -> {}, message -> this.message = message);
+
+        Map<String, Object> headers = new HashMap<>();
+        headers.put(SimpMessageHeaderAccessor.SESSION_ID_HEADER, "session1");
+        Request bridgeRequest = new Request(UUID.randomUUID(), "test", "request-payload");
+        this.controller.bridgeMessage(new Request(UUID.randomUUID(), "test", "request-payload"), "channel", headers);
+        this.controller.bridgeMessage(bridgeRequest, "channel", headers);
+
+        Assert.assertEquals(1, this.count);
+        // the rejection is not broadcast on the channel.
+        Assert.assertNull(this.message);
+        Mockito.verify(subscriptionService).sendToSession(Mockito.eq("session1"), Mockito.eq("channel"),
+              Mockito.argThat(msg -> msg.isError() && bridgeRequest.getId().equals(msg.getId())));
+    }
+
     @Test
     public void testBridgeMessageWithSessionAttributes() throws Exception {
         this.bus.listenRequestStream("channel", message -> {
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2020 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ *
+ */
+package com.vmware.transport.bridge.spring.services;
+
+import com.vmware.transport.bridge.spring.config.TransportBridgeConfiguration;
+import com.vmware.transport.bridge.spring.services.TransportAdmissionControl.Rejection;
+import com.vmware.transport.bridge.spring.services.TransportAdmissionControl.RejectionReason;
+import com.vmware.transport.bus.EventBus;
+import com.vmware.transport.bus.EventBusImpl;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+public class TransportAdmissionControlTest {
+
+    private EventBus bus;
+    private TransportBridgeConfiguration config;
+    private TransportAdmissionControl admissionControl;
+
+    @Before
+    public void before() {
+        bus = new EventBusImpl();
+        config = new TransportBridgeConfiguration();
+        admissionControl = new TransportAdmissionControl(bus, config);
+        // the services of the channels.
+        bus.listenRequestStream("channel", msg -> {});
+        bus.listenRequestStream("channel2", msg -> {});
+    }
+
+    @Test
+    public void testDisabledByDefault() {
+        for (int i = 0; i < 100; i++) {
+            Assert.assertNull(admissionControl.admit("session1", "channel", UUID.randomUUID(), true));
+        }
+        Assert.assertEquals(0, admissionControl.getAdmittedRequests());
+        Assert.assertEquals(0, admissionControl.getInFlightRequests("channel"));
+    }
+
+    @Test
+    public void testSessionRateLimit() {
+        config.setSessionRateLimit(1, 3);
+
+        for (int i = 0; i < 3; i++) {
+            Assert.assertNull(admissionControl.admit("session1", "channel", UUID.randomUUID(), true));
+        }
+        Rejection rejection = admissionControl.admit("session1", "channel", UUID.randomUUID(), true);
+        Assert.assertNotNull(rejection);
+        Assert.assertEquals(RejectionReason.SESSION_RATE_LIMIT, rejection.getReason());
+        Assert.assertTrue(rejection.getRetryAfterMillis() > 0 && rejection.getRetryAfterMillis() <= 1000);
+
+        Assert.assertNull(admissionControl.admit("session2", "channel", UUID.randomUUID(), true));
+
+        // a reconnecting session starts with a full bucket.
+        admissionControl.onSessionDisconnect("session1");
+        Assert.assertNull(admissionControl.admit("session1", "channel", UUID.randomUUID(), true));
+
+        Assert.assertEquals(5, admissionControl.getAdmittedRequests());
+        Assert.assertEquals(1, admissionControl.getRejectedRequests(RejectionReason.SESSION_RATE_LIMIT));
+    }
+
+    @Test
+    public void testDestinationRateLimit() {
+        config.setDestinationRateLimit(1, 2);
+
+        Assert.assertNull(admissionControl.admit("session1", "channel", UUID.randomUUID(), true));
+        Assert.assertNull(admissionControl.admit("session2", "channel", UUID.randomUUID(), true));
+        Rejection rejection = admissionControl.admit("session3", "channel", UUID.randomUUID(), true);
+        Assert.assertEquals(RejectionReason.DESTINATION_RATE_LIMIT, rejection.getReason());
+
+        Assert.assertNull(admissionControl.admit("session3", "channel2", UUID.randomUUID(), true));
+        Assert.assertEquals(1, admissionControl.getRejectedRequests(RejectionReason.DESTINATION_RATE_LIMIT));
+    }
+
+    @Test
+    public void testTokenBucketRefill() {
+        long now = System.nanoTime();
+        TransportAdmissionControl.TokenBucket bucket = new TransportAdmissionControl.TokenBucket(10, 1, now);
+        Assert.assertEquals(0, bucket.tryAcquire(now));
+        long waitNanos = bucket.tryAcquire(now);
+        Assert.assertTrue(waitNanos > 0 && waitNanos <= 100_000_000);
+        Assert.assertEquals(0, bucket.tryAcquire(now + waitNanos));
+    }
+
+    @Test
+    public void testInFlightLimit() {
+        config.setMaxInFlightRequests(2, 60000);
+
+        UUID request1 = UUID.randomUUID();
+        UUID request2 = UUID.randomUUID();
+        Assert.assertNull(admissionControl.admit("session1", "channel", request1, true));
+        Assert.assertNull(admissionControl.admit("session1", "channel", request2, true));
+        Assert.assertEquals(2, admissionControl.getInFlightRequests("channel"));
+
+        Rejection rejection = admissionControl.admit("session1", "channel", UUID.randomUUID(), true);
+        Assert.assertEquals(RejectionReason.IN_FLIGHT_LIMIT, rejection.getReason());
+
+        // requests to galactic channels are not tracked.
+        Assert.assertNull(admissionControl.admit("session1", "channel", UUID.randomUUID(), false));
+
+        bus.sendResponseMessageWithId("channel", "response", request1);
+        bus.sendResponseMessageWithId("channel", "response", request1);
+        Assert.assertEquals(1, admissionControl.getInFlightRequests("channel"));
+
+        bus.sendErrorMessageWithId("channel", "error", request2);
+        Assert.assertEquals(0, admissionControl.getInFlightRequests("channel"));
+
+        Assert.assertNull(admissionControl.admit("session1", "channel", UUID.randomUUID(), true));
+        Assert.assertEquals(1, admissionControl.getRejectedRequests(RejectionReason.IN_FLIGHT_LIMIT));
+    }
+
+    @Test
+    public void testInFlightTimeout() throws Exception {
+        config.setMaxInFlightRequests(1, 20);
+
+        Assert.assertNull(admissionControl.admit("session1", "channel", UUID.randomUUID(), true));
+        Assert.assertNotNull(admissionControl.admit("session1", "channel", UUID.randomUUID(), true));
+
+        Thread.sleep(50);
+        Assert.assertNull(admissionControl.admit("session1", "channel", UUID.randomUUID(), true));
+        Assert.assertEquals(1, admissionControl.getInFlightRequests("channel"));
+    }
+
+    @Test
+    public void testUnknownChannelNotTracked() {
+        config.setDestinationRateLimit(1, 1);
+        config.setMaxInFlightRequests(1, 60000);
+
+        for (int i = 0; i < 10; i++) {
+            Assert.assertNull(admissionControl.admit("session1", "unknown-" + i, UUID.randomUUID(), true));
+        }
+        Assert.assertEquals(0, admissionControl.getDestinationBucketCount());
+        Assert.assertEquals(0, admissionControl.getTrackedChannelCount());
+        Assert.assertEquals(0, bus.getApi().getChannelRefCount("unknown-0"));
+
+        // galactic channels have no local service, their rate is still limited.
+        Assert.assertNull(admissionControl.admit("session1", "galactic", UUID.randomUUID(), false));
+        Assert.assertNotNull(admissionControl.admit("session1", "galactic", UUID.randomUUID(), false));
+    }
+
+    @Test
+    public void testEvictIdle() {
+        config.setDestinationRateLimit(1, 1);
+        config.setMaxInFlightRequests(1, 60000);
+
+        UUID request1 = UUID.randomUUID();
+        Assert.assertNull(admissionControl.admit("session1", "channel", request1, true));
+        Assert.assertNull(admissionControl.admit("session1", "channel2", UUID.randomUUID(), true));
+        Assert.assertEquals(2, admissionControl.getDestinationBucketCount());
+        Assert.assertEquals(2, admissionControl.getTrackedChannelCount());
+        Assert.assertEquals(2, bus.getApi().getChannelRefCount("channel"));
+
+        bus.sendResponseMessageWithId("channel", "response", request1);
+        long later = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(
+              2 * TransportAdmissionControl.EVICTION_INTERVAL_MILLIS);
+        admissionControl.evictIdle(later);
+
+        // the request pending on channel2 keeps its tracker.
+        Assert.assertEquals(0, admissionControl.getDestinationBucketCount());
+        Assert.assertEquals(1, admissionControl.getTrackedChannelCount());
+        Assert.assertEquals(1, admissionControl.getInFlightRequests("channel2"));
+        Assert.assertEquals(1, bus.getApi().getChannelRefCount("channel"));
+
+        // the listener of the evicted tracker is unsubscribed, a new one tracks the next request.
+        UUID request2 = UUID.randomUUID();
+        Assert.assertNull(admissionControl.admit("session1", "channel", request2, true));
+        Assert.assertEquals(1, admissionControl.getInFlightRequests("channel"));
+        bus.sendResponseMessageWithId("channel", "response", request2);
+        Assert.assertEquals(0, admissionControl.getInFlightRequests("channel"));
+    }
+}
@@ -7,7 +7,10 @@ package com.vmware.transport.bridge.spring.services;
 
 import com.vmware.transport.bridge.BridgeChannelMode;
 import com.vmware.transport.bridge.Response;
+import com.vmware.transport.bridge.spring.config.TransportBridgeConfiguration;
+import com.vmware.transport.bridge.spring.config.interceptors.TransportContentTypeInterceptor;
 import com.vmware.transport.bridge.util.BridgeUtil;
+import com.vmware.transport.bus.codec.PayloadCodecs;
 import com.vmware.transport.bus.EventBus;
 import com.vmware.transport.bus.EventBusImpl;
 import com.vmware.transport.bus.model.Message;
@@ -19,20 +22,37 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
 import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.socket.messaging.SessionSubscribeEvent;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 @RunWith(SpringRunner.class)
 @SpringBootTest(classes = {
@@ -125,6 +145,192 @@ public class TransportSubscriptionServiceTest {
         Assert.assertEquals(subscriptionEvent.subscribeEvent, this.subscribeEvent1);
     }
 
+    @Test
+    public void testSendEncodedPayloads() throws Exception {
+        TransportBridgeConfiguration bridgeConfiguration = new TransportBridgeConfiguration();
+        bridgeConfiguration.setPayloadCodec(PayloadCodecs.JSON);
+        ReflectionTestUtils.setField(subscriptionService, "bridgeConfiguration", bridgeConfiguration);
+        Mockito.when(msgTmpl.getUserDestinationPrefix()).thenReturn("/user/");
+
+        subscriptionService.addSubscription("sub1", "session1", this.channel, this.destinationPrefix, this.subscribeEvent1);
+
+        bus.sendResponseMessage(this.channel, "response1");
+        bus.sendResponseMessageToTarget(this.channel, "response2", UUID.randomUUID(), "test/user");
+
+        ArgumentCaptor<org.springframework.messaging.Message> captor =
+              ArgumentCaptor.forClass(org.springframework.messaging.Message.class);
+        Mockito.verify(msgTmpl).send(Mockito.eq(this.destinationPrefix + this.channel), captor.capture());
+        Mockito.verify(msgTmpl).send(Mockito.eq("/user/test%2Fuser" + this.destinationPrefix + this.channel),
+              captor.capture());
+        Mockito.verify(msgTmpl, Mockito.never()).convertAndSend(Mockito.anyString(), (Object) Mockito.any());
+
+        org.springframework.messaging.Message<byte[]> msg = captor.getAllValues().get(0);
+        Assert.assertEquals("\"response1\"", new String(msg.getPayload(), StandardCharsets.UTF_8));
+        Assert.assertEquals("application/json",
+              SimpMessageHeaderAccessor.wrap(msg).getContentType().toString());
+
+        msg = captor.getAllValues().get(1);
+        Assert.assertEquals("\"response2\"", new String(msg.getPayload(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testSendWithSessionContentTypes() throws Exception {
+        TransportBridgeConfiguration bridgeConfiguration = new TransportBridgeConfiguration();
+        bridgeConfiguration.setSessionContentTypesEnabled(true);
+        ReflectionTestUtils.setField(subscriptionService, "bridgeConfiguration", bridgeConfiguration);
+        Mockito.when(msgTmpl.getMessageConverter()).thenReturn(new MappingJackson2MessageConverter());
+
+        subscriptionService.addSubscription("sub1", "session1", this.channel, this.destinationPrefix, this.subscribeEvent1);
+        bus.sendResponseMessage(this.channel, "response1");
+
+        ArgumentCaptor<org.springframework.messaging.Message> captor =
+              ArgumentCaptor.forClass(org.springframework.messaging.Message.class);
+        Mockito.verify(msgTmpl).send(Mockito.eq(this.destinationPrefix + this.channel), captor.capture());
+        Mockito.verify(msgTmpl, Mockito.never()).convertAndSend(Mockito.anyString(), (Object) Mockito.any());
+
+        // the bus message travels with the JSON message, to be re-encoded for the sessions asking for it.
+        org.springframework.messaging.Message<byte[]> msg = captor.getValue();
+        Assert.assertEquals("\"response1\"", new String(msg.getPayload(), StandardCharsets.UTF_8));
+        Message busMessage = (Message) msg.getHeaders().get(TransportContentTypeInterceptor.BUS_MESSAGE_HEADER);
+        Assert.assertEquals("response1", busMessage.getPayload());
+    }
+
+    @Test
+    public void testChannelHistorySequenceNumbers() {
+        TransportBridgeConfiguration bridgeConfiguration = new TransportBridgeConfiguration();
+        bridgeConfiguration.setChannelHistorySize(10);
+        ReflectionTestUtils.setField(subscriptionService, "bridgeConfiguration", bridgeConfiguration);
+
+        subscriptionService.addSubscription("sub1", "session1", this.channel, this.destinationPrefix, this.subscribeEvent1);
+
+        bus.sendResponseMessage(this.channel, "response1");
+        bus.sendResponseMessage(this.channel, "response2");
+        bus.sendResponseMessageToTarget(this.channel, "response3", UUID.randomUUID(), "user1");
+
+        ArgumentCaptor<Map> captor = ArgumentCaptor.forClass(Map.class);
+        Mockito.verify(msgTmpl).convertAndSend(
+              Mockito.eq(this.destinationPrefix + this.channel), Mockito.eq((Object) "response1"), captor.capture());
+        Mockito.verify(msgTmpl).convertAndSend(
+              Mockito.eq(this.destinationPrefix + this.channel), Mockito.eq((Object) "response2"), captor.capture());
+        // Messages to a single user are not recorded.
+        Mockito.verify(msgTmpl).convertAndSendToUser("user1", this.destinationPrefix + this.channel, "response3");
+
+        Map<String, Object> headers1 = captor.getAllValues().get(0);
+        Map<String, Object> headers2 = captor.getAllValues().get(1);
+        Assert.assertEquals("1", headers1.get(ChannelHistory.SEQUENCE_HEADER));
+        Assert.assertEquals("2", headers2.get(ChannelHistory.SEQUENCE_HEADER));
+        Assert.assertNotNull(headers1.get(ChannelHistory.EPOCH_HEADER));
+        Assert.assertEquals(headers1.get(ChannelHistory.EPOCH_HEADER), headers2.get(ChannelHistory.EPOCH_HEADER));
+    }
+
+    @Test
+    public void testConcurrentSequenceNumbers() throws Exception {
+        TransportBridgeConfiguration bridgeConfiguration = new TransportBridgeConfiguration();
+        bridgeConfiguration.setChannelHistorySize(10);
+        ReflectionTestUtils.setField(subscriptionService, "bridgeConfiguration", bridgeConfiguration);
+
+        List<Long> sentSequenceNumbers = Collections.synchronizedList(new ArrayList<>());
+        Mockito.doAnswer(invocation -> {
+            Map<String, Object> headers = invocation.getArgument(2);
+            sentSequenceNumbers.add(Long.parseLong((String) headers.get(ChannelHistory.SEQUENCE_HEADER)));
+            return null;
+        }).when(msgTmpl).convertAndSend(Mockito.anyString(), Mockito.any(Object.class), Mockito.anyMap());
+
+        subscriptionService.addSubscription("sub1", "session1", this.channel, this.destinationPrefix, this.subscribeEvent1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 250; i++) {
+                    bus.sendResponseMessage(this.channel, "response");
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // the messages are sent in the order of their sequence numbers.
+        Assert.assertEquals(2000, sentSequenceNumbers.size());
+        for (int i = 0; i < sentSequenceNumbers.size(); i++) {
+            Assert.assertEquals(i + 1, sentSequenceNumbers.get(i).longValue());
+        }
+    }
+
+    @Test
+    public void testResumeSubscription() {
+        TransportBridgeConfiguration bridgeConfiguration = new TransportBridgeConfiguration();
+        bridgeConfiguration.setChannelHistorySize(2);
+        bridgeConfiguration.setPayloadCodec(PayloadCodecs.JSON);
+        ReflectionTestUtils.setField(subscriptionService, "bridgeConfiguration", bridgeConfiguration);
+        MessageChannel clientOutboundChannel = Mockito.mock(MessageChannel.class);
+        ReflectionTestUtils.setField(subscriptionService, "clientOutboundChannel", clientOutboundChannel);
+
+        String destination = this.destinationPrefix + this.channel;
+        subscriptionService.addSubscription("sub1", "session1", this.channel, this.destinationPrefix, this.subscribeEvent1);
+        bus.sendResponseMessage(this.channel, "response1");
+        bus.sendResponseMessage(this.channel, "response2");
+        bus.sendResponseMessage(this.channel, "response3");
+
+        // Resume after the first message: the last two are still in the history.
+        subscriptionService.addSubscription("sub2", "session2", this.channel, this.destinationPrefix,
+              createResumeSubscribeEvent(destination, "session2", "sub2", "1"));
+
+        ArgumentCaptor<org.springframework.messaging.Message> captor =
+              ArgumentCaptor.forClass(org.springframework.messaging.Message.class);
+        Mockito.verify(clientOutboundChannel, Mockito.timeout(1000).times(2)).send(captor.capture());
+
+        List<org.springframework.messaging.Message> replayed = captor.getAllValues();
+        for (int i = 0; i < 2; i++) {
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(replayed.get(i));
+            Assert.assertEquals("session2", accessor.getSessionId());
+            Assert.assertEquals("sub2", accessor.getSubscriptionId());
+            Assert.assertEquals(destination, accessor.getDestination());
+            Assert.assertEquals(String.valueOf(i + 2), accessor.getFirstNativeHeader(ChannelHistory.SEQUENCE_HEADER));
+            Assert.assertEquals("\"response" + (i + 2) + "\"",
+                  new String((byte[]) replayed.get(i).getPayload(), StandardCharsets.UTF_8));
+        }
+
+        // The first message is no longer in the history.
+        Mockito.reset(clientOutboundChannel);
+        subscriptionService.addSubscription("sub3", "session3", this.channel, this.destinationPrefix,
+              createResumeSubscribeEvent(destination, "session3", "sub3", "0"));
+        Mockito.verify(clientOutboundChannel, Mockito.timeout(1000)).send(captor.capture());
+
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(captor.getValue());
+        Assert.assertEquals("session3", accessor.getSessionId());
+        Assert.assertEquals("true", accessor.getFirstNativeHeader(ChannelHistory.RESYNC_HEADER));
+        Assert.assertEquals("3", accessor.getFirstNativeHeader(ChannelHistory.SEQUENCE_HEADER));
+    }
+
+    @Test
+    public void testChannelHistoryLinger() throws Exception {
+        TransportBridgeConfiguration bridgeConfiguration = new TransportBridgeConfiguration();
+        bridgeConfiguration.setChannelHistorySize(10);
+        bridgeConfiguration.setChannelHistoryLingerMillis(100);
+        ReflectionTestUtils.setField(subscriptionService, "bridgeConfiguration", bridgeConfiguration);
+
+        subscriptionService.addSubscription("sub1", "session1", this.channel, this.destinationPrefix, this.subscribeEvent1);
+        subscriptionService.unsubscribeSessionsAfterDisconnect("session1");
+        Assert.assertTrue(subscriptionService.getOpenChannels().contains(this.channel));
+
+        // Subscribing again cancels the pending close.
+        subscriptionService.addSubscription("sub1", "session2", this.channel, this.destinationPrefix, this.subscribeEvent1);
+        Thread.sleep(200);
+        Assert.assertTrue(subscriptionService.getOpenChannels().contains(this.channel));
+
+        subscriptionService.removeSubscription("sub1", "session2");
+        Assert.assertTrue(subscriptionService.getOpenChannels().contains(this.channel));
+        long timeout = System.currentTimeMillis() + 2000;
+        while (subscriptionService.getOpenChannels().contains(this.channel) && System.currentTimeMillis() < timeout) {
+            Thread.sleep(10);
+        }
+        Assert.assertFalse(subscriptionService.getOpenChannels().contains(this.channel));
+        Assert.assertFalse(bus.getApi().getChannelMap().containsKey(this.channel));
+    }
+
    @Test
    public void testAddSubscriptionToRequestOnlyChannel() {
 
@@ -271,6 +477,244 @@ public class TransportSubscriptionServiceTest {
       Assert.assertEquals(subscriptionService.getOpenChannelsWithAttribute("clientId", "client1").size(), 2);
    }
 
+    @Test
+    public void testOutboundCoalescing() {
+        TransportBridgeConfiguration bridgeConfiguration = new TransportBridgeConfiguration();
+        bridgeConfiguration.enableOutboundCoalescing(
+              destination -> destination.equals(this.destinationPrefix + this.channel), 500, 3);
+        ReflectionTestUtils.setField(subscriptionService, "bridgeConfiguration", bridgeConfiguration);
+
+        String destination = this.destinationPrefix + this.channel;
+        subscriptionService.addSubscription("sub1", "session1", this.channel, this.destinationPrefix, this.subscribeEvent1);
+        subscriptionService.addSubscription("sub2", "session1", this.channel2, this.destinationPrefix, this.subscribeEvent2);
+
+        // The first message is sent immediately, the next ones are coalesced.
+        bus.sendResponseMessage(this.channel, "m1");
+        Mockito.verify(msgTmpl).convertAndSend(destination, "m1");
+        bus.sendResponseMessage(this.channel, "m2");
+        bus.sendResponseMessage(this.channel, "m3");
+        Mockito.verify(msgTmpl, Mockito.never()).convertAndSend(destination, "m2");
+
+        ArgumentCaptor<Map> headersCaptor = ArgumentCaptor.forClass(Map.class);
+        Mockito.verify(msgTmpl, Mockito.timeout(2000)).convertAndSend(
+              Mockito.eq(destination), Mockito.eq((Object) Arrays.asList("m2", "m3")), headersCaptor.capture());
+        Assert.assertEquals("2", headersCaptor.getValue().get(OutboundCoalescer.BATCH_SIZE_HEADER));
+
+        // A full batch is sent without waiting for the linger window.
+        bus.sendResponseMessage(this.channel, "m4");
+        bus.sendResponseMessage(this.channel, "m5");
+        bus.sendResponseMessage(this.channel, "m6");
+        Mockito.verify(msgTmpl).convertAndSend(
+              Mockito.eq(destination), Mockito.eq((Object) Arrays.asList("m4", "m5", "m6")), Mockito.anyMap());
+
+        // Other destinations are not coalesced.
+        bus.sendResponseMessage(this.channel2, "c1");
+        bus.sendResponseMessage(this.channel2, "c2");
+        Mockito.verify(msgTmpl).convertAndSend(this.destinationPrefix + this.channel2, "c1");
+        Mockito.verify(msgTmpl).convertAndSend(this.destinationPrefix + this.channel2, "c2");
+    }
+
+    @Test
+    public void testSessionScopedResponses() {
+        TransportBridgeConfiguration bridgeConfiguration = new TransportBridgeConfiguration();
+        bridgeConfiguration.enableSessionScopedResponses(60000, 100);
+        bridgeConfiguration.setPayloadCodec(PayloadCodecs.JSON);
+        ReflectionTestUtils.setField(subscriptionService, "bridgeConfiguration", bridgeConfiguration);
+        MessageChannel clientOutboundChannel = Mockito.mock(MessageChannel.class);
+        ReflectionTestUtils.setField(subscriptionService, "clientOutboundChannel", clientOutboundChannel);
+
+        String destination = this.destinationPrefix + this.channel;
+        subscriptionService.addSubscription("sub1", "session1", this.channel, this.destinationPrefix, this.subscribeEvent1);
+        subscriptionService.addSubscription("sub2", "session2", this.channel, this.destinationPrefix, this.subscribeEvent1);
+        subscriptionService.addSubscription("sub3", "session2", this.channel2, this.destinationPrefix, this.subscribeEvent2);
+
+        UUID requestId = UUID.randomUUID();
+        subscriptionService.registerRequestOrigin(this.channel, requestId, "session2");
+
+        // The response is delivered only to the subscription of session2 to the channel.
+        bus.sendResponseMessageWithId(this.channel, "private-response", requestId);
+        ArgumentCaptor<org.springframework.messaging.Message> captor =
+              ArgumentCaptor.forClass(org.springframework.messaging.Message.class);
+        Mockito.verify(clientOutboundChannel).send(captor.capture());
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(captor.getValue());
+        Assert.assertEquals("session2", accessor.getSessionId());
+        Assert.assertEquals("sub2", accessor.getSubscriptionId());
+        Assert.assertEquals(destination, accessor.getDestination());
+        Assert.assertEquals("\"private-response\"",
+              new String((byte[]) captor.getValue().getPayload(), StandardCharsets.UTF_8));
+        Mockito.verify(msgTmpl, Mockito.never()).send(Mockito.eq(destination), Mockito.any());
+
+        // A response with the same id on another channel is not routed.
+        bus.sendResponseMessageWithId(this.channel2, "other-response", requestId);
+        Mockito.verify(msgTmpl).send(Mockito.eq(this.destinationPrefix + this.channel2), Mockito.any());
+
+        // Responses to unknown requests are broadcast.
+        bus.sendResponseMessageWithId(this.channel, "broadcast", UUID.randomUUID());
+        Mockito.verify(msgTmpl).send(Mockito.eq(destination), Mockito.any());
+        Mockito.verifyNoMoreInteractions(clientOutboundChannel);
+    }
+
+    @Test
+    public void testSessionScopedResponsesReusedRequestId() {
+        TransportBridgeConfiguration bridgeConfiguration = new TransportBridgeConfiguration();
+        bridgeConfiguration.enableSessionScopedResponses(60000, 100);
+        bridgeConfiguration.setPayloadCodec(PayloadCodecs.JSON);
+        ReflectionTestUtils.setField(subscriptionService, "bridgeConfiguration", bridgeConfiguration);
+        MessageChannel clientOutboundChannel = Mockito.mock(MessageChannel.class);
+        ReflectionTestUtils.setField(subscriptionService, "clientOutboundChannel", clientOutboundChannel);
+
+        String destination = this.destinationPrefix + this.channel;
+        subscriptionService.addSubscription("sub1", "session1", this.channel, this.destinationPrefix, this.subscribeEvent1);
+        subscriptionService.addSubscription("sub2", "session2", this.channel, this.destinationPrefix, this.subscribeEvent1);
+
+        // A request sent again by its session keeps its origin.
+        UUID requestId = UUID.randomUUID();
+        subscriptionService.registerRequestOrigin(this.channel, requestId, "session1");
+        subscriptionService.registerRequestOrigin(this.channel, requestId, "session1");
+        bus.sendResponseMessageWithId(this.channel, "response1", requestId);
+        ArgumentCaptor<org.springframework.messaging.Message> captor =
+              ArgumentCaptor.forClass(org.springframework.messaging.Message.class);
+        Mockito.verify(clientOutboundChannel).send(captor.capture());
+        Assert.assertEquals("session1", SimpMessageHeaderAccessor.wrap(captor.getValue()).getSessionId());
+
+        // Another session reusing the id does not take over the responses, they are broadcast.
+        subscriptionService.registerRequestOrigin(this.channel, requestId, "session2");
+        bus.sendResponseMessageWithId(this.channel, "response2", requestId);
+        Mockito.verify(msgTmpl).send(Mockito.eq(destination), Mockito.any());
+
+        // The id remains conflicting, even for the first session.
+        subscriptionService.registerRequestOrigin(this.channel, requestId, "session1");
+        bus.sendResponseMessageWithId(this.channel, "response3", requestId);
+        Mockito.verify(msgTmpl, Mockito.times(2)).send(Mockito.eq(destination), Mockito.any());
+        Mockito.verifyNoMoreInteractions(clientOutboundChannel);
+    }
+
+    @Test
+    public void testSessionScopedResponsesDisabled() {
+        MessageChannel clientOutboundChannel = Mockito.mock(MessageChannel.class);
+        ReflectionTestUtils.setField(subscriptionService, "clientOutboundChannel", clientOutboundChannel);
+        subscriptionService.addSubscription("sub1", "session1", this.channel, this.destinationPrefix, this.subscribeEvent1);
+
+        UUID requestId = UUID.randomUUID();
+        subscriptionService.registerRequestOrigin(this.channel, requestId, "session1");
+        bus.sendResponseMessageWithId(this.channel, "response", requestId);
+
+        Mockito.verify(msgTmpl).convertAndSend(this.destinationPrefix + this.channel, "response");
+        Mockito.verifyZeroInteractions(clientOutboundChannel);
+    }
+
+    @Test
+    public void testBulkDisconnect() {
+        subscriptionService.addSubscription("sub1", "session1", this.channel, this.destinationPrefix, this.subscribeEvent1);
+        subscriptionService.addSubscription("sub2", "session1", this.channel2, this.destinationPrefix, this.subscribeEvent2);
+        subscriptionService.addSubscription("sub1", "session2", this.channel, this.destinationPrefix, this.subscribeEvent1);
+        subscriptionService.addSubscription("sub1", "session3", this.channel2, this.destinationPrefix, this.subscribeEvent2);
+
+        Assert.assertEquals(2, subscriptionService.getSessionSubscriptions("session1").size());
+        Assert.assertEquals(1, subscriptionService.getSessionSubscriptions("session2").size());
+        Assert.assertTrue(subscriptionService.getSessionSubscriptions("session4").isEmpty());
+
+        subscriptionService.removeSubscription("sub2", "session1");
+        Assert.assertEquals(1, subscriptionService.getSessionSubscriptions("session1").size());
+        Assert.assertEquals(this.channel,
+              subscriptionService.getSessionSubscriptions("session1").iterator().next().channelName);
+
+        subscriptionService.unsubscribeSessionsAfterDisconnect(Arrays.asList("session1", "session2", "session4"));
+
+        Assert.assertTrue(subscriptionService.getSessionSubscriptions("session1").isEmpty());
+        Assert.assertTrue(subscriptionService.getSessionSubscriptions("session2").isEmpty());
+        Assert.assertEquals(1, subscriptionService.getSubscriptions().size());
+        Assert.assertEquals(1, subscriptionService.getOpenChannels().size());
+        Assert.assertTrue(subscriptionService.getOpenChannels().contains(this.channel2));
+        Assert.assertFalse(bus.getApi().getChannelMap().containsKey(this.channel));
+    }
+
+    @Test
+    public void testConcurrentSubscribeAndDisconnect() throws Exception {
+        int threads = 8;
+        int sessionsPerThread = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final int thread = t;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < sessionsPerThread; i++) {
+                    String sessionId = "session-" + thread + "-" + i;
+                    subscriptionService.addSubscription("sub1", sessionId, this.channel,
+                          this.destinationPrefix, this.subscribeEvent1);
+                    subscriptionService.addSubscription("sub2", sessionId, "channel-" + (i % 10),
+                          this.destinationPrefix, this.subscribeEvent1);
+                    if (i % 2 == 0) {
+                        subscriptionService.unsubscribeSessionsAfterDisconnect(sessionId);
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        Assert.assertEquals(threads * sessionsPerThread, subscriptionService.getSubscriptions().size());
+        Assert.assertEquals(6, subscriptionService.getOpenChannels().size());
+
+        List<String> sessionIds = new ArrayList<>();
+        for (TransportSubscriptionService.TransportSubscription sub : subscriptionService.getSubscriptions()) {
+            sessionIds.add(sub.sessionId);
+        }
+        subscriptionService.unsubscribeSessionsAfterDisconnect(sessionIds);
+        Assert.assertTrue(subscriptionService.getSubscriptions().isEmpty());
+        Assert.assertTrue(subscriptionService.getOpenChannels().isEmpty());
+        Assert.assertFalse(bus.getApi().getChannelMap().containsKey(this.channel));
+    }
+
+    @Test
+    public void testSubscribeAfterDisconnect() {
+        subscriptionService.addSubscription("sub1", "session1", this.channel, this.destinationPrefix, this.subscribeEvent1);
+        subscriptionService.unsubscribeSessionsAfterDisconnect("session1");
+
+        // a SUBSCRIBE frame processed after the disconnect of its session is ignored.
+        subscriptionService.addSubscription("sub2", "session1", this.channel, this.destinationPrefix, this.subscribeEvent1);
+        Assert.assertTrue(subscriptionService.getSubscriptions().isEmpty());
+        Assert.assertTrue(subscriptionService.getSessionSubscriptions("session1").isEmpty());
+        Assert.assertTrue(subscriptionService.getOpenChannels().isEmpty());
+        Assert.assertFalse(bus.getApi().getChannelMap().containsKey(this.channel));
+    }
+
+    @Test
+    public void testConcurrentSubscribeWhileDisconnecting() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int i = 0; i < 500; i++) {
+                String sessionId = "session-" + i;
+                subscriptionService.addSubscription("sub1", sessionId, this.channel,
+                      this.destinationPrefix, this.subscribeEvent1);
+                CyclicBarrier barrier = new CyclicBarrier(2);
+                Future<?> subscribe = executor.submit(() -> {
+                    barrier.await();
+                    subscriptionService.addSubscription("sub2", sessionId, this.channel2,
+                          this.destinationPrefix, this.subscribeEvent2);
+                    return null;
+                });
+                Future<?> disconnect = executor.submit(() -> {
+                    barrier.await();
+                    subscriptionService.unsubscribeSessionsAfterDisconnect(sessionId);
+                    return null;
+                });
+                subscribe.get(10, TimeUnit.SECONDS);
+                disconnect.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        // every subscription was either closed by the disconnect or ignored.
+        Assert.assertTrue(subscriptionService.getSubscriptions().isEmpty());
+        Assert.assertTrue(subscriptionService.getOpenChannels().isEmpty());
+        Assert.assertFalse(bus.getApi().getChannelMap().containsKey(this.channel));
+        Assert.assertFalse(bus.getApi().getChannelMap().containsKey(this.channel2));
+    }
+
     @Test
     public void testRemoveLastSubscriptionToChannel() {
 
@@ -313,8 +757,8 @@ public class TransportSubscriptionServiceTest {
         Mockito.verify(msgTmpl, Mockito.times(1)).convertAndSend(
               this.destinationPrefix + this.channel, "channel-response1");
 
-        // Verify that we can re-subscribe successfully to first channel
-        subscriptionService.addSubscription("sub1", "session1", this.channel, this.destinationPrefix, this.subscribeEvent1);
+        // Verify that we can re-subscribe successfully to first channel, session1 is disconnected.
+        subscriptionService.addSubscription("sub1", "session3", this.channel, this.destinationPrefix, this.subscribeEvent1);
 
         Assert.assertEquals(subscriptionService.getSubscriptions().size(), 1);
         Assert.assertEquals(subscriptionService.getOpenChannels().size(), 1);
@@ -356,4 +800,16 @@ public class TransportSubscriptionServiceTest {
 
         return new SessionSubscribeEvent(new Object(), messageBuilder.build());
     }
+
+    private SessionSubscribeEvent createResumeSubscribeEvent(
+          String destination, String sessionId, String subId, String resumeAfter) {
+
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+        accessor.setDestination(destination);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subId);
+        accessor.setNativeHeader(ChannelHistory.RESUME_AFTER_HEADER, resumeAfter);
+        return new SessionSubscribeEvent(new Object(),
+              MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()));
+    }
 }
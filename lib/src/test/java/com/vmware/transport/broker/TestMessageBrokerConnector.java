@@ -17,7 +17,7 @@ public class TestMessageBrokerConnector implements
 
    public Object lastSentMessage;
    public TestGalacticChannelConfig lastSentMessageChannel;
-   public int messagesSent = 0;
+   public volatile int messagesSent = 0;
 
    public List<TestGalacticSubscription> subscriptions = new ArrayList<>();
 
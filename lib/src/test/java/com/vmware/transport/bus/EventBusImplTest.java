@@ -26,8 +26,14 @@ import org.junit.Test;
 import io.reactivex.Observable;
 import org.mockito.Mockito;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.core.AnyOf.anyOf;
@@ -1711,6 +1717,64 @@ public class EventBusImplTest {
         Assert.assertFalse(this.bus.getApi().getChannelMap().containsKey(chan));
     }
 
+    @Test
+    public void testEvictIdleChannels() throws Exception {
+        this.bus.getApi().getMonitor().subscribe(message -> {
+            MonitorObject mo = (MonitorObject) message.getPayload();
+            if (mo.getType() == MonitorType.MonitorEvictChannel) {
+                this.counter++;
+            }
+        });
+
+        // channels without references and subscribers.
+        this.bus.getApi().getChannelObject("#unused-1", "test", true);
+        this.bus.getApi().getChannelObject("#unused-2", "test", true);
+        this.bus.getApi().setChannelAttribute("#unused-2", "attr", "value");
+
+        // channel with a reference.
+        this.bus.getApi().getChannelObject("#referenced", "test");
+
+        // channel with a subscriber but without references.
+        this.bus.getApi().getChannel("#subscribed", "test", true).subscribe(message -> {});
+
+        Assert.assertEquals(0, this.bus.getApi().evictIdleChannels(60000, 100));
+        Assert.assertEquals(6, this.bus.getApi().getChannelMap().size());
+
+        Thread.sleep(5);
+
+        // verify that channels are inspected incrementally.
+        int evicted = this.bus.getApi().evictIdleChannels(1, 1);
+        while (this.bus.getApi().getChannelMap().containsKey("#unused-1") ||
+              this.bus.getApi().getChannelMap().containsKey("#unused-2")) {
+            Assert.assertTrue(evicted <= 2);
+            evicted += this.bus.getApi().evictIdleChannels(1, 1);
+        }
+
+        Assert.assertEquals(2, evicted);
+        Assert.assertEquals(2, this.counter);
+        Assert.assertNull(this.bus.getApi().getChannelAttribute("#unused-2", "attr"));
+        Assert.assertTrue(this.bus.getApi().getChannelMap().containsKey("#referenced"));
+        Assert.assertTrue(this.bus.getApi().getChannelMap().containsKey("#subscribed"));
+        Assert.assertTrue(this.bus.getApi().getChannelMap().containsKey(SystemChannels.EXTERNAL_MESSAGE_BROKER));
+        Assert.assertEquals(4, this.bus.getApi().getChannelMap().size());
+
+        // verify that a channel which is referenced again is not evicted.
+        this.bus.getApi().getChannelObject("#unused-1", "test", true);
+        Assert.assertEquals(0, this.bus.getApi().evictIdleChannels(60000, 100));
+        Assert.assertTrue(this.bus.getApi().getChannelMap().containsKey("#unused-1"));
+    }
+
+    @Test
+    public void testChannelReaper() throws Exception {
+        this.bus.getApi().getChannelObject("#unused", "test", true);
+        this.bus.getApi().enableChannelReaper(1, 1, 10);
+        for (int i = 0; i < 500 && this.bus.getApi().getChannelMap().containsKey("#unused"); i++) {
+            Thread.sleep(2);
+        }
+        this.bus.getApi().disableChannelReaper();
+        Assert.assertFalse(this.bus.getApi().getChannelMap().containsKey("#unused"));
+    }
+
     @Test
     public void testCreateTransaction() {
         Transaction transaction = this.bus.createTransaction();
@@ -2007,6 +2071,112 @@ public class EventBusImplTest {
         Assert.assertEquals("message", ((Message) monitorObject.getData()).getPayload());
     }
 
+    @Test
+    public void testMarkChannelAsGalacticWithOutboundQueue() throws Exception {
+
+        LinkedBlockingQueue<List<Message>> batches = new LinkedBlockingQueue<>();
+        LinkedBlockingQueue<CompletableFuture<List<Boolean>>> results = new LinkedBlockingQueue<>();
+
+        TestMessageBrokerConnector mbc1 = new TestMessageBrokerConnector("mbr1") {
+            @Override
+            public CompletableFuture<List<Boolean>> sendMessagesAsync(
+                  TestGalacticChannelConfig channelConfig, List<Message> messages) {
+                CompletableFuture<List<Boolean>> result = new CompletableFuture<>();
+                results.add(result);
+                batches.add(messages);
+                return result;
+            }
+        };
+
+        TestGalacticChannelConfig gcc1 =
+              new TestGalacticChannelConfig(mbc1.getMessageBrokerId(), "remote-channel-1");
+        gcc1.setOutboundQueueSize(4);
+        gcc1.setOutboundBatchSize(2);
+        gcc1.setOutboundLingerMillis(60000);
+
+        bus.registerMessageBroker(mbc1);
+        Assert.assertTrue(bus.markChannelAsGalactic("channel1", gcc1));
+
+        List<MonitorObject> dropped = Collections.synchronizedList(new ArrayList<>());
+        this.bus.getApi().getMonitor().subscribe(message -> {
+            MonitorObject mo = (MonitorObject) message.getPayload();
+            if (mo.getType() == MonitorType.MonitorDropped) {
+                dropped.add(mo);
+            }
+        });
+
+        // the first batch is sent as soon as it is full.
+        bus.sendRequestMessage("channel1", "message-1");
+        bus.sendRequestMessage("channel1", "message-2");
+        List<Message> batch = batches.poll(5, TimeUnit.SECONDS);
+        Assert.assertNotNull(batch);
+        Assert.assertEquals(2, batch.size());
+        Assert.assertEquals("message-1", batch.get(0).getPayload());
+        Assert.assertEquals("message-2", batch.get(1).getPayload());
+
+        // while the first batch is in flight, messages are queued until the queue is full.
+        for (int i = 3; i <= 7; i++) {
+            bus.sendRequestMessage("channel1", "message-" + i);
+        }
+        Assert.assertEquals(1, dropped.size());
+        Assert.assertEquals("channel1", dropped.get(0).getChannel());
+        Assert.assertEquals("message-7", ((Message) dropped.get(0).getData()).getPayload());
+
+        // report a failure for the second message of the first batch. The completion handler
+        // might be registered by the sender thread after the future is completed.
+        results.poll().complete(Arrays.asList(true, false));
+        awaitSize(dropped, 2);
+        Assert.assertEquals(2, dropped.size());
+        Assert.assertEquals("message-2", ((Message) dropped.get(1).getData()).getPayload());
+
+        batch = batches.poll(5, TimeUnit.SECONDS);
+        Assert.assertNotNull(batch);
+        Assert.assertEquals("message-3", batch.get(0).getPayload());
+        Assert.assertEquals("message-4", batch.get(1).getPayload());
+
+        // failed batches are reported as dropped messages.
+        results.poll().completeExceptionally(new RuntimeException("broker-error"));
+        awaitSize(dropped, 4);
+        Assert.assertEquals(4, dropped.size());
+
+        batch = batches.poll(5, TimeUnit.SECONDS);
+        Assert.assertNotNull(batch);
+        Assert.assertEquals("message-5", batch.get(0).getPayload());
+        Assert.assertEquals("message-6", batch.get(1).getPayload());
+        results.poll().complete(Arrays.asList(true, true));
+
+        Assert.assertTrue(bus.markChannelAsLocal("channel1"));
+        Assert.assertEquals(4, dropped.size());
+    }
+
+    private static void awaitSize(List<?> list, int size) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (list.size() < size && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    public void testOutboundQueueLinger() throws Exception {
+        TestMessageBrokerConnector mbc1 = new TestMessageBrokerConnector("mbr1");
+        TestGalacticChannelConfig gcc1 =
+              new TestGalacticChannelConfig(mbc1.getMessageBrokerId(), "remote-channel-1");
+        gcc1.setOutboundQueueSize(100);
+        gcc1.setOutboundBatchSize(10);
+        gcc1.setOutboundLingerMillis(1);
+
+        bus.registerMessageBroker(mbc1);
+        bus.markChannelAsGalactic("channel1", gcc1);
+
+        bus.sendRequestMessage("channel1", "test-message");
+        for (int i = 0; i < 500 && mbc1.messagesSent == 0; i++) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(1, mbc1.messagesSent);
+        Assert.assertEquals("test-message", mbc1.lastSentMessage);
+        Assert.assertEquals(gcc1, mbc1.lastSentMessageChannel);
+    }
+
     @Test
     public void testMarkChannelAsLocal() {
 
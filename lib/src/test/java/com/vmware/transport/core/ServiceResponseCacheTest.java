@@ -0,0 +1,135 @@
+/*
+ * Copyright 2020 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ *
+ */
+package com.vmware.transport.core;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vmware.transport.bridge.Response;
+import com.vmware.transport.core.model.TestResponse;
+import com.vmware.transport.core.model.TestServiceObjectResponse;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.UUID;
+
+public class ServiceResponseCacheTest {
+
+    private ServiceResponseCache cache;
+
+    @Before
+    public void before() {
+        cache = new ServiceResponseCache(new ObjectMapper(), 2);
+        cache.enableCommand("getMessage", 60000);
+    }
+
+    @Test
+    public void testCacheResponse() {
+        Assert.assertTrue(cache.isCacheable("getMessage"));
+        Assert.assertFalse(cache.isCacheable("setMessage"));
+        Assert.assertFalse(cache.isCacheable(null));
+
+        String key = cache.buildKey("getMessage", Collections.singletonMap("id", 1));
+        Assert.assertEquals(key, cache.buildKey("getMessage", Collections.singletonMap("id", 1)));
+        Assert.assertNotEquals(key, cache.buildKey("getMessage", Collections.singletonMap("id", 2)));
+        Assert.assertNull(cache.get(key));
+
+        UUID requestId = UUID.randomUUID();
+        Response<String> response = new Response<>(requestId, "message");
+
+        // responses for requests which were not marked as pending are ignored.
+        cache.complete(requestId, response);
+        Assert.assertNull(cache.get(key));
+
+        cache.markPending(requestId, key, "getMessage");
+        cache.complete(requestId, response);
+        Assert.assertSame(response, cache.get(key));
+        Assert.assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testErrorsAreNotCached() {
+        String key = cache.buildKey("getMessage", null);
+        UUID requestId = UUID.randomUUID();
+        Response<String> response = new Response<>(requestId, true);
+
+        cache.markPending(requestId, key, "getMessage");
+        cache.complete(requestId, response);
+        Assert.assertNull(cache.get(key));
+    }
+
+    @Test
+    public void testExpiredResponse() throws Exception {
+        cache.enableCommand("getList", 1);
+        String key = cache.buildKey("getList", null);
+        UUID requestId = UUID.randomUUID();
+
+        cache.markPending(requestId, key, "getList");
+        cache.complete(requestId, new Response<>(requestId, "list"));
+        Thread.sleep(5);
+        Assert.assertNull(cache.get(key));
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEviction() {
+        String key1 = addResponse("1");
+        String key2 = addResponse("2");
+        Assert.assertNotNull(cache.get(key1));
+
+        String key3 = addResponse("3");
+        Assert.assertEquals(2, cache.size());
+        Assert.assertNotNull(cache.get(key1));
+        Assert.assertNull(cache.get(key2));
+        Assert.assertNotNull(cache.get(key3));
+
+        cache.setMaxSize(1);
+        Assert.assertEquals(1, cache.size());
+        Assert.assertNotNull(cache.get(key3));
+    }
+
+    @Test
+    public void testInvalidate() {
+        String key = addResponse("1");
+        Assert.assertNotNull(cache.get(key));
+
+        UUID requestId = UUID.randomUUID();
+        String key2 = cache.buildKey("getMessage", "2");
+        cache.markPending(requestId, key2, "getMessage");
+
+        cache.invalidate();
+        Assert.assertNull(cache.get(key));
+
+        // responses computed before the invalidation are not cached.
+        cache.complete(requestId, new Response<>(requestId, "2"));
+        Assert.assertNull(cache.get(key2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidTtl() {
+        cache.enableCommand("getMessage", 0);
+    }
+
+    @Test
+    public void testCopyWithId() {
+        TestResponse response = new TestResponse(UUID.randomUUID(), new TestServiceObjectResponse());
+        UUID newId = UUID.randomUUID();
+        Response<TestServiceObjectResponse> copy = response.copyWithId(newId);
+
+        Assert.assertTrue(copy instanceof TestResponse);
+        Assert.assertEquals(newId, copy.getId());
+        Assert.assertNotEquals(newId, response.getId());
+        Assert.assertSame(response.getPayload(), copy.getPayload());
+    }
+
+    private String addResponse(String payload) {
+        String key = cache.buildKey("getMessage", payload);
+        UUID requestId = UUID.randomUUID();
+        cache.markPending(requestId, key, "getMessage");
+        cache.complete(requestId, new Response<>(requestId, payload));
+        return key;
+    }
+}
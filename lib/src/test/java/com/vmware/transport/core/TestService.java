@@ -15,13 +15,21 @@ import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @TransportService
 @Component
 public class TestService extends AbstractService<TestRequest, TestResponse> {
 
+    private final AtomicInteger cachedCommandCount = new AtomicInteger();
+
     public TestService() {
         super("test::TestService");
+        this.enableResponseCache(TestCommand.COMMAND_CACHED, 60000);
+    }
+
+    int getCachedCommandCount() {
+        return cachedCommandCount.get();
     }
 
     @Override
@@ -39,6 +47,10 @@ public class TestService extends AbstractService<TestRequest, TestResponse> {
                 this.handleCommandC(request, message.getId());
                 break;
 
+            case TestCommand.COMMAND_CACHED:
+                this.handleCommandCached(request, message.getId());
+                break;
+
             case TestCommand.COMMAND_OVERQUEUE:
                 this.handleCommandOverQueue(request, message.getId());
                 break;
@@ -106,6 +118,15 @@ public class TestService extends AbstractService<TestRequest, TestResponse> {
         }
     }
 
+    private void handleCommandCached(TestRequest request, UUID id) {
+        cachedCommandCount.incrementAndGet();
+        TestServiceObjectRequest requestPayload = this.castPayload(TestServiceObjectRequest.class, request);
+        TestServiceObjectResponse responsePayload = new TestServiceObjectResponse();
+        responsePayload.setResponseValue("CommandCached-" + requestPayload.getRequestValue());
+
+        this.sendResponse(new TestResponse(request.getId(), responsePayload), id);
+    }
+
     private void handleCommandOverQueue(TestRequest request, UUID id) {
         TestServiceObjectRequest requestPayload = this.castPayload(TestServiceObjectRequest.class, request);
         TestServiceObjectResponse responsePayload = new TestServiceObjectResponse();
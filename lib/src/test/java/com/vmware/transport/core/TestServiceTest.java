@@ -17,7 +17,9 @@ import com.vmware.transport.bus.store.StoreManager;
 import com.vmware.transport.core.error.GeneralError;
 import com.vmware.transport.core.error.RestError;
 import com.vmware.transport.core.model.*;
+import com.vmware.transport.core.operations.AsyncRestClient;
 import com.vmware.transport.core.operations.MockRestController;
+import com.vmware.transport.core.operations.RestClientPool;
 import com.vmware.transport.core.operations.RestService;
 import com.vmware.transport.core.operations.SecurityConfiguration;
 import com.vmware.transport.core.util.RestControllerInvoker;
@@ -37,7 +39,9 @@ import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.web.client.RestTemplate;
 
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
@@ -50,6 +54,8 @@ import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK, classes = {
         SecurityConfiguration.class,
         RestService.class,
+        RestClientPool.class,
+        AsyncRestClient.class,
         MockRestController.class,
         RestControllerInvoker.class,
         DefaultParameterNameDiscoverer.class,
@@ -113,6 +119,33 @@ public class TestServiceTest {
         );
     }
 
+    @Test
+    public void testServiceCommandAWithRawPayload() throws Exception {
+
+        String serviceChannel = "test::TestService";
+
+        UUID id = UUID.randomUUID();
+        TestRequest request = new ObjectMapper().readValue(
+                "{\"id\":\"" + id + "\",\"version\":1,\"request\":\"" + TestCommand.COMMAND_A + "\"," +
+                        "\"payload\":{\"requestValue\":\"My Raw Melody\"}}",
+                TestRequest.class);
+        Assert.assertNotNull(request.getRawPayload());
+
+        bus.requestOnce(
+                serviceChannel,
+                request,
+                (Message msg) -> {
+                    TestResponse resp = (TestResponse) msg.getPayload();
+                    TestServiceObjectResponse respPayload = (TestServiceObjectResponse) resp.getPayload();
+                    Assert.assertEquals(id, resp.getId());
+                    Assert.assertEquals("CommandA-My Raw Melody", respPayload.getResponseValue());
+                },
+                (Message error) -> {
+                    Assert.fail();
+                }
+        );
+    }
+
     @Test
     public void testServiceCommandB() {
 
@@ -140,6 +173,49 @@ public class TestServiceTest {
     }
 
 
+    @Test
+    public void testServiceCommandCached() {
+
+        String serviceChannel = "test::TestService";
+        TestService service = context.getBean(TestService.class);
+        int handled = service.getCachedCommandCount();
+
+        List<TestResponse> responses = new ArrayList<>();
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            TestServiceObjectRequest requestPayload = new TestServiceObjectRequest();
+            requestPayload.setRequestValue("My Cached Song");
+
+            TestRequest request = new TestRequest();
+            UUID id = UUID.randomUUID();
+            ids.add(id);
+            request.setId(id);
+            request.setRequest(TestCommand.COMMAND_CACHED);
+            request.setPayload(requestPayload);
+
+            bus.requestOnceWithId(
+                    id,
+                    serviceChannel,
+                    request,
+                    (Message msg) -> {
+                        responses.add((TestResponse) msg.getPayload());
+                    },
+                    (Message error) -> {
+                        Assert.fail();
+                    }
+            );
+        }
+
+        // the second request is answered from the cache, with its own id.
+        Assert.assertEquals(handled + 1, service.getCachedCommandCount());
+        Assert.assertEquals(2, responses.size());
+        Assert.assertEquals(ids.get(0), responses.get(0).getId());
+        Assert.assertEquals(ids.get(1), responses.get(1).getId());
+        Assert.assertNotSame(responses.get(0), responses.get(1));
+        Assert.assertEquals("CommandCached-My Cached Song",
+                ((TestServiceObjectResponse) responses.get(1).getPayload()).getResponseValue());
+    }
+
     @Test
     public void testErrorHandlingWithBadPayload() {
 
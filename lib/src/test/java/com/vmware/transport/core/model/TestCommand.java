@@ -9,6 +9,7 @@ public abstract class TestCommand {
     public static final String COMMAND_A = "CommandA";
     public static final String COMMAND_B = "CommandB";
     public static final String COMMAND_C = "CommandC";
+    public static final String COMMAND_CACHED = "CommandCached";
     public static final String COMMAND_OVERQUEUE = "CommandOverQueue";
     public static final String ERROR_RESPONSE_OVERQUEUE = "ErrorResponseOverQueue";
     public static final String GENERAL_ERROR_OVERQUEUE = "GeneralErrorOverQueue";
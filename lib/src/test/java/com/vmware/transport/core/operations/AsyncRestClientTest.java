@@ -0,0 +1,112 @@
+/*
+ * Copyright 2020 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ *
+ */
+package com.vmware.transport.core.operations;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+
+public class AsyncRestClientTest {
+
+    private static final String HOST = "http://localhost:9997";
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(wireMockConfig().port(9997));
+
+    private AsyncRestClient client;
+
+    @Before
+    public void before() {
+        client = new AsyncRestClient();
+        client.setThreads(2);
+        client.setMaxConcurrentRequestsPerHost(2);
+        client.setMaxQueuedRequestsPerHost(3);
+    }
+
+    @After
+    public void after() {
+        client.close();
+    }
+
+    @Test
+    public void testHostKey() {
+        Assert.assertEquals("https://host:443", AsyncRestClient.getHostKey(URI.create("https://host/path")));
+        Assert.assertEquals("http://host:80", AsyncRestClient.getHostKey(URI.create("http://host/path")));
+        Assert.assertEquals("http://host:8080", AsyncRestClient.getHostKey(URI.create("http://host:8080")));
+    }
+
+    @Test
+    public void testSend() throws Exception {
+        stubFor(post(urlEqualTo("/async"))
+                .withRequestBody(equalTo("ping"))
+                .willReturn(aResponse().withStatus(200).withBody("pong")));
+
+        HttpRequest request = client.newRequest(URI.create(HOST + "/async"))
+                .POST(HttpRequest.BodyPublishers.ofString("ping"))
+                .build();
+        HttpResponse<byte[]> response = client.send(request).get(5, TimeUnit.SECONDS);
+        Assert.assertEquals(200, response.statusCode());
+        Assert.assertEquals("pong", new String(response.body()));
+        Assert.assertEquals(0, client.getInFlightRequests(HOST));
+    }
+
+    @Test
+    public void testRequestsLimitedPerHost() throws Exception {
+        stubFor(get(urlEqualTo("/slow"))
+                .willReturn(aResponse().withStatus(200).withFixedDelay(500).withBody("slow")));
+
+        HttpRequest request = client.newRequest(URI.create(HOST + "/slow")).GET().build();
+        List<CompletableFuture<HttpResponse<byte[]>>> responses = new ArrayList<>();
+        for (int x = 0; x < 6; x++) {
+            responses.add(client.send(request));
+        }
+
+        Assert.assertEquals(2, client.getInFlightRequests(HOST));
+        Assert.assertEquals(3, client.getQueuedRequests(HOST));
+
+        // the last request is over the queue limit.
+        try {
+            responses.get(5).get(1, TimeUnit.SECONDS);
+            Assert.fail();
+        } catch (ExecutionException ex) {
+            Assert.assertTrue(ex.getCause() instanceof RejectedExecutionException);
+        }
+
+        for (int x = 0; x < 5; x++) {
+            Assert.assertEquals("slow", new String(responses.get(x).get(5, TimeUnit.SECONDS).body()));
+        }
+        Assert.assertEquals(0, client.getInFlightRequests(HOST));
+        Assert.assertEquals(0, client.getQueuedRequests(HOST));
+        verify(5, getRequestedFor(urlEqualTo("/slow")));
+    }
+
+    @Test
+    public void testConnectionFailure() throws Exception {
+        HttpRequest request = client.newRequest(URI.create("http://localhost:1/nothing")).GET().build();
+        try {
+            client.send(request).get(5, TimeUnit.SECONDS);
+            Assert.fail();
+        } catch (ExecutionException ex) {
+            Assert.assertEquals(0, client.getInFlightRequests("http://localhost:1"));
+        }
+    }
+}
@@ -41,6 +41,11 @@ public class MockRestController {
         return "FooBarSimplest";
     }
 
+    @GetMapping(value = "/foo/literal")
+    public String literalGetPath() {
+        return "FooBarLiteral";
+    }
+
 
     @RequestMapping(value = "/multi", method = GET)
     @ResponseBody
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2020 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ *
+ */
+package com.vmware.transport.core.operations;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.client.RestTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+public class ResponseTypeResolverTest {
+
+    private final ResponseTypeResolver resolver = new ResponseTypeResolver(Jackson2ObjectMapperBuilder.json().build());
+
+    @Test
+    public void testResolvedOnce() throws Exception {
+        ResponseTypeResolver.ResponseType responseType = resolver.resolve(SampleDTO.class.getName());
+        Assert.assertSame(responseType, resolver.resolve(SampleDTO.class.getName()));
+        Assert.assertNotSame(responseType, resolver.resolve(MockResponseB.class.getName()));
+
+        try {
+            resolver.resolve("com.fake.ClassDoesNotExist");
+            Assert.fail();
+        } catch (ClassNotFoundException ex) {
+            // expected.
+        }
+    }
+
+    @Test
+    public void testRead() throws Exception {
+        UUID id = UUID.randomUUID();
+        MockResponseB response = (MockResponseB) resolver.resolve(MockResponseB.class.getName()).read(
+                ("{\"id\":\"" + id + "\",\"value\":\"Pizza\",\"unknown\":1}").getBytes(), MediaType.APPLICATION_JSON);
+        Assert.assertEquals(id, response.getId());
+        Assert.assertEquals("Pizza", response.getValue());
+
+        ResponseTypeResolver.ResponseType string = resolver.resolve(String.class.getName());
+        byte[] body = "café".getBytes(StandardCharsets.UTF_8);
+        Assert.assertEquals("café", string.read(body, MediaType.APPLICATION_JSON));
+        Assert.assertEquals("café", string.read(body, MediaType.parseMediaType("text/plain;charset=UTF-8")));
+        Assert.assertEquals(new String(body, StandardCharsets.ISO_8859_1), string.read(body, MediaType.TEXT_PLAIN));
+
+        Assert.assertSame(body, resolver.resolve("[B").read(body, null));
+        Assert.assertNull(resolver.resolve(SampleDTO.class.getName()).read(new byte[0], null));
+    }
+
+    @Test
+    public void testAcceptTypes() throws Exception {
+        RestTemplate restTemplate = new RestTemplate();
+        List<MediaType> accept = resolver.resolve(SampleDTO.class.getName())
+                .getAcceptTypes(restTemplate.getMessageConverters());
+        Assert.assertTrue(accept.contains(MediaType.APPLICATION_JSON));
+        Assert.assertFalse(accept.contains(MediaType.APPLICATION_OCTET_STREAM));
+        Assert.assertSame(accept, resolver.resolve(SampleDTO.class.getName())
+                .getAcceptTypes(restTemplate.getMessageConverters()));
+
+        accept = resolver.resolve(String.class.getName()).getAcceptTypes(restTemplate.getMessageConverters());
+        Assert.assertTrue(accept.containsAll(Arrays.asList(MediaType.TEXT_PLAIN, MediaType.ALL)));
+    }
+}
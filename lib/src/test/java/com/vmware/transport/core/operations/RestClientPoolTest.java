@@ -0,0 +1,108 @@
+/*
+ * Copyright 2020 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ *
+ */
+package com.vmware.transport.core.operations;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import org.apache.http.pool.PoolStats;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.Map;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+
+public class RestClientPoolTest {
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(wireMockConfig().port(9998));
+
+    private RestClientPool pool;
+
+    @Before
+    public void before() {
+        pool = new RestClientPool();
+        pool.setMaxConnections(10);
+        pool.setMaxConnectionsPerHost(2);
+        pool.setReadTimeout(500);
+    }
+
+    @After
+    public void after() {
+        pool.close();
+    }
+
+    @Test
+    public void testConnectionsReused() {
+        stubFor(get(urlEqualTo("/pooled"))
+                .willReturn(aResponse().withStatus(200).withBody("pooled")));
+
+        Assert.assertEquals(0, pool.getAvailableConnections());
+        Assert.assertEquals(10, pool.getMaxConnections());
+
+        RestTemplate template = pool.getRestTemplate();
+        Assert.assertSame(template, pool.getRestTemplate());
+
+        for (int x = 0; x < 3; x++) {
+            Assert.assertEquals("pooled",
+                    template.getForObject("http://localhost:9998/pooled", String.class));
+        }
+
+        // the calls were sent one after the other over the same connection.
+        Assert.assertEquals(0, pool.getLeasedConnections());
+        Assert.assertEquals(1, pool.getAvailableConnections());
+        Assert.assertEquals(0, pool.getPendingRequests());
+
+        Map<String, PoolStats> hostStats = pool.getHostStats();
+        Assert.assertEquals(1, hostStats.size());
+        PoolStats stats = hostStats.get("http://localhost:9998");
+        Assert.assertNotNull(stats);
+        Assert.assertEquals(1, stats.getAvailable());
+        Assert.assertEquals(2, stats.getMax());
+    }
+
+    @Test
+    public void testReadTimeout() {
+        stubFor(get(urlEqualTo("/slow"))
+                .willReturn(aResponse().withStatus(200).withFixedDelay(2000).withBody("slow")));
+
+        try {
+            pool.getRestTemplate().getForObject("http://localhost:9998/slow", String.class);
+            Assert.fail();
+        } catch (ResourceAccessException ex) {
+            Assert.assertEquals(0, pool.getLeasedConnections());
+        }
+    }
+
+    @Test
+    public void testCookiesNotShared() {
+        stubFor(get(urlEqualTo("/login"))
+                .willReturn(aResponse().withStatus(200).withHeader("Set-Cookie", "SESSION=user1; Path=/")
+                        .withBody("logged in")));
+        stubFor(get(urlEqualTo("/other"))
+                .willReturn(aResponse().withStatus(200).withBody("other")));
+
+        RestTemplate template = pool.getRestTemplate();
+        template.getForObject("http://localhost:9998/login", String.class);
+        template.getForObject("http://localhost:9998/other", String.class);
+
+        verify(getRequestedFor(urlEqualTo("/other")).withHeader("Cookie", absent()));
+    }
+
+    @Test
+    public void testClose() {
+        RestTemplate template = pool.getRestTemplate();
+        pool.close();
+        Assert.assertEquals(0, pool.getAvailableConnections());
+        Assert.assertTrue(pool.getHostStats().isEmpty());
+        Assert.assertNotSame(template, pool.getRestTemplate());
+    }
+}
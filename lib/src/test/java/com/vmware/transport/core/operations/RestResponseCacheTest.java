@@ -0,0 +1,249 @@
+/*
+ * Copyright 2020 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ *
+ */
+package com.vmware.transport.core.operations;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.URI;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Collections;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+
+public class RestResponseCacheTest {
+
+    private static final URI URI_A = URI.create("http://localhost:9995/a");
+    private static final URI URI_B = URI.create("http://localhost:9995/b");
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(wireMockConfig().port(9995));
+
+    private RestResponseCache cache;
+    private RestClientPool pool;
+
+    @Before
+    public void before() {
+        cache = new RestResponseCache();
+        cache.setEnabled(true);
+        pool = new RestClientPool();
+        pool.setResponseCache(cache);
+    }
+
+    @After
+    public void after() {
+        pool.close();
+    }
+
+    @Test
+    public void testFreshness() {
+        setTime(0);
+        HttpHeaders request = new HttpHeaders();
+        String key = cache.getKey(URI_A, request);
+
+        Assert.assertNotNull(cache.store(key, false, request, responseHeaders("max-age=10"), "a".getBytes()));
+        RestResponseCache.Entry entry = cache.lookup(key, request);
+        Assert.assertTrue(cache.isFresh(entry, request));
+
+        HttpHeaders noCache = new HttpHeaders();
+        noCache.setCacheControl("no-cache");
+        Assert.assertFalse(cache.isFresh(entry, noCache));
+
+        setTime(10_001);
+        Assert.assertFalse(cache.isFresh(entry, request));
+
+        // age is deducted from max-age, s-maxage takes precedence.
+        HttpHeaders aged = responseHeaders("max-age=10, s-maxage=60");
+        aged.set("Age", "55");
+        entry = cache.store(key, false, request, aged, "a".getBytes());
+        Assert.assertTrue(cache.isFresh(entry, request));
+        setTime(16_000);
+        Assert.assertFalse(cache.isFresh(entry, request));
+    }
+
+    @Test
+    public void testNotStored() {
+        HttpHeaders request = new HttpHeaders();
+        String key = cache.getKey(URI_A, request);
+
+        Assert.assertNull(cache.store(key, false, request, responseHeaders("no-store"), "a".getBytes()));
+        Assert.assertNull(cache.store(key, false, request, responseHeaders("private, max-age=10"), "a".getBytes()));
+        Assert.assertNull(cache.store(key, false, request, new HttpHeaders(), "a".getBytes()));
+
+        HttpHeaders varyAll = responseHeaders("max-age=10");
+        varyAll.setVary(Collections.singletonList("*"));
+        Assert.assertNull(cache.store(key, false, request, varyAll, "a".getBytes()));
+
+        HttpHeaders noStore = new HttpHeaders();
+        noStore.setCacheControl("no-store");
+        Assert.assertNull(cache.getKey(URI_A, noStore));
+
+        cache.setEnabled(false);
+        Assert.assertNull(cache.getKey(URI_A, request));
+        Assert.assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    public void testCredentialsScopeKey() {
+        HttpHeaders shared = new HttpHeaders();
+        HttpHeaders userA = new HttpHeaders();
+        userA.setBearerAuth("token-a");
+        HttpHeaders userB = new HttpHeaders();
+        userB.setBearerAuth("token-b");
+
+        String sharedKey = cache.getKey(URI_A, shared);
+        String keyA = cache.getKey(URI_A, userA);
+        String keyB = cache.getKey(URI_A, userB);
+        Assert.assertNotEquals(sharedKey, keyA);
+        Assert.assertNotEquals(keyA, keyB);
+        Assert.assertFalse(keyA.contains("token-a"));
+
+        // private responses are only stored for the credentials they were sent to.
+        Assert.assertNotNull(cache.store(keyA, true, userA, responseHeaders("private, max-age=10"), "a".getBytes()));
+        Assert.assertNotNull(cache.lookup(keyA, userA));
+        Assert.assertNull(cache.lookup(keyB, userB));
+        Assert.assertNull(cache.lookup(sharedKey, shared));
+    }
+
+    @Test
+    public void testScopeHeaders() {
+        HttpHeaders shared = new HttpHeaders();
+        HttpHeaders apiKey = new HttpHeaders();
+        apiKey.set("X-Api-Key", "key-a");
+        HttpHeaders tenant = new HttpHeaders();
+        tenant.set("X-Tenant-Token", "tenant-a");
+
+        Assert.assertFalse(cache.isScoped(shared));
+        Assert.assertTrue(cache.isScoped(apiKey));
+        Assert.assertNotEquals(cache.getKey(URI_A, shared), cache.getKey(URI_A, apiKey));
+        Assert.assertFalse(cache.isScoped(tenant));
+        Assert.assertEquals(cache.getKey(URI_A, shared), cache.getKey(URI_A, tenant));
+
+        cache.setScopeHeaders("X-Tenant-Token");
+        Assert.assertTrue(cache.isScoped(tenant));
+        Assert.assertNotEquals(cache.getKey(URI_A, shared), cache.getKey(URI_A, tenant));
+        Assert.assertFalse(cache.isScoped(apiKey));
+    }
+
+    @Test
+    public void testForgedScope() {
+        HttpHeaders user = new HttpHeaders();
+        user.setBearerAuth("token-a");
+        HttpHeaders forged = new HttpHeaders();
+        forged.set(HttpHeaders.ACCEPT, "application/json scope=abc");
+
+        // the Accept value cannot make a shared key look scoped.
+        String key = cache.getKey(URI_A, forged);
+        Assert.assertNull(cache.store(key, cache.isScoped(forged), forged,
+                responseHeaders("private, max-age=10"), "a".getBytes()));
+        Assert.assertNotNull(cache.store(cache.getKey(URI_A, user), cache.isScoped(user), user,
+                responseHeaders("private, max-age=10"), "a".getBytes()));
+        Assert.assertNull(cache.lookup(key, forged));
+    }
+
+    @Test
+    public void testVary() {
+        HttpHeaders english = new HttpHeaders();
+        english.set(HttpHeaders.ACCEPT_LANGUAGE, "en");
+        HttpHeaders french = new HttpHeaders();
+        french.set(HttpHeaders.ACCEPT_LANGUAGE, "fr");
+
+        HttpHeaders response = responseHeaders("max-age=10");
+        response.setVary(Collections.singletonList(HttpHeaders.ACCEPT_LANGUAGE));
+        String key = cache.getKey(URI_A, english);
+        cache.store(key, false, english, response, "hello".getBytes());
+
+        Assert.assertNotNull(cache.lookup(key, english));
+        Assert.assertNull(cache.lookup(cache.getKey(URI_A, french), french));
+    }
+
+    @Test
+    public void testMemoryBounds() {
+        HttpHeaders request = new HttpHeaders();
+        cache.setMaxEntryBytes(1000);
+        cache.setMaxTotalBytes(1500);
+
+        Assert.assertNull(cache.store(cache.getKey(URI_A, request), false, request, responseHeaders("max-age=10"),
+                new byte[2000]));
+
+        String keyA = cache.getKey(URI_A, request);
+        String keyB = cache.getKey(URI_B, request);
+        cache.store(keyA, false, request, responseHeaders("max-age=10"), new byte[600]);
+        Assert.assertEquals(1, cache.getSize());
+        Assert.assertTrue(cache.getTotalBytes() > 600);
+
+        // the least recently used entry is evicted.
+        cache.store(keyB, false, request, responseHeaders("max-age=10"), new byte[600]);
+        Assert.assertEquals(1, cache.getSize());
+        Assert.assertNull(cache.lookup(keyA, request));
+        Assert.assertNotNull(cache.lookup(keyB, request));
+        Assert.assertTrue(cache.getTotalBytes() <= 1500);
+
+        cache.clear();
+        Assert.assertEquals(0, cache.getTotalBytes());
+    }
+
+    @Test
+    public void testFreshResponseServedFromCache() {
+        stubFor(get(urlEqualTo("/a"))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Cache-Control", "max-age=60")
+                        .withBody("cached")));
+
+        RestTemplate template = pool.getRestTemplate();
+        Assert.assertEquals("cached", template.getForObject(URI_A, String.class));
+        Assert.assertEquals("cached", template.getForObject(URI_A, String.class));
+        Assert.assertEquals("cached", template.getForObject(URI_A, String.class));
+
+        verify(1, getRequestedFor(urlEqualTo("/a")));
+        Assert.assertEquals(2, cache.getHits());
+        Assert.assertEquals(1, cache.getMisses());
+        Assert.assertEquals(2.0 / 3, cache.getHitRatio(), 0.001);
+    }
+
+    @Test
+    public void testStaleResponseRevalidated() {
+        stubFor(get(urlEqualTo("/b"))
+                .withHeader("If-None-Match", absent())
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Cache-Control", "no-cache")
+                        .withHeader("ETag", "\"v1\"")
+                        .withBody("revalidated")));
+        stubFor(get(urlEqualTo("/b"))
+                .withHeader("If-None-Match", equalTo("\"v1\""))
+                .willReturn(aResponse().withStatus(304).withHeader("ETag", "\"v1\"")));
+
+        RestTemplate template = pool.getRestTemplate();
+        Assert.assertEquals("revalidated", template.getForObject(URI_B, String.class));
+        Assert.assertEquals("revalidated", template.getForObject(URI_B, String.class));
+
+        verify(2, getRequestedFor(urlEqualTo("/b")));
+        verify(1, getRequestedFor(urlEqualTo("/b")).withHeader("If-None-Match", equalTo("\"v1\"")));
+        Assert.assertEquals(1, cache.getHits());
+        Assert.assertEquals(1, cache.getRevalidations());
+    }
+
+    private HttpHeaders responseHeaders(String cacheControl) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setCacheControl(cacheControl);
+        return headers;
+    }
+
+    private void setTime(long millis) {
+        cache.setClock(Clock.fixed(Instant.ofEpochMilli(millis), ZoneOffset.UTC));
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2020 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ *
+ */
+package com.vmware.transport.core.operations;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.google.gson.JsonParser;
+import com.vmware.transport.bridge.Response;
+import com.vmware.transport.bus.EventBusImpl;
+import com.vmware.transport.bus.store.StoreManager;
+import com.vmware.transport.core.error.RestError;
+import com.vmware.transport.core.model.RestOperation;
+import com.vmware.transport.core.util.RestControllerInvoker;
+import com.vmware.transport.core.util.RestControllerReflection;
+import com.vmware.transport.core.util.URIMatcher;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.http.HttpMethod;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.net.URI;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+
+@RunWith(SpringRunner.class)
+@ContextConfiguration(classes = {
+        SecurityConfiguration.class,
+        RestService.class,
+        RestClientPool.class,
+        AsyncRestClient.class,
+        RestResponseCache.class,
+        MockRestController.class,
+        RestControllerInvoker.class,
+        DefaultParameterNameDiscoverer.class,
+        RestControllerReflection.class,
+        URIMatcher.class,
+        EventBusImpl.class,
+        StoreManager.class
+})
+@TestPropertySource(properties = {
+        "transport.rest.client.async.enabled=true",
+        "transport.rest.cache.enabled=true"
+})
+public class RestServiceAsyncTest {
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(wireMockConfig().port(9996));
+
+    @Autowired
+    private RestService restService;
+
+    @Autowired
+    private RestResponseCache responseCache;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void testAsyncGet() throws Exception {
+        MockResponseB mock = new MockResponseB();
+        mock.setId(UUID.randomUUID());
+        mock.setValue("Pizza");
+
+        stubFor(get(urlEqualTo("/async-get"))
+                .withHeader("Content-Type", equalTo(APPLICATION_JSON_VALUE))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", APPLICATION_JSON_VALUE)
+                        .withBody(objectMapper.writeValueAsString(mock))));
+
+        RestOperation<Object, MockResponseB> operation = createOperation("/async-get", HttpMethod.GET,
+                MockResponseB.class);
+        CompletableFuture<MockResponseB> result = new CompletableFuture<>();
+        Thread caller = Thread.currentThread();
+        operation.setSuccessHandler(response -> {
+            if (Thread.currentThread() == caller) {
+                result.completeExceptionally(new AssertionError("handler called on the calling thread"));
+            }
+            result.complete(response);
+        });
+        operation.setErrorHandler(error -> result.completeExceptionally(new AssertionError(error.message)));
+
+        restService.restServiceRequest(operation);
+
+        MockResponseB response = result.get(5, TimeUnit.SECONDS);
+        Assert.assertEquals(mock.getId(), response.getId());
+        Assert.assertEquals("Pizza", response.getValue());
+    }
+
+    @Test
+    public void testAsyncPost() throws Exception {
+        stubFor(post(urlEqualTo("/async-post"))
+                .withRequestBody(equalToJson("{\"name\":\"Melody\",\"value\":3}"))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withBody("posted")));
+
+        SampleDTO dto = new SampleDTO();
+        dto.setName("Melody");
+        dto.setValue(3);
+
+        RestOperation<Object, String> operation = createOperation("/async-post", HttpMethod.POST, String.class);
+        operation.setBody(dto);
+        CompletableFuture<String> result = new CompletableFuture<>();
+        operation.setSuccessHandler(result::complete);
+        operation.setErrorHandler(error -> result.completeExceptionally(new AssertionError(error.message)));
+
+        restService.restServiceRequest(operation);
+        Assert.assertEquals("posted", result.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testAsyncErrorResponse() throws Exception {
+        Response errorResponse = new Response(UUID.randomUUID(), null);
+        errorResponse.setError(true);
+        errorResponse.setErrorCode(418);
+        errorResponse.setErrorMessage("teapot");
+
+        stubFor(get(urlEqualTo("/async-error"))
+                .willReturn(aResponse()
+                        .withStatus(500)
+                        .withHeader("Content-Type", APPLICATION_JSON_VALUE)
+                        .withBody(objectMapper.writeValueAsString(errorResponse))));
+
+        RestOperation<Object, String> operation = createOperation("/async-error", HttpMethod.GET, String.class);
+        CompletableFuture<RestError> result = new CompletableFuture<>();
+        operation.setSuccessHandler(response -> result.completeExceptionally(new AssertionError(response)));
+        operation.setErrorHandler(result::complete);
+
+        restService.restServiceRequest(operation);
+
+        RestError error = result.get(5, TimeUnit.SECONDS);
+        Assert.assertEquals(418, error.errorCode.intValue());
+        Assert.assertEquals("REST Client Error, unable to complete request: teapot", error.message);
+    }
+
+    @Test
+    public void testAsyncHandlerException() throws Exception {
+        stubFor(get(urlEqualTo("/async-text"))
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Content-Type", "text/plain")
+                        .withBody("not json")));
+
+        RestOperation<Object, String> operation = createOperation("/async-text", HttpMethod.GET, String.class);
+        CompletableFuture<RestError> result = new CompletableFuture<>();
+        operation.setSuccessHandler(response -> new JsonParser().parse(response));
+        operation.setErrorHandler(result::complete);
+
+        restService.restServiceRequest(operation);
+
+        RestError error = result.get(5, TimeUnit.SECONDS);
+        Assert.assertEquals(500, error.errorCode.intValue());
+        Assert.assertEquals("REST Client Error, unable to complete request: http://localhost:9996/async-text",
+                error.message);
+    }
+
+    @Test
+    public void testAsyncCachedGet() throws Exception {
+        stubFor(get(urlEqualTo("/async-cached"))
+                .withHeader("If-None-Match", absent())
+                .willReturn(aResponse()
+                        .withStatus(200)
+                        .withHeader("Cache-Control", "max-age=0")
+                        .withHeader("ETag", "\"v1\"")
+                        .withBody("cached")));
+        stubFor(get(urlEqualTo("/async-cached"))
+                .withHeader("If-None-Match", equalTo("\"v1\""))
+                .willReturn(aResponse()
+                        .withStatus(304)
+                        .withHeader("Cache-Control", "max-age=60")));
+
+        long hits = responseCache.getHits();
+        for (int x = 0; x < 3; x++) {
+            RestOperation<Object, String> operation = createOperation("/async-cached", HttpMethod.GET,
+                    String.class);
+            CompletableFuture<String> result = new CompletableFuture<>();
+            operation.setSuccessHandler(result::complete);
+            operation.setErrorHandler(error -> result.completeExceptionally(new AssertionError(error.message)));
+            restService.restServiceRequest(operation);
+            Assert.assertEquals("cached", result.get(5, TimeUnit.SECONDS));
+        }
+
+        // the second request is revalidated, the third one is fresh after the revalidation.
+        verify(2, getRequestedFor(urlEqualTo("/async-cached")));
+        Assert.assertEquals(hits + 2, responseCache.getHits());
+    }
+
+    @Test
+    public void testAsyncUnknownApiClass() throws Exception {
+        RestOperation<Object, Object> operation = new RestOperation<>();
+        operation.setApiClass("not.a.Class");
+        operation.setUri(new URI("http://localhost:9996/async-get"));
+        operation.setMethod(HttpMethod.GET);
+        CompletableFuture<RestError> result = new CompletableFuture<>();
+        operation.setSuccessHandler(response -> result.completeExceptionally(new AssertionError(response)));
+        operation.setErrorHandler(result::complete);
+
+        restService.restServiceRequest(operation);
+
+        RestError error = result.get(5, TimeUnit.SECONDS);
+        Assert.assertEquals(500, error.errorCode.intValue());
+        Assert.assertTrue(error.message.startsWith("Class Not Found Exception"));
+    }
+
+    private <T> RestOperation<Object, T> createOperation(String path, HttpMethod method, Class<T> apiClass)
+            throws Exception {
+        RestOperation<Object, T> operation = new RestOperation<>();
+        operation.setApiClass(apiClass.getName());
+        operation.setUri(new URI("http://localhost:9996" + path));
+        operation.setMethod(method);
+        return operation;
+    }
+}
@@ -44,6 +44,7 @@ import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.stereotype.Component;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.web.client.RestTemplate;
 
@@ -87,6 +88,8 @@ class FakeRestUser extends AbstractBase {
 @ContextConfiguration(classes = {
       SecurityConfiguration.class,
       RestService.class,
+      RestClientPool.class,
+      AsyncRestClient.class,
       MockRestController.class,
       RestControllerInvoker.class,
       DefaultParameterNameDiscoverer.class,
@@ -97,6 +100,8 @@ class FakeRestUser extends AbstractBase {
       StoreManager.class
 })
 @RestClientTest(RestService.class)
+// the mock server is restarted for every test, the pooled connections must be checked before reuse.
+@TestPropertySource(properties = "transport.rest.client.validateAfterInactivity=1")
 public class RestServiceTest {
 
     @Autowired
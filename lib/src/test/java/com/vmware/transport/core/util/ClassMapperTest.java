@@ -5,6 +5,7 @@
  */
 package com.vmware.transport.core.util;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.vmware.transport.bridge.Request;
 import com.vmware.transport.bus.model.MessageHeaders;
 import org.junit.Assert;
@@ -41,6 +42,38 @@ public class ClassMapperTest {
 
     }
 
+    @Test
+    public void testCastRawPayload() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        Request req = mapper.readValue(
+              "{\"request\":\"test\",\"payload\":{\"key\":\"value\",\"count\":2}}", Request.class);
+        Assert.assertNotNull(req.getRawPayload());
+
+        TestPayload payload = ClassMapper.CastPayload(TestPayload.class, req);
+        Assert.assertEquals("value", payload.key);
+        Assert.assertEquals(2, payload.count);
+
+        // the payload can still be read as a map, and serialized again.
+        Map<String, Object> map = (Map<String, Object>) req.getPayload();
+        Assert.assertEquals("value", map.get("key"));
+        Assert.assertTrue(mapper.writeValueAsString(req).contains("\"payload\":{\"key\":\"value\",\"count\":2}"));
+
+        req.setPayload("my payload");
+        Assert.assertNull(req.getRawPayload());
+        Assert.assertEquals("my payload", ClassMapper.CastPayload(String.class, req));
+    }
+
+    @Test
+    public void testCastRawPayloadError() throws Exception {
+        Request req = new ObjectMapper().readValue("{\"payload\":\"my payload\"}", Request.class);
+        try {
+            ClassMapper.CastPayload(Integer.class, req);
+            Assert.fail();
+        } catch (IllegalArgumentException exp) {
+            Assert.assertTrue(exp.getMessage().contains("not a valid Integer value"));
+        }
+    }
+
     @Test
     public void testCastMessageHeaders() {
         Map<String, String> map = new LinkedHashMap<>();
@@ -50,4 +83,9 @@ public class ClassMapperTest {
         Assert.assertEquals("header-value", messageHeaders.getHeader("header-key"));
         Assert.assertNull(ClassMapper.CastMessageHeaders(null));
     }
+
+    public static class TestPayload {
+        public String key;
+        public int count;
+    }
 }
@@ -23,6 +23,9 @@ import org.springframework.web.bind.annotation.RequestMethod;
 
 import java.lang.reflect.Parameter;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -331,4 +334,80 @@ public class RestControllerInvokerTest {
 
 
 
+    @Test
+    public void testInvokeMissingRequiredHeader() throws Exception {
+
+        URI uri = new URI("/header-check-multi");
+
+        URIMethodResult result = uriMatcher.findControllerMatch(uri, RequestMethod.GET);
+
+        RestOperation<Object, String> operation = new RestOperation<>();
+        operation.setApiClass(String.class.getName());
+        operation.setUri(uri);
+        operation.setMethod(HttpMethod.GET);
+        operation.setHeaders(Collections.singletonMap("Some-Header", "value"));
+        operation.setSuccessHandler(
+                (String response) -> Assert.fail()
+        );
+        List<RestError> errors = new ArrayList<>();
+        operation.setErrorHandler(errors::add);
+
+        invoker.invokeMethod(result, operation);
+        Assert.assertEquals(1, errors.size());
+        Assert.assertEquals("Method requires headers parameters, however no header with key "
+                + "'Another-Header' was found", errors.get(0).message);
+    }
+
+    @Test
+    public void testInvokeMissingRequiredQuery() throws Exception {
+
+        URI uri = new URI("/foo/someValue/bar/123?anotherQuery=goodbye");
+
+        URIMethodResult result = uriMatcher.findControllerMatch(uri, RequestMethod.GET);
+
+        RestOperation<Object, String> operation = new RestOperation<>();
+        operation.setApiClass(String.class.getName());
+        operation.setUri(uri);
+        operation.setMethod(HttpMethod.GET);
+        operation.setSuccessHandler(
+                (String response) -> Assert.fail()
+        );
+        List<RestError> errors = new ArrayList<>();
+        operation.setErrorHandler(errors::add);
+
+        invoker.invokeMethod(result, operation);
+        Assert.assertEquals(1, errors.size());
+        Assert.assertEquals(Integer.valueOf(500), errors.get(0).errorCode);
+        Assert.assertTrue(errors.get(0).message.startsWith("Method requires request param 'someQuery'"));
+    }
+
+    @Test
+    public void testInvokeWithMismatchedBody() throws Exception {
+
+        URI uri = new URI("/multi");
+
+        URIMethodResult result = uriMatcher.findControllerMatch(uri, RequestMethod.POST);
+
+        RestOperation<Object, String> operation = new RestOperation<>();
+        operation.setApiClass(String.class.getName());
+        operation.setUri(uri);
+        operation.setMethod(HttpMethod.POST);
+        operation.setBody(42);
+        operation.setSuccessHandler(
+                (String response) -> Assert.fail()
+        );
+        List<RestError> errors = new ArrayList<>();
+        operation.setErrorHandler(errors::add);
+        invoker.invokeMethod(result, operation);
+        Assert.assertEquals(1, errors.size());
+        Assert.assertEquals("Method cannot be called, method param types don't match", errors.get(0).message);
+
+        // the compiled invoker is reused for the next calls.
+        List<String> responses = new ArrayList<>();
+        operation.setBody("Ember");
+        operation.setSuccessHandler(responses::add);
+        invoker.invokeMethod(uriMatcher.findControllerMatch(uri, RequestMethod.POST), operation);
+        Assert.assertEquals(Collections.singletonList("multiMethodURIPost-Ember"), responses);
+    }
+
 }
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2020 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ *
+ */
+package com.vmware.transport.core.util;
+
+import com.vmware.transport.bus.EventBus;
+import com.vmware.transport.bus.EventBusImpl;
+import com.vmware.transport.bus.store.StoreManager;
+import com.vmware.transport.core.TestService;
+import com.vmware.transport.core.model.RestOperation;
+import com.vmware.transport.core.operations.AsyncRestClient;
+import com.vmware.transport.core.operations.MockRestController;
+import com.vmware.transport.core.operations.RestClientPool;
+import com.vmware.transport.core.operations.RestService;
+import com.vmware.transport.core.operations.SecurityConfiguration;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.http.HttpMethod;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.UUID;
+
+/**
+ * Runs the controller matching and the service initialization from the Transport index
+ * in src/test/resources/META-INF/transport.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK, properties = {
+        "transport.index.enabled=true"
+}, classes = {
+        SecurityConfiguration.class,
+        MockRestController.class,
+        DefaultParameterNameDiscoverer.class,
+        URIMatcher.class,
+        RestControllerReflection.class,
+        RestControllerInvoker.class,
+        RestTemplate.class,
+        RestService.class,
+        RestClientPool.class,
+        AsyncRestClient.class,
+        TestService.class,
+        EventBusImpl.class,
+        StoreManager.class
+})
+public class URIMatcherIndexTest {
+
+    @Autowired
+    private URIMatcher uriMatcher;
+
+    @Autowired
+    private RestControllerInvoker invoker;
+
+    @Autowired
+    private EventBus bus;
+
+    @Test
+    public void testIndexedServices() {
+        // the services of the main classes are listed in their own index, only assert on the test services.
+        Assert.assertTrue(bus.getApi().getChannelMap().containsKey("test::TestService"));
+    }
+
+    @Test
+    public void testIndexedURIMatch() throws Exception {
+        URIMethodResult result = uriMatcher.findControllerMatch(
+                new URI("/foo/puppy/bar/baby?someQuery=something"), RequestMethod.GET);
+        Assert.assertNotNull(result);
+        Assert.assertEquals("normalGetPath", result.getMethod().getName());
+        Assert.assertTrue(result.getController() instanceof MockRestController);
+        Assert.assertEquals(4, result.getPathItems().size());
+        Assert.assertEquals(4, result.getMethodArgs().size());
+        Assert.assertEquals(4, result.getMethodAnnotationTypes().size());
+        Assert.assertEquals(4, result.getMethodAnnotationValues().size());
+        Assert.assertEquals(PathVariable.class, result.getMethodAnnotationTypes().get("orgId"));
+        Assert.assertEquals("baby", result.getPathItemMap().get("orgId"));
+        Assert.assertEquals(1, result.getQueryString().size());
+
+        result = uriMatcher.findControllerMatch(new URI("/delete-mapping/" + UUID.randomUUID()),
+                RequestMethod.DELETE);
+        Assert.assertEquals("deleteMappingWithParams", result.getMethod().getName());
+        Assert.assertTrue(result.getPathItemMap().get("id") instanceof UUID);
+
+        Assert.assertNull(uriMatcher.findControllerMatch(new URI("/not-mapped"), RequestMethod.GET));
+    }
+
+    @Test
+    public void testIndexedRequestMethods() throws Exception {
+        URI uri = new URI("/multi");
+        Assert.assertEquals("multiMethodURIGET",
+                uriMatcher.findControllerMatch(uri, RequestMethod.GET).getMethod().getName());
+        Assert.assertEquals("multiMethodURIPost",
+                uriMatcher.findControllerMatch(uri, RequestMethod.POST).getMethod().getName());
+        Assert.assertEquals("multiMethodURIPatch",
+                uriMatcher.findControllerMatch(uri, RequestMethod.PATCH).getMethod().getName());
+        Assert.assertNull(uriMatcher.findControllerMatch(uri, RequestMethod.DELETE));
+        Assert.assertNull(uriMatcher.findControllerMatch(new URI("/get-mapping/123"), RequestMethod.POST));
+    }
+
+    @Test
+    public void testInvokeIndexedMethod() throws Exception {
+        URI uri = new URI("/header-check");
+        URIMethodResult result = uriMatcher.findControllerMatch(uri, RequestMethod.GET);
+        RequestHeader header = (RequestHeader) result.getMethodAnnotationValues().get("header");
+        Assert.assertEquals("Some-Header", header.value());
+
+        RestOperation<Object, String> operation = new RestOperation<>();
+        operation.setApiClass(String.class.getName());
+        operation.setUri(uri);
+        operation.setMethod(HttpMethod.GET);
+        operation.setHeaders(Collections.singletonMap("Some-Header", "value"));
+        operation.setSuccessHandler(
+                (String response) -> Assert.assertEquals("headerCheckSingle-value", response)
+        );
+        operation.setErrorHandler(
+                (error) -> Assert.fail()
+        );
+        invoker.invokeMethod(result, operation);
+    }
+}
@@ -19,6 +19,7 @@ import org.springframework.web.bind.annotation.RequestMethod;
 
 import java.net.URI;
 import java.util.Map;
+import java.util.UUID;
 
 @RunWith(SpringRunner.class)
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK, classes = {
@@ -70,6 +71,54 @@ public class URIMatcherTest {
     }
 
 
+    @Test
+    public void testLiteralPathTakesPrecedence() throws Exception {
+
+        URIMethodResult result = uriMatcher.findControllerMatch(new URI("/foo/literal"), RequestMethod.GET);
+        Assert.assertEquals("literalGetPath", result.getMethod().getName());
+        Assert.assertEquals(0, result.getPathItemMap().size());
+
+        result = uriMatcher.findControllerMatch(new URI("/foo/other"), RequestMethod.GET);
+        Assert.assertEquals("simpleGetPath", result.getMethod().getName());
+        Assert.assertEquals("other", result.getPathItemMap().get("baz"));
+
+        // the literal route does not hide the variable route for longer paths.
+        result = uriMatcher.findControllerMatch(new URI("/foo/literal/bar/baby"), RequestMethod.GET);
+        Assert.assertEquals("normalGetPath", result.getMethod().getName());
+        Assert.assertEquals("literal", result.getPathItemMap().get("baz"));
+    }
+
+    @Test
+    public void testRequestMethodMatch() throws Exception {
+
+        URI uri = new URI("/multi/");
+        Assert.assertEquals("multiMethodURIGET",
+                uriMatcher.findControllerMatch(uri, RequestMethod.GET).getMethod().getName());
+        Assert.assertEquals("multiMethodURIPost",
+                uriMatcher.findControllerMatch(uri, RequestMethod.POST).getMethod().getName());
+        Assert.assertEquals("multiMethodURIPatch",
+                uriMatcher.findControllerMatch(uri, RequestMethod.PATCH).getMethod().getName());
+        Assert.assertNull(uriMatcher.findControllerMatch(uri, RequestMethod.DELETE));
+
+        Assert.assertEquals("putMappingWithParams", uriMatcher.findControllerMatch(
+                new URI("/put-mapping/" + UUID.randomUUID()), RequestMethod.PUT).getMethod().getName());
+        Assert.assertNull(uriMatcher.findControllerMatch(new URI("/put-mapping/123"), RequestMethod.GET));
+        Assert.assertNull(uriMatcher.findControllerMatch(new URI("/missing"), RequestMethod.GET));
+        Assert.assertNull(uriMatcher.findControllerMatch(new URI("/"), RequestMethod.GET));
+    }
+
+    @Test
+    public void testRoutesCompiledAgainOnRefresh() throws Exception {
+
+        URIMethodResult result = uriMatcher.findControllerMatch(new URI("/foo"), RequestMethod.GET);
+        Assert.assertSame(result.getMethodArgs(),
+                uriMatcher.findControllerMatch(new URI("/foo"), RequestMethod.GET).getMethodArgs());
+
+        uriMatcher.handleContextRefreshed(null);
+        Assert.assertNotSame(result.getMethodArgs(),
+                uriMatcher.findControllerMatch(new URI("/foo"), RequestMethod.GET).getMethodArgs());
+    }
+
     @Test
     public void testCreatePathMap() throws Exception {
 
@@ -53,6 +53,10 @@ public class MessageOfTheDayService extends AbstractService<Request<MessageItem>
         item.from = "Admin";
 
         store.getBusStoreInitializer().add(MESSAGE_OF_THE_DAY, item).done();
+
+        // getMessage is read-mostly, serve it from the response cache until the store changes.
+        enableResponseCache("getMessage", 60000);
+        invalidateResponseCacheOnChange(store);
     }
 
     @Override
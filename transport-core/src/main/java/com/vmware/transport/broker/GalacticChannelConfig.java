@@ -0,0 +1,93 @@
+/*
+ * Copyright 2019-2020 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ *
+ */
+package com.vmware.transport.broker;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Base class for galactic channel configuration.
+ *
+ * Each concrete MessageBrokerConnector implementation should define its own
+ * GalacticChannelConfig class containing channel information specific to the
+ * MessageBroker, i.e. a RabbitMQ channel config will store different data
+ * than a Kafka channel config.
+ */
+public abstract class GalacticChannelConfig {
+
+   /**
+    * The id of the MessageBrokerConnector instance associated
+    * with this galactic channel.
+    */
+   @Getter
+   private final String messageBrokerId;
+
+   /**
+    * Maximum number of messages waiting to be send to the message broker.
+    * When set to 0 (the default) messages are send synchronously from the
+    * publishing thread. Otherwise messages are queued and send asynchronously
+    * in batches; messages published while the queue is full are dropped.
+    */
+   @Getter @Setter
+   private int outboundQueueSize = 0;
+
+   /**
+    * Maximum number of queued messages send to the message broker in a single batch.
+    */
+   @Getter @Setter
+   private int outboundBatchSize = 100;
+
+   /**
+    * How long (in milliseconds) to wait for more messages before sending
+    * a batch which is not full.
+    */
+   @Getter @Setter
+   private long outboundLingerMillis = 5;
+
+   /**
+    * Maximum number of messages received from the message broker which were not yet
+    * processed by the local listeners. When set to 0 (the default) messages are delivered
+    * to the local channel from the thread of the message broker. Otherwise messages are
+    * delivered from the galactic sender threads and the broker subscription is paused while
+    * all credits are in use. Messages received while twice the credits of messages are waiting,
+    * i.e. when the message broker cannot pause the subscription, are dropped and reported
+    * with a MonitorDropped event.
+    */
+   @Getter @Setter
+   private int inboundCredits = 0;
+
+   /**
+    * Directory of the durable outbox of the channel. When set, messages which cannot
+    * be sent to the message broker are stored in a memory-mapped log in this directory
+    * and replayed in order once the broker is reachable again.
+    */
+   @Getter @Setter
+   private String outboxDirectory;
+
+   /**
+    * Size of the outbox log segment files, in bytes.
+    */
+   @Getter @Setter
+   private int outboxSegmentSize = 4 * 1024 * 1024;
+
+   /**
+    * Maximum disk space used by the outbox, in bytes. Messages which do not fit
+    * are dropped.
+    */
+   @Getter @Setter
+   private long outboxMaxDiskSize = 64L * 1024 * 1024;
+
+   /**
+    * How long (in milliseconds) to wait before retrying to replay the outbox
+    * after a failed send.
+    */
+   @Getter @Setter
+   private long outboxRetryMillis = 1000;
+
+   public GalacticChannelConfig(String messageBrokerId) {
+      this.messageBrokerId = messageBrokerId;
+   }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2019-2020 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ *
+ */
+package com.vmware.transport.broker;
+
+import com.vmware.transport.bus.model.Message;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * MessageBrokerConnector interface allows extending the Transport EventBus by
+ * connecting to external MessageBrokers like RabbitMQ.
+ */
+public interface MessageBrokerConnector<T extends GalacticChannelConfig,
+      S extends MessageBrokerSubscription> {
+
+   /**
+    * Returns the unique id of the MessageBrokerConnector instance.
+    */
+   String getMessageBrokerId();
+
+   /**
+    * Start listening for incoming messages on external channel.
+    *
+    * @param channelConfig, the galactic channel configuration.
+    * @param handler, callback interface that handles incoming messages and errors.
+    * @return MessageBrokerSubscription which can be used to unsubscribe from the channel.
+    */
+   S subscribeToChannel(T channelConfig, GalacticMessageHandler handler);
+
+   /**
+    * Unsubscribe from external channel.
+    * @param subscription, MessageBrokerSubscription returned from the subscribeToChannel() API.
+    * @return true if the unsubscribe operation was successful.
+    */
+   boolean unsubscribeFromChannel(S subscription);
+
+   /**
+    * Stop delivering messages for a subscription until {@link #resumeSubscription} is called,
+    * i.e. by pausing the consumer or by no longer granting credits to the message broker.
+    * Used for galactic channels with flow control (see
+    * {@link GalacticChannelConfig#setInboundCredits(int)}).
+    * The method might be called from the thread delivering a message, so implementations
+    * should not hold locks while calling the {@link GalacticMessageHandler}.
+    * By default the subscription is not paused: the messages received while twice the inbound
+    * credits of messages are waiting for the local listeners are then dropped.
+    * @param subscription, MessageBrokerSubscription returned from the subscribeToChannel() API.
+    */
+   default void pauseSubscription(S subscription) {
+   }
+
+   /**
+    * Resume delivering messages for a subscription paused with {@link #pauseSubscription}.
+    * @param subscription, MessageBrokerSubscription returned from the subscribeToChannel() API.
+    */
+   default void resumeSubscription(S subscription) {
+   }
+
+   /**
+    * Send message to external channel.
+    * @param channelConfig, the galactic channel configuration.
+    * @param payload, the message to be send.
+    * @return true if the message was send successfully.
+    */
+   boolean sendMessage(T channelConfig, Object payload);
+
+   /**
+    * Send a bus message to external channel. Connectors can override this method
+    * and use {@link Message#getEncodedPayload} to reuse the cached encoded form of
+    * the payload instead of serializing it again.
+    * By default the payload is forwarded to {@link #sendMessage(GalacticChannelConfig, Object)}.
+    * @param channelConfig, the galactic channel configuration.
+    * @param message, the bus message to be send.
+    * @return true if the message was send successfully.
+    */
+   default boolean sendMessage(T channelConfig, Message message) {
+      return sendMessage(channelConfig, message.getPayload());
+   }
+
+   /**
+    * Asynchronously send a bus message to external channel. This method is used
+    * for galactic channels with an outbound queue (see
+    * {@link GalacticChannelConfig#setOutboundQueueSize(int)}).
+    * By default the message is send synchronously with {@link #sendMessage(GalacticChannelConfig, Message)}.
+    * @param channelConfig, the galactic channel configuration.
+    * @param message, the bus message to be send.
+    * @return future which completes with true if the message was send successfully.
+    */
+   default CompletableFuture<Boolean> sendMessageAsync(T channelConfig, Message message) {
+      CompletableFuture<Boolean> result = new CompletableFuture<>();
+      try {
+         result.complete(sendMessage(channelConfig, message));
+      } catch (Exception ex) {
+         result.completeExceptionally(ex);
+      }
+      return result;
+   }
+
+   /**
+    * Asynchronously send a batch of bus messages to external channel. Connectors
+    * which support batching (i.e. a single broker round-trip for many messages)
+    * should override this method.
+    * By default each message is send with {@link #sendMessageAsync(GalacticChannelConfig, Message)}.
+    * @param channelConfig, the galactic channel configuration.
+    * @param messages, the bus messages to be send, in publish order.
+    * @return future which completes with the send result of each message, in the same order.
+    */
+   default CompletableFuture<List<Boolean>> sendMessagesAsync(T channelConfig, List<Message> messages) {
+      List<CompletableFuture<Boolean>> futures = new ArrayList<>(messages.size());
+      for (Message message : messages) {
+         CompletableFuture<Boolean> future;
+         try {
+            future = sendMessageAsync(channelConfig, message);
+         } catch (Exception ex) {
+            future = CompletableFuture.completedFuture(false);
+         }
+         futures.add(future.exceptionally(ex -> false));
+      }
+      return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenApply(aVoid -> {
+         List<Boolean> results = new ArrayList<>(futures.size());
+         for (CompletableFuture<Boolean> future : futures) {
+            results.add(future.join());
+         }
+         return results;
+      });
+   }
+
+   /**
+    * Connects to the external message broker.
+    */
+   void connectMessageBroker();
+
+   /**
+    * Disconnects from the external message broker.
+    */
+   void disconnectMessageBroker();
+}
@@ -0,0 +1,27 @@
+/*
+ * Copyright 2020 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ *
+ */
+package com.vmware.transport.broker.loopback;
+
+import com.vmware.transport.broker.GalacticChannelConfig;
+import lombok.Getter;
+
+/**
+ * Galactic channel configuration for the {@link LoopbackMessageBrokerConnector}.
+ */
+public class LoopbackChannelConfig extends GalacticChannelConfig {
+
+   /**
+    * The name of the simulated broker topic. Messages sent to a topic are
+    * delivered to all subscriptions to the same topic.
+    */
+   @Getter
+   private final String topic;
+
+   public LoopbackChannelConfig(String messageBrokerId, String topic) {
+      super(messageBrokerId);
+      this.topic = topic;
+   }
+}
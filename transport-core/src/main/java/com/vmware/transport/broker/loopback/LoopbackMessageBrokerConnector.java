@@ -0,0 +1,326 @@
+/*
+ * Copyright 2020 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ *
+ */
+package com.vmware.transport.broker.loopback;
+
+import com.vmware.transport.broker.GalacticMessageHandler;
+import com.vmware.transport.broker.MessageBrokerConnector;
+import com.vmware.transport.bus.codec.PayloadCodec;
+import com.vmware.transport.bus.model.Message;
+import com.vmware.transport.core.util.Loggable;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * In-process MessageBrokerConnector which loops messages sent to a topic back to
+ * all subscriptions to the same topic through a simulated broker.
+ *
+ * The simulated broker can be configured to add delivery latency and jitter, to cap the
+ * number of messages it accepts per second and to fail sends, which makes it possible to
+ * measure and test galactic channels without a live message broker.
+ *
+ * By default messages are delivered synchronously and without copying the payload. When a
+ * {@link PayloadCodec} is configured, the payload is encoded on send and each subscription
+ * receives its own decoded copy, the same way it would with a real broker.
+ *
+ * Subscriptions can be paused and resumed; while paused, messages are kept in the
+ * backlog of the subscription.
+ */
+public class LoopbackMessageBrokerConnector extends Loggable
+      implements MessageBrokerConnector<LoopbackChannelConfig, LoopbackSubscription> {
+
+   private final String messageBrokerId;
+
+   private final Map<String, List<LoopbackSubscription>> subscriptions = new ConcurrentHashMap<>();
+
+   private final AtomicLong messagesSent = new AtomicLong();
+   private final AtomicLong messagesFailed = new AtomicLong();
+   private final AtomicLong messagesDelivered = new AtomicLong();
+   private final AtomicInteger failNextSends = new AtomicInteger();
+
+   private volatile boolean connected;
+   private volatile ScheduledExecutorService executor;
+   private volatile Random random = new Random();
+
+   private long nextSendSlot;
+
+   /**
+    * Fixed delay (in milliseconds) between a send and the delivery of the message.
+    */
+   @Getter @Setter
+   private volatile long latencyMillis;
+
+   /**
+    * Maximum random delay (in milliseconds) added to the latency of each message.
+    */
+   @Getter @Setter
+   private volatile long jitterMillis;
+
+   /**
+    * Maximum number of messages accepted per second, 0 disables the limit.
+    * Synchronous sends block until the broker accepts the message.
+    */
+   @Getter @Setter
+   private volatile int maxMessagesPerSecond;
+
+   /**
+    * Probability (between 0 and 1) that a send fails.
+    */
+   @Getter @Setter
+   private volatile double sendFailureRate;
+
+   /**
+    * Codec used to simulate the broker wire format, null delivers the original payload.
+    */
+   @Getter @Setter
+   private volatile PayloadCodec payloadCodec;
+
+   public LoopbackMessageBrokerConnector(String messageBrokerId) {
+      this.messageBrokerId = messageBrokerId;
+   }
+
+   @Override
+   public String getMessageBrokerId() {
+      return this.messageBrokerId;
+   }
+
+   @Override
+   public LoopbackSubscription subscribeToChannel(
+         LoopbackChannelConfig channelConfig, GalacticMessageHandler handler) {
+
+      LoopbackSubscription subscription = new LoopbackSubscription(channelConfig.getTopic(), handler);
+      subscriptions.computeIfAbsent(channelConfig.getTopic(), topic -> new CopyOnWriteArrayList<>())
+            .add(subscription);
+      return subscription;
+   }
+
+   @Override
+   public boolean unsubscribeFromChannel(LoopbackSubscription subscription) {
+      List<LoopbackSubscription> topicSubscriptions = subscriptions.get(subscription.getTopic());
+      return topicSubscriptions != null && topicSubscriptions.remove(subscription);
+   }
+
+   @Override
+   public void pauseSubscription(LoopbackSubscription subscription) {
+      subscription.pause();
+   }
+
+   @Override
+   public void resumeSubscription(LoopbackSubscription subscription) {
+      subscription.resume();
+   }
+
+   @Override
+   public boolean sendMessage(LoopbackChannelConfig channelConfig, Object payload) {
+      awaitSendSlot(reserveSendSlots(1));
+      return accept(channelConfig.getTopic(), payload, null);
+   }
+
+   @Override
+   public boolean sendMessage(LoopbackChannelConfig channelConfig, Message message) {
+      awaitSendSlot(reserveSendSlots(1));
+      return accept(channelConfig.getTopic(), message.getPayload(), message);
+   }
+
+   @Override
+   public CompletableFuture<Boolean> sendMessageAsync(LoopbackChannelConfig channelConfig, Message message) {
+      return sendMessagesAsync(channelConfig, List.of(message)).thenApply(results -> results.get(0));
+   }
+
+   @Override
+   public CompletableFuture<List<Boolean>> sendMessagesAsync(
+         LoopbackChannelConfig channelConfig, List<Message> messages) {
+
+      CompletableFuture<List<Boolean>> result = new CompletableFuture<>();
+      Runnable send = () -> {
+         List<Boolean> results = new ArrayList<>(messages.size());
+         for (Message message : messages) {
+            results.add(accept(channelConfig.getTopic(), message.getPayload(), message));
+         }
+         result.complete(results);
+      };
+
+      long delayNanos = reserveSendSlots(messages.size()) - System.nanoTime();
+      ScheduledExecutorService executor = this.executor;
+      if (delayNanos <= 0 || executor == null) {
+         send.run();
+      } else {
+         executor.schedule(send, delayNanos, TimeUnit.NANOSECONDS);
+      }
+      return result;
+   }
+
+   @Override
+   public synchronized void connectMessageBroker() {
+      if (executor == null) {
+         executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "transport-loopback-broker-" + messageBrokerId);
+            thread.setDaemon(true);
+            return thread;
+         });
+      }
+      connected = true;
+   }
+
+   @Override
+   public synchronized void disconnectMessageBroker() {
+      connected = false;
+      if (executor != null) {
+         executor.shutdownNow();
+         executor = null;
+      }
+   }
+
+   public boolean isConnected() {
+      return connected;
+   }
+
+   /**
+    * Make the next sends fail, regardless of the configured failure rate.
+    */
+   public void failNextSends(int count) {
+      failNextSends.set(count);
+   }
+
+   /**
+    * Deliver an error to all subscriptions to a topic.
+    */
+   public void injectError(String topic, Object error) {
+      for (LoopbackSubscription subscription : getSubscriptions(topic)) {
+         subscription.getHandler().onError(error);
+      }
+   }
+
+   /**
+    * Use a fixed seed for the random jitter and failures, to make runs reproducible.
+    */
+   public void setRandomSeed(long seed) {
+      this.random = new Random(seed);
+   }
+
+   /**
+    * Returns the active subscriptions to a topic.
+    */
+   public List<LoopbackSubscription> getSubscriptions(String topic) {
+      List<LoopbackSubscription> topicSubscriptions = subscriptions.get(topic);
+      return topicSubscriptions != null ? topicSubscriptions : List.of();
+   }
+
+   /**
+    * Returns the number of messages accepted by the simulated broker.
+    */
+   public long getMessagesSent() {
+      return messagesSent.get();
+   }
+
+   /**
+    * Returns the number of failed sends.
+    */
+   public long getMessagesFailed() {
+      return messagesFailed.get();
+   }
+
+   /**
+    * Returns the number of messages delivered to subscriptions (including the messages
+    * added to the backlog of paused subscriptions), a message delivered to two subscriptions
+    * is counted twice.
+    */
+   public long getMessagesDelivered() {
+      return messagesDelivered.get();
+   }
+
+   /**
+    * Reserve throughput for a number of messages and return the time (as
+    * {@link System#nanoTime()}) at which the broker accepts them.
+    */
+   private synchronized long reserveSendSlots(int count) {
+      long now = System.nanoTime();
+      int maxRate = maxMessagesPerSecond;
+      if (maxRate <= 0) {
+         return now;
+      }
+      long slot = Math.max(now, nextSendSlot);
+      nextSendSlot = slot + count * TimeUnit.SECONDS.toNanos(1) / maxRate;
+      return slot;
+   }
+
+   private void awaitSendSlot(long slot) {
+      long delayNanos;
+      while ((delayNanos = slot - System.nanoTime()) > 0) {
+         LockSupport.parkNanos(delayNanos);
+      }
+   }
+
+   private boolean accept(String topic, Object payload, Message message) {
+      if (!connected || shouldFail()) {
+         messagesFailed.incrementAndGet();
+         return false;
+      }
+
+      final Object wirePayload;
+      PayloadCodec codec = this.payloadCodec;
+      try {
+         wirePayload = codec == null ? payload :
+               (message != null ? message.getEncodedPayload(codec) : codec.encode(payload));
+      } catch (IOException ex) {
+         logErrorMessage("Cannot encode loopback message for topic " + topic, ex.getMessage());
+         messagesFailed.incrementAndGet();
+         return false;
+      }
+      messagesSent.incrementAndGet();
+
+      long delayMillis = latencyMillis;
+      long jitter = jitterMillis;
+      if (jitter > 0) {
+         delayMillis += (long) (random.nextDouble() * jitter);
+      }
+      ScheduledExecutorService executor = this.executor;
+      if (delayMillis <= 0 || executor == null) {
+         deliver(topic, wirePayload, codec);
+      } else {
+         executor.schedule(() -> deliver(topic, wirePayload, codec), delayMillis, TimeUnit.MILLISECONDS);
+      }
+      return true;
+   }
+
+   private boolean shouldFail() {
+      if (failNextSends.getAndUpdate(count -> count > 0 ? count - 1 : 0) > 0) {
+         return true;
+      }
+      double failureRate = sendFailureRate;
+      return failureRate > 0 && random.nextDouble() < failureRate;
+   }
+
+   private void deliver(String topic, Object wirePayload, PayloadCodec codec) {
+      for (LoopbackSubscription subscription : getSubscriptions(topic)) {
+         Object payload = wirePayload;
+         if (codec != null) {
+            try {
+               payload = codec.decode((byte[]) wirePayload, Object.class);
+            } catch (IOException ex) {
+               subscription.getHandler().onError(ex.getMessage());
+               continue;
+            }
+         }
+         subscription.deliver(payload);
+         messagesDelivered.incrementAndGet();
+      }
+   }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2020 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ *
+ */
+package com.vmware.transport.broker.loopback;
+
+import com.vmware.transport.broker.GalacticMessageHandler;
+import com.vmware.transport.broker.MessageBrokerSubscription;
+import lombok.Getter;
+
+import java.util.ArrayDeque;
+
+/**
+ * Subscription to a topic of the {@link LoopbackMessageBrokerConnector}.
+ *
+ * Messages delivered while the subscription is paused are kept in a backlog
+ * (the simulated broker queue) and delivered in order once it is resumed.
+ */
+public class LoopbackSubscription extends MessageBrokerSubscription {
+
+   @Getter
+   private final String topic;
+
+   @Getter
+   private final GalacticMessageHandler handler;
+
+   private final ArrayDeque<Object> backlog = new ArrayDeque<>();
+   private boolean paused;
+   private boolean draining;
+
+   LoopbackSubscription(String topic, GalacticMessageHandler handler) {
+      this.topic = topic;
+      this.handler = handler;
+   }
+
+   /**
+    * Returns the number of messages waiting in the simulated broker queue.
+    */
+   public synchronized int getBacklogSize() {
+      return backlog.size();
+   }
+
+   public synchronized boolean isPaused() {
+      return paused;
+   }
+
+   /**
+    * Deliver a message, or add it to the backlog if the subscription is paused.
+    * The handler is called without holding the lock of the subscription.
+    */
+   void deliver(Object payload) {
+      synchronized (this) {
+         if (paused || draining || !backlog.isEmpty()) {
+            backlog.add(payload);
+            return;
+         }
+      }
+      handler.onMessage(payload);
+   }
+
+   synchronized void pause() {
+      paused = true;
+   }
+
+   void resume() {
+      synchronized (this) {
+         paused = false;
+         if (draining) {
+            return;
+         }
+         draining = true;
+      }
+      while (true) {
+         Object payload;
+         synchronized (this) {
+            if (paused || backlog.isEmpty()) {
+               draining = false;
+               return;
+            }
+            payload = backlog.poll();
+         }
+         handler.onMessage(payload);
+      }
+   }
+}
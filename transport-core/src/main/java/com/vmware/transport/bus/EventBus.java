@@ -7,6 +7,8 @@ package com.vmware.transport.bus;
 
 import com.vmware.transport.broker.GalacticChannelConfig;
 import com.vmware.transport.broker.MessageBrokerConnector;
+import com.vmware.transport.bus.log.ChannelJournal;
+import com.vmware.transport.bus.log.ChannelJournalConfig;
 import com.vmware.transport.bus.model.Message;
 import com.vmware.transport.bus.model.MessageHeaders;
 import com.vmware.transport.bus.store.BusStoreApi;
@@ -801,6 +803,48 @@ public interface EventBus {
      */
     boolean isGalacticChannel(String channel);
 
+    /**
+     * Start journaling the response messages of a channel. Journaled messages get a monotonically
+     * increasing offset and can be replayed with {@link #listenStream(String, long, Consumer, Consumer)}.
+     *
+     * @param channel the channel to journal.
+     * @param config the journal configuration.
+     * @return false if the channel is already journaled or the journal cannot be opened.
+     */
+    boolean enableChannelJournal(String channel, ChannelJournalConfig config);
+
+    /**
+     * Stop journaling a channel. The journal files are kept on disk.
+     *
+     * @param channel the journaled channel.
+     * @return true if the channel was journaled.
+     */
+    boolean disableChannelJournal(String channel);
+
+    /**
+     * Return the journal of a channel.
+     *
+     * @param channel the channel name.
+     * @return the journal, or null if the channel is not journaled.
+     */
+    ChannelJournal getChannelJournal(String channel);
+
+    /**
+     * Listen for responses on a journaled channel, starting from a journal offset. The journaled
+     * messages are replayed (on the calling thread) before switching to live delivery. Each message
+     * carries its offset in the {@link MessageHeaders#JOURNAL_OFFSET} header.
+     *
+     * @param channel the journaled channel.
+     * @param fromOffset offset of the first message to replay.
+     * @param successHandler handler which will be invoked for response messages
+     * @param errorHandler handler which will be invoked in case of error messages
+     * @return the BusTransaction, or null if the channel is not journaled.
+     */
+    BusTransaction listenStream(String channel,
+                                long fromOffset,
+                                Consumer<Message> successHandler,
+                                Consumer<Message> errorHandler);
+
     /**
      * Return reference to the bus store manager.
      * @return reference to the store manager
@@ -201,4 +201,32 @@ public interface EventBusLowApi {
      * @param error the error to be send.
      */
     void error(String channel, Error error);
+
+    /**
+     * Start a background reaper which evicts idle channels. A channel is evicted when it has no
+     * references, no subscribers and hasn't been referenced or sent a message for longer than
+     * the idle timeout. Each run inspects at most batchSize channels, continuing where the
+     * previous run stopped, so the channel map is never locked for a full scan.
+     * Calling this method again replaces the current reaper settings.
+     *
+     * @param idleTimeoutMillis how long a channel must be idle before it's evicted.
+     * @param intervalMillis the delay between reaper runs.
+     * @param batchSize the maximum number of channels inspected per run.
+     */
+    void enableChannelReaper(long idleTimeoutMillis, long intervalMillis, int batchSize);
+
+    /**
+     * Stop the background channel reaper.
+     */
+    void disableChannelReaper();
+
+    /**
+     * Run a single incremental reaper pass, inspecting at most batchSize channels.
+     * Evictions are reported on the monitor stream as {@code MonitorEvictChannel} events.
+     *
+     * @param idleTimeoutMillis how long a channel must be idle before it's evicted.
+     * @param batchSize the maximum number of channels inspected.
+     * @return the number of evicted channels.
+     */
+    int evictIdleChannels(long idleTimeoutMillis, int batchSize);
 }
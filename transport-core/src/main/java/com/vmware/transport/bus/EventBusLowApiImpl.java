@@ -18,9 +18,15 @@ import com.vmware.transport.core.util.Loggable;
 import io.reactivex.Observable;
 import io.reactivex.subjects.Subject;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 @SuppressWarnings("unchecked")
 public class EventBusLowApiImpl extends Loggable implements EventBusLowApi {
@@ -35,6 +41,11 @@ public class EventBusLowApiImpl extends Loggable implements EventBusLowApi {
 
     private boolean dumpMonitor;
 
+    private final Object reaperLock = new Object();
+    private ScheduledExecutorService reaperExecutor;
+    private ScheduledFuture<?> reaperTask;
+    private Iterator<String> reaperCursor = Collections.emptyIterator();
+
     public EventBusLowApiImpl(Map<String, Channel> channelMap) {
         this.internalChannelMap = channelMap;
 
@@ -134,6 +145,7 @@ public class EventBusLowApiImpl extends Loggable implements EventBusLowApi {
         synchronized (this.internalChannelMap) {
             if (this.internalChannelMap.containsKey(cname)) {
                 channel = this.internalChannelMap.get(cname);
+                channel.touch();
             } else {
                 channel = new Channel(cname);
                 this.internalChannelMap.put(cname, channel);
@@ -291,6 +303,84 @@ public class EventBusLowApiImpl extends Loggable implements EventBusLowApi {
         channelObj.error(error);
     }
 
+    @Override
+    public void enableChannelReaper(long idleTimeoutMillis, long intervalMillis, int batchSize) {
+        if (idleTimeoutMillis <= 0 || intervalMillis <= 0 || batchSize <= 0) {
+            throw new IllegalArgumentException("Invalid channel reaper settings.");
+        }
+        synchronized (this.reaperLock) {
+            if (this.reaperTask != null) {
+                this.reaperTask.cancel(false);
+            }
+            if (this.reaperExecutor == null) {
+                this.reaperExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "transport-channel-reaper");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            this.reaperTask = this.reaperExecutor.scheduleWithFixedDelay(() -> {
+                try {
+                    this.evictIdleChannels(idleTimeoutMillis, batchSize);
+                } catch (Exception ex) {
+                    this.logErrorMessage("Channel reaper failed", String.valueOf(ex.getMessage()));
+                }
+            }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void disableChannelReaper() {
+        synchronized (this.reaperLock) {
+            if (this.reaperExecutor != null) {
+                this.reaperExecutor.shutdownNow();
+                this.reaperExecutor = null;
+                this.reaperTask = null;
+            }
+        }
+    }
+
+    @Override
+    public int evictIdleChannels(long idleTimeoutMillis, int batchSize) {
+        int evicted = 0;
+        synchronized (this.reaperLock) {
+            if (!this.reaperCursor.hasNext()) {
+                // Start a new cycle over a snapshot of the current channel names.
+                synchronized (this.internalChannelMap) {
+                    this.reaperCursor = new ArrayList<>(this.internalChannelMap.keySet()).iterator();
+                }
+            }
+            long now = System.currentTimeMillis();
+            for (int i = 0; i < batchSize && this.reaperCursor.hasNext(); i++) {
+                String cname = this.reaperCursor.next();
+                Channel channel;
+                synchronized (this.internalChannelMap) {
+                    channel = this.internalChannelMap.get(cname);
+                    if (channel == null || !isIdleChannel(channel, now, idleTimeoutMillis)) {
+                        continue;
+                    }
+                    this.internalChannelMap.remove(cname);
+                    this.channelAttributesMap.remove(cname);
+                }
+                channel.complete();
+                evicted++;
+
+                MonitorObject mo = new MonitorObject(MonitorType.MonitorEvictChannel, cname, getName(),
+                      "evicted [" + cname.trim() + "] after " + (now - channel.getLastActive()) + "ms idle");
+                this.monitorStream.send(new MessageObject<>(MessageType.MessageTypeResponse, mo));
+            }
+        }
+        return evicted;
+    }
+
+    private boolean isIdleChannel(Channel channel, long now, long idleTimeoutMillis) {
+        return channel != this.monitorStream &&
+              channel != this.extMsgBrStream &&
+              channel.getRefCount() == 0 &&
+              !channel.hasObservers() &&
+              now - channel.getLastActive() >= idleTimeoutMillis;
+    }
+
     private void destroy(Channel channel, String from, boolean removeFromMap) {
         MonitorObject mo = new MonitorObject(MonitorType.MonitorDestroyChannel, channel.getName(), from);
         this.monitorStream.send(new MessageObject(MessageType.MessageTypeResponse, mo));
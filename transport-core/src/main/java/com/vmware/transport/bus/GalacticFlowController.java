@@ -0,0 +1,181 @@
+/*
+ * Copyright 2020 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ *
+ */
+package com.vmware.transport.bus;
+
+import com.vmware.transport.broker.GalacticMessageHandler;
+import com.vmware.transport.broker.MessageBrokerConnector;
+import com.vmware.transport.broker.MessageBrokerSubscription;
+import com.vmware.transport.core.util.Loggable;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Credit based flow control between a message broker subscription and the local channel.
+ *
+ * Every message received from the message broker consumes a credit and is handed over to
+ * the executor, which delivers it to the local channel and grants the credit back once the
+ * local listeners processed it. When no credits are left the broker subscription is paused
+ * (see {@link MessageBrokerConnector#pauseSubscription}), and it is resumed once half of the
+ * credits are available again. This way a burst on the remote channel backs up in the
+ * message broker instead of in the local heap.
+ *
+ * The message broker is never called while holding the lock of this instance, since it may
+ * deliver messages from {@link MessageBrokerConnector#resumeSubscription}. Connectors which
+ * cannot pause a subscription (or keep delivering messages for a while once paused) are
+ * limited to twice the credits of pending messages: the messages received over this limit
+ * are dropped and passed to the drop handler.
+ *
+ * Exceptions thrown by the local listeners are logged, the following messages are still delivered.
+ */
+@SuppressWarnings("unchecked")
+class GalacticFlowController extends Loggable implements GalacticMessageHandler {
+
+    private final int credits;
+    private final int resumeThreshold;
+    private final int maxPendingMessages;
+    private final MessageBrokerConnector messageBroker;
+    private final Executor executor;
+    private final GalacticMessageHandler handler;
+    private final Consumer<Object> dropHandler;
+
+    private final AtomicInteger availableCredits;
+    private final Queue<Object[]> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    private MessageBrokerSubscription subscription;
+    private boolean paused;
+    private boolean pausedBroker;
+    private boolean updatingBroker;
+
+    GalacticFlowController(int credits, MessageBrokerConnector messageBroker, Executor executor,
+                           GalacticMessageHandler handler, Consumer<Object> dropHandler) {
+        this.credits = credits;
+        this.resumeThreshold = Math.max(1, credits / 2);
+        this.maxPendingMessages = (int) Math.min(Integer.MAX_VALUE, 2L * credits);
+        this.messageBroker = messageBroker;
+        this.executor = executor;
+        this.handler = handler;
+        this.dropHandler = dropHandler;
+        this.availableCredits = new AtomicInteger(credits);
+    }
+
+    /**
+     * Set the broker subscription controlled by this instance.
+     */
+    void setSubscription(MessageBrokerSubscription subscription) {
+        synchronized (this) {
+            this.subscription = subscription;
+        }
+        updateBrokerSubscription();
+    }
+
+    /**
+     * Returns the number of messages received from the broker but not yet delivered locally.
+     */
+    int getPendingMessages() {
+        return credits - availableCredits.get();
+    }
+
+    @Override
+    public void onMessage(Object message) {
+        enqueue(new Object[] { Boolean.TRUE, message });
+    }
+
+    @Override
+    public void onError(Object error) {
+        enqueue(new Object[] { Boolean.FALSE, error });
+    }
+
+    private void enqueue(Object[] item) {
+        int available;
+        do {
+            available = availableCredits.get();
+            if (credits - available >= maxPendingMessages) {
+                // the message broker did not stop delivering messages when it was paused.
+                dropHandler.accept(item[1]);
+                return;
+            }
+        } while (!availableCredits.compareAndSet(available, available - 1));
+
+        pending.add(item);
+        if (available - 1 <= 0) {
+            setPaused(true);
+        }
+        if (draining.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        do {
+            Object[] item;
+            while ((item = pending.poll()) != null) {
+                try {
+                    if ((Boolean) item[0]) {
+                        handler.onMessage(item[1]);
+                    } else {
+                        handler.onError(item[1]);
+                    }
+                } catch (RuntimeException ex) {
+                    logErrorMessage("Galactic channel listener failed", ex.getMessage());
+                } finally {
+                    if (availableCredits.incrementAndGet() >= resumeThreshold) {
+                        setPaused(false);
+                    }
+                }
+            }
+            draining.set(false);
+            // Messages might have been enqueued after the last poll, but before draining was reset.
+        } while (!pending.isEmpty() && draining.compareAndSet(false, true));
+    }
+
+    private void setPaused(boolean paused) {
+        synchronized (this) {
+            if (this.paused == paused) {
+                return;
+            }
+            this.paused = paused;
+        }
+        updateBrokerSubscription();
+    }
+
+    /**
+     * Pause or resume the broker subscription according to the latest state. Only one thread
+     * calls the message broker at a time, the state changes made meanwhile (i.e. by the messages
+     * delivered when the subscription is resumed) are applied by this thread once the call returns.
+     */
+    private void updateBrokerSubscription() {
+        while (true) {
+            MessageBrokerSubscription brokerSubscription;
+            boolean pause;
+            synchronized (this) {
+                if (updatingBroker || subscription == null || pausedBroker == paused) {
+                    return;
+                }
+                updatingBroker = true;
+                pausedBroker = paused;
+                brokerSubscription = subscription;
+                pause = paused;
+            }
+            try {
+                if (pause) {
+                    messageBroker.pauseSubscription(brokerSubscription);
+                } else {
+                    messageBroker.resumeSubscription(brokerSubscription);
+                }
+            } finally {
+                synchronized (this) {
+                    updatingBroker = false;
+                }
+            }
+        }
+    }
+}
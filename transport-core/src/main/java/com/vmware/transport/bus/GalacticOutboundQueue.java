@@ -0,0 +1,213 @@
+/*
+ * Copyright 2020 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ *
+ */
+package com.vmware.transport.bus;
+
+import com.vmware.transport.broker.GalacticChannelConfig;
+import com.vmware.transport.broker.MessageBrokerConnector;
+import com.vmware.transport.bus.model.Message;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Bounded queue of messages waiting to be send to the external channel of a galactic channel.
+ *
+ * Messages are send in batches of up to {@link GalacticChannelConfig#getOutboundBatchSize()}
+ * messages, either as soon as a full batch is available or once the linger time expires.
+ * At most one batch per channel is in flight at any time, which preserves the publish order.
+ * Messages which cannot be queued or which the message broker failed to send are passed
+ * to the dropped message handler.
+ *
+ * When the channel has an outbox, the dropped message handler stores the messages in it. The
+ * messages are then sent by the outbox replay, and must not overtake the stored ones: once a
+ * batch fails, the messages left in the queue are passed to the handler as well, in order, and
+ * the queue hands its messages over instead of sending them as long as the outbox is pending.
+ */
+@SuppressWarnings("unchecked")
+class GalacticOutboundQueue {
+
+    private final GalacticChannelConfig config;
+    private final MessageBrokerConnector messageBroker;
+    private final ScheduledExecutorService executor;
+    private final BiConsumer<Message, String> droppedMessageHandler;
+    private final BooleanSupplier outboxPending;
+
+    private final ArrayDeque<Message> queue;
+    private final int capacity;
+    private final int batchSize;
+    private final long lingerMillis;
+
+    private ScheduledFuture<?> pendingFlush;
+    private boolean sending;
+    private boolean closed;
+
+    GalacticOutboundQueue(GalacticChannelConfig config, MessageBrokerConnector messageBroker,
+                          ScheduledExecutorService executor,
+                          BiConsumer<Message, String> droppedMessageHandler) {
+        this(config, messageBroker, executor, droppedMessageHandler, null);
+    }
+
+    /**
+     * @param outboxPending returns true while the outbox of the channel holds messages which
+     *                      were not sent yet, null if the channel has no outbox.
+     */
+    GalacticOutboundQueue(GalacticChannelConfig config, MessageBrokerConnector messageBroker,
+                          ScheduledExecutorService executor,
+                          BiConsumer<Message, String> droppedMessageHandler,
+                          BooleanSupplier outboxPending) {
+        this.config = config;
+        this.messageBroker = messageBroker;
+        this.executor = executor;
+        this.droppedMessageHandler = droppedMessageHandler;
+        this.outboxPending = outboxPending;
+        this.capacity = config.getOutboundQueueSize();
+        this.batchSize = Math.max(1, config.getOutboundBatchSize());
+        this.lingerMillis = Math.max(0, config.getOutboundLingerMillis());
+        this.queue = new ArrayDeque<>(Math.min(capacity, 1024));
+    }
+
+    /**
+     * Queue a message, the message is dropped if the queue is full or closed.
+     */
+    void offer(Message message) {
+        final String errorMsg;
+        synchronized (this) {
+            if (!closed && queue.size() < capacity) {
+                queue.add(message);
+                if (!sending) {
+                    scheduleFlush();
+                }
+                return;
+            }
+            errorMsg = closed ? "Outbound queue closed" : "Outbound queue full";
+        }
+        droppedMessageHandler.accept(message, errorMsg);
+    }
+
+    /**
+     * Returns the number of queued messages.
+     */
+    synchronized int size() {
+        return queue.size();
+    }
+
+    /**
+     * Stop accepting new messages, already queued messages are still send.
+     */
+    void close() {
+        synchronized (this) {
+            closed = true;
+            if (sending || queue.isEmpty()) {
+                return;
+            }
+            cancelPendingFlush();
+        }
+        executor.execute(this::flush);
+    }
+
+    // Must be called while holding the lock.
+    private void scheduleFlush() {
+        if (queue.size() >= batchSize || lingerMillis == 0) {
+            cancelPendingFlush();
+            executor.execute(this::flush);
+        } else if (pendingFlush == null) {
+            pendingFlush = executor.schedule(this::flush, lingerMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void cancelPendingFlush() {
+        if (pendingFlush != null) {
+            pendingFlush.cancel(false);
+            pendingFlush = null;
+        }
+    }
+
+    private void flush() {
+        final List<Message> batch;
+        boolean handOver = outboxPending != null && outboxPending.getAsBoolean();
+        synchronized (this) {
+            if (sending || queue.isEmpty()) {
+                return;
+            }
+            pendingFlush = null;
+            sending = true;
+            if (handOver) {
+                batch = new ArrayList<>(queue);
+                queue.clear();
+            } else {
+                batch = new ArrayList<>(Math.min(batchSize, queue.size()));
+                while (batch.size() < batchSize && !queue.isEmpty()) {
+                    batch.add(queue.poll());
+                }
+            }
+        }
+
+        if (handOver) {
+            // the outbox is replayed first, the messages are stored after it.
+            for (Message message : batch) {
+                droppedMessageHandler.accept(message, "");
+            }
+            onSendingDone();
+            return;
+        }
+
+        CompletableFuture<List<Boolean>> result;
+        try {
+            result = messageBroker.sendMessagesAsync(config, batch);
+        } catch (Exception ex) {
+            result = new CompletableFuture<>();
+            result.completeExceptionally(ex);
+        }
+        result.whenComplete((results, ex) -> onBatchSent(batch, results, ex));
+    }
+
+    private void onBatchSent(List<Message> batch, List<Boolean> results, Throwable error) {
+        boolean failed = false;
+        for (int i = 0; i < batch.size(); i++) {
+            if (error != null) {
+                droppedMessageHandler.accept(batch.get(i), error.getMessage());
+                failed = true;
+            } else if (results == null || i >= results.size() || !Boolean.TRUE.equals(results.get(i))) {
+                droppedMessageHandler.accept(batch.get(i), "");
+                failed = true;
+            }
+        }
+        if (failed && outboxPending != null) {
+            // the failed messages are in the outbox, the queued ones must follow them. The queue
+            // is still sending, so no other flush sends messages meanwhile.
+            final List<Message> queued;
+            synchronized (this) {
+                queued = new ArrayList<>(queue);
+                queue.clear();
+            }
+            for (Message message : queued) {
+                droppedMessageHandler.accept(message, "");
+            }
+        }
+        onSendingDone();
+    }
+
+    private void onSendingDone() {
+        synchronized (this) {
+            sending = false;
+            if (queue.isEmpty()) {
+                return;
+            }
+            if (closed) {
+                executor.execute(this::flush);
+            } else {
+                scheduleFlush();
+            }
+        }
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2020 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ *
+ */
+package com.vmware.transport.bus;
+
+import com.vmware.transport.bus.log.PayloadRecord;
+import com.vmware.transport.bus.log.SegmentedLog;
+import com.vmware.transport.bus.model.Message;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Durable outbox of a galactic channel.
+ *
+ * Messages which could not be sent to the message broker are appended to a memory-mapped
+ * {@link SegmentedLog} and replayed in order once the broker is reachable again. The sequence
+ * number of the next message to replay is stored in an "ack" file next to the log segments,
+ * so acknowledged messages are not sent again after a restart. Segments containing only
+ * acknowledged messages are deleted.
+ *
+ * Payloads are stored as {@link PayloadRecord}s.
+ */
+class GalacticOutbox implements Closeable {
+
+    private static final String ACK_FILE = "outbox.ack";
+
+    private final SegmentedLog log;
+    private final FileChannel ackChannel;
+    private final MappedByteBuffer ackBuffer;
+
+    private final Object replayLock = new Object();
+    private ScheduledFuture<?> replayFuture;
+    private long replayAt;
+    private boolean replaying;
+    private boolean replayRequested;
+
+    private volatile long ackedSeq;
+
+    GalacticOutbox(Path directory, int segmentSize, long maxDiskSize) throws IOException {
+        this.log = new SegmentedLog(directory, segmentSize, maxDiskSize);
+        this.ackChannel = FileChannel.open(directory.resolve(ACK_FILE),
+              StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.ackBuffer = ackChannel.map(FileChannel.MapMode.READ_WRITE, 0, Long.BYTES);
+        this.ackedSeq = Math.max(ackBuffer.getLong(0), log.getFirstSeq());
+    }
+
+    /**
+     * Returns true if all stored messages were acknowledged.
+     */
+    boolean isEmpty() {
+        return ackedSeq >= log.getNextSeq();
+    }
+
+    /**
+     * Returns true if messages are waiting to be replayed or a replay is running.
+     */
+    boolean isPending() {
+        if (!isEmpty()) {
+            return true;
+        }
+        synchronized (replayLock) {
+            return replaying;
+        }
+    }
+
+    /**
+     * Returns the number of messages waiting to be replayed.
+     */
+    long size() {
+        return Math.max(0, log.getNextSeq() - ackedSeq);
+    }
+
+    /**
+     * Store a message.
+     *
+     * @return false if the message cannot be stored (i.e. the disk budget is exhausted).
+     */
+    boolean append(Message message) {
+        try {
+            return log.append(PayloadRecord.encode(message)) >= 0;
+        } catch (IOException | RuntimeException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns up to maxEntries messages which were not acknowledged yet, in order.
+     */
+    List<Entry> peek(int maxEntries) {
+        List<SegmentedLog.LogRecord> records = log.read(ackedSeq, maxEntries);
+        List<Entry> entries = new ArrayList<>(records.size());
+        for (SegmentedLog.LogRecord record : records) {
+            Entry entry;
+            try {
+                entry = new Entry(record.getSeq(), PayloadRecord.decode(record.getData()), true);
+            } catch (IOException | RuntimeException ex) {
+                entry = new Entry(record.getSeq(), null, false);
+            }
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    /**
+     * Acknowledge all messages up to (and including) the given sequence number.
+     */
+    synchronized void ack(long seq) throws IOException {
+        if (seq < ackedSeq) {
+            return;
+        }
+        ackedSeq = seq + 1;
+        ackBuffer.putLong(0, ackedSeq);
+        log.deleteSegmentsBefore(ackedSeq);
+    }
+
+    /**
+     * Schedule a replay of the outbox. If a replay is already scheduled, it runs at the
+     * earlier of the two times; if a replay is running, it is repeated once it finishes.
+     */
+    void scheduleReplay(ScheduledExecutorService executor, Runnable replay, long delayMillis) {
+        synchronized (replayLock) {
+            if (replaying) {
+                replayRequested = true;
+                return;
+            }
+            long at = System.currentTimeMillis() + delayMillis;
+            if (replayFuture != null && !replayFuture.isDone()) {
+                if (replayAt <= at) {
+                    return;
+                }
+                replayFuture.cancel(false);
+            }
+            replayAt = at;
+            replayFuture = executor.schedule(replay, delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Called when a replay starts.
+     *
+     * @return false if another replay is already running.
+     */
+    boolean startReplay() {
+        synchronized (replayLock) {
+            if (replaying) {
+                return false;
+            }
+            replaying = true;
+            replayRequested = false;
+            return true;
+        }
+    }
+
+    /**
+     * Called when a replay finishes.
+     *
+     * @return true if another replay was requested while it was running.
+     */
+    boolean finishReplay() {
+        synchronized (replayLock) {
+            replaying = false;
+            return replayRequested;
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        log.close();
+        ackBuffer.force();
+        ackChannel.close();
+    }
+
+    static class Entry {
+        final long seq;
+        final Object payload;
+        final boolean valid;
+
+        Entry(long seq, Object payload, boolean valid) {
+            this.seq = seq;
+            this.payload = payload;
+            this.valid = valid;
+        }
+    }
+}
@@ -0,0 +1,1162 @@
+/*
+ * Copyright 2017-2020 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ *
+ */
+package com.vmware.transport.bus;
+
+import com.vmware.transport.broker.GalacticChannelConfig;
+import com.vmware.transport.broker.GalacticMessageHandler;
+import com.vmware.transport.broker.MessageBrokerConnector;
+import com.vmware.transport.broker.MessageBrokerSubscription;
+import com.vmware.transport.bus.log.ChannelJournal;
+import com.vmware.transport.bus.log.ChannelJournalConfig;
+import com.vmware.transport.bus.log.SegmentedLog;
+import com.vmware.transport.bus.model.Channel;
+import com.vmware.transport.bus.model.Message;
+import com.vmware.transport.bus.model.MessageHeaders;
+import com.vmware.transport.bus.model.MessageObject;
+import com.vmware.transport.bus.model.MessageObjectHandlerConfig;
+import com.vmware.transport.bus.model.MessageType;
+import com.vmware.transport.bus.model.MonitorObject;
+import com.vmware.transport.bus.model.MonitorType;
+import com.vmware.transport.bus.store.BusStoreApi;
+import com.vmware.transport.core.util.Loggable;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.functions.Consumer;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Event bus implementation without any dependency on Spring, it can be embedded in
+ * plain Java applications. The bus is configured with its setters and must be
+ * started with {@link #start()} once configured.
+ */
+@SuppressWarnings("unchecked")
+public class StandaloneEventBus extends Loggable implements EventBus {
+
+    private EventBusLowApi api;
+    private UUID id;
+
+    private ConcurrentHashMap<String, MessageBrokerConnector> messageBrokersMap;
+
+    private ConcurrentHashMap<String, GalacticChannelData> galacticChannelsMap;
+
+    private ConcurrentHashMap<String, ChannelJournalData> channelJournalsMap;
+
+    private BusStoreApi storeManager;
+
+    // Idle channel eviction is disabled unless an idle timeout (in milliseconds) is configured.
+    private long channelReaperIdleTimeout;
+
+    private long channelReaperInterval = 10000;
+
+    private int channelReaperBatchSize = 500;
+
+    // Number of threads sending queued galactic messages to the message brokers.
+    private int galacticSenderThreads = 2;
+
+    private volatile ScheduledExecutorService galacticSendExecutor;
+
+    public void setStoreManager(BusStoreApi storeManager) { this.storeManager = storeManager; }
+
+    public void setChannelReaperIdleTimeout(long channelReaperIdleTimeout) {
+        this.channelReaperIdleTimeout = channelReaperIdleTimeout;
+    }
+
+    public void setChannelReaperInterval(long channelReaperInterval) {
+        this.channelReaperInterval = channelReaperInterval;
+    }
+
+    public void setChannelReaperBatchSize(int channelReaperBatchSize) {
+        this.channelReaperBatchSize = channelReaperBatchSize;
+    }
+
+    public void setGalacticSenderThreads(int galacticSenderThreads) {
+        this.galacticSenderThreads = galacticSenderThreads;
+    }
+
+    private Map<String, Channel> channelMap;
+
+    public StandaloneEventBus() {
+        this.channelMap = new HashMap<>();
+        this.messageBrokersMap = new ConcurrentHashMap<>();
+        this.galacticChannelsMap = new ConcurrentHashMap<>();
+        this.channelJournalsMap = new ConcurrentHashMap<>();
+        this.id = UUID.randomUUID();
+        this.api = new EventBusLowApiImpl(this.channelMap);
+        this.api.enableMonitorDump(true);
+    }
+
+    @Override
+    public UUID getId() {
+        return this.id;
+    }
+
+    @Override
+    public EventBusLowApi getApi() {
+        return api;
+    }
+
+    public BusStoreApi getStoreManager() {
+        return storeManager;
+    }
+
+    @Override
+    public void sendRequestMessage(String channel, Object payload) {
+        this.sendRequestMessage(channel, payload, null);
+    }
+
+    @Override
+    public void sendRequestMessage(String channel, Object payload, MessageHeaders headers) {
+        MessageObjectHandlerConfig config =
+                new MessageObjectHandlerConfig(MessageType.MessageTypeRequest, payload);
+        config.setSingleResponse(true);
+        config.setSendChannel(channel);
+        config.setReturnChannel(channel);
+        config.setHeaders(headers);
+        this.api.send(config.getSendChannel(), config, this.getName());
+    }
+
+    @Override
+    public void sendRequestMessageWithId(String channel, Object payload, UUID id) {
+        this.sendRequestMessageWithId(channel, payload, id, null);
+    }
+
+    @Override
+    public void sendRequestMessageWithId(String channel, Object payload, UUID id,
+                                         MessageHeaders headers) {
+        MessageObjectHandlerConfig config =
+                new MessageObjectHandlerConfig(MessageType.MessageTypeRequest, payload);
+        config.setSingleResponse(true);
+        config.setSendChannel(channel);
+        config.setReturnChannel(channel);
+        config.setId(id);
+        config.setHeaders(headers);
+        this.api.send(config.getSendChannel(), config, this.getName());
+    }
+
+    @Override
+    public void sendRequestMessageToTarget(String channel, Object payload, UUID id, String targetUser) {
+        this.sendRequestMessageToTarget(channel, payload, id, targetUser, null);
+    }
+
+    @Override
+    public void sendRequestMessageToTarget(String channel, Object payload, UUID id, String targetUser,
+                                           MessageHeaders headers) {
+
+        MessageObjectHandlerConfig config =
+                new MessageObjectHandlerConfig(MessageType.MessageTypeRequest, payload);
+        config.setSingleResponse(true);
+        config.setSendChannel(channel);
+        config.setReturnChannel(channel);
+        config.setTargetUser(targetUser);
+        config.setId(id);
+        config.setHeaders(headers);
+        this.api.send(config.getSendChannel(), config, this.getName());
+    }
+
+    @Override
+    public void sendResponseMessage(String channel, Object payload) {
+        this.sendResponseMessage(channel, payload, null);
+    }
+
+    @Override
+    public void sendResponseMessage(String channel, Object payload, MessageHeaders headers) {
+        MessageObjectHandlerConfig config =
+                new MessageObjectHandlerConfig(MessageType.MessageTypeResponse, payload);
+        config.setSingleResponse(true);
+        config.setSendChannel(channel);
+        config.setReturnChannel(channel);
+        config.setHeaders(headers);
+        this.api.send(config.getSendChannel(), config, this.getName());
+    }
+
+    @Override
+    public void sendResponseMessageWithId(String channel, Object payload, UUID id) {
+        this.sendResponseMessageWithId(channel, payload, id, null);
+    }
+
+    @Override
+    public void sendResponseMessageWithId(String channel, Object payload, UUID id,
+                                          MessageHeaders headers) {
+        MessageObjectHandlerConfig config =
+                new MessageObjectHandlerConfig(MessageType.MessageTypeResponse, payload);
+        config.setSingleResponse(true);
+        config.setSendChannel(channel);
+        config.setReturnChannel(channel);
+        config.setId(id);
+        config.setHeaders(headers);
+        this.api.send(config.getSendChannel(), config, this.getName());
+    }
+
+    @Override
+    public void sendResponseMessageToTarget(String channel, Object payload, UUID id, String targetUser) {
+        this.sendResponseMessageToTarget(channel, payload, id, targetUser, null);
+    }
+
+    @Override
+    public void sendResponseMessageToTarget(String channel, Object payload, UUID id, String targetUser,
+                                            MessageHeaders headers) {
+
+        MessageObjectHandlerConfig config =
+                new MessageObjectHandlerConfig(MessageType.MessageTypeResponse, payload);
+        config.setSingleResponse(true);
+        config.setSendChannel(channel);
+        config.setReturnChannel(channel);
+        config.setTargetUser(targetUser);
+        config.setId(id);
+        config.setHeaders(headers);
+        this.api.send(config.getSendChannel(), config, this.getName());
+    }
+
+    @Override
+    public void sendErrorMessage(String channel, Object payload) {
+        this.sendErrorMessage(channel, payload, null);
+    }
+
+    @Override
+    public void sendErrorMessage(String channel, Object payload, MessageHeaders headers) {
+
+        MessageObjectHandlerConfig config =
+                new MessageObjectHandlerConfig(MessageType.MessageTypeError, payload);
+        config.setSingleResponse(true);
+        config.setSendChannel(channel);
+        config.setReturnChannel(channel);
+        config.setHeaders(headers);
+        this.api.send(config.getSendChannel(), config, this.getName());
+    }
+
+    @Override
+    public void sendErrorMessageWithId(String channel, Object payload, UUID id) {
+        this.sendErrorMessageWithId(channel, payload, id, null);
+    }
+
+    @Override
+    public void sendErrorMessageWithId(String channel, Object payload, UUID id, MessageHeaders headers) {
+
+        MessageObjectHandlerConfig config =
+                new MessageObjectHandlerConfig(MessageType.MessageTypeError, payload);
+        config.setSingleResponse(true);
+        config.setSendChannel(channel);
+        config.setReturnChannel(channel);
+        config.setId(id);
+        config.setHeaders(headers);
+        this.api.send(config.getSendChannel(), config, this.getName());
+    }
+
+    @Override
+    public void sendErrorMessageToTarget(String channel, Object payload, UUID id, String targetUser) {
+        this.sendErrorMessageToTarget(channel, payload, id, targetUser, null);
+    }
+
+    @Override
+    public void sendErrorMessageToTarget(String channel, Object payload, UUID id, String targetUser,
+                                         MessageHeaders headers) {
+
+        MessageObjectHandlerConfig config =
+                new MessageObjectHandlerConfig(MessageType.MessageTypeError, payload);
+        config.setSingleResponse(true);
+        config.setSendChannel(channel);
+        config.setReturnChannel(channel);
+        config.setTargetUser(targetUser);
+        config.setId(id);
+        config.setHeaders(headers);
+        this.api.send(config.getSendChannel(), config, this.getName());
+    }
+
+    @Override
+    public BusTransaction requestOnce(String sendChannel,
+                                      Object payload,
+                                      String returnChannel,
+                                      Consumer<Message> successHandler,
+                                      Consumer<Message> errorHandler) {
+        return this.requestOnce(sendChannel, payload,
+                returnChannel, this.getName(), successHandler, errorHandler);
+    }
+
+    @Override
+    public BusTransaction requestOnce(String sendChannel,
+                                      Object payload,
+                                      Consumer<Message> successHandler,
+                                      Consumer<Message> errorHandler) {
+        return this.requestOnce(sendChannel, payload,
+                sendChannel, this.getName(), successHandler, errorHandler);
+    }
+
+    @Override
+    public BusTransaction requestOnce(String sendChannel,
+                                      Object payload,
+                                      String returnChannel,
+                                      Consumer<Message> successHandler) {
+        return this.requestOnce(sendChannel, payload,
+                returnChannel, this.getName(), successHandler, null);
+    }
+
+    @Override
+    public BusTransaction requestOnce(String sendChannel,
+                                      Object payload,
+                                      Consumer<Message> successHandler) {
+        return this.requestOnce(sendChannel, payload,
+                sendChannel, this.getName(), successHandler, null);
+    }
+
+    @Override
+    public BusTransaction requestOnce(String sendChannel,
+                                      Object payload,
+                                      String returnChannel,
+                                      String from,
+                                      Consumer<Message> successHandler,
+                                      Consumer<Message> errorHandler) {
+
+        return this.requestOnceInternal(null, sendChannel,
+                payload, returnChannel, from, successHandler, errorHandler);
+    }
+
+    @Override
+    public BusTransaction requestOnceWithId(UUID uuid,
+                                            String sendChannel,
+                                            Object payload,
+                                            Consumer<Message> successHandler) {
+
+        return this.requestOnceWithId(uuid, sendChannel, payload, sendChannel, successHandler);
+    }
+
+    @Override
+    public BusTransaction requestOnceWithId(UUID uuid,
+                                            String sendChannel,
+                                            Object payload,
+                                            Consumer<Message> successHandler,
+                                            Consumer<Message> errorHandler) {
+
+        return this.requestOnceWithId(uuid, sendChannel, payload, sendChannel, successHandler, errorHandler);
+    }
+
+    @Override
+    public BusTransaction requestOnceWithId(UUID uuid,
+                                            String sendChannel,
+                                            Object payload,
+                                            String returnChannel,
+                                            Consumer<Message> successHandler) {
+
+        return this.requestOnceWithId(uuid, sendChannel, payload, returnChannel, successHandler, null);
+    }
+
+    @Override
+    public BusTransaction requestOnceWithId(UUID uuid,
+                                            String sendChannel,
+                                            Object payload,
+                                            String returnChannel,
+                                            Consumer<Message> successHandler,
+                                            Consumer<Message> errorHandler) {
+
+        return this.requestOnceWithId(uuid, sendChannel, payload,
+                returnChannel, this.getName(), successHandler, errorHandler);
+    }
+
+    @Override
+    public BusTransaction requestOnceWithId(UUID uuid,
+                                            String sendChannel,
+                                            Object payload,
+                                            String returnChannel,
+                                            String from,
+                                            Consumer<Message> successHandler,
+                                            Consumer<Message> errorHandler) {
+
+        return this.requestOnceInternal(uuid, sendChannel, payload,
+                returnChannel, from, successHandler, errorHandler);
+    }
+
+    private BusTransaction requestOnceInternal(UUID id,
+                                               String sendChannel,
+                                               Object payload,
+                                               String returnChannel,
+                                               String from,
+                                               Consumer<Message> successHandler,
+                                               Consumer<Message> errorHandler) {
+
+        MessageObjectHandlerConfig config
+                = new MessageObjectHandlerConfig(MessageType.MessageTypeRequest, payload);
+
+        config.setSingleResponse(true);
+        config.setReturnChannel(returnChannel);
+        config.setSendChannel(sendChannel);
+        config.setId(id);
+
+        MessageHandler messageHandler = this.createMessageHandler(config, false);
+        Disposable sub = messageHandler.handle(successHandler, errorHandler);
+        this.api.send(config.getSendChannel(), config, from);
+
+        BusTransaction transaction = new BusHandlerTransaction(sub, messageHandler);
+        return transaction;
+    }
+
+    @Override
+    public BusTransaction requestStream(String sendChannel,
+                                        Object payload,
+                                        String returnChannel,
+                                        String from,
+                                        Consumer<Message> successHandler,
+                                        Consumer<Message> errorHandler) {
+
+        return this.requestStreamInternal(null, sendChannel, payload,
+                returnChannel, from, successHandler, errorHandler);
+    }
+
+    @Override
+    public BusTransaction requestStream(String sendChannel,
+                                        Object payload,
+                                        String returnChannel,
+                                        Consumer<Message> successHandler,
+                                        Consumer<Message> errorHandler) {
+        return this.requestStream(sendChannel, payload,
+                returnChannel, this.getName(), successHandler, errorHandler);
+    }
+
+    @Override
+    public BusTransaction requestStream(String sendChannel,
+                                        Object payload,
+                                        String returnChannel,
+                                        Consumer<Message> successHandler) {
+        return this.requestStream(sendChannel, payload,
+                returnChannel, this.getName(), successHandler, null);
+    }
+
+    @Override
+    public BusTransaction requestStream(String sendChannel,
+                                        Object payload,
+                                        Consumer<Message> successHandler) {
+        return this.requestStream(sendChannel, payload,
+                sendChannel, this.getName(), successHandler, null);
+    }
+
+    @Override
+    public BusTransaction requestStreamWithId(UUID uuid,
+                                              String sendChannel,
+                                              Object payload,
+                                              Consumer<Message> successHandler) {
+
+        return this.requestStreamWithId(uuid, sendChannel, payload,
+                sendChannel, successHandler);
+    }
+
+    @Override
+    public BusTransaction requestStreamWithId(UUID uuid,
+                                              String sendChannel,
+                                              Object payload,
+                                              String returnChannel,
+                                              Consumer<Message> successHandler) {
+
+        return this.requestStreamWithId(uuid, sendChannel, payload,
+                returnChannel, this.getName(), successHandler, null);
+    }
+
+    @Override
+    public BusTransaction requestStreamWithId(UUID uuid,
+                                              String sendChannel,
+                                              Object payload,
+                                              String returnChannel,
+                                              Consumer<Message> successHandler,
+                                              Consumer<Message> errorHandler) {
+
+        return this.requestStreamWithId(uuid, sendChannel, payload,
+                returnChannel, this.getName(), successHandler, errorHandler);
+    }
+
+    @Override
+    public BusTransaction requestStreamWithId(UUID uuid,
+                                              String sendChannel,
+                                              Object payload,
+                                              String returnChannel,
+                                              String from,
+                                              Consumer<Message> successHandler,
+                                              Consumer<Message> errorHandler) {
+
+        return this.requestStreamInternal(uuid, sendChannel, payload,
+                returnChannel, from, successHandler, errorHandler);
+    }
+
+
+    private BusTransaction requestStreamInternal(UUID uuid,
+                                                 String sendChannel,
+                                                 Object payload,
+                                                 String returnChannel,
+                                                 String from,
+                                                 Consumer<Message> successHandler,
+                                                 Consumer<Message> errorHandler) {
+
+        MessageObjectHandlerConfig config
+                = new MessageObjectHandlerConfig(MessageType.MessageTypeRequest, payload);
+
+        config.setSingleResponse(false);
+        config.setReturnChannel(returnChannel);
+        config.setSendChannel(sendChannel);
+        config.setId(uuid);
+
+        MessageHandler messageHandler = this.createMessageHandler(config, false);
+        Disposable sub = messageHandler.handle(successHandler, errorHandler);
+        this.api.send(config.getSendChannel(), config, from);
+
+        BusTransaction transaction = new BusHandlerTransaction(sub, messageHandler);
+        return transaction;
+    }
+
+    @Override
+    public BusTransaction listenRequestStream(String channel,
+                                              Consumer<Message> successHandler) {
+        return this.listenRequestStream(channel, successHandler, null);
+    }
+
+    @Override
+    public BusTransaction listenRequestStream(String channel,
+                                              Consumer<Message> successHandler,
+                                              Consumer<Message> errorHandler) {
+        return this.listenRequestStream(channel, successHandler, errorHandler, null);
+    }
+
+    @Override
+    public BusTransaction listenRequestStream(String channel,
+                                              Consumer<Message> successHandler,
+                                              Consumer<Message> errorHandler,
+                                              UUID id) {
+
+        MessageObjectHandlerConfig config
+                = new MessageObjectHandlerConfig(MessageType.MessageTypeRequest, null);
+
+        config.setSingleResponse(false);
+        config.setReturnChannel(channel);
+        config.setSendChannel(channel);
+        config.setId(id);
+
+        MessageHandler messageHandler = this.createMessageHandler(config, true);
+        Disposable sub = messageHandler.handle(successHandler, errorHandler);
+
+        return new BusHandlerTransaction(sub, messageHandler);
+    }
+
+    @Override
+    public BusTransaction listenRequestOnce(String channel,
+                                            Consumer<Message> successHandler) {
+        return this.listenRequestOnce(channel, successHandler, null);
+    }
+
+
+    @Override
+    public BusTransaction listenRequestOnce(String channel,
+                                            Consumer<Message> successHandler,
+                                            Consumer<Message> errorHandler) {
+        return this.listenRequestOnce(channel, successHandler, errorHandler, null);
+    }
+
+    @Override
+    public BusTransaction listenRequestOnce(String channel,
+                                            Consumer<Message> successHandler,
+                                            Consumer<Message> errorHandler,
+                                            UUID id) {
+
+        MessageObjectHandlerConfig config
+                = new MessageObjectHandlerConfig(MessageType.MessageTypeRequest, null);
+
+        config.setSingleResponse(true);
+        config.setReturnChannel(channel);
+        config.setSendChannel(channel);
+        config.setId(id);
+
+        MessageHandler messageHandler = this.createMessageHandler(config, true);
+        Disposable sub = messageHandler.handle(successHandler, errorHandler);
+
+        return new BusHandlerTransaction(sub, messageHandler);
+    }
+
+    @Override
+    public BusTransaction listenStream(String channel,
+                                       Consumer<Message> successHandler) {
+        return this.listenStream(channel, successHandler, null);
+    }
+
+    @Override
+    public BusTransaction listenStream(String channel,
+                                       Consumer<Message> successHandler,
+                                       Consumer<Message> errorHandler) {
+
+        return this.listenStream(channel, successHandler, errorHandler, null);
+    }
+
+    @Override
+    public BusTransaction listenStream(String channel,
+                                       Consumer<Message> successHandler,
+                                       Consumer<Message> errorHandler,
+                                       UUID id) {
+
+        MessageObjectHandlerConfig config
+                = new MessageObjectHandlerConfig(MessageType.MessageTypeResponse, null);
+
+        config.setSingleResponse(false);
+        config.setReturnChannel(channel);
+        config.setSendChannel(channel);
+        config.setId(id);
+
+        MessageHandler messageHandler = this.createMessageHandler(config, false);
+        Disposable sub = messageHandler.handle(successHandler, errorHandler);
+
+        return new BusHandlerTransaction(sub, messageHandler);
+    }
+
+    @Override
+    public BusTransaction listenOnce(String channel,
+                                     Consumer<Message> successHandler) {
+        return this.listenOnce(channel, successHandler, null);
+    }
+
+    @Override
+    public BusTransaction listenOnce(String channel,
+                                     Consumer<Message> successHandler,
+                                     Consumer<Message> errorHandler) {
+
+        MessageObjectHandlerConfig config
+                = new MessageObjectHandlerConfig(MessageType.MessageTypeResponse, null);
+
+        config.setSingleResponse(true);
+        config.setReturnChannel(channel);
+        config.setSendChannel(channel);
+
+        MessageHandler messageHandler = this.createMessageHandler(config, false);
+        Disposable sub = messageHandler.handle(successHandler, errorHandler);
+
+        return new BusHandlerTransaction(sub, messageHandler);
+    }
+
+    @Override
+    public BusTransaction respondOnce(String sendChannel,
+                                      Function<Message, Object> generateHandler) {
+        return this.respondOnce(sendChannel, sendChannel, generateHandler);
+    }
+
+    @Override
+    public BusTransaction respondOnce(String sendChannel,
+                                      String returnChannel,
+                                      Function<Message, Object> generateHandler) {
+
+        MessageObjectHandlerConfig config = new MessageObjectHandlerConfig();
+        config.setSingleResponse(true);
+        config.setReturnChannel(returnChannel);
+        config.setSendChannel(sendChannel);
+
+        MessageResponder messageResponder = this.createMessageResponder(config);
+        Disposable sub = messageResponder.generate(generateHandler);
+        BusTransaction transaction = new BusResponderTransaction(sub, messageResponder);
+        return transaction;
+    }
+
+    @Override
+    public BusTransaction respondStream(String sendChannel,
+                                        String returnChannel,
+                                        Function<Message, Object> generateHandler) {
+
+        MessageObjectHandlerConfig config = new MessageObjectHandlerConfig();
+        config.setSingleResponse(false);
+        config.setReturnChannel(returnChannel);
+        config.setSendChannel(sendChannel);
+
+        MessageResponder messageResponder = this.createMessageResponder(config);
+        Disposable sub = messageResponder.generate(generateHandler);
+        BusTransaction transaction = new BusResponderTransaction(sub, messageResponder);
+        return transaction;
+    }
+
+    @Override
+    public BusTransaction respondStream(String sendChannel,
+                                        Function<Message, Object> generateHandler) {
+        return this.respondStream(sendChannel, sendChannel, generateHandler);
+    }
+
+    @Override
+    public void closeChannel(String channel, String from) {
+        this.api.close(channel, from);
+    }
+
+    @Override
+    public Transaction createTransaction() {
+        return this.createTransaction(Transaction.TransactionType.ASYNC);
+    }
+
+    @Override
+    public Transaction createTransaction(Transaction.TransactionType type) {
+        return this.createTransaction(type, UUID.randomUUID());
+    }
+
+    @Override
+    public Transaction createTransaction(Transaction.TransactionType type, String name) {
+        return new TransactionImpl(this, this.storeManager, type, name);
+    }
+
+    @Override
+    public Transaction createTransaction(Transaction.TransactionType type, String name, UUID id) {
+        return new TransactionImpl(this, this.storeManager, type, name, id);
+    }
+
+    @Override
+    public Transaction createTransaction(Transaction.TransactionType type, UUID id) {
+        return new TransactionImpl(this, this.storeManager, type, null, id);
+    }
+
+    @Override
+    public boolean registerMessageBroker(MessageBrokerConnector messageBrokerConnector) {
+        synchronized (this.messageBrokersMap) {
+            if (this.messageBrokersMap.containsKey(messageBrokerConnector.getMessageBrokerId())) {
+                return false;
+            }
+            this.messageBrokersMap.put(messageBrokerConnector.getMessageBrokerId(), messageBrokerConnector);
+        }
+        messageBrokerConnector.connectMessageBroker();
+        // Replay the messages stored while the message broker was not available.
+        for (Map.Entry<String, GalacticChannelData> entry : this.galacticChannelsMap.entrySet()) {
+            if (entry.getValue().messageBroker == messageBrokerConnector) {
+                scheduleOutboxReplay(entry.getKey(), entry.getValue(), 0);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean unregisterMessageBroker(String messageBrokerId) {
+        MessageBrokerConnector connector = this.messageBrokersMap.remove(messageBrokerId);
+        if (connector != null) {
+            connector.disconnectMessageBroker();
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean markChannelAsGalactic(final String channel, final GalacticChannelConfig config) {
+        synchronized (this.galacticChannelsMap) {
+            if (this.galacticChannelsMap.containsKey(channel)) {
+                logWarnMessage("Channel " + channel + " already marked as galactic.");
+                return false;
+            }
+            MessageBrokerConnector messageBroker =
+                    this.messageBrokersMap.get(config.getMessageBrokerId());
+            if (messageBroker == null) {
+                logErrorMessage("Cannot mark " + channel + " as galactic.",
+                        "Cannot find message broker with id: " + config.getMessageBrokerId());
+                return false;
+            }
+
+            GalacticChannelData galacticChannel = new GalacticChannelData(config, messageBroker);
+            if (config.getOutboxDirectory() != null) {
+                try {
+                    galacticChannel.outbox = new GalacticOutbox(
+                            SegmentedLog.getChannelDirectory(config.getOutboxDirectory(), channel),
+                            config.getOutboxSegmentSize(), config.getOutboxMaxDiskSize());
+                } catch (IOException | RuntimeException ex) {
+                    logErrorMessage("Cannot open the outbox of galactic channel " + channel, ex.getMessage());
+                    return false;
+                }
+            }
+            this.galacticChannelsMap.put(channel, galacticChannel);
+
+            // Register a request listener which will forward all requests
+            // to the message broker. This will create a local {@link Channel} instance
+            // which will act as a proxy to the message broker.
+            if (config.getOutboundQueueSize() > 0) {
+                // Queue the requests and send them in batches from the galactic sender threads,
+                // so that publishers are not blocked by the message broker.
+                galacticChannel.outboundQueue = new GalacticOutboundQueue(
+                        config, messageBroker, getGalacticSendExecutor(),
+                        (message, errorMsg) -> handleFailedGalacticMessage(
+                                channel, galacticChannel, message, errorMsg),
+                        galacticChannel.outbox != null ? galacticChannel.outbox::isPending : null);
+                galacticChannel.requestListener = this.listenRequestStream(channel, message -> {
+                    GalacticOutbox outbox = galacticChannel.outbox;
+                    if (outbox != null && outbox.isPending()) {
+                        // Keep the messages in order until the outbox is replayed.
+                        handleFailedGalacticMessage(channel, galacticChannel, message, "");
+                        return;
+                    }
+                    galacticChannel.outboundQueue.offer(message);
+                });
+            } else {
+                galacticChannel.requestListener = this.listenRequestStream(channel, message -> {
+                    GalacticOutbox outbox = galacticChannel.outbox;
+                    if (outbox != null && !outbox.isEmpty()) {
+                        // Keep the messages in order until the outbox is replayed.
+                        handleFailedGalacticMessage(channel, galacticChannel, message, "");
+                        return;
+                    }
+                    boolean result;
+                    String errorMsg = "";
+                    try {
+                        result = messageBroker.sendMessage(config, message);
+                    } catch (Exception ex) {
+                        errorMsg = ex.getMessage();
+                        result = false;
+                    }
+                    if (!result) {
+                        handleFailedGalacticMessage(channel, galacticChannel, message, errorMsg);
+                    }
+                });
+            }
+
+            if (galacticChannel.outbox != null && !galacticChannel.outbox.isEmpty()) {
+                scheduleOutboxReplay(channel, galacticChannel, 0);
+            }
+
+            this.api.getMonitorStream().send(new MessageObject<>(MessageType.MessageTypeRequest,
+                    new MonitorObject(MonitorType.MonitorNewGalacticChannel, channel, getName())));
+        }
+        return true;
+    }
+
+    @Override
+    public boolean markChannelAsLocal(String channel) {
+        GalacticChannelData galacticChannel = this.galacticChannelsMap.remove(channel);
+        if (galacticChannel != null) {
+            // Close the message broker channel connections
+            galacticChannel.close();
+            // Remove the channel reference which was created by the markChannelAsGalactic() API
+            closeChannel(channel, getName());
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean isGalacticChannel(String channel) {
+        return this.galacticChannelsMap.containsKey(channel);
+    }
+
+    @Override
+    public boolean enableChannelJournal(String channel, ChannelJournalConfig config) {
+        synchronized (this.channelJournalsMap) {
+            if (this.channelJournalsMap.containsKey(channel)) {
+                logWarnMessage("Channel " + channel + " is already journaled.");
+                return false;
+            }
+            ChannelJournal journal;
+            try {
+                journal = new ChannelJournal(channel, config);
+            } catch (IOException | RuntimeException ex) {
+                logErrorMessage("Cannot open the journal of channel " + channel, ex.getMessage());
+                return false;
+            }
+            BusTransaction writer = this.listenStream(channel, journal::append);
+            this.channelJournalsMap.put(channel, new ChannelJournalData(journal, writer));
+        }
+        return true;
+    }
+
+    @Override
+    public boolean disableChannelJournal(String channel) {
+        ChannelJournalData journalData = this.channelJournalsMap.remove(channel);
+        if (journalData == null) {
+            return false;
+        }
+        journalData.writer.unsubscribe();
+        try {
+            journalData.journal.close();
+        } catch (IOException ex) {
+            logErrorMessage("Cannot close the journal of channel " + channel, ex.getMessage());
+        }
+        return true;
+    }
+
+    @Override
+    public ChannelJournal getChannelJournal(String channel) {
+        ChannelJournalData journalData = this.channelJournalsMap.get(channel);
+        return journalData != null ? journalData.journal : null;
+    }
+
+    @Override
+    public BusTransaction listenStream(String channel, long fromOffset,
+                                       Consumer<Message> successHandler,
+                                       Consumer<Message> errorHandler) {
+
+        ChannelJournal journal = getChannelJournal(channel);
+        if (journal == null) {
+            logErrorMessage("Cannot replay channel " + channel, "channel is not journaled");
+            return null;
+        }
+        // Journaled channels only store responses, errors are delivered live.
+        BusTransaction errorListener = this.listenStream(channel, message -> {}, errorHandler);
+        ChannelJournal.Subscriber subscriber = journal.subscribe(fromOffset, successHandler);
+        return new BusTransaction() {
+            @Override
+            public void unsubscribe() {
+                subscriber.close();
+                errorListener.unsubscribe();
+            }
+
+            @Override
+            public boolean isSubscribed() {
+                return subscriber.isActive();
+            }
+
+            @Override
+            public void tick(Object payload) {
+                errorListener.tick(payload);
+            }
+
+            @Override
+            public void error(Object payload) {
+                errorListener.error(payload);
+            }
+        };
+    }
+
+    private void handleFailedGalacticMessage(
+            String channel, GalacticChannelData galacticChannel, Message message, String errorMsg) {
+
+        GalacticOutbox outbox = galacticChannel.outbox;
+        if (outbox != null && outbox.append(message)) {
+            scheduleOutboxReplay(channel, galacticChannel, galacticChannel.config.getOutboxRetryMillis());
+            return;
+        }
+        reportDroppedGalacticMessage(channel, message, errorMsg);
+    }
+
+    private void scheduleOutboxReplay(String channel, GalacticChannelData galacticChannel, long delayMillis) {
+        GalacticOutbox outbox = galacticChannel.outbox;
+        if (outbox != null && !outbox.isEmpty()) {
+            outbox.scheduleReplay(getGalacticSendExecutor(),
+                    () -> replayOutbox(channel, galacticChannel), delayMillis);
+        }
+    }
+
+    /**
+     * Send the messages stored in the outbox of a galactic channel, in order,
+     * until the outbox is empty or the message broker fails to send a message.
+     */
+    private void replayOutbox(String channel, GalacticChannelData galacticChannel) {
+        GalacticOutbox outbox = galacticChannel.outbox;
+        if (!outbox.startReplay()) {
+            return;
+        }
+        boolean failed = false;
+        boolean replayRequested;
+        try {
+            List<GalacticOutbox.Entry> entries;
+            while (!failed && galacticChannel.isOpen() && !(entries = outbox.peek(100)).isEmpty()) {
+                for (GalacticOutbox.Entry entry : entries) {
+                    if (entry.valid) {
+                        try {
+                            failed = !galacticChannel.messageBroker.sendMessage(
+                                    galacticChannel.config, entry.payload);
+                        } catch (Exception ex) {
+                            failed = true;
+                        }
+                    } else {
+                        logErrorMessage("Dropping invalid outbox message of galactic channel " + channel,
+                                String.valueOf(entry.seq));
+                    }
+                    if (failed) {
+                        break;
+                    }
+                    outbox.ack(entry.seq);
+                }
+            }
+        } catch (IOException | RuntimeException ex) {
+            logErrorMessage("Failed to replay the outbox of galactic channel " + channel, ex.getMessage());
+            failed = true;
+        } finally {
+            replayRequested = outbox.finishReplay();
+        }
+        if (galacticChannel.isOpen()) {
+            scheduleOutboxReplay(channel, galacticChannel,
+                    failed && !replayRequested ? galacticChannel.config.getOutboxRetryMillis() : 0);
+        }
+    }
+
+    private void reportDroppedGalacticMessage(String channel, Message message, String errorMsg) {
+        logErrorMessage("Failed to send galactic message to channel '" + channel + "' ", errorMsg);
+        MonitorObject mo = new MonitorObject(MonitorType.MonitorDropped, channel, getName(), message);
+        this.api.getMonitorStream().send(new MessageObject<>(MessageType.MessageTypeRequest, mo));
+    }
+
+    private void reportDroppedInboundMessage(String channel, Object message) {
+        logWarnMessage("Dropping message received on galactic channel '" + channel
+                + "', the message broker keeps delivering messages while all inbound credits are in use.");
+        MonitorObject mo = new MonitorObject(MonitorType.MonitorDropped, channel, getName(), message);
+        this.api.getMonitorStream().send(new MessageObject<>(MessageType.MessageTypeRequest, mo));
+    }
+
+    private ScheduledExecutorService getGalacticSendExecutor() {
+        if (galacticSendExecutor == null) {
+            synchronized (this.galacticChannelsMap) {
+                if (galacticSendExecutor == null) {
+                    galacticSendExecutor = Executors.newScheduledThreadPool(
+                            Math.max(1, galacticSenderThreads), runnable -> {
+                                Thread thread = new Thread(runnable, "transport-galactic-sender");
+                                thread.setDaemon(true);
+                                return thread;
+                            });
+                }
+            }
+        }
+        return galacticSendExecutor;
+    }
+
+    /**
+     * Starts the bus, enabling the channel reaper if an idle timeout is configured.
+     */
+    public void start() {
+        if (useJazz) {
+            this.logBannerMessage("\uD83C\uDF08", "Starting Transport with id ["
+                    + this.id.toString() + "]");
+        } else {
+            this.logBannerMessage(">>", "Starting Transport with id [" + this.id.toString() + "]");
+        }
+        if (channelReaperIdleTimeout > 0) {
+            this.logDebugMessage("Enabling channel reaper, idle timeout: " + channelReaperIdleTimeout + "ms");
+            this.api.enableChannelReaper(channelReaperIdleTimeout, channelReaperInterval, channelReaperBatchSize);
+        }
+    }
+
+    private MessageHandler createMessageHandler(
+            MessageObjectHandlerConfig config, boolean requestStream) {
+
+        if (!requestStream) {
+            final String channelName = config.getReturnChannel();
+            // Check if the response channel is a galactic channel.
+            GalacticChannelData galacticChannel = galacticChannelsMap.get(channelName);
+            if (galacticChannel != null) {
+                return createMessageHandlerForGalacticResponseChannel(
+                        config, channelName, galacticChannel);
+            }
+        }
+        return new MessageHandlerImpl(requestStream, config, this);
+    }
+
+    private MessageHandler createMessageHandlerForGalacticResponseChannel(
+            MessageObjectHandlerConfig config, String channelName, GalacticChannelData galacticChannel) {
+
+        galacticChannel.addResponseListener(new GalacticMessageHandler() {
+            @Override
+            public void onMessage(Object message) {
+                sendResponseMessage(channelName, message);
+            }
+
+            @Override
+            public void onError(Object error) {
+                sendErrorMessage(channelName, error);
+            }
+        }, galacticChannel.config.getInboundCredits() > 0 ? getGalacticSendExecutor() : null,
+                message -> reportDroppedInboundMessage(channelName, message));
+        return new MessageHandlerImpl(false, config, this,
+                aVoid -> galacticChannel.removeResponseListener());
+    }
+
+    private MessageResponder createMessageResponder(MessageObjectHandlerConfig config) {
+        return new MessageResponderImpl(config, this);
+    }
+
+    private static class ChannelJournalData {
+
+        final ChannelJournal journal;
+        final BusTransaction writer;
+
+        ChannelJournalData(ChannelJournal journal, BusTransaction writer) {
+            this.journal = journal;
+            this.writer = writer;
+        }
+    }
+
+    private static class GalacticChannelData {
+
+        final GalacticChannelConfig config;
+        final MessageBrokerConnector messageBroker;
+
+        BusTransaction requestListener;
+
+        GalacticOutboundQueue outboundQueue;
+
+        GalacticOutbox outbox;
+
+        private volatile boolean closed;
+
+        private MessageBrokerSubscription brokerSubscription;
+
+        private int responseListeners = 0;
+
+        GalacticChannelData(GalacticChannelConfig config, MessageBrokerConnector messageBroker) {
+            this.config = config;
+            this.messageBroker = messageBroker;
+        }
+
+        /**
+         * Called when a new local listener subscribes to the remote galactic channel.
+         * All local listeners share a single MessageBrokerSubscription.
+         */
+        synchronized void addResponseListener(GalacticMessageHandler handler, Executor executor,
+                                              java.util.function.Consumer<Object> dropHandler) {
+            if (brokerSubscription != null) {
+                // We already have a valid subscription to the external MessageBroker
+                // channel, just increase the responseListeners reference counter.
+                responseListeners++;
+            } else if (config.getInboundCredits() > 0) {
+                // This is the first listener, subscribe to the external channel
+                // and deliver messages according to the available credits.
+                GalacticFlowController flowController = new GalacticFlowController(
+                        config.getInboundCredits(), messageBroker, executor, handler, dropHandler);
+                brokerSubscription = messageBroker.subscribeToChannel(config, flowController);
+                flowController.setSubscription(brokerSubscription);
+                responseListeners++;
+            } else {
+                // This is the first listener, subscribe to the external channel.
+                brokerSubscription = messageBroker.subscribeToChannel(config, handler);
+                responseListeners++;
+            }
+        }
+
+        /**
+         * Called when a local listeners is removed.
+         */
+        synchronized void removeResponseListener() {
+            responseListeners--;
+            // Remove response listener. If it was the last one,
+            // unsubscribe from the MessageBroker.
+            if (responseListeners == 0 && brokerSubscription != null) {
+                messageBroker.unsubscribeFromChannel(brokerSubscription);
+                brokerSubscription = null;
+            }
+        }
+
+        boolean isOpen() {
+            return !closed;
+        }
+
+        /**
+         * Unsubscribe from the local request stream and the remote response stream.
+         */
+        synchronized void close() {
+            closed = true;
+            if (requestListener != null) {
+                requestListener.unsubscribe();
+            }
+            if (outboundQueue != null) {
+                outboundQueue.close();
+            }
+            if (outbox != null) {
+                try {
+                    outbox.close();
+                } catch (IOException ex) {
+                    // ignore, the outbox is replayed when the channel is marked as galactic again.
+                }
+            }
+            if (brokerSubscription != null) {
+                messageBroker.unsubscribeFromChannel(brokerSubscription);
+                responseListeners = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2020 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ *
+ */
+package com.vmware.transport.bus.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+
+/**
+ * {@link PayloadCodec} backed by a Jackson {@link ObjectMapper}. The data format
+ * (JSON, Smile, CBOR etc.) is determined by the mapper's JsonFactory.
+ */
+public class JacksonPayloadCodec implements PayloadCodec {
+
+   private final ObjectMapper mapper;
+   private final String contentType;
+
+   public JacksonPayloadCodec(ObjectMapper mapper, String contentType) {
+      this.mapper = mapper;
+      this.contentType = contentType;
+   }
+
+   @Override
+   public String getContentType() {
+      return contentType;
+   }
+
+   @Override
+   public byte[] encode(Object payload) throws IOException {
+      return mapper.writeValueAsBytes(payload);
+   }
+
+   @Override
+   public <T> T decode(byte[] data, Class<T> type) throws IOException {
+      return mapper.readValue(data, type);
+   }
+
+   @Override
+   public boolean isBinary() {
+      // true for Smile and CBOR, false for JSON.
+      return mapper.getFactory().canHandleBinaryNatively();
+   }
+
+   /**
+    * Returns the underlying object mapper.
+    */
+   public ObjectMapper getObjectMapper() {
+      return mapper;
+   }
+
+   public String toString() {
+      return "JacksonPayloadCodec: " + contentType;
+   }
+}
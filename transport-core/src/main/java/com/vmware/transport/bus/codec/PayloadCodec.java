@@ -0,0 +1,47 @@
+/*
+ * Copyright 2020 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ *
+ */
+package com.vmware.transport.bus.codec;
+
+import java.io.IOException;
+
+/**
+ * PayloadCodec encodes message payloads into their wire form and decodes them back.
+ *
+ * Codecs are used as cache keys for the encoded form of a message payload (see
+ * {@link com.vmware.transport.bus.model.Message#getEncodedPayload(PayloadCodec)}), so
+ * implementations should be shared, long lived instances.
+ */
+public interface PayloadCodec {
+
+   /**
+    * Returns the MIME type of the encoded payloads (i.e. "application/json").
+    */
+   String getContentType();
+
+   /**
+    * Encode a payload.
+    *
+    * @param payload, the object to be encoded.
+    * @return the encoded payload.
+    */
+   byte[] encode(Object payload) throws IOException;
+
+   /**
+    * Decode a payload.
+    *
+    * @param data, the encoded payload.
+    * @param type, the type of the decoded object.
+    * @return the decoded payload.
+    */
+   <T> T decode(byte[] data, Class<T> type) throws IOException;
+
+   /**
+    * Returns true if the encoded payloads are binary data rather than text.
+    */
+   default boolean isBinary() {
+      return false;
+   }
+}
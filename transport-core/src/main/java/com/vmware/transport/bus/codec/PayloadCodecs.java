@@ -0,0 +1,71 @@
+/*
+ * Copyright 2020 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ *
+ */
+package com.vmware.transport.bus.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of the available {@link PayloadCodec} instances.
+ *
+ * JSON, Smile and CBOR codecs are always available, custom codecs can be
+ * added with {@link #register(PayloadCodec)}.
+ */
+public class PayloadCodecs {
+
+   public static final String JSON_CONTENT_TYPE = "application/json";
+   public static final String SMILE_CONTENT_TYPE = "application/x-jackson-smile";
+   public static final String CBOR_CONTENT_TYPE = "application/cbor";
+
+   public static final PayloadCodec JSON =
+         new JacksonPayloadCodec(new ObjectMapper(), JSON_CONTENT_TYPE);
+
+   public static final PayloadCodec SMILE =
+         new JacksonPayloadCodec(new ObjectMapper(new SmileFactory()), SMILE_CONTENT_TYPE);
+
+   public static final PayloadCodec CBOR =
+         new JacksonPayloadCodec(new ObjectMapper(new CBORFactory()), CBOR_CONTENT_TYPE);
+
+   private static final Map<String, PayloadCodec> codecs = new ConcurrentHashMap<>();
+
+   static {
+      register(JSON);
+      register(SMILE);
+      register(CBOR);
+   }
+
+   private PayloadCodecs() {}
+
+   /**
+    * Register a codec, replacing any existing codec for the same content type.
+    */
+   public static void register(PayloadCodec codec) {
+      codecs.put(normalize(codec.getContentType()), codec);
+   }
+
+   /**
+    * Returns the codec for a content type or null if there isn't one. Content type
+    * parameters (i.e. ";charset=UTF-8") are ignored.
+    */
+   public static PayloadCodec forContentType(String contentType) {
+      if (contentType == null) {
+         return null;
+      }
+      return codecs.get(normalize(contentType));
+   }
+
+   private static String normalize(String contentType) {
+      int paramsIndex = contentType.indexOf(';');
+      if (paramsIndex >= 0) {
+         contentType = contentType.substring(0, paramsIndex);
+      }
+      return contentType.trim().toLowerCase();
+   }
+}
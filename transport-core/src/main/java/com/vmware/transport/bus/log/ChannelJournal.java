@@ -0,0 +1,279 @@
+/*
+ * Copyright 2020 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ *
+ */
+package com.vmware.transport.bus.log;
+
+import com.vmware.transport.bus.model.Message;
+import com.vmware.transport.bus.model.MessageHeaders;
+import com.vmware.transport.bus.model.MessageObject;
+import com.vmware.transport.bus.model.MessageType;
+import com.vmware.transport.core.util.Loggable;
+import io.reactivex.functions.Consumer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Append-only journal of the response messages of a channel.
+ *
+ * Every journaled message gets a monotonically increasing offset and is stored in a
+ * memory-mapped {@link SegmentedLog}. Subscribers can start reading from any offset which
+ * is still retained: they first receive the journaled messages and then switch to live
+ * delivery, without gaps or duplicates. Delivered messages carry their offset in the
+ * {@link MessageHeaders#JOURNAL_OFFSET} header, which can be used to resume later.
+ *
+ * Live messages are delivered while holding a delivery lock of the journal, which is taken
+ * before the message is journaled: a subscriber receives them in offset order, from one
+ * thread at a time.
+ *
+ * Only the message payloads (see {@link PayloadRecord}) are journaled, not the headers.
+ * The oldest segments are deleted when the journal exceeds its maximum size, or when all
+ * their messages are older than the maximum age.
+ */
+public class ChannelJournal extends Loggable implements Closeable {
+
+    private static final int REPLAY_BATCH_SIZE = 256;
+    private static final long RETENTION_CHECK_INTERVAL = 1000;
+
+    private final String channel;
+    private final ChannelJournalConfig config;
+    private final SegmentedLog log;
+    private final List<Subscriber> liveSubscribers = new CopyOnWriteArrayList<>();
+    private final Object deliveryLock = new Object();
+
+    private long lastRetentionCheck;
+
+    public ChannelJournal(String channel, ChannelJournalConfig config) throws IOException {
+        this.channel = channel;
+        this.config = config;
+        this.log = new SegmentedLog(
+              SegmentedLog.getChannelDirectory(config.getDirectory(), channel),
+              config.getSegmentSize(), config.getMaxSize(), config.getIndexInterval());
+    }
+
+    public String getChannel() {
+        return channel;
+    }
+
+    /**
+     * Returns the offset of the oldest retained message.
+     */
+    public long getFirstOffset() {
+        return log.getFirstSeq();
+    }
+
+    /**
+     * Returns the offset the next journaled message will get.
+     */
+    public long getNextOffset() {
+        return log.getNextSeq();
+    }
+
+    /**
+     * Journal a message and deliver it to the live subscribers.
+     *
+     * @return the offset of the message, or -1 if it could not be journaled.
+     */
+    public long append(Message message) {
+        final byte[] record;
+        try {
+            record = PayloadRecord.encode(message);
+        } catch (IOException | RuntimeException ex) {
+            logErrorMessage("Cannot journal message for channel " + channel, ex.getMessage());
+            return -1;
+        }
+        // The delivery lock is held until the message is delivered, so the next message
+        // is delivered after it.
+        synchronized (deliveryLock) {
+            final long offset;
+            final Object[] subscribers;
+            try {
+                synchronized (this) {
+                    applyTimeRetention();
+                    long seq = log.append(record);
+                    while (seq < 0 && log.deleteOldestSegment()) {
+                        seq = log.append(record);
+                    }
+                    offset = seq;
+                    // Take the snapshot while holding the lock, subscribers which are added
+                    // later read the message from the log.
+                    subscribers = liveSubscribers.toArray();
+                }
+            } catch (IOException | RuntimeException ex) {
+                logErrorMessage("Cannot journal message for channel " + channel, ex.getMessage());
+                return -1;
+            }
+            if (offset < 0) {
+                logErrorMessage("Cannot journal message for channel " + channel, "message exceeds journal size");
+                return -1;
+            }
+            if (subscribers.length > 0) {
+                Message journaled = createMessage(offset, message.getPayload(), message);
+                for (Object subscriber : subscribers) {
+                    ((Subscriber) subscriber).deliver(journaled);
+                }
+            }
+            return offset;
+        }
+    }
+
+    /**
+     * Read journaled messages.
+     *
+     * @param fromOffset offset of the first message, reading starts from the oldest
+     *                   retained message if it is no longer available.
+     * @param maxMessages maximum number of messages to return.
+     */
+    public List<Message> read(long fromOffset, int maxMessages) {
+        List<SegmentedLog.LogRecord> records = log.read(fromOffset, maxMessages);
+        List<Message> messages = new ArrayList<>(records.size());
+        for (SegmentedLog.LogRecord record : records) {
+            Message message = decode(record);
+            if (message != null) {
+                messages.add(message);
+            }
+        }
+        return messages;
+    }
+
+    /**
+     * Replay the journaled messages starting from an offset and then deliver new messages
+     * as they are journaled. The replay runs on the calling thread.
+     *
+     * @return the subscriber, call {@link Subscriber#close()} to stop receiving messages.
+     */
+    public Subscriber subscribe(long fromOffset, Consumer<Message> handler) {
+        Subscriber subscriber = new Subscriber(handler, fromOffset);
+        while (subscriber.isActive()) {
+            List<SegmentedLog.LogRecord> records = log.read(subscriber.nextOffset, REPLAY_BATCH_SIZE);
+            if (records.isEmpty()) {
+                synchronized (this) {
+                    if (subscriber.nextOffset >= log.getNextSeq()) {
+                        liveSubscribers.add(subscriber);
+                        break;
+                    }
+                }
+                // More messages were journaled since the last read.
+                continue;
+            }
+            for (SegmentedLog.LogRecord record : records) {
+                Message message = decode(record);
+                if (message != null) {
+                    subscriber.deliver(message);
+                } else {
+                    subscriber.nextOffset = record.getSeq() + 1;
+                }
+            }
+        }
+        return subscriber;
+    }
+
+    /**
+     * Delete the segments which exceed the retention time.
+     */
+    public synchronized void applyRetention() throws IOException {
+        lastRetentionCheck = 0;
+        applyTimeRetention();
+    }
+
+    /**
+     * Flush the journaled messages to disk.
+     */
+    public void flush() {
+        log.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Subscriber subscriber : liveSubscribers) {
+            subscriber.close();
+        }
+        log.close();
+    }
+
+    // Must be called while holding the lock.
+    private void applyTimeRetention() throws IOException {
+        long maxAge = config.getMaxAgeMillis();
+        long now = System.currentTimeMillis();
+        if (maxAge > 0 && now - lastRetentionCheck >= RETENTION_CHECK_INTERVAL) {
+            lastRetentionCheck = now;
+            log.deleteSegmentsOlderThan(now - maxAge);
+        }
+    }
+
+    private Message decode(SegmentedLog.LogRecord record) {
+        try {
+            return createMessage(record.getSeq(), PayloadRecord.decode(record.getData()), null);
+        } catch (IOException ex) {
+            logErrorMessage("Skipping invalid journal message of channel " + channel,
+                  String.valueOf(record.getSeq()));
+            return null;
+        }
+    }
+
+    private Message createMessage(long offset, Object payload, Message source) {
+        MessageObject<Object> message = new MessageObject<>(MessageType.MessageTypeResponse, payload);
+        MessageHeaders headers = MessageHeaders.newInstance();
+        if (source != null) {
+            message.setId(source.getId());
+            if (source.getHeaders() != null) {
+                for (Map.Entry<String, Object> header : source.getHeaders().getHeadersMap().entrySet()) {
+                    headers.setHeader(header.getKey(), header.getValue());
+                }
+            }
+        }
+        headers.setHeader(MessageHeaders.JOURNAL_OFFSET, offset);
+        message.setHeaders(headers);
+        return message;
+    }
+
+    /**
+     * A journal subscriber.
+     */
+    public class Subscriber {
+
+        private final Consumer<Message> handler;
+        private long nextOffset;
+        private volatile boolean active = true;
+
+        Subscriber(Consumer<Message> handler, long fromOffset) {
+            this.handler = handler;
+            this.nextOffset = fromOffset;
+        }
+
+        public boolean isActive() {
+            return active;
+        }
+
+        /**
+         * Returns the offset of the next message the subscriber will receive.
+         */
+        public long getNextOffset() {
+            return nextOffset;
+        }
+
+        public void close() {
+            active = false;
+            liveSubscribers.remove(this);
+        }
+
+        void deliver(Message message) {
+            long offset = (Long) message.getHeader(MessageHeaders.JOURNAL_OFFSET);
+            if (!active || offset < nextOffset) {
+                return;
+            }
+            nextOffset = offset + 1;
+            try {
+                handler.accept(message);
+            } catch (Exception ex) {
+                logErrorMessage("Journal subscriber of channel " + channel + " failed", ex.getMessage());
+            }
+        }
+    }
+}
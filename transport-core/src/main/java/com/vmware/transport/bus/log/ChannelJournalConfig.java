@@ -0,0 +1,51 @@
+/*
+ * Copyright 2020 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ *
+ */
+package com.vmware.transport.bus.log;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Configuration of a {@link ChannelJournal}.
+ */
+public class ChannelJournalConfig {
+
+    /**
+     * Directory of the journal segment files.
+     */
+    @Getter
+    private final String directory;
+
+    /**
+     * Size of the journal segment files, in bytes.
+     */
+    @Getter @Setter
+    private int segmentSize = 16 * 1024 * 1024;
+
+    /**
+     * Maximum size of the journal, in bytes. The oldest segments are deleted
+     * when the journal grows beyond this size.
+     */
+    @Getter @Setter
+    private long maxSize = 256L * 1024 * 1024;
+
+    /**
+     * Maximum age of journaled messages, in milliseconds. Segments containing only
+     * older messages are deleted. 0 (the default) keeps messages regardless of their age.
+     */
+    @Getter @Setter
+    private long maxAgeMillis = 0;
+
+    /**
+     * Number of bytes between two entries of the sparse offset index.
+     */
+    @Getter @Setter
+    private int indexInterval = SegmentedLog.DEFAULT_INDEX_INTERVAL;
+
+    public ChannelJournalConfig(String directory) {
+        this.directory = directory;
+    }
+}
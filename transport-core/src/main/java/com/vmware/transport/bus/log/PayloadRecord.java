@@ -0,0 +1,59 @@
+/*
+ * Copyright 2020 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ *
+ */
+package com.vmware.transport.bus.log;
+
+import com.vmware.transport.bus.codec.PayloadCodec;
+import com.vmware.transport.bus.codec.PayloadCodecs;
+import com.vmware.transport.bus.model.Message;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Binary form of message payloads stored in a {@link SegmentedLog}.
+ *
+ * Payloads are stored in JSON together with their class name, and are decoded back to the
+ * same class when it is available (otherwise to the generic JSON representation).
+ */
+public final class PayloadRecord {
+
+    private static final PayloadCodec codec = PayloadCodecs.JSON;
+
+    private PayloadRecord() {
+    }
+
+    /**
+     * Encode the payload of a message, reusing its cached JSON form.
+     */
+    public static byte[] encode(Message message) throws IOException {
+        Object payload = message.getPayload();
+        byte[] className = payload == null ? new byte[0] :
+              payload.getClass().getName().getBytes(StandardCharsets.UTF_8);
+        byte[] data = message.getEncodedPayload(codec);
+        ByteBuffer record = ByteBuffer.allocate(Short.BYTES + className.length + data.length);
+        record.putShort((short) className.length).put(className).put(data);
+        return record.array();
+    }
+
+    /**
+     * Decode a payload encoded with {@link #encode(Message)}.
+     */
+    public static Object decode(byte[] record) throws IOException {
+        int classNameLength = ByteBuffer.wrap(record).getShort();
+        String className = new String(record, Short.BYTES, classNameLength, StandardCharsets.UTF_8);
+        byte[] data = Arrays.copyOfRange(record, Short.BYTES + classNameLength, record.length);
+        if (!className.isEmpty()) {
+            try {
+                return codec.decode(data, Class.forName(className, false, PayloadRecord.class.getClassLoader()));
+            } catch (ClassNotFoundException | IOException ex) {
+                // Fall back to the generic JSON representation.
+            }
+        }
+        return codec.decode(data, Object.class);
+    }
+}
@@ -0,0 +1,486 @@
+/*
+ * Copyright 2020 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ *
+ */
+package com.vmware.transport.bus.log;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of binary records stored in memory-mapped segment files.
+ *
+ * Each record gets a sequence number, starting at 0 and increasing by one for every
+ * appended record. Records are appended to the active (last) segment; when it is full a
+ * new segment, named after the sequence number of its first record, is created.
+ * Old segments can be removed with {@link #deleteSegmentsBefore(long)}.
+ *
+ * Each record is stored as: record size (int), CRC32 of the data (int), sequence number (long),
+ * timestamp (long), data. A zero size marks the end of the segment. When an existing log
+ * is opened, each segment is scanned up to the first invalid record, so a record which was
+ * only partially written before a crash is discarded.
+ *
+ * Each segment keeps a sparse in-memory index with the position of a record every
+ * {@code indexInterval} bytes, so reading from a sequence number only scans the
+ * records following the closest indexed one.
+ *
+ * This class is thread safe.
+ */
+public class SegmentedLog implements Closeable {
+
+    static final int RECORD_HEADER_SIZE = 24;
+
+    public static final int DEFAULT_INDEX_INTERVAL = 4096;
+
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final long maxSize;
+    private final int indexInterval;
+
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+
+    private long nextSeq;
+    private long sizeOnDisk;
+    private boolean closed;
+
+    /**
+     * Open the log stored in a directory, creating the directory if needed.
+     *
+     * @param directory the directory containing the segment files.
+     * @param segmentSize size of a segment file, in bytes.
+     * @param maxSize maximum size of all segment files, in bytes. Appends which
+     *                need a new segment beyond this size are rejected.
+     */
+    public SegmentedLog(Path directory, int segmentSize, long maxSize) throws IOException {
+        this(directory, segmentSize, maxSize, DEFAULT_INDEX_INTERVAL);
+    }
+
+    /**
+     * Open the log stored in a directory, creating the directory if needed.
+     *
+     * @param directory the directory containing the segment files.
+     * @param segmentSize size of a segment file, in bytes.
+     * @param maxSize maximum size of all segment files, in bytes. Appends which
+     *                need a new segment beyond this size are rejected.
+     * @param indexInterval number of bytes between two entries of the sparse segment index.
+     */
+    public SegmentedLog(Path directory, int segmentSize, long maxSize, int indexInterval) throws IOException {
+        if (segmentSize <= RECORD_HEADER_SIZE) {
+            throw new IllegalArgumentException("Invalid segment size: " + segmentSize);
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxSize = maxSize;
+        this.indexInterval = Math.max(1, indexInterval);
+        Files.createDirectories(directory);
+        recover();
+    }
+
+    /**
+     * Returns the directory of the log of a channel. The channel name is URL-encoded, so
+     * distinct channels never share a directory.
+     *
+     * @param parent the directory containing the logs of the channels.
+     * @param channel the name of the channel.
+     */
+    public static Path getChannelDirectory(String parent, String channel) {
+        String name = URLEncoder.encode(channel, StandardCharsets.UTF_8).replace("*", "%2A");
+        if (name.startsWith(".")) {
+            // not a relative path.
+            name = "%2E" + name.substring(1);
+        }
+        return Paths.get(parent, name);
+    }
+
+    /**
+     * Append a record.
+     *
+     * @return the sequence number of the record, or -1 if the log reached its maximum size.
+     */
+    public synchronized long append(byte[] data) throws IOException {
+        checkOpen();
+        int recordSize = RECORD_HEADER_SIZE + data.length;
+        Segment active = segments.isEmpty() ? null : segments.lastEntry().getValue();
+        if (active == null || active.remaining() < recordSize + 4) {
+            if (active != null && active.isEmpty()) {
+                // The empty active segment is too small for the record, replace it.
+                segments.remove(active.baseSeq);
+                active.delete();
+                sizeOnDisk -= active.capacity;
+            }
+            int newSegmentSize = Math.max(segmentSize, recordSize + 4);
+            if (sizeOnDisk + newSegmentSize > maxSize) {
+                return -1;
+            }
+            active = createSegment(nextSeq, newSegmentSize);
+        }
+        long seq = nextSeq++;
+        active.append(seq, System.currentTimeMillis(), data);
+        return seq;
+    }
+
+    /**
+     * Read records starting from a sequence number.
+     *
+     * @param fromSeq sequence number of the first record to read. If the record was
+     *                already deleted, reading starts from the first available record.
+     * @param maxRecords maximum number of records to return.
+     */
+    public synchronized List<LogRecord> read(long fromSeq, int maxRecords) {
+        checkOpen();
+        List<LogRecord> result = new ArrayList<>(Math.min(maxRecords, 64));
+        Map.Entry<Long, Segment> entry = segments.floorEntry(fromSeq);
+        if (entry == null) {
+            entry = segments.firstEntry();
+        }
+        while (entry != null && result.size() < maxRecords) {
+            entry.getValue().read(fromSeq, maxRecords, result);
+            entry = segments.higherEntry(entry.getKey());
+        }
+        return result;
+    }
+
+    /**
+     * Delete the segments which contain only records with sequence numbers lower than
+     * the given one. The active segment is never deleted.
+     *
+     * @return the number of deleted segments.
+     */
+    public synchronized int deleteSegmentsBefore(long seq) throws IOException {
+        checkOpen();
+        int deleted = 0;
+        Iterator<Map.Entry<Long, Segment>> it = segments.entrySet().iterator();
+        while (it.hasNext()) {
+            Segment segment = it.next().getValue();
+            Long nextBase = segments.higherKey(segment.baseSeq);
+            if (nextBase == null || nextBase > seq) {
+                break;
+            }
+            it.remove();
+            segment.delete();
+            sizeOnDisk -= segment.capacity;
+            deleted++;
+        }
+        return deleted;
+    }
+
+    /**
+     * Delete the oldest segment, unless it is the active one.
+     *
+     * @return true if a segment was deleted.
+     */
+    public synchronized boolean deleteOldestSegment() throws IOException {
+        checkOpen();
+        if (segments.size() < 2) {
+            return false;
+        }
+        deleteSegmentsBefore(segments.higherKey(segments.firstKey()));
+        return true;
+    }
+
+    /**
+     * Delete the segments whose last record was appended before the given time.
+     * The active segment is never deleted.
+     *
+     * @param timestamp time in milliseconds since the epoch.
+     * @return the number of deleted segments.
+     */
+    public synchronized int deleteSegmentsOlderThan(long timestamp) throws IOException {
+        checkOpen();
+        long deleteBefore = -1;
+        for (Map.Entry<Long, Segment> entry : segments.entrySet()) {
+            Long nextBase = segments.higherKey(entry.getKey());
+            if (nextBase == null || entry.getValue().lastTimestamp >= timestamp) {
+                break;
+            }
+            deleteBefore = nextBase;
+        }
+        return deleteBefore < 0 ? 0 : deleteSegmentsBefore(deleteBefore);
+    }
+
+    /**
+     * Returns the sequence number of the first record in the log.
+     */
+    public synchronized long getFirstSeq() {
+        return segments.isEmpty() ? nextSeq : segments.firstKey();
+    }
+
+    /**
+     * Returns the sequence number the next appended record will get.
+     */
+    public synchronized long getNextSeq() {
+        return nextSeq;
+    }
+
+    /**
+     * Returns the total size of the segment files, in bytes.
+     */
+    public synchronized long getSizeOnDisk() {
+        return sizeOnDisk;
+    }
+
+    /**
+     * Returns the number of segment files.
+     */
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Flush the appended records to disk.
+     */
+    public synchronized void flush() {
+        if (!closed && !segments.isEmpty()) {
+            segments.lastEntry().getValue().buffer.force();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (Segment segment : segments.values()) {
+            segment.close();
+        }
+        segments.clear();
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Log is closed: " + directory);
+        }
+    }
+
+    private void recover() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                long baseSeq;
+                try {
+                    baseSeq = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+                } catch (NumberFormatException ex) {
+                    continue;
+                }
+                Segment segment = new Segment(file, baseSeq, (int) Files.size(file), indexInterval);
+                segments.put(baseSeq, segment);
+                sizeOnDisk += segment.capacity;
+            }
+        }
+        nextSeq = segments.isEmpty() ? 0 : segments.firstKey();
+        for (Segment segment : segments.values()) {
+            nextSeq = Math.max(nextSeq, segment.recover());
+        }
+    }
+
+    private Segment createSegment(long baseSeq, int capacity) throws IOException {
+        Path file = directory.resolve(String.format("%020d%s", baseSeq, SEGMENT_SUFFIX));
+        Segment segment = new Segment(file, baseSeq, capacity, indexInterval);
+        segments.put(baseSeq, segment);
+        sizeOnDisk += capacity;
+        return segment;
+    }
+
+    /**
+     * A record read from the log.
+     */
+    public static class LogRecord {
+
+        private final long seq;
+        private final long timestamp;
+        private final byte[] data;
+
+        LogRecord(long seq, long timestamp, byte[] data) {
+            this.seq = seq;
+            this.timestamp = timestamp;
+            this.data = data;
+        }
+
+        public long getSeq() {
+            return seq;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public byte[] getData() {
+            return data;
+        }
+    }
+
+    private static class Segment {
+
+        final Path file;
+        final long baseSeq;
+        final int capacity;
+        final int indexInterval;
+        final FileChannel fileChannel;
+        final MappedByteBuffer buffer;
+
+        int writePosition;
+        long lastTimestamp;
+
+        // Sparse index: sequence number and position of a record every indexInterval bytes.
+        long[] indexSeqs = new long[16];
+        int[] indexPositions = new int[16];
+        int indexSize;
+        int lastIndexedPosition;
+
+        Segment(Path file, long baseSeq, int capacity, int indexInterval) throws IOException {
+            this.file = file;
+            this.baseSeq = baseSeq;
+            this.capacity = capacity;
+            this.indexInterval = indexInterval;
+            this.fileChannel = FileChannel.open(file,
+                  StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.buffer = fileChannel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+            this.lastTimestamp = Files.getLastModifiedTime(file).toMillis();
+        }
+
+        int remaining() {
+            return capacity - writePosition;
+        }
+
+        boolean isEmpty() {
+            return writePosition == 0;
+        }
+
+        void append(long seq, long timestamp, byte[] data) {
+            CRC32 crc = new CRC32();
+            crc.update(data);
+            int pos = writePosition;
+            buffer.putInt(pos + 4, (int) crc.getValue());
+            buffer.putLong(pos + 8, seq);
+            buffer.putLong(pos + 16, timestamp);
+            ByteBuffer dataBuffer = buffer.duplicate();
+            dataBuffer.position(pos + RECORD_HEADER_SIZE);
+            dataBuffer.put(data);
+            // Write the size last, so that a partially written record is never seen as valid.
+            buffer.putInt(pos, RECORD_HEADER_SIZE + data.length);
+            addIndexEntry(seq, pos);
+            writePosition = pos + RECORD_HEADER_SIZE + data.length;
+            lastTimestamp = timestamp;
+        }
+
+        void read(long fromSeq, int maxRecords, List<LogRecord> result) {
+            int pos = findPosition(fromSeq);
+            while (pos < writePosition && result.size() < maxRecords) {
+                int size = buffer.getInt(pos);
+                long seq = buffer.getLong(pos + 8);
+                if (seq >= fromSeq) {
+                    byte[] data = new byte[size - RECORD_HEADER_SIZE];
+                    ByteBuffer dataBuffer = buffer.duplicate();
+                    dataBuffer.position(pos + RECORD_HEADER_SIZE);
+                    dataBuffer.get(data);
+                    result.add(new LogRecord(seq, buffer.getLong(pos + 16), data));
+                }
+                pos += size;
+            }
+        }
+
+        /**
+         * Returns the position of the last indexed record with a sequence number lower
+         * than or equal to the given one, reading can start from there.
+         */
+        int findPosition(long seq) {
+            int low = 0;
+            int high = indexSize - 1;
+            int pos = 0;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (indexSeqs[mid] <= seq) {
+                    pos = indexPositions[mid];
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return pos;
+        }
+
+        private void addIndexEntry(long seq, int pos) {
+            if (indexSize > 0 && pos - lastIndexedPosition < indexInterval) {
+                return;
+            }
+            if (indexSize == indexSeqs.length) {
+                indexSeqs = Arrays.copyOf(indexSeqs, indexSize * 2);
+                indexPositions = Arrays.copyOf(indexPositions, indexSize * 2);
+            }
+            indexSeqs[indexSize] = seq;
+            indexPositions[indexSize] = pos;
+            indexSize++;
+            lastIndexedPosition = pos;
+        }
+
+        /**
+         * Scan the segment for valid records.
+         *
+         * @return the sequence number following the last valid record.
+         */
+        long recover() {
+            int pos = 0;
+            long nextSeq = baseSeq;
+            while (pos + RECORD_HEADER_SIZE <= capacity) {
+                int size = buffer.getInt(pos);
+                if (size < RECORD_HEADER_SIZE || pos + size > capacity
+                      || buffer.getLong(pos + 8) != nextSeq) {
+                    break;
+                }
+                ByteBuffer dataBuffer = buffer.duplicate();
+                dataBuffer.position(pos + RECORD_HEADER_SIZE);
+                dataBuffer.limit(pos + size);
+                CRC32 crc = new CRC32();
+                crc.update(dataBuffer);
+                if ((int) crc.getValue() != buffer.getInt(pos + 4)) {
+                    break;
+                }
+                addIndexEntry(nextSeq, pos);
+                lastTimestamp = buffer.getLong(pos + 16);
+                nextSeq++;
+                pos += size;
+            }
+            writePosition = pos;
+            // Clear the remains of a partially written record.
+            if (pos + 4 <= capacity) {
+                buffer.putInt(pos, 0);
+            }
+            return nextSeq;
+        }
+
+        void close() throws IOException {
+            buffer.force();
+            fileChannel.close();
+        }
+
+        void delete() throws IOException {
+            fileChannel.close();
+            Files.deleteIfExists(file);
+        }
+    }
+}
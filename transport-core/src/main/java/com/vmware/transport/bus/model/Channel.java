@@ -25,6 +25,7 @@ public class Channel {
     private String name;
     private AtomicInteger refCount = new AtomicInteger(0);
     private Boolean closed;
+    private volatile long lastActive;
 
     private Subject<Message> streamObject;
 
@@ -33,6 +34,7 @@ public class Channel {
         this.name = name;
         streamObject = PublishSubject.create();
         closed = false;
+        touch();
     }
 
     public Integer getRefCount() {
@@ -54,7 +56,29 @@ public class Channel {
         return closed;
     }
 
+    /**
+     * Returns the time (in milliseconds) the channel was last referenced or sent a message.
+     */
+    public long getLastActive() {
+        return lastActive;
+    }
+
+    /**
+     * Mark the channel as active, idle channels are eligible for eviction by the channel reaper.
+     */
+    public void touch() {
+        lastActive = System.currentTimeMillis();
+    }
+
+    /**
+     * Returns true if there are active subscribers to the channel stream.
+     */
+    public boolean hasObservers() {
+        return streamObject.hasObservers();
+    }
+
     public void send(Message messageObject) {
+        touch();
         streamObject.onNext(messageObject);
     }
 
@@ -68,6 +92,7 @@ public class Channel {
     }
 
     public Integer increment() {
+        touch();
         return refCount.incrementAndGet();
     }
 
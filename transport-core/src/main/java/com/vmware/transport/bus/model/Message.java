@@ -6,7 +6,9 @@
 package com.vmware.transport.bus.model;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.vmware.transport.bus.codec.PayloadCodec;
 
+import java.io.IOException;
 import java.util.UUID;
 
 public interface Message<T> {
@@ -21,6 +23,15 @@ public interface Message<T> {
 
     String getPayloadAsString() throws JsonProcessingException;
 
+    /**
+     * Returns the payload encoded with the given codec. {@link MessageObject} computes the encoded
+     * form once per codec and caches it, so a message delivered to many destinations is encoded only once.
+     * The returned array may be shared and must not be modified.
+     */
+    default byte[] getEncodedPayload(PayloadCodec codec) throws IOException {
+        return codec.encode(getPayload());
+    }
+
     void setPayloadClass(Class<T> payloadClass);
 
     Class<T> getPayloadClass();
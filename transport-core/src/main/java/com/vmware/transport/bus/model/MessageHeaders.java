@@ -18,6 +18,11 @@ public class MessageHeaders {
     public static final String EXTERNAL_MESSAGE_BROKER_DESTINATION =
           "ext-msg-broker-destination";
 
+    /**
+     * Offset of a message in the channel journal.
+     */
+    public static final String JOURNAL_OFFSET = "journal-offset";
+
     private final Map<String, Object> headers;
 
     MessageHeaders() {
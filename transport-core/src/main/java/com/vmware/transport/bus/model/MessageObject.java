@@ -6,20 +6,20 @@
 package com.vmware.transport.bus.model;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.vmware.transport.bus.codec.PayloadCodec;
+import com.vmware.transport.bus.codec.PayloadCodecs;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class MessageObject<T> implements Message<T> {
 
-    private static final ObjectMapper objectMapper;
-
-    static {
-        objectMapper = new ObjectMapper();
-    }
-
     @Setter
     @Getter
     private String targetUser;
@@ -32,10 +32,12 @@ public class MessageObject<T> implements Message<T> {
     @Getter
     protected Class<T> payloadClass;
 
-    @Setter
     @Getter
     protected T payload;
 
+    // Encoded forms of the payload, computed lazily once per codec.
+    private volatile Map<PayloadCodec, byte[]> encodedPayloads;
+
     @Getter
     @Setter
     protected UUID id;
@@ -55,6 +57,11 @@ public class MessageObject<T> implements Message<T> {
 
     }
 
+    public void setPayload(T payload) {
+        this.payload = payload;
+        this.encodedPayloads = null;
+    }
+
     public boolean isRequest() {
         return this.type == MessageType.MessageTypeRequest;
     }
@@ -78,7 +85,32 @@ public class MessageObject<T> implements Message<T> {
         if (payload instanceof String) {
             return (String) payload;
         }
-        return MessageObject.objectMapper.writeValueAsString(payload);
+        try {
+            return new String(getEncodedPayload(PayloadCodecs.JSON), StandardCharsets.UTF_8);
+        } catch (JsonProcessingException ex) {
+            throw ex;
+        } catch (IOException ex) {
+            throw new JsonMappingException(null, ex.getMessage(), ex);
+        }
+    }
+
+    public byte[] getEncodedPayload(PayloadCodec codec) throws IOException {
+        Map<PayloadCodec, byte[]> encoded = this.encodedPayloads;
+        if (encoded == null) {
+            synchronized (this) {
+                encoded = this.encodedPayloads;
+                if (encoded == null) {
+                    encoded = new ConcurrentHashMap<>(2);
+                    this.encodedPayloads = encoded;
+                }
+            }
+        }
+        byte[] data = encoded.get(codec);
+        if (data == null) {
+            data = codec.encode(payload);
+            encoded.put(codec, data);
+        }
+        return data;
     }
 
     public String toString() {
@@ -9,10 +9,12 @@ public enum MonitorType {
     MonitorCloseChannel,
     MonitorCompleteChannel,
     MonitorDestroyChannel,
+    MonitorEvictChannel,
     MonitorNewChannel,
     MonitorData,
     MonitorError,
     MonitorDropped,
     MonitorNewBridgeSubscription,
-    MonitorNewGalacticChannel
+    MonitorNewGalacticChannel,
+    MonitorSlowConsumer
 }
@@ -12,14 +12,11 @@ import com.vmware.transport.bus.store.model.StoreReadyResult;
 import com.vmware.transport.core.util.Loggable;
 import io.reactivex.functions.Consumer;
 import org.apache.commons.lang3.ArrayUtils;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.stereotype.Component;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
-@Component("storeManager")
 @SuppressWarnings("unchecked")
 public class StoreManager extends Loggable implements BusStoreApi {
 
@@ -27,7 +24,6 @@ public class StoreManager extends Loggable implements BusStoreApi {
    private EventBus bus;
 
 
-   @Autowired
    public StoreManager(EventBus bus) {
       this.storeMap = new ConcurrentHashMap<>();
       this.bus = bus;
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2020 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ *
+ */
+package com.vmware.transport.core.index;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Controller method mapped to a path, as recorded in the route index by {@link TransportIndexProcessor}.
+ */
+public class RouteDefinition {
+
+    private static final String FIELD_SEPARATOR = "\t";
+    private static final String LIST_SEPARATOR = ",";
+    private static final String PARAMETER_SEPARATOR = ":";
+
+    @Getter
+    private final String controllerClassName;
+
+    @Getter
+    private final String methodName;
+
+    /**
+     * Request methods handled by the route, empty if the route handles all methods.
+     */
+    @Getter
+    private final List<String> requestMethods;
+
+    @Getter
+    private final String path;
+
+    @Getter
+    private final List<ParameterDefinition> parameters;
+
+    public RouteDefinition(String controllerClassName, String methodName, List<String> requestMethods,
+                           String path, List<ParameterDefinition> parameters) {
+        this.controllerClassName = controllerClassName;
+        this.methodName = methodName;
+        this.requestMethods = Collections.unmodifiableList(requestMethods);
+        this.path = path;
+        this.parameters = Collections.unmodifiableList(parameters);
+    }
+
+    /**
+     * Returns the index line of the route.
+     */
+    public String toIndexLine() {
+        StringBuilder parameterList = new StringBuilder();
+        for (ParameterDefinition parameter : parameters) {
+            if (parameterList.length() > 0) {
+                parameterList.append(LIST_SEPARATOR);
+            }
+            parameterList.append(parameter.getName()).append(PARAMETER_SEPARATOR)
+                  .append(parameter.getTypeName()).append(PARAMETER_SEPARATOR)
+                  .append(parameter.getAnnotationTypeName() != null ? parameter.getAnnotationTypeName() : "");
+        }
+        return String.join(FIELD_SEPARATOR, controllerClassName, methodName,
+              String.join(LIST_SEPARATOR, requestMethods), path, parameterList);
+    }
+
+    /**
+     * Parses a line of the route index.
+     *
+     * @param line the index line
+     * @return the route definition
+     * @throws IllegalArgumentException if the line is not a valid route definition
+     */
+    public static RouteDefinition fromIndexLine(String line) {
+        String[] fields = line.split(FIELD_SEPARATOR, -1);
+        if (fields.length != 5) {
+            throw new IllegalArgumentException("Invalid route definition: " + line);
+        }
+        List<String> requestMethods = new ArrayList<>();
+        for (String requestMethod : fields[2].split(LIST_SEPARATOR)) {
+            if (!requestMethod.isEmpty()) {
+                requestMethods.add(requestMethod);
+            }
+        }
+        List<ParameterDefinition> parameters = new ArrayList<>();
+        for (String parameter : fields[4].split(LIST_SEPARATOR)) {
+            if (parameter.isEmpty()) {
+                continue;
+            }
+            String[] parts = parameter.split(PARAMETER_SEPARATOR, -1);
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Invalid route parameter: " + line);
+            }
+            parameters.add(new ParameterDefinition(parts[0], parts[1], parts[2].isEmpty() ? null : parts[2]));
+        }
+        return new RouteDefinition(fields[0], fields[1], requestMethods, fields[3], parameters);
+    }
+
+    /**
+     * Parameter of a controller method.
+     */
+    public static class ParameterDefinition {
+
+        @Getter
+        private final String name;
+
+        /**
+         * Binary name of the parameter type, as accepted by {@link Class#forName(String)}, or the
+         * name of a primitive type.
+         */
+        @Getter
+        private final String typeName;
+
+        /**
+         * Name of the web binding annotation of the parameter, null if there is none.
+         */
+        @Getter
+        private final String annotationTypeName;
+
+        public ParameterDefinition(String name, String typeName, String annotationTypeName) {
+            this.name = name;
+            this.typeName = typeName;
+            this.annotationTypeName = annotationTypeName;
+        }
+    }
+}
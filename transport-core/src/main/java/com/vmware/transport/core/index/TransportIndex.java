@@ -0,0 +1,90 @@
+/*
+ * Copyright 2020 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ *
+ */
+package com.vmware.transport.core.index;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Transport services and REST controller routes recorded at build time by {@link TransportIndexProcessor}.
+ *
+ * The index of every jar (or classes directory) on the class path is loaded, so modules can be
+ * processed separately.
+ */
+public class TransportIndex {
+
+    public static final String SERVICES_INDEX = "META-INF/transport/services.index";
+    public static final String ROUTES_INDEX = "META-INF/transport/routes.index";
+
+    private final List<String> serviceClassNames;
+    private final List<RouteDefinition> routes;
+
+    TransportIndex(List<String> serviceClassNames, List<RouteDefinition> routes) {
+        this.serviceClassNames = Collections.unmodifiableList(serviceClassNames);
+        this.routes = Collections.unmodifiableList(routes);
+    }
+
+    /**
+     * Loads the indexes visible to a class loader.
+     *
+     * @param classLoader the class loader to load the indexes with
+     * @return the merged index
+     * @throws IllegalStateException if an index cannot be read
+     */
+    public static TransportIndex load(ClassLoader classLoader) {
+        List<String> serviceClassNames = new ArrayList<>(readLines(classLoader, SERVICES_INDEX));
+        List<RouteDefinition> routes = new ArrayList<>();
+        for (String line : readLines(classLoader, ROUTES_INDEX)) {
+            routes.add(RouteDefinition.fromIndexLine(line));
+        }
+        return new TransportIndex(serviceClassNames, routes);
+    }
+
+    /**
+     * Returns the names of the classes annotated with TransportService.
+     */
+    public List<String> getServiceClassNames() {
+        return serviceClassNames;
+    }
+
+    /**
+     * Returns the routes of the classes annotated with RestController.
+     */
+    public List<RouteDefinition> getRoutes() {
+        return routes;
+    }
+
+    private static Set<String> readLines(ClassLoader classLoader, String resourceName) {
+        Set<String> lines = new LinkedHashSet<>();
+        try {
+            Enumeration<URL> resources = classLoader.getResources(resourceName);
+            while (resources.hasMoreElements()) {
+                URL resource = resources.nextElement();
+                try (BufferedReader reader = new BufferedReader(
+                      new InputStreamReader(resource.openStream(), StandardCharsets.UTF_8))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        if (!line.isEmpty() && !line.startsWith("#")) {
+                            lines.add(line);
+                        }
+                    }
+                }
+            }
+        } catch (IOException ex) {
+            throw new IllegalStateException("Unable to read Transport index " + resourceName, ex);
+        }
+        return lines;
+    }
+}
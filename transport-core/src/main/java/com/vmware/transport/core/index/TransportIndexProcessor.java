@@ -0,0 +1,335 @@
+/*
+ * Copyright 2020 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ *
+ */
+package com.vmware.transport.core.index;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Annotation processor recording the Transport services and the REST controller routes of a module
+ * in the {@link TransportIndex}, so they don't have to be discovered with reflection at runtime.
+ *
+ * Add the processor jar of transport-core to the annotation processor path of the modules declaring
+ * services or controllers, and enable the index with the transport.index.enabled property. The
+ * processor is not registered in the main transport-core jar.
+ *
+ * The processor only refers to the Spring annotations by name, it does not depend on Spring.
+ *
+ * The index of an incremental compilation (an IDE build for instance) is merged with the index
+ * already in the class output: the lines of the classes compiled again are replaced, the lines of
+ * the classes which no longer exist are dropped.
+ */
+@SupportedAnnotationTypes("*")
+public class TransportIndexProcessor extends AbstractProcessor {
+
+    static final String TRANSPORT_SERVICE = "com.vmware.transport.bridge.spring.TransportService";
+    static final String REST_CONTROLLER = "org.springframework.web.bind.annotation.RestController";
+
+    private static final String WEB_ANNOTATIONS = "org.springframework.web.bind.annotation.";
+    private static final String REQUEST_MAPPING = WEB_ANNOTATIONS + "RequestMapping";
+
+    // Shortcut mapping annotations and the request method they handle.
+    private static final String[][] METHOD_MAPPINGS = {
+            { WEB_ANNOTATIONS + "GetMapping", "GET" },
+            { WEB_ANNOTATIONS + "PostMapping", "POST" },
+            { WEB_ANNOTATIONS + "PutMapping", "PUT" },
+            { WEB_ANNOTATIONS + "PatchMapping", "PATCH" },
+            { WEB_ANNOTATIONS + "DeleteMapping", "DELETE" }
+    };
+
+    private static final Set<String> PARAMETER_ANNOTATIONS = Set.of(
+            WEB_ANNOTATIONS + "PathVariable",
+            WEB_ANNOTATIONS + "RequestParam",
+            WEB_ANNOTATIONS + "RequestBody",
+            WEB_ANNOTATIONS + "RequestHeader");
+
+    private final Set<String> serviceLines = new LinkedHashSet<>();
+    private final Set<String> routeLines = new LinkedHashSet<>();
+    private final Set<String> processedClasses = new HashSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            writeIndex(TransportIndex.SERVICES_INDEX, serviceLines);
+            writeIndex(TransportIndex.ROUTES_INDEX, routeLines);
+            return false;
+        }
+
+        for (TypeElement type : ElementFilter.typesIn(roundEnv.getRootElements())) {
+            addProcessedClass(type);
+        }
+
+        // TransportService is inherited, so the services extending AbstractBase are included.
+        for (TypeElement type : getAnnotatedClasses(roundEnv, TRANSPORT_SERVICE)) {
+            if (!type.getModifiers().contains(Modifier.ABSTRACT)) {
+                serviceLines.add(getBinaryName(type));
+            }
+        }
+        for (TypeElement type : getAnnotatedClasses(roundEnv, REST_CONTROLLER)) {
+            for (RouteDefinition route : getRoutes(type)) {
+                routeLines.add(route.toIndexLine());
+            }
+        }
+
+        // never claim the annotations, other processors may need them.
+        return false;
+    }
+
+    private void addProcessedClass(TypeElement type) {
+        processedClasses.add(getBinaryName(type));
+        for (TypeElement nested : ElementFilter.typesIn(type.getEnclosedElements())) {
+            addProcessedClass(nested);
+        }
+    }
+
+    private Collection<TypeElement> getAnnotatedClasses(RoundEnvironment roundEnv, String annotationName) {
+        TypeElement annotation = processingEnv.getElementUtils().getTypeElement(annotationName);
+        if (annotation == null) {
+            return Collections.emptyList();
+        }
+        List<TypeElement> classes = new ArrayList<>();
+        for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+            if (element.getKind() == ElementKind.CLASS) {
+                classes.add((TypeElement) element);
+            }
+        }
+        return classes;
+    }
+
+    private List<RouteDefinition> getRoutes(TypeElement controller) {
+        List<String> prefixes = getPaths(findAnnotation(controller, REQUEST_MAPPING));
+        if (prefixes.isEmpty()) {
+            prefixes = Collections.singletonList("");
+        }
+
+        List<RouteDefinition> routes = new ArrayList<>();
+        for (ExecutableElement method : ElementFilter.methodsIn(controller.getEnclosedElements())) {
+            List<String> requestMethods = new ArrayList<>();
+            AnnotationMirror mapping = findAnnotation(method, REQUEST_MAPPING);
+            if (mapping != null) {
+                for (AnnotationValue value : getValues(mapping, "method")) {
+                    requestMethods.add(((VariableElement) value.getValue()).getSimpleName().toString());
+                }
+            } else {
+                for (String[] methodMapping : METHOD_MAPPINGS) {
+                    mapping = findAnnotation(method, methodMapping[0]);
+                    if (mapping != null) {
+                        requestMethods.add(methodMapping[1]);
+                        break;
+                    }
+                }
+            }
+            if (mapping == null) {
+                continue;
+            }
+
+            List<RouteDefinition.ParameterDefinition> parameters = getParameters(method);
+            List<String> paths = getPaths(mapping);
+            for (String prefix : prefixes) {
+                for (String path : paths.isEmpty() ? Collections.singletonList("") : paths) {
+                    if (prefix.isEmpty() && path.isEmpty()) {
+                        continue;
+                    }
+                    routes.add(new RouteDefinition(getBinaryName(controller), method.getSimpleName().toString(),
+                            requestMethods, prefix + path, parameters));
+                }
+            }
+        }
+        return routes;
+    }
+
+    private List<RouteDefinition.ParameterDefinition> getParameters(ExecutableElement method) {
+        List<RouteDefinition.ParameterDefinition> parameters = new ArrayList<>();
+        for (VariableElement parameter : method.getParameters()) {
+            String annotationName = null;
+            for (AnnotationMirror annotation : parameter.getAnnotationMirrors()) {
+                String name = getBinaryName((TypeElement) annotation.getAnnotationType().asElement());
+                if (PARAMETER_ANNOTATIONS.contains(name)) {
+                    annotationName = name;
+                    break;
+                }
+            }
+            parameters.add(new RouteDefinition.ParameterDefinition(parameter.getSimpleName().toString(),
+                    getTypeName(parameter.asType()), annotationName));
+        }
+        return parameters;
+    }
+
+    private AnnotationMirror findAnnotation(Element element, String annotationName) {
+        for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            if (getBinaryName((TypeElement) annotation.getAnnotationType().asElement()).equals(annotationName)) {
+                return annotation;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the paths of a mapping annotation, value and path are aliases.
+     */
+    private List<String> getPaths(AnnotationMirror mapping) {
+        List<String> paths = new ArrayList<>();
+        if (mapping != null) {
+            for (AnnotationValue value : getValues(mapping, "value")) {
+                paths.add((String) value.getValue());
+            }
+            for (AnnotationValue value : getValues(mapping, "path")) {
+                paths.add((String) value.getValue());
+            }
+        }
+        return paths;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<AnnotationValue> getValues(AnnotationMirror annotation, String name) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry :
+                annotation.getElementValues().entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(name)) {
+                Object value = entry.getValue().getValue();
+                if (value instanceof List) {
+                    return (List<AnnotationValue>) value;
+                }
+                return Collections.singletonList(entry.getValue());
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * Returns the name of a type as accepted by Class.forName, or the name of a primitive type.
+     */
+    private String getTypeName(TypeMirror type) {
+        TypeMirror erasure = processingEnv.getTypeUtils().erasure(type);
+        if (erasure.getKind().isPrimitive()) {
+            return erasure.getKind().name().toLowerCase();
+        }
+        if (erasure.getKind() == TypeKind.ARRAY) {
+            return "[" + getDescriptor(((ArrayType) erasure).getComponentType());
+        }
+        return getBinaryName((TypeElement) processingEnv.getTypeUtils().asElement(erasure));
+    }
+
+    private String getDescriptor(TypeMirror type) {
+        switch (type.getKind()) {
+            case BOOLEAN: return "Z";
+            case BYTE: return "B";
+            case CHAR: return "C";
+            case SHORT: return "S";
+            case INT: return "I";
+            case LONG: return "J";
+            case FLOAT: return "F";
+            case DOUBLE: return "D";
+            case ARRAY: return "[" + getDescriptor(((ArrayType) type).getComponentType());
+            default: return "L" + getTypeName(type) + ";";
+        }
+    }
+
+    private String getBinaryName(TypeElement type) {
+        return processingEnv.getElementUtils().getBinaryName(type).toString();
+    }
+
+    private void writeIndex(String resourceName, Set<String> lines) {
+        Set<String> previousLines = readIndex(resourceName);
+        if (lines.isEmpty() && previousLines == null) {
+            return;
+        }
+        Set<String> indexLines = new LinkedHashSet<>();
+        if (previousLines != null) {
+            for (String line : previousLines) {
+                String className = getIndexedClassName(line);
+                if (!processedClasses.contains(className) && classExists(className)) {
+                    indexLines.add(line);
+                }
+            }
+        }
+        indexLines.addAll(lines);
+
+        try {
+            FileObject resource = processingEnv.getFiler().createResource(
+                    StandardLocation.CLASS_OUTPUT, "", resourceName);
+            try (Writer writer = new OutputStreamWriter(resource.openOutputStream(), StandardCharsets.UTF_8)) {
+                for (String line : indexLines) {
+                    writer.write(line);
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException ex) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Unable to write Transport index " + resourceName + ": " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Returns the lines of the index left in the class output by a previous compilation,
+     * null if there is none.
+     */
+    private Set<String> readIndex(String resourceName) {
+        try {
+            FileObject resource = processingEnv.getFiler().getResource(
+                    StandardLocation.CLASS_OUTPUT, "", resourceName);
+            Set<String> lines = new LinkedHashSet<>();
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(resource.openInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!line.isEmpty()) {
+                        lines.add(line);
+                    }
+                }
+            }
+            return lines;
+        } catch (IOException | IllegalArgumentException ex) {
+            // no previous index.
+            return null;
+        }
+    }
+
+    // the class name is the first field of the service and route lines.
+    private static String getIndexedClassName(String line) {
+        int end = line.indexOf('\t');
+        return end < 0 ? line : line.substring(0, end);
+    }
+
+    private boolean classExists(String binaryName) {
+        return processingEnv.getElementUtils().getTypeElement(binaryName.replace('$', '.')) != null;
+    }
+}
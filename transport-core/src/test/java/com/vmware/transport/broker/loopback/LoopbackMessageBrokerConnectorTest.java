@@ -0,0 +1,174 @@
+/*
+ * Copyright 2020 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ *
+ */
+package com.vmware.transport.broker.loopback;
+
+import com.vmware.transport.bus.EventBus;
+import com.vmware.transport.bus.StandaloneEventBus;
+import com.vmware.transport.bus.codec.PayloadCodecs;
+import com.vmware.transport.bus.model.Message;
+import com.vmware.transport.bus.model.MonitorObject;
+import com.vmware.transport.bus.model.MonitorType;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class LoopbackMessageBrokerConnectorTest {
+
+   private EventBus bus;
+   private LoopbackMessageBrokerConnector connector;
+
+   private List<Object> messages;
+   private List<Object> errors;
+
+   @Before
+   public void before() {
+      bus = new StandaloneEventBus();
+      connector = new LoopbackMessageBrokerConnector("loopback");
+      bus.registerMessageBroker(connector);
+      messages = Collections.synchronizedList(new ArrayList<>());
+      errors = Collections.synchronizedList(new ArrayList<>());
+   }
+
+   @After
+   public void after() {
+      bus.unregisterMessageBroker("loopback");
+   }
+
+   @Test
+   public void testLoopback() {
+      Assert.assertTrue(connector.isConnected());
+      Assert.assertTrue(bus.markChannelAsGalactic("channel1",
+            new LoopbackChannelConfig("loopback", "topic1")));
+
+      bus.listenStream("channel1", message -> messages.add(message.getPayload()),
+            error -> errors.add(error.getPayload()));
+      bus.listenStream("channel1", message -> messages.add(message.getPayload()));
+      Assert.assertEquals(1, connector.getSubscriptions("topic1").size());
+
+      bus.sendRequestMessage("channel1", "message-1");
+      Assert.assertEquals(List.of("message-1", "message-1"), messages);
+      Assert.assertEquals(1, connector.getMessagesSent());
+      Assert.assertEquals(1, connector.getMessagesDelivered());
+
+      connector.injectError("topic1", "broker-error");
+      Assert.assertEquals(List.of("broker-error"), errors);
+
+      bus.markChannelAsLocal("channel1");
+      Assert.assertEquals(0, connector.getSubscriptions("topic1").size());
+   }
+
+   @Test
+   public void testFailureInjection() {
+      bus.markChannelAsGalactic("channel1", new LoopbackChannelConfig("loopback", "topic1"));
+
+      List<MonitorObject> dropped = Collections.synchronizedList(new ArrayList<>());
+      bus.getApi().getMonitor().subscribe(message -> {
+         MonitorObject mo = (MonitorObject) message.getPayload();
+         if (mo.getType() == MonitorType.MonitorDropped) {
+            dropped.add(mo);
+         }
+      });
+
+      connector.failNextSends(2);
+      bus.sendRequestMessage("channel1", "message-1");
+      bus.sendRequestMessage("channel1", "message-2");
+      bus.sendRequestMessage("channel1", "message-3");
+      Assert.assertEquals(2, dropped.size());
+      Assert.assertEquals("message-1", ((Message) dropped.get(0).getData()).getPayload());
+      Assert.assertEquals(2, connector.getMessagesFailed());
+      Assert.assertEquals(1, connector.getMessagesSent());
+
+      connector.setSendFailureRate(1);
+      bus.sendRequestMessage("channel1", "message-4");
+      Assert.assertEquals(3, dropped.size());
+
+      connector.disconnectMessageBroker();
+      connector.setSendFailureRate(0);
+      bus.sendRequestMessage("channel1", "message-5");
+      Assert.assertEquals(4, dropped.size());
+   }
+
+   @Test
+   public void testLatencyAndCodec() throws Exception {
+      connector.setLatencyMillis(20);
+      connector.setJitterMillis(10);
+      connector.setRandomSeed(1);
+      connector.setPayloadCodec(PayloadCodecs.JSON);
+
+      LoopbackChannelConfig config = new LoopbackChannelConfig("loopback", "topic1");
+      config.setOutboundQueueSize(100);
+      bus.markChannelAsGalactic("channel1", config);
+
+      CountDownLatch latch = new CountDownLatch(2);
+      bus.listenStream("channel1", message -> {
+         messages.add(message.getPayload());
+         latch.countDown();
+      });
+
+      long start = System.nanoTime();
+      bus.sendRequestMessage("channel1", Collections.singletonMap("key", "value-1"));
+      bus.sendRequestMessage("channel1", Collections.singletonMap("key", "value-2"));
+      Assert.assertTrue(messages.isEmpty());
+
+      Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+      Assert.assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(20));
+      Assert.assertEquals(2, messages.size());
+      Assert.assertTrue(messages.get(0) instanceof Map);
+      Assert.assertTrue(messages.contains(Collections.singletonMap("key", "value-1")));
+   }
+
+   @Test
+   public void testThroughputCap() {
+      connector.setMaxMessagesPerSecond(100);
+      LoopbackChannelConfig config = new LoopbackChannelConfig("loopback", "topic1");
+
+      long start = System.nanoTime();
+      for (int i = 0; i < 6; i++) {
+         Assert.assertTrue(connector.sendMessage(config, "message-" + i));
+      }
+      // The first message is accepted immediately, each following one 10ms later.
+      Assert.assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+      Assert.assertEquals(6, connector.getMessagesSent());
+   }
+
+   @Test
+   public void testInboundCredits() throws Exception {
+      LoopbackChannelConfig config = new LoopbackChannelConfig("loopback", "topic1");
+      config.setInboundCredits(2);
+      bus.markChannelAsGalactic("channel1", config);
+
+      CountDownLatch release = new CountDownLatch(1);
+      CountDownLatch received = new CountDownLatch(5);
+      bus.listenStream("channel1", message -> {
+         release.await();
+         messages.add(message.getPayload());
+         received.countDown();
+      });
+      LoopbackSubscription subscription = connector.getSubscriptions("topic1").get(0);
+
+      for (int i = 1; i <= 5; i++) {
+         connector.sendMessage(config, "message-" + i);
+      }
+      // the local listener is blocked, so all credits are in use and the remaining
+      // messages wait in the broker.
+      Assert.assertTrue(subscription.isPaused());
+      Assert.assertEquals(3, subscription.getBacklogSize());
+
+      release.countDown();
+      Assert.assertTrue(received.await(5, TimeUnit.SECONDS));
+      Assert.assertEquals(List.of("message-1", "message-2", "message-3", "message-4", "message-5"), messages);
+      Assert.assertEquals(0, subscription.getBacklogSize());
+      Assert.assertFalse(subscription.isPaused());
+   }
+}
@@ -24,7 +24,7 @@ public class BusHandlerTransactionTest {
 
     @Before
     public void setUp() throws Exception {
-        this.bus = new EventBusImpl();
+        this.bus = new StandaloneEventBus();
     }
 
     @Test
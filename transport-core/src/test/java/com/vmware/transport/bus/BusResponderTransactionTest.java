@@ -22,7 +22,7 @@ public class BusResponderTransactionTest {
 
     @Before
     public void setUp() throws Exception {
-        this.bus = new EventBusImpl();
+        this.bus = new StandaloneEventBus();
     }
 
     @Test
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2020 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ *
+ */
+package com.vmware.transport.bus;
+
+import com.vmware.transport.broker.GalacticMessageHandler;
+import com.vmware.transport.broker.MessageBrokerConnector;
+import com.vmware.transport.broker.MessageBrokerSubscription;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+@SuppressWarnings("unchecked")
+public class GalacticFlowControllerTest {
+
+    private ExecutorService executor;
+    private MessageBrokerConnector connector;
+    private List<Object> received;
+    private List<Object> dropped;
+
+    @Before
+    public void before() {
+        executor = Executors.newSingleThreadExecutor();
+        connector = mock(MessageBrokerConnector.class);
+        received = Collections.synchronizedList(new ArrayList<>());
+        dropped = Collections.synchronizedList(new ArrayList<>());
+    }
+
+    @After
+    public void after() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testResumeDeliversFromAnotherThread() throws Exception {
+        CountDownLatch receivedLatch = new CountDownLatch(2);
+        GalacticFlowController controller = new GalacticFlowController(1, connector, executor,
+                handler(null, receivedLatch), dropped::add);
+
+        // the broker delivers a message from its own thread when the subscription is resumed,
+        // and waits for it to be accepted.
+        AtomicBoolean delivered = new AtomicBoolean();
+        AtomicBoolean resumed = new AtomicBoolean();
+        doAnswer(invocation -> {
+            if (resumed.compareAndSet(false, true)) {
+                Thread brokerThread = new Thread(() -> {
+                    controller.onMessage("message-2");
+                    delivered.set(true);
+                });
+                brokerThread.start();
+                brokerThread.join(2000);
+            }
+            return null;
+        }).when(connector).resumeSubscription(any());
+
+        controller.setSubscription(mock(MessageBrokerSubscription.class));
+        controller.onMessage("message-1");
+
+        Assert.assertTrue(receivedLatch.await(5, TimeUnit.SECONDS));
+        Assert.assertTrue(delivered.get());
+        Assert.assertEquals(List.of("message-1", "message-2"), received);
+        waitForPendingMessages(controller);
+    }
+
+    @Test
+    public void testDropWhenBrokerNotPaused() throws Exception {
+        // the default pauseSubscription of the mock does not stop the deliveries.
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch receivedLatch = new CountDownLatch(4);
+        GalacticFlowController controller = new GalacticFlowController(2, connector, executor,
+                handler(release, receivedLatch), dropped::add);
+        controller.setSubscription(mock(MessageBrokerSubscription.class));
+
+        for (int i = 1; i <= 10; i++) {
+            controller.onMessage("message-" + i);
+        }
+        Assert.assertEquals(4, controller.getPendingMessages());
+        Assert.assertEquals(List.of("message-5", "message-6", "message-7", "message-8", "message-9", "message-10"),
+                dropped);
+
+        release.countDown();
+        Assert.assertTrue(receivedLatch.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(List.of("message-1", "message-2", "message-3", "message-4"), received);
+    }
+
+    @Test
+    public void testHandlerException() throws Exception {
+        CountDownLatch receivedLatch = new CountDownLatch(1);
+        GalacticFlowController controller = new GalacticFlowController(1, connector, executor,
+                new GalacticMessageHandler() {
+                    @Override
+                    public void onMessage(Object message) {
+                        if ("message-1".equals(message)) {
+                            throw new IllegalStateException("listener failure");
+                        }
+                        received.add(message);
+                        receivedLatch.countDown();
+                    }
+
+                    @Override
+                    public void onError(Object error) {
+                    }
+                }, dropped::add);
+        controller.setSubscription(mock(MessageBrokerSubscription.class));
+
+        controller.onMessage("message-1");
+        waitForPendingMessages(controller);
+        // the credit of the failed message was returned and the channel keeps delivering.
+        controller.onMessage("message-2");
+        Assert.assertTrue(receivedLatch.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(List.of("message-2"), received);
+        waitForPendingMessages(controller);
+        Assert.assertTrue(dropped.isEmpty());
+    }
+
+    // the credit is returned once the handler returned.
+    private static void waitForPendingMessages(GalacticFlowController controller) throws InterruptedException {
+        for (int i = 0; i < 500 && controller.getPendingMessages() > 0; i++) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(0, controller.getPendingMessages());
+    }
+
+    private GalacticMessageHandler handler(CountDownLatch release, CountDownLatch receivedLatch) {
+        return new GalacticMessageHandler() {
+            @Override
+            public void onMessage(Object message) {
+                if (release != null) {
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                received.add(message);
+                receivedLatch.countDown();
+            }
+
+            @Override
+            public void onError(Object error) {
+            }
+        };
+    }
+}
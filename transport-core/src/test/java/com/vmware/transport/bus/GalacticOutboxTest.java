@@ -0,0 +1,249 @@
+/*
+ * Copyright 2020 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ *
+ */
+package com.vmware.transport.bus;
+
+import com.vmware.transport.broker.GalacticMessageHandler;
+import com.vmware.transport.broker.loopback.LoopbackChannelConfig;
+import com.vmware.transport.broker.loopback.LoopbackMessageBrokerConnector;
+import com.vmware.transport.bus.log.SegmentedLog;
+import com.vmware.transport.bus.model.Message;
+import com.vmware.transport.bus.model.MessageObject;
+import com.vmware.transport.bus.model.MessageType;
+import com.vmware.transport.bus.model.MonitorObject;
+import com.vmware.transport.bus.model.MonitorType;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class GalacticOutboxTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testAppendAndAck() throws Exception {
+        Path dir = folder.getRoot().toPath();
+        try (GalacticOutbox outbox = new GalacticOutbox(dir, 256, 4096)) {
+            Assert.assertTrue(outbox.isEmpty());
+            Assert.assertTrue(outbox.append(new MessageObject<>(MessageType.MessageTypeRequest, "message-1")));
+            Assert.assertTrue(outbox.append(new MessageObject<>(MessageType.MessageTypeRequest,
+                  Collections.singletonMap("key", "value"))));
+            Assert.assertEquals(2, outbox.size());
+
+            List<GalacticOutbox.Entry> entries = outbox.peek(10);
+            Assert.assertEquals(2, entries.size());
+            Assert.assertEquals("message-1", entries.get(0).payload);
+            Assert.assertEquals(Collections.singletonMap("key", "value"), entries.get(1).payload);
+
+            outbox.ack(entries.get(0).seq);
+            Assert.assertEquals(1, outbox.size());
+        }
+
+        // acknowledged messages are not replayed after a restart.
+        try (GalacticOutbox outbox = new GalacticOutbox(dir, 256, 4096)) {
+            Assert.assertEquals(1, outbox.size());
+            Assert.assertEquals(1, outbox.peek(10).get(0).seq);
+        }
+    }
+
+    @Test
+    public void testDiskBudget() throws Exception {
+        try (GalacticOutbox outbox = new GalacticOutbox(folder.getRoot().toPath(), 64, 128)) {
+            int stored = 0;
+            while (outbox.append(new MessageObject<>(MessageType.MessageTypeRequest, "message"))) {
+                stored++;
+            }
+            Assert.assertEquals(2, stored);
+        }
+    }
+
+    @Test
+    public void testReplayAfterReconnect() throws Exception {
+        EventBus bus = new StandaloneEventBus();
+        LoopbackMessageBrokerConnector connector = new LoopbackMessageBrokerConnector("loopback");
+        bus.registerMessageBroker(connector);
+
+        LoopbackChannelConfig config = new LoopbackChannelConfig("loopback", "topic1");
+        config.setOutboxDirectory(folder.getRoot().getAbsolutePath());
+        config.setOutboxRetryMillis(60000);
+        Assert.assertTrue(bus.markChannelAsGalactic("channel1", config));
+
+        List<Object> received = Collections.synchronizedList(new ArrayList<>());
+        connector.subscribeToChannel(config, new GalacticMessageHandler() {
+            @Override
+            public void onMessage(Object message) {
+                received.add(message);
+            }
+
+            @Override
+            public void onError(Object error) {
+            }
+        });
+
+        List<MonitorObject> dropped = Collections.synchronizedList(new ArrayList<>());
+        bus.getApi().getMonitor().subscribe(message -> {
+            MonitorObject mo = (MonitorObject) message.getPayload();
+            if (mo.getType() == MonitorType.MonitorDropped) {
+                dropped.add(mo);
+            }
+        });
+
+        bus.sendRequestMessage("channel1", "message-1");
+        bus.unregisterMessageBroker("loopback");
+        bus.sendRequestMessage("channel1", "message-2");
+        bus.sendRequestMessage("channel1", "message-3");
+        Assert.assertEquals(Collections.singletonList("message-1"), received);
+        Assert.assertTrue(dropped.isEmpty());
+
+        bus.registerMessageBroker(connector);
+        for (int i = 0; i < 500 && received.size() < 3; i++) {
+            Thread.sleep(10);
+        }
+        bus.sendRequestMessage("channel1", "message-4");
+        for (int i = 0; i < 500 && received.size() < 4; i++) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(List.of("message-1", "message-2", "message-3", "message-4"), received);
+        Assert.assertTrue(dropped.isEmpty());
+        Assert.assertTrue(bus.markChannelAsLocal("channel1"));
+    }
+
+    @Test
+    public void testQueuedMessagesAfterOutbox() throws Exception {
+        LoopbackChannelConfig config = new LoopbackChannelConfig("loopback", "topic1");
+        config.setOutboxDirectory(folder.getRoot().getAbsolutePath());
+        config.setOutboxSegmentSize(64 * 1024);
+        config.setOutboundQueueSize(100);
+
+        // messages stored by a previous run.
+        List<Object> expected = new ArrayList<>();
+        try (GalacticOutbox outbox = new GalacticOutbox(
+              SegmentedLog.getChannelDirectory(config.getOutboxDirectory(), "channel/1"),
+              config.getOutboxSegmentSize(), config.getOutboxMaxDiskSize())) {
+            for (int i = 0; i < 10; i++) {
+                Assert.assertTrue(outbox.append(new MessageObject<>(MessageType.MessageTypeRequest, "stored-" + i)));
+                expected.add("stored-" + i);
+            }
+        }
+
+        // the replay of the stored messages is blocked until the new message is sent.
+        CountDownLatch replayLatch = new CountDownLatch(1);
+        EventBus bus = new StandaloneEventBus();
+        LoopbackMessageBrokerConnector connector = new LoopbackMessageBrokerConnector("loopback") {
+            @Override
+            public boolean sendMessage(LoopbackChannelConfig channelConfig, Object payload) {
+                try {
+                    replayLatch.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.sendMessage(channelConfig, payload);
+            }
+        };
+        bus.registerMessageBroker(connector);
+        List<Object> received = Collections.synchronizedList(new ArrayList<>());
+        connector.subscribeToChannel(config, new GalacticMessageHandler() {
+            @Override
+            public void onMessage(Object message) {
+                received.add(message);
+            }
+
+            @Override
+            public void onError(Object error) {
+            }
+        });
+
+        // the queued messages are sent after the stored ones.
+        Assert.assertTrue(bus.markChannelAsGalactic("channel/1", config));
+        bus.sendRequestMessage("channel/1", "queued");
+        expected.add("queued");
+        // leave the outbound queue the time to send it if it was queued.
+        Thread.sleep(100);
+        replayLatch.countDown();
+        for (int i = 0; i < 500 && received.size() < expected.size(); i++) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(expected, received);
+        Assert.assertTrue(bus.markChannelAsLocal("channel/1"));
+    }
+
+    @Test
+    public void testQueuedMessagesAfterFailedBatch() throws Exception {
+        LoopbackChannelConfig config = new LoopbackChannelConfig("loopback", "topic1");
+        config.setOutboxDirectory(folder.getRoot().getAbsolutePath());
+        config.setOutboxSegmentSize(64 * 1024);
+        config.setOutboxRetryMillis(20);
+        config.setOutboundQueueSize(100);
+        config.setOutboundBatchSize(1);
+
+        // the first batch fails once the following messages are queued.
+        CompletableFuture<List<Boolean>> firstBatch = new CompletableFuture<>();
+        CountDownLatch firstBatchLatch = new CountDownLatch(1);
+        EventBus bus = new StandaloneEventBus();
+        LoopbackMessageBrokerConnector connector = new LoopbackMessageBrokerConnector("loopback") {
+            @Override
+            public CompletableFuture<List<Boolean>> sendMessagesAsync(
+                  LoopbackChannelConfig channelConfig, List<Message> messages) {
+                if (firstBatchLatch.getCount() > 0) {
+                    firstBatchLatch.countDown();
+                    return firstBatch;
+                }
+                return super.sendMessagesAsync(channelConfig, messages);
+            }
+        };
+        bus.registerMessageBroker(connector);
+        List<Object> received = Collections.synchronizedList(new ArrayList<>());
+        connector.subscribeToChannel(config, new GalacticMessageHandler() {
+            @Override
+            public void onMessage(Object message) {
+                received.add(message);
+            }
+
+            @Override
+            public void onError(Object error) {
+            }
+        });
+
+        Assert.assertTrue(bus.markChannelAsGalactic("channel1", config));
+        bus.sendRequestMessage("channel1", "message-1");
+        Assert.assertTrue(firstBatchLatch.await(5, TimeUnit.SECONDS));
+        List<Object> expected = new ArrayList<>(List.of("message-1"));
+        for (int i = 2; i <= 5; i++) {
+            bus.sendRequestMessage("channel1", "message-" + i);
+            expected.add("message-" + i);
+        }
+        firstBatch.completeExceptionally(new IOException("broker unavailable"));
+        bus.sendRequestMessage("channel1", "message-6");
+        expected.add("message-6");
+
+        for (int i = 0; i < 500 && received.size() < expected.size(); i++) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(expected, received);
+        Assert.assertTrue(bus.markChannelAsLocal("channel1"));
+    }
+
+    @Test
+    public void testChannelDirectory() {
+        String parent = folder.getRoot().getAbsolutePath();
+        Assert.assertNotEquals(SegmentedLog.getChannelDirectory(parent, "a/b"),
+              SegmentedLog.getChannelDirectory(parent, "a_b"));
+        Assert.assertNotEquals(SegmentedLog.getChannelDirectory(parent, "a b"),
+              SegmentedLog.getChannelDirectory(parent, "a+b"));
+        Assert.assertEquals("%2E.", SegmentedLog.getChannelDirectory(parent, "..").getFileName().toString());
+        Assert.assertEquals("%2A", SegmentedLog.getChannelDirectory(parent, "*").getFileName().toString());
+    }
+}
@@ -53,7 +53,7 @@ public class MessageHandlerImplTest {
     public void setUp() throws Exception {
         this.success = this.generateSuccess();
         this.error = this.generateError();
-        this.bus = new EventBusImpl();
+        this.bus = new StandaloneEventBus();
         this.logger = LoggerFactory.getLogger(this.getClass());
         this.successCount = 0;
         this.closeCount = 0;
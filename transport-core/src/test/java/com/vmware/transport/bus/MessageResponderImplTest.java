@@ -53,7 +53,7 @@ public class MessageResponderImplTest {
     @Before
     public void setUp() throws Exception {
         this.generate = this.generateResponse();
-        this.bus = new EventBusImpl();
+        this.bus = new StandaloneEventBus();
         this.logger = LoggerFactory.getLogger(this.getClass());
     }
 
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2020 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ *
+ */
+package com.vmware.transport.bus;
+
+import com.vmware.transport.bus.model.Message;
+import com.vmware.transport.bus.store.StoreManager;
+import com.vmware.transport.bus.store.model.BusStore;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class StandaloneEventBusTest {
+
+    private StandaloneEventBus bus;
+
+    @Before
+    public void before() {
+        this.bus = new StandaloneEventBus();
+        this.bus.setStoreManager(new StoreManager(this.bus));
+    }
+
+    @Test
+    public void testRequestResponse() {
+        bus.respondOnce("#standalone", request -> "response: " + request.getPayload());
+
+        List<Object> responses = new ArrayList<>();
+        bus.requestOnce("#standalone", "hello", message -> responses.add(message.getPayload()));
+        Assert.assertEquals(1, responses.size());
+        Assert.assertEquals("response: hello", responses.get(0));
+    }
+
+    @Test
+    public void testStoreManager() {
+        BusStore<String, String> store = bus.getStoreManager().createStore("standalone-store");
+        store.put("key", "value", null);
+        Assert.assertEquals("value", store.get("key"));
+    }
+
+    @Test
+    public void testStartWithChannelReaper() throws Exception {
+        bus.setChannelReaperIdleTimeout(1);
+        bus.setChannelReaperInterval(1);
+        bus.setChannelReaperBatchSize(10);
+        bus.getApi().getChannelObject("#unused", "test", true);
+        bus.start();
+        for (int i = 0; i < 500 && bus.getApi().getChannelMap().containsKey("#unused"); i++) {
+            Thread.sleep(2);
+        }
+        bus.getApi().disableChannelReaper();
+        Assert.assertFalse(bus.getApi().getChannelMap().containsKey("#unused"));
+    }
+}
@@ -33,9 +33,9 @@ public class TransactionImplTest {
 
     @Before
     public void before() throws Exception {
-        this.bus = new EventBusImpl();
+        this.bus = new StandaloneEventBus();
         this.storeManager = new StoreManager(this.bus);
-        ((EventBusImpl)this.bus).setStoreManager(this.storeManager);
+        ((StandaloneEventBus)this.bus).setStoreManager(this.storeManager);
         this.requestMessages = new ArrayList<>();
         this.channel = "local-channel";
         this.counter = 0;
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2020 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ *
+ */
+package com.vmware.transport.bus.codec;
+
+import com.vmware.transport.bus.store.model.TestStoreItem;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+public class PayloadCodecsTest {
+
+   @Test
+   public void testForContentType() {
+      Assert.assertSame(PayloadCodecs.JSON, PayloadCodecs.forContentType("application/json"));
+      Assert.assertSame(PayloadCodecs.JSON, PayloadCodecs.forContentType("Application/JSON;charset=UTF-8"));
+      Assert.assertSame(PayloadCodecs.SMILE, PayloadCodecs.forContentType("application/x-jackson-smile"));
+      Assert.assertSame(PayloadCodecs.CBOR, PayloadCodecs.forContentType("application/cbor"));
+      Assert.assertNull(PayloadCodecs.forContentType("text/plain"));
+      Assert.assertNull(PayloadCodecs.forContentType(null));
+   }
+
+   @Test
+   public void testRoundTrip() throws Exception {
+      TestStoreItem item = new TestStoreItem("item1", 5);
+      for (PayloadCodec codec : new PayloadCodec[] {
+            PayloadCodecs.JSON, PayloadCodecs.SMILE, PayloadCodecs.CBOR }) {
+
+         TestStoreItem decoded = codec.decode(codec.encode(item), TestStoreItem.class);
+         Assert.assertEquals(item, decoded);
+      }
+      Assert.assertEquals("\"test\"",
+            new String(PayloadCodecs.JSON.encode("test"), StandardCharsets.UTF_8));
+   }
+
+   @Test
+   public void testIsBinary() {
+      Assert.assertFalse(PayloadCodecs.JSON.isBinary());
+      Assert.assertTrue(PayloadCodecs.SMILE.isBinary());
+      Assert.assertTrue(PayloadCodecs.CBOR.isBinary());
+   }
+
+   @Test
+   public void testRegister() {
+      PayloadCodec codec = new JacksonPayloadCodec(
+            ((JacksonPayloadCodec) PayloadCodecs.JSON).getObjectMapper(), "application/x-test");
+      PayloadCodecs.register(codec);
+      Assert.assertSame(codec, PayloadCodecs.forContentType("application/x-test"));
+   }
+}
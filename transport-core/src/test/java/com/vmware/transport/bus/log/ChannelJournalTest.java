@@ -0,0 +1,184 @@
+/*
+ * Copyright 2020 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ *
+ */
+package com.vmware.transport.bus.log;
+
+import com.vmware.transport.bus.BusTransaction;
+import com.vmware.transport.bus.EventBus;
+import com.vmware.transport.bus.StandaloneEventBus;
+import com.vmware.transport.bus.model.Message;
+import com.vmware.transport.bus.model.MessageHeaders;
+import com.vmware.transport.bus.model.MessageObject;
+import com.vmware.transport.bus.model.MessageType;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ChannelJournalTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private EventBus bus;
+    private ChannelJournalConfig config;
+
+    @Before
+    public void before() {
+        bus = new StandaloneEventBus();
+        config = new ChannelJournalConfig(folder.getRoot().getAbsolutePath());
+    }
+
+    @Test
+    public void testListenFromOffset() {
+        Assert.assertNull(bus.listenStream("channel1", 0, message -> {}, null));
+        Assert.assertTrue(bus.enableChannelJournal("channel1", config));
+        Assert.assertFalse(bus.enableChannelJournal("channel1", config));
+
+        for (int i = 0; i < 5; i++) {
+            bus.sendResponseMessage("channel1", "message-" + i);
+        }
+        bus.sendErrorMessage("channel1", "error");
+        Assert.assertEquals(5, bus.getChannelJournal("channel1").getNextOffset());
+
+        List<Object> payloads = new ArrayList<>();
+        List<Object> offsets = new ArrayList<>();
+        List<Object> errors = new ArrayList<>();
+        BusTransaction transaction = bus.listenStream("channel1", 3, message -> {
+            payloads.add(message.getPayload());
+            offsets.add(message.getHeader(MessageHeaders.JOURNAL_OFFSET));
+        }, error -> errors.add(error.getPayload()));
+
+        Assert.assertEquals(List.of("message-3", "message-4"), payloads);
+
+        bus.sendResponseMessage("channel1", "message-5");
+        bus.sendErrorMessage("channel1", "error-2");
+        Assert.assertEquals(List.of("message-3", "message-4", "message-5"), payloads);
+        Assert.assertEquals(List.of(3L, 4L, 5L), offsets);
+        Assert.assertEquals(List.of("error-2"), errors);
+
+        transaction.unsubscribe();
+        Assert.assertFalse(transaction.isSubscribed());
+        bus.sendResponseMessage("channel1", "message-6");
+        Assert.assertEquals(3, payloads.size());
+
+        Assert.assertTrue(bus.disableChannelJournal("channel1"));
+        Assert.assertFalse(bus.disableChannelJournal("channel1"));
+
+        // the journal is kept on disk and the offsets continue after re-enabling it.
+        Assert.assertTrue(bus.enableChannelJournal("channel1", config));
+        Assert.assertEquals(7, bus.getChannelJournal("channel1").getNextOffset());
+        payloads.clear();
+        bus.listenStream("channel1", 0, message -> payloads.add(message.getPayload()), null);
+        Assert.assertEquals(7, payloads.size());
+        Assert.assertEquals("message-6", payloads.get(6));
+    }
+
+    @Test
+    public void testSizeRetention() throws Exception {
+        config.setSegmentSize(256);
+        config.setMaxSize(512);
+        try (ChannelJournal journal = new ChannelJournal("channel1", config)) {
+            for (int i = 0; i < 100; i++) {
+                Assert.assertEquals(i, journal.append(
+                      new MessageObject<>(MessageType.MessageTypeResponse, "message-" + i)));
+            }
+            Assert.assertTrue(journal.getFirstOffset() > 0);
+            List<Message> messages = journal.read(0, 1000);
+            Assert.assertEquals(100 - journal.getFirstOffset(), messages.size());
+            Assert.assertEquals("message-99", messages.get(messages.size() - 1).getPayload());
+        }
+    }
+
+    @Test
+    public void testTimeRetention() throws Exception {
+        config.setSegmentSize(256);
+        config.setMaxAgeMillis(50);
+        try (ChannelJournal journal = new ChannelJournal("channel1", config)) {
+            for (int i = 0; i < 20; i++) {
+                journal.append(new MessageObject<>(MessageType.MessageTypeResponse, "message-" + i));
+            }
+            Assert.assertEquals(0, journal.getFirstOffset());
+            Thread.sleep(100);
+            journal.applyRetention();
+            // only the active segment is kept.
+            Assert.assertTrue(journal.getFirstOffset() > 0);
+            Assert.assertEquals(20, journal.getNextOffset());
+        }
+    }
+
+    @Test
+    public void testConcurrentAppend() throws Exception {
+        config.setSegmentSize(1024 * 1024);
+        try (ChannelJournal journal = new ChannelJournal("channel1", config)) {
+            List<Long> offsets = Collections.synchronizedList(new ArrayList<>());
+            AtomicInteger delivering = new AtomicInteger();
+            AtomicBoolean concurrentDelivery = new AtomicBoolean();
+            journal.subscribe(0, message -> {
+                if (delivering.incrementAndGet() > 1) {
+                    concurrentDelivery.set(true);
+                }
+                offsets.add((Long) message.getHeader(MessageHeaders.JOURNAL_OFFSET));
+                delivering.decrementAndGet();
+            });
+
+            int threads = 8;
+            int messages = 250;
+            CyclicBarrier barrier = new CyclicBarrier(threads);
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    futures.add(executor.submit(() -> {
+                        barrier.await();
+                        for (int i = 0; i < messages; i++) {
+                            journal.append(new MessageObject<>(MessageType.MessageTypeResponse, i));
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get(30, TimeUnit.SECONDS);
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+
+            Assert.assertFalse(concurrentDelivery.get());
+            Assert.assertEquals(threads * messages, offsets.size());
+            for (int i = 0; i < offsets.size(); i++) {
+                Assert.assertEquals(Long.valueOf(i), offsets.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void testSparseIndex() throws Exception {
+        config.setSegmentSize(64 * 1024);
+        config.setIndexInterval(128);
+        try (ChannelJournal journal = new ChannelJournal("channel1", config)) {
+            for (int i = 0; i < 1000; i++) {
+                journal.append(new MessageObject<>(MessageType.MessageTypeResponse, i));
+            }
+            for (int offset : new int[] {0, 1, 77, 500, 999}) {
+                List<Message> messages = journal.read(offset, 2);
+                Assert.assertEquals(offset, messages.get(0).getPayload());
+                Assert.assertEquals((long) offset, messages.get(0).getHeader(MessageHeaders.JOURNAL_OFFSET));
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2020 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ *
+ */
+package com.vmware.transport.bus.log;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class SegmentedLogTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testAppendAndRead() throws Exception {
+        Path dir = folder.getRoot().toPath();
+        try (SegmentedLog log = new SegmentedLog(dir, 128, 1024)) {
+            for (int i = 0; i < 10; i++) {
+                Assert.assertEquals(i, log.append(("record-" + i).getBytes()));
+            }
+            // records of 32 bytes (24 bytes header + data), 3 records per segment.
+            Assert.assertEquals(4, log.getSegmentCount());
+            Assert.assertEquals(4 * 128, log.getSizeOnDisk());
+            Assert.assertEquals(10, log.getNextSeq());
+
+            List<SegmentedLog.LogRecord> records = log.read(2, 5);
+            Assert.assertEquals(5, records.size());
+            for (int i = 0; i < 5; i++) {
+                Assert.assertEquals(i + 2, records.get(i).getSeq());
+                Assert.assertEquals("record-" + (i + 2), new String(records.get(i).getData()));
+            }
+            Assert.assertEquals(0, log.read(10, 5).size());
+        }
+    }
+
+    @Test
+    public void testDeleteSegmentsAndMaxSize() throws Exception {
+        Path dir = folder.getRoot().toPath();
+        try (SegmentedLog log = new SegmentedLog(dir, 128, 256)) {
+            for (int i = 0; i < 6; i++) {
+                Assert.assertEquals(i, log.append(("record-" + i).getBytes()));
+            }
+            // the disk budget allows only two segments.
+            Assert.assertEquals(-1, log.append("record-6".getBytes()));
+
+            Assert.assertEquals(0, log.deleteSegmentsBefore(2));
+            Assert.assertEquals(1, log.deleteSegmentsBefore(3));
+            Assert.assertEquals(3, log.getFirstSeq());
+            Assert.assertEquals(6, log.append("record-6".getBytes()));
+
+            // the active segment is never deleted.
+            Assert.assertEquals(1, log.deleteSegmentsBefore(100));
+            Assert.assertEquals(1, log.getSegmentCount());
+            Assert.assertEquals(6, log.read(0, 10).get(0).getSeq());
+        }
+    }
+
+    @Test
+    public void testRecover() throws Exception {
+        Path dir = folder.getRoot().toPath();
+        try (SegmentedLog log = new SegmentedLog(dir, 128, 1024)) {
+            for (int i = 0; i < 5; i++) {
+                log.append(("record-" + i).getBytes());
+            }
+        }
+
+        // corrupt the data of the last record.
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(dir)) {
+            files = stream.sorted().collect(Collectors.toList());
+        }
+        try (FileChannel channel = FileChannel.open(files.get(1), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] {'X'}), 32 + 24);
+        }
+
+        try (SegmentedLog log = new SegmentedLog(dir, 128, 1024)) {
+            Assert.assertEquals(4, log.getNextSeq());
+            Assert.assertEquals(4, log.read(0, 10).size());
+            Assert.assertEquals(4, log.append("record-4".getBytes()));
+            Assert.assertEquals("record-4", new String(log.read(4, 1).get(0).getData()));
+        }
+    }
+}
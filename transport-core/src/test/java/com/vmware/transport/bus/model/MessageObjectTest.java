@@ -0,0 +1,167 @@
+/*
+ * Copyright 2017-2020 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ *
+ */
+package com.vmware.transport.bus.model;
+
+import com.vmware.transport.bus.codec.PayloadCodec;
+import com.vmware.transport.bus.codec.PayloadCodecs;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class MessageObjectTest {
+
+    @Test
+    public void createBasicMessage() {
+
+        MessageObject<String> messageObject = new MessageObject<>(MessageType.MessageTypeRequest, "#test-me");
+        Assert.assertEquals(String.class, messageObject.getPayloadClass());
+        Assert.assertEquals("#test-me", messageObject.getPayload());
+
+        MessageObject<Channel> messageObject2 = new MessageObject<>(MessageType.MessageTypeRequest, new Channel("#magic-shoes"));
+        Assert.assertEquals(Channel.class, messageObject2.getPayloadClass());
+        Assert.assertEquals("#magic-shoes", messageObject2.getPayload().getName());
+    }
+
+    @Test
+    public void testMessageProperties() {
+        MessageObject messageObject = new MessageObject(MessageType.MessageTypeRequest, "park life");
+        Assert.assertEquals(String.class, messageObject.getPayloadClass());
+        Assert.assertNotEquals(Integer.class, messageObject.getPayloadClass());
+        Assert.assertEquals("park life", messageObject.toString());
+
+        messageObject.setPayload(new Long(1234567));
+        messageObject.setPayloadClass(Long.class);
+
+        Assert.assertNotEquals(String.class, messageObject.getPayloadClass());
+        Assert.assertEquals(Long.class, messageObject.getPayloadClass());
+        Assert.assertEquals(MessageType.MessageTypeRequest, messageObject.getType());
+
+        messageObject.setType(MessageType.MessageTypeResponse);
+
+        Assert.assertEquals(MessageType.MessageTypeResponse, messageObject.getType());
+
+    }
+
+    @Test
+    public void testEncodedPayload() throws Exception {
+        AtomicInteger encodeCalls = new AtomicInteger(0);
+        PayloadCodec codec = new PayloadCodec() {
+            @Override
+            public String getContentType() {
+                return "application/x-test";
+            }
+
+            @Override
+            public byte[] encode(Object payload) {
+                encodeCalls.incrementAndGet();
+                return payload.toString().getBytes();
+            }
+
+            @Override
+            public <T> T decode(byte[] data, Class<T> type) {
+                return null;
+            }
+        };
+
+        MessageObject<Object> messageObject = new MessageObject<>(
+              MessageType.MessageTypeResponse, Collections.singletonMap("key", "value"));
+
+        byte[] encoded = messageObject.getEncodedPayload(codec);
+        Assert.assertSame(encoded, messageObject.getEncodedPayload(codec));
+        Assert.assertEquals(1, encodeCalls.get());
+
+        Assert.assertEquals("{\"key\":\"value\"}", messageObject.getPayloadAsString());
+        Assert.assertSame(messageObject.getEncodedPayload(PayloadCodecs.JSON),
+              messageObject.getEncodedPayload(PayloadCodecs.JSON));
+
+        // verify that changing the payload invalidates the encoded forms.
+        messageObject.setPayload("new-payload");
+        Assert.assertEquals("new-payload", new String(messageObject.getEncodedPayload(codec)));
+        Assert.assertEquals(2, encodeCalls.get());
+        Assert.assertEquals("new-payload", messageObject.getPayloadAsString());
+    }
+
+    @Test
+    public void testDefaultEncodedPayload() throws Exception {
+        // other Message implementations encode the payload on each call.
+        Message<Object> message = new PlainMessage(Collections.singletonMap("key", "value"));
+
+        byte[] encoded = message.getEncodedPayload(PayloadCodecs.JSON);
+        Assert.assertEquals("{\"key\":\"value\"}", new String(encoded, StandardCharsets.UTF_8));
+        Assert.assertNotSame(encoded, message.getEncodedPayload(PayloadCodecs.JSON));
+    }
+
+    /**
+     * Message implemented outside of the library, without getEncodedPayload.
+     */
+    private static class PlainMessage implements Message<Object> {
+        private Object payload;
+
+        PlainMessage(Object payload) {
+            this.payload = payload;
+        }
+
+        public void setTargetUser(String targetUser) {
+        }
+
+        public String getTargetUser() {
+            return null;
+        }
+
+        public void setPayload(Object payload) {
+            this.payload = payload;
+        }
+
+        public Object getPayload() {
+            return payload;
+        }
+
+        public String getPayloadAsString() {
+            return payload.toString();
+        }
+
+        public void setPayloadClass(Class<Object> payloadClass) {
+        }
+
+        public Class<Object> getPayloadClass() {
+            return Object.class;
+        }
+
+        public boolean isRequest() {
+            return false;
+        }
+
+        public boolean isResponse() {
+            return true;
+        }
+
+        public boolean isError() {
+            return false;
+        }
+
+        public UUID getId() {
+            return null;
+        }
+
+        public void setId(UUID id) {
+        }
+
+        public void setHeaders(MessageHeaders headers) {
+        }
+
+        public MessageHeaders getHeaders() {
+            return null;
+        }
+
+        public Object getHeader(String headerName) {
+            return null;
+        }
+    }
+}
@@ -12,10 +12,11 @@ public class MonitorTypeTest {
 
     @Test
     public void testModel() {
-        Assert.assertEquals(9, MonitorType.values().length);
+        Assert.assertEquals(11, MonitorType.values().length);
         Assert.assertEquals(MonitorType.valueOf("MonitorCloseChannel"), MonitorType.MonitorCloseChannel);
         Assert.assertEquals(MonitorType.valueOf("MonitorCompleteChannel"), MonitorType.MonitorCompleteChannel);
         Assert.assertEquals(MonitorType.valueOf("MonitorDestroyChannel"), MonitorType.MonitorDestroyChannel);
+        Assert.assertEquals(MonitorType.valueOf("MonitorEvictChannel"), MonitorType.MonitorEvictChannel);
         Assert.assertEquals(MonitorType.valueOf("MonitorNewChannel"), MonitorType.MonitorNewChannel);
         Assert.assertEquals(MonitorType.valueOf("MonitorData"), MonitorType.MonitorData);
         Assert.assertEquals(MonitorType.valueOf("MonitorError"), MonitorType.MonitorError);
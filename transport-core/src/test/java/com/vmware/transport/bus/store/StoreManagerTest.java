@@ -6,7 +6,7 @@
 package com.vmware.transport.bus.store;
 
 import com.vmware.transport.bus.EventBus;
-import com.vmware.transport.bus.EventBusImpl;
+import com.vmware.transport.bus.StandaloneEventBus;
 import com.vmware.transport.bus.store.model.BusStore;
 import com.vmware.transport.bus.store.model.TestStoreItem;
 import org.junit.Assert;
@@ -24,7 +24,7 @@ public class StoreManagerTest {
 
    @Before
    public void before() throws Exception {
-      this.eventBus = new EventBusImpl();
+      this.eventBus = new StandaloneEventBus();
       storeManager = new StoreManager(eventBus);
       storeItem = new TestStoreItem("item1", 0);
    }
@@ -7,7 +7,7 @@
 package com.vmware.transport.bus.store.model;
 
 import com.vmware.transport.bus.EventBus;
-import com.vmware.transport.bus.EventBusImpl;
+import com.vmware.transport.bus.StandaloneEventBus;
 import io.reactivex.functions.BiConsumer;
 import io.reactivex.functions.Consumer;
 import org.junit.Assert;
@@ -40,7 +40,7 @@ public class BusStoreImplTest {
 
    @Before
    public void before() throws Exception {
-      this.eventBus = new EventBusImpl();
+      this.eventBus = new StandaloneEventBus();
       store = new BusStoreImpl<>(eventBus, "testStore");
       this.whenReadyCalls = 0;
       this.allStoreEvents = 0;
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2020 VMware, Inc.
+ * SPDX-License-Identifier: BSD-2-Clause
+ *
+ */
+package com.vmware.transport.core.index;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class TransportIndexProcessorTest {
+
+    private static final String WEB = "org.springframework.web.bind.annotation";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testServicesIndex() throws Exception {
+        TransportIndex index = compile(
+                source("com.vmware.transport.bridge.spring", "TransportService",
+                        "@java.lang.annotation.Inherited @java.lang.annotation.Retention(" +
+                        "java.lang.annotation.RetentionPolicy.RUNTIME) public @interface TransportService {}"),
+                source("test", "AbstractTestService",
+                        "@com.vmware.transport.bridge.spring.TransportService " +
+                        "public abstract class AbstractTestService {}"),
+                source("test", "InheritedService", "public class InheritedService extends AbstractTestService {}"),
+                source("test", "AnnotatedService",
+                        "@com.vmware.transport.bridge.spring.TransportService public class AnnotatedService {" +
+                        "  @com.vmware.transport.bridge.spring.TransportService public static class Nested {} }"),
+                source("test", "PlainClass", "public class PlainClass {}"));
+
+        List<String> services = new ArrayList<>(index.getServiceClassNames());
+        Collections.sort(services);
+        Assert.assertEquals(Arrays.asList("test.AnnotatedService", "test.AnnotatedService$Nested",
+                "test.InheritedService"), services);
+        Assert.assertTrue(index.getRoutes().isEmpty());
+    }
+
+    @Test
+    public void testIncrementalIndex() throws Exception {
+        String service = "@com.vmware.transport.bridge.spring.TransportService ";
+        File output = folder.newFolder();
+        compile(output,
+                source("com.vmware.transport.bridge.spring", "TransportService",
+                        "@java.lang.annotation.Retention(java.lang.annotation.RetentionPolicy.RUNTIME) " +
+                        "public @interface TransportService {}"),
+                source("test", "ServiceA", service + "public class ServiceA {}"),
+                source("test", "ServiceB", service + "public class ServiceB {}"),
+                source("test", "ServiceC", service + "public class ServiceC {}"));
+
+        // ServiceB is deleted, ServiceA is no longer a service, ServiceC is not compiled again.
+        Assert.assertTrue(new File(output, "test/ServiceB.class").delete());
+        TransportIndex index = compile(output,
+                source("test", "ServiceA", "public class ServiceA {}"),
+                source("test", "ServiceD", service + "public class ServiceD {}"));
+
+        Assert.assertEquals(Arrays.asList("test.ServiceC", "test.ServiceD"), index.getServiceClassNames());
+    }
+
+    @Test
+    public void testRoutesIndex() throws Exception {
+        TransportIndex index = compile(webAnnotations(
+                source("test", "TestController",
+                        "import " + WEB + ".*;" +
+                        "@RestController @RequestMapping(\"/api\") public class TestController {" +
+                        "  @GetMapping(\"/items/{id}\") public String getItem(@PathVariable String id," +
+                        "      @RequestParam(value = \"q\", required = false) Integer query) { return id; }" +
+                        "  @RequestMapping(path = {\"/a\", \"/b\"}, method = {RequestMethod.POST, RequestMethod.PUT})" +
+                        "  public void update(@RequestBody java.util.List<String> items, byte[] data, int[][] grid) {}" +
+                        "  @RequestMapping(\"/any\") public void any() {}" +
+                        "  public void notMapped() {}" +
+                        "}")));
+
+        List<RouteDefinition> routes = index.getRoutes();
+        Assert.assertEquals(4, routes.size());
+
+        RouteDefinition route = routes.get(0);
+        Assert.assertEquals("test.TestController", route.getControllerClassName());
+        Assert.assertEquals("getItem", route.getMethodName());
+        Assert.assertEquals(Collections.singletonList("GET"), route.getRequestMethods());
+        Assert.assertEquals("/api/items/{id}", route.getPath());
+        Assert.assertEquals(2, route.getParameters().size());
+        Assert.assertEquals("id", route.getParameters().get(0).getName());
+        Assert.assertEquals("java.lang.String", route.getParameters().get(0).getTypeName());
+        Assert.assertEquals(WEB + ".PathVariable", route.getParameters().get(0).getAnnotationTypeName());
+        Assert.assertEquals("query", route.getParameters().get(1).getName());
+        Assert.assertEquals("java.lang.Integer", route.getParameters().get(1).getTypeName());
+        Assert.assertEquals(WEB + ".RequestParam", route.getParameters().get(1).getAnnotationTypeName());
+
+        Assert.assertEquals("/api/a", routes.get(1).getPath());
+        Assert.assertEquals("/api/b", routes.get(2).getPath());
+        route = routes.get(1);
+        Assert.assertEquals(Arrays.asList("POST", "PUT"), route.getRequestMethods());
+        Assert.assertEquals("java.util.List", route.getParameters().get(0).getTypeName());
+        Assert.assertEquals(WEB + ".RequestBody", route.getParameters().get(0).getAnnotationTypeName());
+        Assert.assertEquals("[B", route.getParameters().get(1).getTypeName());
+        Assert.assertNull(route.getParameters().get(1).getAnnotationTypeName());
+        Assert.assertEquals("[[I", route.getParameters().get(2).getTypeName());
+
+        route = routes.get(3);
+        Assert.assertEquals("/api/any", route.getPath());
+        Assert.assertTrue(route.getRequestMethods().isEmpty());
+        Assert.assertTrue(route.getParameters().isEmpty());
+    }
+
+    @Test
+    public void testRouteIndexLine() {
+        RouteDefinition route = new RouteDefinition("test.Controller", "method", Arrays.asList("GET", "POST"),
+                "/path/{id}", Arrays.asList(
+                        new RouteDefinition.ParameterDefinition("id", "java.util.UUID", WEB + ".PathVariable"),
+                        new RouteDefinition.ParameterDefinition("body", "java.lang.String", null)));
+
+        RouteDefinition parsed = RouteDefinition.fromIndexLine(route.toIndexLine());
+        Assert.assertEquals(route.toIndexLine(), parsed.toIndexLine());
+        Assert.assertEquals(Arrays.asList("GET", "POST"), parsed.getRequestMethods());
+        Assert.assertNull(parsed.getParameters().get(1).getAnnotationTypeName());
+
+        try {
+            RouteDefinition.fromIndexLine("test.Controller\tmethod");
+            Assert.fail();
+        } catch (IllegalArgumentException ex) {
+            Assert.assertTrue(ex.getMessage().startsWith("Invalid route definition"));
+        }
+    }
+
+    private TransportIndex compile(JavaFileObject... sources) throws Exception {
+        File output = folder.newFolder();
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        JavaCompiler.CompilationTask task = compiler.getTask(null, null, null,
+                Arrays.asList("-d", output.getAbsolutePath(), "-proc:only"), null, Arrays.asList(sources));
+        task.setProcessors(Collections.singletonList(new TransportIndexProcessor()));
+        Assert.assertTrue(task.call());
+
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{ output.toURI().toURL() }, null)) {
+            return TransportIndex.load(classLoader);
+        }
+    }
+
+    /**
+     * Compiles the sources to a class output already containing the classes of a previous compilation.
+     */
+    private TransportIndex compile(File output, JavaFileObject... sources) throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        JavaCompiler.CompilationTask task = compiler.getTask(null, null, null,
+                Arrays.asList("-d", output.getAbsolutePath(), "-cp", output.getAbsolutePath()),
+                null, Arrays.asList(sources));
+        task.setProcessors(Collections.singletonList(new TransportIndexProcessor()));
+        Assert.assertTrue(task.call());
+
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{ output.toURI().toURL() }, null)) {
+            return TransportIndex.load(classLoader);
+        }
+    }
+
+    private JavaFileObject[] webAnnotations(JavaFileObject... sources) {
+        List<JavaFileObject> files = new ArrayList<>(Arrays.asList(sources));
+        files.add(source(WEB, "RestController", "public @interface RestController {}"));
+        files.add(source(WEB, "RequestMethod", "public enum RequestMethod { GET, POST, PUT, PATCH, DELETE }"));
+        files.add(source(WEB, "RequestMapping", "public @interface RequestMapping {" +
+                " String[] value() default {}; String[] path() default {}; RequestMethod[] method() default {}; }"));
+        files.add(source(WEB, "GetMapping", "public @interface GetMapping { String[] value() default {}; }"));
+        files.add(source(WEB, "PathVariable", "public @interface PathVariable {}"));
+        files.add(source(WEB, "RequestBody", "public @interface RequestBody {}"));
+        files.add(source(WEB, "RequestParam", "public @interface RequestParam {" +
+                " String value() default \"\"; boolean required() default true; }"));
+        return files.toArray(new JavaFileObject[0]);
+    }
+
+    private static JavaFileObject source(String packageName, String className, String body) {
+        String code = "package " + packageName + "; " + body;
+        return new SimpleJavaFileObject(URI.create("string:///" + packageName.replace('.', '/') + "/" +
+                className + JavaFileObject.Kind.SOURCE.extension), JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return code;
+            }
+        };
+    }
+}